@@ -455,4 +455,123 @@ public class ImportUtilTest extends IntegrationTestBase {
         }
     }
 
+    @Test
+    public void importFile_ignoresRepeatedUniqueValues_when_linesHaveDifferentKeys()
+        throws DotSecurityException, DotDataException, IOException {
+
+        long time = System.currentTimeMillis();
+        ContentType type = ContentTypeBuilder.builder(BaseContentType.getContentTypeClass(BaseContentType.CONTENT.getType()))
+            .description("description" + time).folder(FolderAPI.SYSTEM_FOLDER).host(Host.SYSTEM_HOST)
+            .name("ContentTypeTestingWithFields" + time).owner("owner").variable("velocityVarNameTesting" + time)
+            .build();
+
+        type = contentTypeApi.save(type);
+
+        try {
+            com.dotcms.contenttype.model.field.Field keyField =
+                FieldBuilder.builder(TextField.class).name("testKey").variable("testKey")
+                    .contentTypeId(type.id()).dataType(DataTypes.TEXT).indexed(true).build();
+            com.dotcms.contenttype.model.field.Field titleField =
+                FieldBuilder.builder(TextField.class).name("testTitle").variable("testTitle").unique(true)
+                    .contentTypeId(type.id()).dataType(DataTypes.TEXT).build();
+            com.dotcms.contenttype.model.field.Field hostField =
+                FieldBuilder.builder(HostFolderField.class).name("testHost").variable("testHost")
+                    .contentTypeId(type.id()).dataType(DataTypes.TEXT).build();
+            keyField = fieldAPI.save(keyField, user);
+            fieldAPI.save(titleField, user);
+            fieldAPI.save(hostField, user);
+
+            //Lines with different keys go to different workers, the repeated values are found while reading the file
+            Reader reader = createTempFile("testKey, testTitle, testHost" + "\r\n" +
+                "key1, Title1, " + defaultSite.getIdentifier() + "\r\n" +
+                "key2, Title2, " + defaultSite.getIdentifier() + "\r\n" +
+                "key3, Title1, " + defaultSite.getIdentifier() + "\r\n" +
+                "key4, Title3, " + defaultSite.getIdentifier() + "\r\n" +
+                "key5, Title2, " + defaultSite.getIdentifier() + "\r\n");
+            CsvReader csvreader = new CsvReader(reader);
+            csvreader.setSafetySwitch(false);
+            String[] csvHeaders = csvreader.getHeaders();
+
+            //Preview=false
+            HashMap<String, List<String>> results = ImportUtil.importFile(0L, defaultSite.getInode(), type.inode(),
+                new String[]{keyField.id()}, false, false, user, defaultLanguage.getId(), csvHeaders, csvreader, -1, -1, reader);
+            //Validations
+            validate(results, false, false, true);
+
+            List<String> warnings = results.get("warnings");
+            assertTrue(warnings.contains("Line-- 4 contains-duplicate-values-for-structure-unique-field testTitle and-will-be-ignored"));
+            assertTrue(warnings.contains("Line-- 6 contains-duplicate-values-for-structure-unique-field testTitle and-will-be-ignored"));
+
+            List<Contentlet> savedData = APILocator.getContentletAPI().findByStructure(type.inode(), user, false, 0, 0);
+            assertEquals(3, savedData.size());
+        } finally {
+            contentTypeApi.delete(type);
+        }
+    }
+
+    @Test
+    public void importFile_appliesLinesWithTheSameKeyInFileOrder()
+        throws DotSecurityException, DotDataException, IOException {
+
+        long time = System.currentTimeMillis();
+        ContentType type = ContentTypeBuilder.builder(BaseContentType.getContentTypeClass(BaseContentType.CONTENT.getType()))
+            .description("description" + time).folder(FolderAPI.SYSTEM_FOLDER).host(Host.SYSTEM_HOST)
+            .name("ContentTypeTestingWithFields" + time).owner("owner").variable("velocityVarNameTesting" + time)
+            .build();
+
+        type = contentTypeApi.save(type);
+
+        try {
+            com.dotcms.contenttype.model.field.Field keyField =
+                FieldBuilder.builder(TextField.class).name("testKey").variable("testKey")
+                    .contentTypeId(type.id()).dataType(DataTypes.TEXT).indexed(true).build();
+            com.dotcms.contenttype.model.field.Field valueField =
+                FieldBuilder.builder(TextField.class).name("testValue").variable("testValue")
+                    .contentTypeId(type.id()).dataType(DataTypes.TEXT).build();
+            com.dotcms.contenttype.model.field.Field hostField =
+                FieldBuilder.builder(HostFolderField.class).name("testHost").variable("testHost")
+                    .contentTypeId(type.id()).dataType(DataTypes.TEXT).build();
+            keyField = fieldAPI.save(keyField, user);
+            fieldAPI.save(valueField, user);
+            fieldAPI.save(hostField, user);
+
+            //Enough keys for every worker, each one updated several times
+            final int keys = 20;
+            final int updates = 5;
+            StringBuilder csv = new StringBuilder("testKey, testValue, testHost\r\n");
+            for (int update = 0; update < updates; update++) {
+                for (int key = 0; key < keys; key++) {
+                    csv.append("key").append(key).append(", value").append(update).append(", ")
+                        .append(defaultSite.getIdentifier()).append("\r\n");
+                }
+            }
+            Reader reader = createTempFile(csv.toString());
+            CsvReader csvreader = new CsvReader(reader);
+            csvreader.setSafetySwitch(false);
+            String[] csvHeaders = csvreader.getHeaders();
+
+            //Preview=false
+            HashMap<String, List<String>> results = ImportUtil.importFile(0L, defaultSite.getInode(), type.inode(),
+                new String[]{keyField.id()}, false, false, user, defaultLanguage.getId(), csvHeaders, csvreader, -1, -1, reader);
+            //Validations
+            assertTrue(results.get("errors").isEmpty());
+
+            //One content per key, with the value of the last line of its key
+            List<Contentlet> savedData = APILocator.getContentletAPI().findByStructure(type.inode(), user, false, 0, 0);
+            assertEquals(keys, savedData.size());
+            String lastKeyInode = null;
+            for (Contentlet content : savedData) {
+                assertEquals("value" + (updates - 1), content.getStringProperty("testValue"));
+                if (("key" + (keys - 1)).equals(content.getStringProperty("testKey"))) {
+                    lastKeyInode = content.getInode();
+                }
+            }
+
+            //The last inode is the one of the last line of the file, whatever the worker that finished last
+            assertEquals(lastKeyInode, results.get("lastInode").get(0));
+        } finally {
+            contentTypeApi.delete(type);
+        }
+    }
+
 }
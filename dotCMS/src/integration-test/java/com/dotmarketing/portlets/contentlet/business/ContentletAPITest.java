@@ -377,6 +377,13 @@ public class ContentletAPITest extends ContentletBaseTest {
 
         //Validations
         assertTrue( foundContentlets != null && !foundContentlets.isEmpty() );
+
+        //In the same order a search returns them
+        List<ContentletSearch> searched = contentletAPI.searchIndex( "+conHost:" + defaultHost.getIdentifier() + " +working:true", -1, 0, null, user, false );
+        assertEquals( searched.size(), foundContentlets.size() );
+        for ( int i = 0; i < searched.size(); i++ ) {
+            assertEquals( searched.get( i ).getInode(), foundContentlets.get( i ).getInode() );
+        }
     }
 
     /**
@@ -639,6 +646,43 @@ public class ContentletAPITest extends ContentletBaseTest {
         assertTrue( foundContentlets != null && !foundContentlets.isEmpty() );
     }
 
+    /**
+     * Testing {@link ContentletAPI#scroll(String, int, com.liferay.portal.model.User, boolean, ContentletPageHandler)}
+     *
+     * @throws com.dotmarketing.exception.DotDataException
+     *
+     * @throws com.dotmarketing.exception.DotSecurityException
+     *
+     * @see ContentletAPI
+     * @see Contentlet
+     */
+    @Test
+    public void scroll () throws DotDataException, DotSecurityException {
+
+        //Getting a known contentlet
+        Contentlet contentlet = contentlets.iterator().next();
+
+        //Create the lucene query
+        String luceneQuery = "+structureinode:" + contentlet.getStructureInode() + " +deleted:false";
+
+        //Scroll the contentlets in small pages
+        final List<String> scrolled = new ArrayList<String>();
+        int count = contentletAPI.scroll( luceneQuery, 1, user, false, page -> {
+            for ( Contentlet found : page ) {
+                scrolled.add( found.getInode() );
+            }
+            return true;
+        } );
+
+        //Validations
+        List<ContentletSearch> foundContentlets = contentletAPI.searchIndex( luceneQuery, -1, 0, null, user, false );
+        assertEquals( foundContentlets.size(), count );
+        assertEquals( foundContentlets.size(), scrolled.size() );
+        for ( ContentletSearch found : foundContentlets ) {
+            assertTrue( scrolled.contains( found.getInode() ) );
+        }
+    }
+
     /**
      * Testing {@link ContentletAPI#publishRelatedHtmlPages(com.dotmarketing.portlets.contentlet.model.Contentlet)}
      *
@@ -0,0 +1,133 @@
+package com.dotcms.api.system.event;
+
+import com.dotcms.concurrent.DotConcurrentFactory;
+import com.dotcms.concurrent.DotSubmitter;
+import com.dotcms.util.marshal.MarshalFactory;
+import com.dotcms.util.marshal.MarshalUtils;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.business.cache.transport.CacheTransport;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UtilMethods;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link SystemEventBus} that sends the events to the other nodes through
+ * the cluster transport used by the cache invalidations (JGroups or
+ * Hazelcast). Each event is a single message with the following format:
+ * <p>
+ * {@code SYSTEM_EVENT|<server id>|<event id>|<event type>|<created>|<payload>}
+ * </p>
+ * Messages sent by this node are ignored when the transport echoes them
+ * back, as the local listeners already got the event when it was published.
+ *
+ * @author dotCMS
+ */
+public class ClusterSystemEventBus implements SystemEventBus {
+
+	public static final String MESSAGE_PREFIX = "SYSTEM_EVENT";
+	private static final String SEPARATOR = "|";
+	private static final int MESSAGE_PARTS = 6;
+
+	private final List<SystemEventListener> listeners = new CopyOnWriteArrayList<>();
+	private final MarshalUtils marshalUtils = MarshalFactory.getInstance().getMarshalUtils();
+	private volatile String serverId;
+
+	@Override
+	public void subscribe(final SystemEventListener listener) {
+		this.listeners.add(listener);
+	}
+
+	@Override
+	public void publish(final SystemEvent event) {
+		this.deliver(event);
+		this.send(event);
+	}
+
+	@Override
+	public boolean receive(final String message) {
+		if (null == message || !message.startsWith(MESSAGE_PREFIX + SEPARATOR)) {
+			return false;
+		}
+		try {
+			final String[] parts = message.split("\\" + SEPARATOR, MESSAGE_PARTS);
+			if (parts.length < MESSAGE_PARTS) {
+				Logger.warn(this, "Invalid System Event message received from the cluster: " + message);
+				return true;
+			}
+			if (parts[1].equals(this.getServerId())) {
+				return true;
+			}
+			final SystemEvent event = new SystemEvent(UtilMethods.isSet(parts[2]) ? parts[2] : null,
+					SystemEventType.valueOf(parts[3]), this.marshalUtils.unmarshal(parts[5], Payload.class),
+					new Date(Long.parseLong(parts[4])));
+			this.deliver(event);
+		} catch (Exception e) {
+			Logger.error(this, "Unable to handle the System Event received from the cluster: " + e.getMessage(), e);
+		}
+		return true;
+	}
+
+	/**
+	 * Sends the event to the rest of the nodes. Errors are only logged, the
+	 * event is already in the database so clients can still get it from
+	 * there.
+	 */
+	private void send(final SystemEvent event) {
+		final CacheTransport transport = CacheLocator.getCacheAdministrator().getTransport();
+		if (null == transport) {
+			return;
+		}
+		final StringBuilder message = new StringBuilder(MESSAGE_PREFIX).append(SEPARATOR)
+				.append(this.getServerId()).append(SEPARATOR)
+				.append(null != event.getId() ? event.getId() : "").append(SEPARATOR)
+				.append(event.getEventType().name()).append(SEPARATOR)
+				.append(event.getCreationDate().getTime()).append(SEPARATOR)
+				.append(this.marshalUtils.marshal(event.getPayload()));
+		try {
+			transport.send(message.toString());
+		} catch (Exception e) {
+			Logger.debug(this, "Unable to send the System Event " + event.getEventType() + " to the cluster: "
+					+ e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Hands the event to the local listeners in the events thread pool, so
+	 * neither the thread pushing the event nor the one receiving the cluster
+	 * messages wait for them.
+	 */
+	private void deliver(final SystemEvent event) {
+		if (this.listeners.isEmpty()) {
+			return;
+		}
+		final Runnable delivery = () -> {
+			for (SystemEventListener listener : this.listeners) {
+				try {
+					listener.onEvent(event);
+				} catch (Exception e) {
+					Logger.error(ClusterSystemEventBus.class, "An error occurred when delivering the System Event "
+							+ event.getEventType() + " to " + listener + ": " + e.getMessage(), e);
+				}
+			}
+		};
+		final DotSubmitter submitter = DotConcurrentFactory.getInstance()
+				.getSubmitter(SystemEventsFactory.EVENTS_THREAD_POOL_SUBMITTER_NAME);
+		if (null == submitter) {
+			delivery.run();
+		} else {
+			submitter.execute(delivery);
+		}
+	}
+
+	private String getServerId() {
+		if (null == this.serverId) {
+			this.serverId = APILocator.getServerAPI().readServerId();
+		}
+		return this.serverId;
+	}
+
+}
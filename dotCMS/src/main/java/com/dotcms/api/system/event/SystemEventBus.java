@@ -0,0 +1,45 @@
+package com.dotcms.api.system.event;
+
+/**
+ * Delivers the System Events to the listeners of every node as soon as they
+ * are pushed, instead of each node polling the {@code system_event} table.
+ * The table is still written, but only to let clients that were
+ * disconnected (e.g., the long polling REST clients) catch up on the events
+ * they missed.
+ * <p>
+ * The implementation is set via the {@code SYSTEM_EVENT_BUS_CLASS}
+ * property, it defaults to {@link ClusterSystemEventBus}.
+ * </p>
+ *
+ * @author dotCMS
+ */
+public interface SystemEventBus {
+
+	/**
+	 * Registers a listener for all the events pushed from now on.
+	 *
+	 * @param listener
+	 *            - The {@link SystemEventListener}.
+	 */
+	void subscribe(SystemEventListener listener);
+
+	/**
+	 * Delivers an event pushed in this node to the local listeners and to the
+	 * rest of the nodes of the cluster.
+	 *
+	 * @param event
+	 *            - The {@link SystemEvent} that has been pushed.
+	 */
+	void publish(SystemEvent event);
+
+	/**
+	 * Handles a message received from the cluster transport.
+	 *
+	 * @param message
+	 *            - The message, as sent by another node.
+	 * @return {@code true} if the message was a System Event and has been
+	 *         handled, {@code false} otherwise.
+	 */
+	boolean receive(String message);
+
+}
@@ -0,0 +1,21 @@
+package com.dotcms.api.system.event;
+
+/**
+ * Receives the {@link SystemEvent}s delivered by the {@link SystemEventBus}, no matter whether
+ * they were pushed in this node or in another node of the cluster.
+ *
+ * @author dotCMS
+ */
+public interface SystemEventListener {
+
+	/**
+	 * Called once for every event. It is called from the events thread pool,
+	 * so implementations must not assume they run in the thread that pushed
+	 * the event.
+	 *
+	 * @param event
+	 *            - The {@link SystemEvent}.
+	 */
+	void onEvent(SystemEvent event);
+
+}
@@ -6,13 +6,17 @@ import com.dotcms.concurrent.DotConcurrentFactory;
 import com.dotcms.concurrent.DotSubmitter;
 import com.dotcms.notifications.bean.Notification;
 import com.dotcms.util.ConversionUtils;
+import com.dotcms.util.ReflectionUtils;
 import com.dotcms.util.marshal.MarshalFactory;
 import com.dotcms.util.marshal.MarshalUtils;
 import com.dotmarketing.common.db.DotConnect;
 import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.DotRunnable;
 import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.db.WriteBehindBuffer;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotHibernateException;
+import com.dotmarketing.util.Config;
 import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.UUIDGenerator;
 import com.dotmarketing.util.UtilMethods;
@@ -37,8 +41,11 @@ import java.util.Map;
 public class SystemEventsFactory implements Serializable {
 
 	public static final String EVENTS_THREAD_POOL_SUBMITTER_NAME = "events";
+	public static final String SYSTEM_EVENTS_PUSH_ENABLED = "SYSTEM_EVENTS_PUSH_ENABLED";
 	private final DotSubmitter dotSubmitter		  = DotConcurrentFactory.getInstance().getSubmitter(EVENTS_THREAD_POOL_SUBMITTER_NAME);
 	private final SystemEventsDAO systemEventsDAO = new SystemEventsDAOImpl();
+	private final SystemEventBus systemEventBus   = createSystemEventBus();
+	private final boolean pushEnabled             = Config.getBooleanProperty(SYSTEM_EVENTS_PUSH_ENABLED, true);
 	private final SystemEventsAPI systemEventsAPI = new SystemEventsAPIImpl();
 
 
@@ -84,6 +91,37 @@ public class SystemEventsFactory implements Serializable {
 		return this.dotSubmitter;
 	}
 
+	/**
+	 * Returns the bus that delivers the events to the listeners of every
+	 * node of the cluster.
+	 * 
+	 * @return The {@link SystemEventBus} instance.
+	 */
+	public SystemEventBus getSystemEventBus() {
+		return this.systemEventBus;
+	}
+
+	/**
+	 * Returns whether the events are delivered through the
+	 * {@link SystemEventBus}. When disabled, each node polls the
+	 * {@code system_event} table instead.
+	 * 
+	 * @return {@code true} if the events are pushed to the listeners.
+	 */
+	public boolean isPushEnabled() {
+		return this.pushEnabled;
+	}
+
+	private SystemEventBus createSystemEventBus() {
+		final String busClass = Config.getStringProperty("SYSTEM_EVENT_BUS_CLASS", ClusterSystemEventBus.class.getName());
+		final SystemEventBus bus = (SystemEventBus) ReflectionUtils.newInstance(busClass);
+		if (null == bus) {
+			Logger.error(this, "The System Event bus " + busClass + " could not be created, using the default one");
+			return new ClusterSystemEventBus();
+		}
+		return bus;
+	}
+
 	/**
 	 * Returns a singleton instance of the System Events API.
 	 * 
@@ -106,6 +144,7 @@ public class SystemEventsFactory implements Serializable {
 		private final ConversionUtils conversionUtils = ConversionUtils.INSTANCE;
 		private final DotSubmitter dotSubmitter = getDotSubmitter();
 		private SystemEventsDAO systemEventsDAO = getSystemEventsDAO();
+		private final SystemEventBus systemEventBus = getSystemEventBus();
 		private MarshalUtils marshalUtils = MarshalFactory.getInstance().getMarshalUtils();
 
 		/**
@@ -139,6 +178,16 @@ public class SystemEventsFactory implements Serializable {
 				this.systemEventsDAO.add(new SystemEventDTO(systemEvent.getId(), systemEvent.getEventType().name(),
 						this.marshalUtils.marshal(systemEvent.getPayload()), systemEvent.getCreationDate().getTime()));
 
+				if (isPushEnabled()) {
+					// Listeners get the event once it is committed, the same moment it becomes visible in the table
+					HibernateUtil.addCommitListener(new DotRunnable() {
+						@Override
+						public void run() {
+							systemEventBus.publish(systemEvent);
+						}
+					});
+				}
+
 				//Everything ok..., committing the transaction
 				if ( localTransaction ) {
 					HibernateUtil.commitTransaction();
@@ -379,18 +428,15 @@ public class SystemEventsFactory implements Serializable {
 
 		@Override
 		public void add(final SystemEventDTO systemEvent) throws DotDataException {
-			final DotConnect dc = new DotConnect();
-			dc.setSQL("INSERT INTO system_event (identifier, event_type, payload, created) VALUES (?, ?, ?, ?)");
 			final String id = (!UtilMethods.isSet(systemEvent.getId())) ? UUIDGenerator.generateUuid() : systemEvent.getId();
-			dc.addParam(id);
-			dc.addParam(systemEvent.getEventType());
-			dc.addParam(systemEvent.getPayload());
-			dc.addParam(systemEvent.getCreationDate());
-			dc.loadResult();
+			// batched with the other events of the transaction and written before it commits
+			WriteBehindBuffer.add("INSERT INTO system_event (identifier, event_type, payload, created) VALUES (?, ?, ?, ?)",
+					id, systemEvent.getEventType(), systemEvent.getPayload(), systemEvent.getCreationDate());
 		}
 
 		@Override
 		public Collection<SystemEventDTO> getEventsSince(final long fromDate) throws DotDataException {
+			WriteBehindBuffer.flush();
 			final DotConnect dc = new DotConnect();
 			dc.setSQL("SELECT identifier, event_type, payload, created FROM system_event WHERE created >= ? order by created");
 			dc.addParam(fromDate);
@@ -402,6 +448,7 @@ public class SystemEventsFactory implements Serializable {
 
 		@Override
 		public Collection<SystemEventDTO> getAll() throws DotDataException {
+			WriteBehindBuffer.flush();
 			final DotConnect dc = new DotConnect();
 			dc.setSQL("SELECT identifier, event_type, payload, created FROM system_event");
 			final List<Map<String, Object>> systemEvents = dc.loadObjectResults();
@@ -412,6 +459,7 @@ public class SystemEventsFactory implements Serializable {
 
 		@Override
 		public void deleteEvents(final long toDate) throws DotDataException {
+			WriteBehindBuffer.flush();
 			final DotConnect dc = new DotConnect();
 			dc.setSQL("DELETE FROM system_event WHERE created <= ?");
 			dc.addParam(toDate);
@@ -420,6 +468,7 @@ public class SystemEventsFactory implements Serializable {
 
 		@Override
 		public void deleteEvents(long fromDate, long toDate) throws DotDataException {
+			WriteBehindBuffer.flush();
 			final DotConnect dc = new DotConnect();
 			dc.setSQL("DELETE FROM system_event WHERE created >= ? AND created <= ?");
 			dc.addParam(fromDate);
@@ -429,6 +478,7 @@ public class SystemEventsFactory implements Serializable {
 
 		@Override
 		public void deleteAll() throws DotDataException {
+			WriteBehindBuffer.flush();
 			final DotConnect dc = new DotConnect();
 			dc.setSQL("DELETE FROM system_event");
 			dc.loadResult();
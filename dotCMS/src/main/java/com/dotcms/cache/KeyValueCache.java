@@ -1,6 +1,7 @@
 package com.dotcms.cache;
 
 import java.util.List;
+import java.util.Map;
 
 import com.dotcms.keyvalue.model.KeyValue;
 import com.dotmarketing.business.Cachable;
@@ -97,6 +98,37 @@ public interface KeyValueCache extends Cachable {
      */
     public KeyValue getByLanguageAndContentType(final String key, final long languageId, final String contentTypeId);
 
+    /**
+     * Returns the number of times the Language Variables have been removed from this cache. It must
+     * be read before the variables are loaded, and passed to
+     * {@link #putLanguageVariables(long, Map, long)}.
+     * 
+     * @return The current generation of the Language Variables.
+     */
+    public long getLanguageVariablesGeneration();
+
+    /**
+     * Adds/replaces the values of all the Language Variables of a language, by key, unless a Language
+     * Variable was removed since the given generation was read, in which case the values may be
+     * stale and are not kept.
+     * 
+     * @param languageId - The ID of the language of the variables.
+     * @param languageVariables - The immutable map of keys to values.
+     * @param generation - The {@link #getLanguageVariablesGeneration()} read before the values
+     *        were loaded.
+     * @return {@code true} if the values were added, {@code false} if they were discarded.
+     */
+    public boolean putLanguageVariables(final long languageId, final Map<String, String> languageVariables,
+                    final long generation);
+
+    /**
+     * Retrieves the values of all the Language Variables of a language, by key.
+     * 
+     * @param languageId - The ID of the language of the variables.
+     * @return The immutable map of keys to values, or {@code null} if it has not been loaded.
+     */
+    public Map<String, String> getLanguageVariables(final long languageId);
+
     /**
      * Removes all entries from every group of this cache structure.
      */
@@ -117,7 +149,8 @@ public interface KeyValueCache extends Cachable {
     public void remove(final String keyValueId);
 
     /**
-     * Removes the specified {@link Contentlet} content from the cache.
+     * Removes the specified {@link Contentlet} content from the cache, along with the Language
+     * Variables of its language.
      * Contentlet must have a key field.
      *
      * @param contentlet - The Key/Value content to remove.
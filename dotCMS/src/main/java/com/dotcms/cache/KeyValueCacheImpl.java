@@ -2,9 +2,11 @@ package com.dotcms.cache;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.dotcms.contenttype.model.type.KeyValueContentType;
 import com.dotcms.keyvalue.model.KeyValue;
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
 import static com.dotcms.util.CollectionsUtils.*;
 
 import com.dotmarketing.business.CacheLocator;
@@ -23,6 +25,8 @@ import com.dotmarketing.util.Logger;
  * Content Type ID.</li>
  * <li>{@code BY_LANGUAGE_CONTENT_TYPE_GROUP}: Holds the single Key/Value content that match a given
  * key, language ID, and Content Type ID.</li>
+ * <li>{@code LANGUAGE_VARIABLES_GROUP}: Holds the values of all the Language Variables of a
+ * language, by key.</li>
  * </ol>
  * 
  * @author Jose Castro
@@ -33,18 +37,28 @@ import com.dotmarketing.util.Logger;
 public class KeyValueCacheImpl implements KeyValueCache {
 
     private final DotCacheAdministrator cache;
+    // bumped on every removal of Language Variables, so a map loaded before it is not put back
+    private final AtomicLong languageVariablesGeneration = new AtomicLong();
+    private final Object languageVariablesLock = new Object();
 
     private static final String PRIMARY_GROUP = "KeyValueCache";
     private static final String BY_LANGUAGE_GROUP = "KeyValueCacheByLanguage";
     private static final String BY_CONTENT_TYPE_GROUP = "KeyValueCacheByContentType";
     private static final String BY_LANGUAGE_CONTENT_TYPE_GROUP = "KeyValueCacheByLanguageContentType";
-    private static final String[] GROUP_NAMES = {PRIMARY_GROUP, BY_LANGUAGE_GROUP, BY_LANGUAGE_CONTENT_TYPE_GROUP};
+    private static final String LANGUAGE_VARIABLES_GROUP = "KeyValueCacheLanguageVariables";
+    private static final String[] GROUP_NAMES = {PRIMARY_GROUP, BY_LANGUAGE_GROUP, BY_LANGUAGE_CONTENT_TYPE_GROUP,
+                    LANGUAGE_VARIABLES_GROUP};
 
     /**
      * Creates a new instance of the {@link KeyValueCache}.
      */
     public KeyValueCacheImpl() {
-        this.cache = CacheLocator.getCacheAdministrator();
+        this(CacheLocator.getCacheAdministrator());
+    }
+
+    @VisibleForTesting
+    public KeyValueCacheImpl(final DotCacheAdministrator cache) {
+        this.cache = cache;
     }
 
     @Override
@@ -130,12 +144,46 @@ public class KeyValueCacheImpl implements KeyValueCache {
         return keyValue;
     }
 
+    @Override
+    public long getLanguageVariablesGeneration() {
+        return this.languageVariablesGeneration.get();
+    }
+
+    @Override
+    public boolean putLanguageVariables(final long languageId, final Map<String, String> languageVariables,
+                    final long generation) {
+        synchronized (this.languageVariablesLock) {
+            if (generation != this.languageVariablesGeneration.get()) {
+                return false;
+            }
+            this.cache.put(String.valueOf(languageId), languageVariables, LANGUAGE_VARIABLES_GROUP);
+            return true;
+        }
+    }
+
+    @Override
+    public Map<String, String> getLanguageVariables(final long languageId) {
+        try {
+            @SuppressWarnings("unchecked")
+            final Map<String, String> languageVariables =
+                            Map.class.cast(this.cache.get(String.valueOf(languageId), LANGUAGE_VARIABLES_GROUP));
+            return languageVariables;
+        } catch (DotCacheException e) {
+            Logger.debug(this, String.format("Language Variables of language %s were not found.", languageId), e);
+        }
+        return null;
+    }
+
     @Override
     public void clearCache() {
         this.cache.flushGroup(PRIMARY_GROUP);
         this.cache.flushGroup(BY_LANGUAGE_GROUP);
         this.cache.flushGroup(BY_CONTENT_TYPE_GROUP);
         this.cache.flushGroup(BY_LANGUAGE_CONTENT_TYPE_GROUP);
+        synchronized (this.languageVariablesLock) {
+            this.languageVariablesGeneration.incrementAndGet();
+            this.cache.flushGroup(LANGUAGE_VARIABLES_GROUP);
+        }
     }
 
     @Override
@@ -146,6 +194,16 @@ public class KeyValueCacheImpl implements KeyValueCache {
     @Override
     public void remove(final Contentlet contentlet) {
         remove(contentlet.getStringProperty(KeyValueContentType.KEY_VALUE_KEY_FIELD_VAR));
+        try {
+            // reloaded as a whole the next time a variable of the language is read
+            synchronized (this.languageVariablesLock) {
+                this.languageVariablesGeneration.incrementAndGet();
+                this.cache.remove(String.valueOf(contentlet.getLanguageId()), LANGUAGE_VARIABLES_GROUP);
+            }
+        } catch (Exception e) {
+            Logger.debug(this, String.format("Language Variables of language %s could not be removed.",
+                            contentlet.getLanguageId()), e);
+        }
     }
 
     @Override
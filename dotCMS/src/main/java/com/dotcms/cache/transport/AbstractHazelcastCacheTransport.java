@@ -1,5 +1,6 @@
 package com.dotcms.cache.transport;
 
+import com.dotcms.api.system.event.SystemEventsFactory;
 import com.dotcms.cluster.bean.Server;
 import com.dotcms.cluster.business.HazelcastUtil;
 import com.dotcms.cluster.business.HazelcastUtil.HazelcastInstanceType;
@@ -135,6 +136,8 @@ public abstract class AbstractHazelcastCacheTransport implements CacheTransport
             messages.reloadLocally();
         } else if ( msg.equals(ChainableCacheAdministratorImpl.DUMMY_TEXT_TO_SEND) ) {
             //Don't do anything is we are only checking sending.
+        } else if ( SystemEventsFactory.getInstance().getSystemEventBus().receive(msg) ) {
+            //System Event pushed by another node, already delivered to the local listeners.
         } else {
             CacheLocator.getCacheAdministrator().invalidateCacheMesageFromCluster(msg);
         }
@@ -0,0 +1,291 @@
+package com.dotcms.content.elasticsearch.business;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.dotcms.concurrent.DotConcurrentException;
+import com.dotcms.concurrent.DotConcurrentFactory;
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotcms.repackage.com.google.common.cache.Cache;
+import com.dotcms.repackage.com.google.common.cache.CacheBuilder;
+import com.dotcms.repackage.org.apache.commons.io.FileUtils;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.DotRunnable;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotHibernateException;
+import com.dotmarketing.exception.DotSecurityException;
+import com.dotmarketing.portlets.contentlet.business.BinaryBlobStore;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.portlets.fileassets.business.FileAssetAPI;
+import com.dotmarketing.portlets.structure.model.Field;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.InodeUtils;
+import com.dotmarketing.util.Logger;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Fills in the metadata of the binary of file assets. The metadata is kept by the hash of the
+ * binary, so the same file checked in again, copied or saved in a new version without changes is
+ * not parsed again. The hash is the one {@link BinaryBlobStore} names the stored binaries by, so a
+ * checkin hands over the hash the store already read instead of reading the binary once more.
+ *
+ * With {@code META_DATA_HASH_CACHE_SIZE=0} nothing is kept and the binary is not hashed at all, it
+ * is parsed on every checkin.
+ *
+ * Parsing a large PDF or Office file takes seconds. By default, {@code META_DATA_EXTRACT_ASYNC=false},
+ * it is done in the checkin, so the contentlet it returns has its metadata. With
+ * {@code META_DATA_EXTRACT_ASYNC=true} it is not done in the checkin: once the checkin is committed
+ * the inode is handed to the {@value #SUBMITTER_NAME} thread pool, which parses the binary, writes
+ * the metadata field alone and reindexes the content. When the pool is full the thread that committed does it. The contentlet
+ * returned by such a checkin has no metadata unless the same binary was parsed before.
+ *
+ * @author dotCMS
+ */
+class BinaryMetadataExtractor {
+
+    static final String SUBMITTER_NAME = "metadata";
+
+    private static final String RESOURCE_NAME = "resourceName";
+
+    private static final int HASH_CACHE_SIZE = Config.getIntProperty("META_DATA_HASH_CACHE_SIZE", 5000);
+
+    private static final Cache<String, ExtractedMetadata> metadataByHash = CacheBuilder.newBuilder()
+            .maximumSize(Math.max(0, HASH_CACHE_SIZE))
+            .build();
+
+    private final ESContentFactoryImpl conFac;
+    private final ContentletIndexAPI indexAPI;
+    private final Supplier<FileAssetAPI> fileAssetAPI;
+    // null when the metadata is not kept by hash
+    private final Cache<String, ExtractedMetadata> cache;
+    private final boolean async;
+
+    private static final class ExtractedMetadata {
+
+        private final String inode;
+        private final Map<String, String> metadata;
+        // whether the full text was written to the metadata file of the inode
+        private final boolean fullText;
+
+        private ExtractedMetadata(final String inode, final Map<String, String> metadata, final boolean fullText) {
+            this.inode = inode;
+            this.metadata = metadata;
+            this.fullText = fullText;
+        }
+    }
+
+    BinaryMetadataExtractor(final ESContentFactoryImpl conFac, final ContentletIndexAPI indexAPI) {
+        // the file asset API can't be loaded while the contentlet API is created
+        this(conFac, indexAPI, APILocator::getFileAssetAPI, HASH_CACHE_SIZE > 0 ? metadataByHash : null,
+                Config.getBooleanProperty("META_DATA_EXTRACT_ASYNC", false));
+    }
+
+    @VisibleForTesting
+    BinaryMetadataExtractor(final ESContentFactoryImpl conFac, final ContentletIndexAPI indexAPI,
+            final Supplier<FileAssetAPI> fileAssetAPI, final boolean async) {
+        this(conFac, indexAPI, fileAssetAPI, async, 100);
+    }
+
+    @VisibleForTesting
+    BinaryMetadataExtractor(final ESContentFactoryImpl conFac, final ContentletIndexAPI indexAPI,
+            final Supplier<FileAssetAPI> fileAssetAPI, final boolean async, final int cacheSize) {
+        this(conFac, indexAPI, fileAssetAPI,
+                cacheSize > 0 ? CacheBuilder.newBuilder().maximumSize(cacheSize).<String, ExtractedMetadata>build() : null, async);
+    }
+
+    private BinaryMetadataExtractor(final ESContentFactoryImpl conFac, final ContentletIndexAPI indexAPI,
+            final Supplier<FileAssetAPI> fileAssetAPI, final Cache<String, ExtractedMetadata> cache, final boolean async) {
+        this.conFac = conFac;
+        this.indexAPI = indexAPI;
+        this.fileAssetAPI = fileAssetAPI;
+        this.cache = cache;
+        this.async = async;
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Extracts the metadata of the contentlet once the current transaction is committed.
+     */
+    void extractAfterCommit(final String inode) throws DotHibernateException {
+        HibernateUtil.addCommitListener("metadata-" + inode, new DotRunnable() {
+            @Override
+            public void run() {
+                final Runnable extraction = new Runnable() {
+                    @Override
+                    public void run() {
+                        extractAndSave(inode);
+                    }
+                };
+                try {
+                    DotConcurrentFactory.getInstance().getSubmitter(SUBMITTER_NAME).execute(extraction);
+                } catch (DotConcurrentException e) {
+                    Logger.debug(BinaryMetadataExtractor.class, "Metadata queue is full, extracting " + inode + " in this thread");
+                    extraction.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the metadata of the binary, parsing it only when a binary with the same content was
+     * not parsed before.
+     */
+    Map<String, String> getMetaDataMap(final Contentlet contentlet, final File binFile) {
+        return getMetaDataMap(contentlet, binFile, null);
+    }
+
+    /**
+     * Same as {@link #getMetaDataMap(Contentlet, File)}, with the {@link BinaryBlobStore#hash(File)}
+     * of the binary when it is known already, null to read it from the binary.
+     */
+    Map<String, String> getMetaDataMap(final Contentlet contentlet, final File binFile, final String binaryHash) {
+        if (cache == null) {
+            // nothing to look up, so the binary is not read for the hash
+            return fileAssetAPI.get().getMetaDataMap(contentlet, binFile);
+        }
+        final String hash = binaryHash != null ? binaryHash : hashOrNull(binFile);
+        final Map<String, String> cached = getCachedMetaDataMap(hash, contentlet.getInode(), binFile);
+        if (cached != null) {
+            return cached;
+        }
+
+        final Map<String, String> metadata = fileAssetAPI.get().getMetaDataMap(contentlet, binFile);
+        if (hash != null && metadata != null) {
+            final boolean fullText = fileAssetAPI.get().getContentMetadataFile(contentlet.getInode()).exists();
+            cache.put(hash, new ExtractedMetadata(contentlet.getInode(), new HashMap<String, String>(metadata), fullText));
+        }
+        return metadata;
+    }
+
+    /**
+     * Returns the metadata of the binary when a binary with the same content was parsed before,
+     * null otherwise.
+     */
+    Map<String, String> getCachedMetaDataMap(final Contentlet contentlet, final File binFile) {
+        return getCachedMetaDataMap(contentlet, binFile, null);
+    }
+
+    /**
+     * Same as {@link #getCachedMetaDataMap(Contentlet, File)}, with the
+     * {@link BinaryBlobStore#hash(File)} of the binary when it is known already, null to read it
+     * from the binary.
+     */
+    Map<String, String> getCachedMetaDataMap(final Contentlet contentlet, final File binFile, final String binaryHash) {
+        if (cache == null) {
+            return null;
+        }
+        return getCachedMetaDataMap(binaryHash != null ? binaryHash : hashOrNull(binFile), contentlet.getInode(), binFile);
+    }
+
+    private Map<String, String> getCachedMetaDataMap(final String hash, final String inode, final File binFile) {
+        if (hash == null) {
+            return null;
+        }
+        final ExtractedMetadata extracted = cache.getIfPresent(hash);
+        return extracted != null ? reuse(extracted, inode, binFile) : null;
+    }
+
+    /**
+     * Copies the metadata parsed for another inode, along with its full text. Returns null when the
+     * full text can't be copied, so the binary is parsed again.
+     */
+    private Map<String, String> reuse(final ExtractedMetadata extracted, final String inode, final File binFile) {
+        if (extracted.fullText && !inode.equals(extracted.inode)) {
+            // the full text is kept in a file per inode
+            final File source = fileAssetAPI.get().getContentMetadataFile(extracted.inode);
+            final File target = fileAssetAPI.get().getContentMetadataFile(inode);
+            if (!target.exists()) {
+                if (!source.exists()) {
+                    Logger.debug(this, "The full text of " + extracted.inode + " is gone, parsing the binary of " + inode);
+                    return null;
+                }
+                try {
+                    FileUtils.copyFile(source, target);
+                } catch (IOException e) {
+                    Logger.warn(this, "Unable to copy the metadata of " + extracted.inode + " to " + inode + ": " + e.getMessage());
+                    return null;
+                }
+            }
+        }
+
+        final Map<String, String> metadata = new HashMap<String, String>(extracted.metadata);
+        if (metadata.containsKey(RESOURCE_NAME)) {
+            metadata.put(RESOURCE_NAME, binFile.getName());
+        }
+        return metadata;
+    }
+
+    private void extractAndSave(final String inode) {
+        try {
+            HibernateUtil.startTransaction();
+            extract(inode);
+            HibernateUtil.commitTransaction();
+        } catch (Exception e) {
+            Logger.error(this, "Unable to extract the metadata of " + inode + ": " + e.getMessage(), e);
+            try {
+                HibernateUtil.rollbackTransaction();
+            } catch (DotHibernateException rollbackException) {
+                Logger.warn(this, rollbackException.getMessage(), rollbackException);
+            }
+        } finally {
+            try {
+                HibernateUtil.closeSession();
+            } catch (DotHibernateException e) {
+                Logger.warn(this, e.getMessage(), e);
+            } finally {
+                DbConnectionFactory.closeConnection();
+            }
+        }
+    }
+
+    /**
+     * Parses the binary of the contentlet and writes its metadata field alone, so whatever else was
+     * changed in the contentlet since it was checked in is kept.
+     */
+    @VisibleForTesting
+    void extract(final String inode) throws DotDataException, DotSecurityException, IOException {
+        final Contentlet contentlet = conFac.find(inode);
+        if (contentlet == null || !InodeUtils.isSet(contentlet.getInode())) {
+            return;
+        }
+        final File binFile = contentlet.getBinary(FileAssetAPI.BINARY_FIELD);
+        if (binFile == null || !binFile.exists()) {
+            return;
+        }
+        final long lastModified = binFile.lastModified();
+
+        final Map<String, String> metadata = getMetaDataMap(contentlet, binFile);
+        if (metadata == null) {
+            return;
+        }
+        if (!binFile.exists() || binFile.lastModified() != lastModified) {
+            // the binary was replaced while it was parsed, the checkin that replaced it extracts it again
+            Logger.debug(this, "The binary of " + inode + " changed while it was parsed");
+            return;
+        }
+
+        final Field field = contentlet.getStructure().getFieldVar(FileAssetAPI.META_DATA_FIELD);
+        final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        conFac.saveField(inode, field.getFieldContentlet(), gson.toJson(metadata));
+        indexAPI.addContentToIndex(conFac.find(inode), false);
+    }
+
+    private String hashOrNull(final File binFile) {
+        try {
+            return BinaryBlobStore.hash(binFile);
+        } catch (IOException e) {
+            Logger.warn(this, "Unable to hash " + binFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+}
@@ -20,7 +20,9 @@ import org.elasticsearch.action.count.CountRequestBuilder;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -65,6 +67,7 @@ import com.dotmarketing.exception.DotSecurityException;
 import com.dotmarketing.factories.InodeFactory;
 import com.dotmarketing.portlets.contentlet.business.ContentletCache;
 import com.dotmarketing.portlets.contentlet.business.ContentletFactory;
+import com.dotmarketing.portlets.contentlet.business.ContentletPageHandler;
 import com.dotmarketing.portlets.contentlet.model.Contentlet;
 import com.dotmarketing.portlets.contentlet.model.ContentletVersionInfo;
 import com.dotmarketing.portlets.folders.model.Folder;
@@ -100,6 +103,7 @@ public class ESContentFactoryImpl extends ContentletFactory {
 
 	private static final Contentlet cache404Content= new Contentlet();
 	public static final String CACHE_404_CONTENTLET="CACHE_404_CONTENTLET";
+	private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(2);
 
 	/**
 	 * Default factory constructor that initializes the connection with the
@@ -124,6 +128,16 @@ public class ESContentFactoryImpl extends ContentletFactory {
 	    return m.get(fieldContentlet);
 	}
 
+	@Override
+	protected void saveField(String inode, String fieldContentlet, String value) throws DotDataException {
+	    DotConnect dc=new DotConnect();
+	    dc.setSQL("UPDATE contentlet SET "+fieldContentlet+"=? WHERE inode=?");
+	    dc.addParam(value);
+	    dc.addParam(inode);
+	    dc.loadResult();
+	    cc.remove(inode);
+	}
+
 	@Override
 	protected void cleanField(String structureInode, Field field) throws DotDataException, DotStateException, DotSecurityException {
 	    StringBuffer sql = new StringBuffer("update contentlet set " );
@@ -1293,56 +1307,7 @@ public class ESContentFactoryImpl extends ContentletFactory {
             if(offset>0)
                 srb.setFrom(offset);
 
-            if(UtilMethods.isSet(sortBy) ) {
-            	sortBy = sortBy.toLowerCase();
-            	if(sortBy.endsWith("-order")) {
-            	    // related content ordering
-            	    int ind0=sortBy.indexOf('-'); // relationships tipicaly have a format stname1-stname2
-            	    int ind1=ind0>0 ? sortBy.indexOf('-',ind0+1) : -1;
-            	    if(ind1>0) {
-            	        String relName=sortBy.substring(0, ind1);
-            	        if((ind1+1)<sortBy.length()) {
-                	        String identifier=sortBy.substring(ind1+1, sortBy.length()-6);
-                	        if(UtilMethods.isSet(identifier)) {
-                	            srb.addSort(SortBuilders.scriptSort("related", "number")
-                	                                    .lang("native")
-                	                                    .param("relName", relName)
-                	                                    .param("identifier", identifier)
-                	                                    .order(SortOrder.ASC));
-                	        }
-            	        }
-            	    }
-            	}
-            	else if(sortBy.startsWith("score")){
-            		String[] test = sortBy.split("\\s+");
-            		String defaultSecondarySort = "moddate";
-            		SortOrder defaultSecondardOrder = SortOrder.DESC;
-
-            		if(test.length>2){
-            			if(test[2].equalsIgnoreCase("desc"))
-            				defaultSecondardOrder = SortOrder.DESC;
-            			else
-            				defaultSecondardOrder = SortOrder.ASC;
-            		}
-            		if(test.length>1){
-            			defaultSecondarySort= test[1];
-            		}
-
-            		srb.addSort("_score", SortOrder.DESC);
-            		srb.addSort(defaultSecondarySort, defaultSecondardOrder);
-            	}
-            	else if(!sortBy.startsWith("undefined") && !sortBy.startsWith("undefined_dotraw") && !sortBy.equals("random")) {
-            		String[] sortbyArr=sortBy.split(",");
-	            	for (String sort : sortbyArr) {
-	            		String[] x=sort.trim().split(" ");
-	            		srb.addSort(SortBuilders.fieldSort(x[0].toLowerCase() + "_dotraw").order(x.length>1 && x[1].equalsIgnoreCase("desc") ?
-	                                SortOrder.DESC : SortOrder.ASC));
-
-					}
-            	}
-            }
-
-
+            addSort(srb, sortBy);
 
             try{
             	resp = srb.execute().actionGet();
@@ -1360,6 +1325,128 @@ public class ESContentFactoryImpl extends ContentletFactory {
 	    return resp.getHits();
 	}
 
+	/**
+	 * Adds the sort of the sortBy to the request: the related content order, the score, or a list of
+	 * fields. Random, undefined or no sortBy add nothing, so the hits come by relevance.
+	 */
+	private void addSort(SearchRequestBuilder srb, String sortBy) {
+        if(UtilMethods.isSet(sortBy) ) {
+        	sortBy = sortBy.toLowerCase();
+        	if(sortBy.endsWith("-order")) {
+        	    // related content ordering
+        	    int ind0=sortBy.indexOf('-'); // relationships tipicaly have a format stname1-stname2
+        	    int ind1=ind0>0 ? sortBy.indexOf('-',ind0+1) : -1;
+        	    if(ind1>0) {
+        	        String relName=sortBy.substring(0, ind1);
+        	        if((ind1+1)<sortBy.length()) {
+            	        String identifier=sortBy.substring(ind1+1, sortBy.length()-6);
+            	        if(UtilMethods.isSet(identifier)) {
+            	            srb.addSort(SortBuilders.scriptSort("related", "number")
+            	                                    .lang("native")
+            	                                    .param("relName", relName)
+            	                                    .param("identifier", identifier)
+            	                                    .order(SortOrder.ASC));
+            	        }
+        	        }
+        	    }
+        	}
+        	else if(sortBy.startsWith("score")){
+        		String[] test = sortBy.split("\\s+");
+        		String defaultSecondarySort = "moddate";
+        		SortOrder defaultSecondardOrder = SortOrder.DESC;
+
+        		if(test.length>2){
+        			if(test[2].equalsIgnoreCase("desc"))
+        				defaultSecondardOrder = SortOrder.DESC;
+        			else
+        				defaultSecondardOrder = SortOrder.ASC;
+        		}
+        		if(test.length>1){
+        			defaultSecondarySort= test[1];
+        		}
+
+        		srb.addSort("_score", SortOrder.DESC);
+        		srb.addSort(defaultSecondarySort, defaultSecondardOrder);
+        	}
+        	else if(!sortBy.startsWith("undefined") && !sortBy.startsWith("undefined_dotraw") && !sortBy.equals("random")) {
+        		String[] sortbyArr=sortBy.split(",");
+	            	for (String sort : sortbyArr) {
+	            		String[] x=sort.trim().split(" ");
+	            		srb.addSort(SortBuilders.fieldSort(x[0].toLowerCase() + "_dotraw").order(x.length>1 && x[1].equalsIgnoreCase("desc") ?
+	                                SortOrder.DESC : SortOrder.ASC));
+
+					}
+        	}
+        }
+	}
+
+	@Override
+	protected int scroll(String query, int pageSize, boolean sorted, String sortBy, ContentletPageHandler handler) throws DotDataException, DotSecurityException {
+	    String qq=findAndReplaceQueryDates(translateQuery(query, sortBy).getQuery());
+
+	    IndiciesInfo info=APILocator.getIndiciesAPI().loadIndicies();
+	    String indexToHit;
+	    if(query.contains("+live:true") && !query.contains("+deleted:true"))
+	        indexToHit=info.live;
+	    else
+	        indexToHit=info.working;
+
+	    Client client=new ESClient().getClient();
+	    // scan hits are not sorted, which is what keeps the scroll cheap for the cluster. A query then
+	    // fetch scroll sorts the hits once, when it starts, so the pages come in the order of a plain
+	    // search with the same sortBy, and it already returns the first page
+	    SearchRequestBuilder srb = createRequest(client, qq, sorted ? sortBy : null);
+	    srb.setIndices(indexToHit).setSearchType(sorted ? SearchType.QUERY_THEN_FETCH : SearchType.SCAN)
+	            .addFields("inode").setSize(pageSize).setScroll(SCROLL_KEEP_ALIVE);
+	    if (sorted) {
+	        addSort(srb, sortBy);
+	    }
+	    SearchResponse resp;
+	    try {
+	        resp = srb.execute().actionGet();
+	    } catch (SearchPhaseExecutionException e) {
+	        if(e.getMessage().contains("dotraw] in order to sort on")){
+	            return 0;
+	        }
+	        throw e;
+	    }
+	    String scrollId = resp.getScrollId();
+	    int count = 0;
+	    try {
+	        if (!sorted) {
+	            resp = null;
+	        }
+	        while (true) {
+	            if (resp == null) {
+	                resp = client.prepareSearchScroll(scrollId).setScroll(SCROLL_KEEP_ALIVE).execute().actionGet();
+	                scrollId = resp.getScrollId();
+	            }
+	            SearchHit[] hits = resp.getHits().getHits();
+	            resp = null;
+	            if (hits.length == 0) {
+	                break;
+	            }
+	            List<String> inodes = new ArrayList<String>(hits.length);
+	            for (SearchHit hit : hits) {
+	                inodes.add(hit.field("inode").getValue().toString());
+	            }
+	            List<Contentlet> page = findContentlets(inodes);
+	            count += page.size();
+	            if (!handler.handle(page)) {
+	                break;
+	            }
+	        }
+	    } finally {
+	        try {
+	            client.prepareClearScroll().addScrollId(scrollId).execute().actionGet();
+	        } catch (Exception e) {
+	            // it expires on its own
+	            Logger.debug(this, "Unable to clear scroll: " + e.getMessage(), e);
+	        }
+	    }
+	    return count;
+	}
+
 	@Override
 	protected void removeUserReferences(String userId) throws DotDataException, DotStateException, ElasticsearchException, DotSecurityException {
 	   User systemUser =  APILocator.getUserAPI().getSystemUser();
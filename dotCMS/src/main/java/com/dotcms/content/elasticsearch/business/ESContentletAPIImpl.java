@@ -57,9 +57,11 @@ import com.dotmarketing.menubuilders.RefreshMenus;
 import com.dotmarketing.portlets.categories.business.CategoryAPI;
 import com.dotmarketing.portlets.categories.model.Category;
 import com.dotmarketing.portlets.containers.model.Container;
+import com.dotmarketing.portlets.contentlet.business.BinaryBlobStore;
 import com.dotmarketing.portlets.contentlet.business.BinaryFileFilter;
 import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
 import com.dotmarketing.portlets.contentlet.business.ContentletCache;
+import com.dotmarketing.portlets.contentlet.business.ContentletPageHandler;
 import com.dotmarketing.portlets.contentlet.business.DotContentletStateException;
 import com.dotmarketing.portlets.contentlet.business.DotContentletValidationException;
 import com.dotmarketing.portlets.contentlet.business.DotLockException;
@@ -164,9 +166,13 @@ public class ESContentletAPIImpl implements ContentletAPI {
     private LanguageAPI lanAPI;
     private DistributedJournalAPI<String> distAPI;
     private TagAPI tagAPI;
+    private BinaryMetadataExtractor metadataExtractor;
 
     private int MAX_LIMIT = 100000;
 
+    // hits per shard in each page of the full scans
+    private static final int SCROLL_PAGE_SIZE = 100;
+
     private static final String backupPath = ConfigUtils.getBackupPath() + java.io.File.separator + "contentlets";
 
     private ContentletSystemEventUtil contentletSystemEventUtil;
@@ -182,6 +188,7 @@ public class ESContentletAPIImpl implements ContentletAPI {
         indexAPI = new ESContentletIndexAPI();
         fAPI = APILocator.getFieldAPI();
         conFac = new ESContentFactoryImpl();
+        metadataExtractor = new BinaryMetadataExtractor(conFac, indexAPI);
         perAPI = APILocator.getPermissionAPI();
         catAPI = APILocator.getCategoryAPI();
         relAPI = APILocator.getRelationshipAPI();
@@ -308,7 +315,7 @@ public class ESContentletAPIImpl implements ContentletAPI {
     public List<Contentlet> findContentletsByFolder(Folder parentFolder, User user, boolean respectFrontendRoles) throws DotDataException, DotSecurityException {
 
         try {
-            return perAPI.filterCollection(search("+conFolder:" + parentFolder.getInode(), -1, 0, null , user, respectFrontendRoles), PermissionAPI.PERMISSION_READ, respectFrontendRoles, user);
+            return scrollAll("+conFolder:" + parentFolder.getInode(), user, respectFrontendRoles);
         } catch (Exception e) {
             Logger.error(this.getClass(), e.getMessage(), e);
             throw new DotRuntimeException(e.getMessage(), e);
@@ -319,7 +326,7 @@ public class ESContentletAPIImpl implements ContentletAPI {
     @Override
     public List<Contentlet> findContentletsByHost(Host parentHost, User user, boolean respectFrontendRoles) throws DotDataException, DotSecurityException {
         try {
-            return perAPI.filterCollection(search("+conHost:" + parentHost.getIdentifier() + " +working:true", -1, 0, null , user, respectFrontendRoles), PermissionAPI.PERMISSION_READ, respectFrontendRoles, user);
+            return scrollAll("+conHost:" + parentHost.getIdentifier() + " +working:true", user, respectFrontendRoles);
         } catch (Exception e) {
             Logger.error(this.getClass(), e.getMessage(), e);
             throw new DotRuntimeException(e.getMessage(), e);
@@ -342,7 +349,7 @@ public class ESContentletAPIImpl implements ContentletAPI {
                 query.append(" -structureType:(").append(StringUtils.join(excludingContentTypes, " ")).append(")");
             }
 
-            return perAPI.filterCollection(search(query.toString(), -1, 0, null , user, respectFrontendRoles), PermissionAPI.PERMISSION_READ, respectFrontendRoles, user);
+            return scrollAll(query.toString(), user, respectFrontendRoles);
         } catch (Exception e) {
             Logger.error(this.getClass(), e.getMessage(), e);
             throw new DotRuntimeException(e.getMessage(), e);
@@ -360,7 +367,7 @@ public class ESContentletAPIImpl implements ContentletAPI {
                 query.append(" +baseType:(").append(StringUtils.join(includingBaseTypes, " ")).append(")");
             }
 
-            return perAPI.filterCollection(search(query.toString(), -1, 0, null , user, respectFrontendRoles), PermissionAPI.PERMISSION_READ, respectFrontendRoles, user);
+            return scrollAll(query.toString(), user, respectFrontendRoles);
         } catch (Exception e) {
             Logger.error(this.getClass(), e.getMessage(), e);
             throw new DotRuntimeException(e.getMessage(), e);
@@ -432,6 +439,7 @@ public class ESContentletAPIImpl implements ContentletAPI {
                     if(contentlet.getStructure().getStructureType()==Structure.STRUCTURE_TYPE_FILEASSET) {
                         Identifier ident = APILocator.getIdentifierAPI().find(contentlet);
                         CacheLocator.getCSSCache().remove(ident.getHostId(), ident.getPath(), true);
+                        CacheLocator.getDotParseCache().remove(ident.getHostId(), ident.getPath());
                         IFileAsset fileAsset = APILocator.getFileAssetAPI().fromContentlet(contentlet);
 
                         if(fileAsset.isShowOnMenu()){
@@ -721,8 +729,10 @@ public class ESContentletAPIImpl implements ContentletAPI {
         buffy.append(")");
     }
 
-    @Override
-    public List <ContentletSearch> searchIndex(String luceneQuery, int limit, int offset, String sortBy, User user, boolean respectFrontendRoles)throws DotSecurityException, DotDataException {
+    /**
+     * Adds to the query the permissions of the user, unless it is an admin.
+     */
+    private StringBuffer permissionedQuery(String luceneQuery, User user, boolean respectFrontendRoles) throws DotSecurityException, DotDataException {
         boolean isAdmin = false;
         List<Role> roles = new ArrayList<Role>();
         if(user == null && !respectFrontendRoles){
@@ -740,6 +750,12 @@ public class ESContentletAPIImpl implements ContentletAPI {
         // Permissions in the query
         if (!isAdmin)
             addPermissionsToQuery(buffy, user, roles, respectFrontendRoles);
+        return buffy;
+    }
+
+    @Override
+    public List <ContentletSearch> searchIndex(String luceneQuery, int limit, int offset, String sortBy, User user, boolean respectFrontendRoles)throws DotSecurityException, DotDataException {
+        StringBuffer buffy = permissionedQuery(luceneQuery, user, respectFrontendRoles);
 
         int originalLimit = limit;
         if(UtilMethods.isSet(sortBy) && sortBy.trim().equalsIgnoreCase("random")){
@@ -770,6 +786,43 @@ public class ESContentletAPIImpl implements ContentletAPI {
         return list;
     }
 
+    @Override
+    public int scroll(String luceneQuery, int pageSize, final User user, final boolean respectFrontendRoles, final ContentletPageHandler handler) throws DotSecurityException, DotDataException {
+        return scroll(luceneQuery, pageSize, false, null, user, respectFrontendRoles, handler);
+    }
+
+    @Override
+    public int scroll(String luceneQuery, int pageSize, String sortBy, final User user, final boolean respectFrontendRoles, final ContentletPageHandler handler) throws DotSecurityException, DotDataException {
+        return scroll(luceneQuery, pageSize, true, sortBy, user, respectFrontendRoles, handler);
+    }
+
+    private int scroll(String luceneQuery, int pageSize, boolean sorted, String sortBy, final User user, final boolean respectFrontendRoles, final ContentletPageHandler handler) throws DotSecurityException, DotDataException {
+        if(UtilMethods.isSet(sortBy) && sortBy.trim().equalsIgnoreCase("random")){
+            sortBy="random";
+        }
+        final int[] count = {0};
+        conFac.scroll(permissionedQuery(luceneQuery, user, respectFrontendRoles).toString(), pageSize > 0 ? pageSize : SCROLL_PAGE_SIZE, sorted, sortBy, page -> {
+            List<Contentlet> readable = perAPI.filterCollection(page, PermissionAPI.PERMISSION_READ, respectFrontendRoles, user);
+            count[0] += readable.size();
+            return readable.isEmpty() || handler.handle(readable);
+        });
+        return count[0];
+    }
+
+    /**
+     * Loads all the contentlets matching the query the user can read, scrolling the index instead of
+     * loading every hit at once. They come in the same order {@link #search(String, int, int, String, User, boolean)}
+     * returns them with no sortBy.
+     */
+    private List<Contentlet> scrollAll(String luceneQuery, User user, boolean respectFrontendRoles) throws DotSecurityException, DotDataException {
+        final List<Contentlet> contentlets = new ArrayList<Contentlet>();
+        scroll(luceneQuery, SCROLL_PAGE_SIZE, true, null, user, respectFrontendRoles, page -> {
+            contentlets.addAll(page);
+            return true;
+        });
+        return contentlets;
+    }
+
     @Override
     public void publishRelatedHtmlPages(Contentlet contentlet) throws DotStateException, DotDataException{
         if(contentlet.getInode().equals(""))
@@ -1847,6 +1900,7 @@ public class ESContentletAPIImpl implements ContentletAPI {
                     Identifier ident = APILocator.getIdentifierAPI().find(contentlet);
                     CacheLocator.getCSSCache().remove(ident.getHostId(), ident.getPath(), true);
                     CacheLocator.getCSSCache().remove(ident.getHostId(), ident.getPath(), false);
+                    CacheLocator.getDotParseCache().remove(ident.getHostId(), ident.getPath());
                     //remove from navtoolcache
                     IFileAsset fileAsset = APILocator.getFileAssetAPI().fromContentlet(contentlet);
                     if(fileAsset.isShowOnMenu()){
@@ -2116,6 +2170,7 @@ public class ESContentletAPIImpl implements ContentletAPI {
             if(contentlet.getStructure().getStructureType()==Structure.STRUCTURE_TYPE_FILEASSET) {
                 Identifier ident = APILocator.getIdentifierAPI().find(contentlet);
                 CacheLocator.getCSSCache().remove(ident.getHostId(), ident.getPath(), true);
+                CacheLocator.getDotParseCache().remove(ident.getHostId(), ident.getPath());
                 //remove from navCache
                 IFileAsset fileAsset = APILocator.getFileAssetAPI().fromContentlet(contentlet);
                 if(fileAsset.isShowOnMenu()){
@@ -2983,6 +3038,9 @@ public class ESContentletAPIImpl implements ContentletAPI {
                     ident=APILocator.getIdentifierAPI().save(ident);
 
                     changedURI = ! oldURI.equals(ident.getURI());
+                    if(changedURI) {
+                        CacheLocator.getDotParseCache().remove(ident.getHostId(), oldURI);
+                    }
                 }
 
                 APILocator.getVersionableAPI().setWorking(contentlet);
@@ -3045,6 +3103,8 @@ public class ESContentletAPIImpl implements ContentletAPI {
 
                 // List of files that we need to delete after iterate over all the fields.
                 Set<File> fileListToDelete = Sets.newHashSet();
+                // the hash of the file asset binary, when it was read to store it
+                String binaryHash = null;
 
                 // loop over the new field values
                 // if we have a new temp file or a deleted file
@@ -3100,7 +3160,11 @@ public class ESContentletAPIImpl implements ContentletAPI {
                                 if(oldFile==null || !oldFile.equals(incomingFile)){
                                     // We want to copy (not move) cause the same file could be in
                                     // another field and we don't want to delete it in the first time.
-                                    FileUtil.copyFile(incomingFile, newFile);
+                                    // The content is stored once, the new file is a link to it.
+                                    String hash = BinaryBlobStore.getInstance().store(incomingFile, newFile);
+                                    if(FileAssetAPI.BINARY_FIELD.equals(velocityVarNm)) {
+                                        binaryHash = hash;
+                                    }
                                     // add the incomingFile to a list of files that will be deleted
                                     // after we iterate over all the fields.
                                     fileListToDelete.add(incomingFile);
@@ -3239,18 +3303,26 @@ public class ESContentletAPIImpl implements ContentletAPI {
                             String desc = UtilMethods.getFileName(binFile.getName());
                             contentlet.setProperty(FileAssetAPI.DESCRIPTION, desc);
                         }
-                        Map<String, String> metaMap = APILocator.getFileAssetAPI().getMetaDataMap(contentlet, binFile);
+                        // when async only a binary parsed before is used in the checkin
+                        Map<String, String> metaMap = metadataExtractor.isAsync()
+                                ? metadataExtractor.getCachedMetaDataMap(contentlet, binFile, binaryHash)
+                                : metadataExtractor.getMetaDataMap(contentlet, binFile, binaryHash);
 
                         if(metaMap!=null) {
                             Gson gson = new GsonBuilder().disableHtmlEscaping().create();
                             contentlet.setProperty(FileAssetAPI.META_DATA_FIELD, gson.toJson(metaMap));
                             contentlet = conFac.save(contentlet);
+                        } else if(metadataExtractor.isAsync()) {
+                            // the binary is parsed once this checkin is committed
+                            contentlet = conFac.save(contentlet);
+                            metadataExtractor.extractAfterCommit(contentlet.getInode());
                         }
                     }
 
                     // clear possible CSS cache
                     CacheLocator.getCSSCache().remove(contIdent.getHostId(), contIdent.getURI(), true);
                     CacheLocator.getCSSCache().remove(contIdent.getHostId(), contIdent.getURI(), false);
+                    CacheLocator.getDotParseCache().remove(contIdent.getHostId(), contIdent.getURI());
 
 
                 }
@@ -3305,7 +3377,7 @@ public class ESContentletAPIImpl implements ContentletAPI {
 
                 if(contentlet != null && contentlet.isKeyValue()){
                     //remove from cache
-                    CacheLocator.getKeyValueCache().remove(contentlet);
+                    ContentletServices.invalidateKeyValue(contentlet);
                 }
 
                 if(structureHasAHostField && changedURI) {
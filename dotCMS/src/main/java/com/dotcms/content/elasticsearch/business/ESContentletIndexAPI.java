@@ -392,16 +392,16 @@ public class ESContentletIndexAPI implements ContentletIndexAPI{
             DotConnect dc = new DotConnect();
             dc.setSQL(sql);
             dc.addParam(ident);
-            List<Map<String,String>> ret = dc.loadResults();
-            List<String> inodes = new ArrayList<String>(); 
-            for(Map<String,String> m : ret) {
-            	String workingInode = m.get("working_inode");
-            	String liveInode = m.get("live_inode");
+            final List<String> inodes = new ArrayList<String>();
+            dc.forEachRow(row -> {
+            	String workingInode = row.getString("working_inode");
+            	String liveInode = row.getString("live_inode");
             	inodes.add(workingInode);
             	if(UtilMethods.isSet(liveInode) && !workingInode.equals(liveInode)){
             		inodes.add(liveInode);
             	}
-            }
+            	return true;
+            });
             
             for(String inode : inodes) {
                 Contentlet con=APILocator.getContentletAPI().find(inode, APILocator.getUserAPI().getSystemUser(), false);
@@ -443,8 +443,14 @@ public class ESContentletIndexAPI implements ContentletIndexAPI{
 	        	                else
 	        	                    q = "+type:content +" + rel.getRelationTypeValue() + ":" + content.getIdentifier();
 
-	        	                List<Contentlet> related = APILocator.getContentletAPI().search(q, -1, 0, null, APILocator.getUserAPI().getSystemUser(), false);
-	        	                indexContentletList(bulk, related, false);
+	        	                APILocator.getContentletAPI().scroll(q, 0, APILocator.getUserAPI().getSystemUser(), false, related -> {
+	        	                    try {
+	        	                        indexContentletList(bulk, related, false);
+	        	                    } catch (DotMappingException e) {
+	        	                        throw new DotDataException(e.getMessage(), e);
+	        	                    }
+	        	                    return true;
+	        	                });
 	        	            }
 
 	        	            bulk.add(client.prepareDelete(info.working, "content", id));
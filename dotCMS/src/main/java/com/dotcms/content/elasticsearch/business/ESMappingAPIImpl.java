@@ -332,10 +332,11 @@ public class ESMappingAPIImpl implements ContentMappingAPI {
 			DotConnect db = new DotConnect();
 			db.setSQL(categoriesSQL);
 			db.addParam(con.getInode());
-			ArrayList<String> categories=new ArrayList<String>();
-			List<HashMap<String, String>> categoriesResults = db.loadResults();
-			for (HashMap<String, String> crow : categoriesResults)
-				categories.add(crow.get("cat_velocity_var"));
+			final ArrayList<String> categories=new ArrayList<String>();
+			db.forEachRow(row -> {
+				categories.add(row.getString("cat_velocity_var"));
+				return true;
+			});
 
 			categoriesString=UtilMethods.join(categories, " ").trim();
 
@@ -586,8 +587,6 @@ public class ESMappingAPIImpl implements ContentMappingAPI {
 
 			for(Relationship rel : relationships) {
 
-				List<Contentlet> oldDocs = new ArrayList <Contentlet>();
-
 				String q = "";
 				boolean isSameStructRelationship = rel.getParentStructureInode().equalsIgnoreCase(rel.getChildStructureInode());
 
@@ -597,14 +596,13 @@ public class ESMappingAPIImpl implements ContentMappingAPI {
 				else
 					q = "+type:content +" + rel.getRelationTypeValue() + ":" + con.getIdentifier();
 
-				oldDocs  = conAPI.search(q, -1, 0, null, APILocator.getUserAPI().getSystemUser(), false);
-
-				List<String> oldRelatedIds = new ArrayList<String>();
-				if(oldDocs.size() > 0) {
+				final List<String> oldRelatedIds = new ArrayList<String>();
+				conAPI.scroll(q, 0, APILocator.getUserAPI().getSystemUser(), false, oldDocs -> {
 					for(Contentlet oldDoc : oldDocs) {
 						oldRelatedIds.add(oldDoc.getIdentifier());
 					}
-				}
+					return true;
+				});
 
 				List<String> newRelatedIds = new ArrayList<String>();
 				for(HashMap<String, String> relatedEntry : relatedContentlets) {
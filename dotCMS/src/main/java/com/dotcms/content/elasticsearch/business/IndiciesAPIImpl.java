@@ -5,6 +5,7 @@ import java.sql.SQLException;
 
 import com.dotmarketing.business.FactoryLocator;
 import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.WriteBehindBuffer;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.util.Logger;
 
@@ -36,6 +37,7 @@ public class IndiciesAPIImpl implements IndiciesAPI {
         catch(Exception ex) {
             if(autocommit){
                 try {
+                    WriteBehindBuffer.discard(conn);
                     conn.rollback();
                 } catch (SQLException e) {
                     Logger.warn(this, e.getMessage(),e);
@@ -45,6 +47,7 @@ public class IndiciesAPIImpl implements IndiciesAPI {
         }finally{
         	if(autocommit){
         		try{
+        			WriteBehindBuffer.flush(conn);
         			conn.commit();
         		}catch (Exception e) {
 					Logger.error(this, e.getMessage(), e);
@@ -4,17 +4,14 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.Charset;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Map;
 
 import com.dotcms.repackage.com.csvreader.CsvReader;
 import com.dotcms.repackage.com.csvreader.CsvWriter;
 import com.dotcms.repackage.org.apache.commons.lang.StringUtils;
 import com.dotmarketing.common.db.DotConnect;
+import com.dotmarketing.common.db.Row;
+import com.dotmarketing.common.db.RowIterator;
 import com.dotmarketing.db.DbConnectionFactory;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.portlets.structure.model.Structure;
@@ -152,27 +149,28 @@ public abstract class AbstractIntegrityChecker implements IntegrityChecker {
                     .append(structureTypeId).append(") ")
                     .append("INNER JOIN identifier i ON (i.id = c.identifier)").toString();
 
-            Connection conn = DbConnectionFactory.getConnection();
-            try (PreparedStatement statement = conn.prepareStatement(query)) {
-                try (ResultSet rs = statement.executeQuery()) {
-                    int count = 0;
-
-                    while (rs.next()) {
-                        writer.write(rs.getString("working_inode"));
-                        writer.write(rs.getString("live_inode"));
-                        writer.write(rs.getString("identifier"));
-                        writer.write(rs.getString("parent_path"));
-                        writer.write(rs.getString("asset_name"));
-                        writer.write(rs.getString("host_inode"));
-                        writer.write(rs.getString("language_id"));
-                        writer.endRecord();
-
-                        count++;
-
-                        if (count == 1000) {
-                            writer.flush();
-                            count = 0;
-                        }
+            // every contentlet of the type, so the rows are streamed instead of buffered by the driver
+            DotConnect dc = new DotConnect().setFetchSize(1000);
+            dc.setSQL(query);
+            try (RowIterator rows = dc.iterateRows()) {
+                int count = 0;
+
+                while (rows.hasNext()) {
+                    final Row row = rows.next();
+                    writer.write(row.getString("working_inode"));
+                    writer.write(row.getString("live_inode"));
+                    writer.write(row.getString("identifier"));
+                    writer.write(row.getString("parent_path"));
+                    writer.write(row.getString("asset_name"));
+                    writer.write(row.getString("host_inode"));
+                    writer.write(row.getString("language_id"));
+                    writer.endRecord();
+
+                    count++;
+
+                    if (count == 1000) {
+                        writer.flush();
+                        count = 0;
                     }
                 }
             } catch (SQLException e) {
@@ -284,11 +282,10 @@ public abstract class AbstractIntegrityChecker implements IntegrityChecker {
         }
 
         dc.setSQL(selectSQL);
-
-        List<Map<String, Object>> results = dc.loadObjectResults();
+        dc.setMaxRows(1);
 
         // If we have conflicts, lets create a table out of them.
-        if (!results.isEmpty()) {
+        if (dc.forEachRow(row -> false) > 0) {
             String fullContentlet = " li.parent_path || li.asset_name ";
 
             if (DbConnectionFactory.isMySql()) {
@@ -32,6 +32,10 @@ import com.dotcms.job.system.event.delegate.bean.JobDelegateDataBean;
  * ): Set the appropriate cron expression for the execution of this Job. By
  * default, this job checks for new System Events every 5 seconds.</li>
  * </ul>
+ * This Job only runs when {@code SYSTEM_EVENTS_PUSH_ENABLED} is set to
+ * {@code false}, otherwise the events are pushed to every node through the
+ * {@link com.dotcms.api.system.event.SystemEventBus} as soon as they are
+ * created.
  *
  * @author Jose Castro
  * @version 3.7
@@ -0,0 +1,413 @@
+package com.dotcms.journal.business;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.business.DotCacheAdministrator;
+import com.dotmarketing.business.cache.provider.CacheProviderStats;
+import com.dotmarketing.business.cache.provider.CacheStats;
+import com.dotmarketing.common.db.DotConnect;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.WriteBehindBuffer;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.ConfigUtils;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UtilMethods;
+
+/**
+ * The cache invalidations sent through the database when {@code CACHE_CLUSTER_THROUGH_DB} is on.
+ * Every invalidation is a single row of the {@code cache_invalidation_log} table, whatever the
+ * size of the cluster, and every node keeps the id of the last row it applied in the
+ * {@code cache_invalidation_cursor} table. Nodes read the rows after their cursor in large ranges,
+ * apply them as a batch (repeated invalidations once, and nothing before a flush of the whole
+ * cache) and move their cursor; the rows every live node has passed are pruned in the background.
+ *
+ * Ids are assigned when a row is inserted but rows become visible when their transaction commits,
+ * so a missing id may still show up. The cursor stops before such a gap until the row appears or
+ * {@code CACHE_INVALIDATION_LOG_GAP_TIMEOUT_SECONDS} go by, as ids are also lost by rollbacks, and
+ * the rows past the gap already applied are not applied again.
+ *
+ * @author dotCMS
+ */
+public class CacheInvalidationLog {
+
+    private static final CacheInvalidationLog instance = new CacheInvalidationLog();
+
+    private static final String FLUSH_ALL = "0:" + DotCacheAdministrator.ROOT_GOUP;
+
+    private static final String STATS_LAG = "cache.invalidation.log.lag";
+    private static final String STATS_LAG_TIME = "cache.invalidation.log.lag.time";
+
+    private final int readSize;
+    private final long pollInterval;
+    private final long gapTimeout;
+    private final long pruneInterval;
+
+    private ScheduledExecutorService poller;
+    private long nextPrune;
+
+    // read state, guarded by this
+    private long cursor = -1;
+    private long savedCursor = -1;
+    private long lastSeenId;
+    private final Map<Long, Long> gaps = new HashMap<Long, Long>();
+    private final Set<Long> appliedPastCursor = new HashSet<Long>();
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong readTime = new AtomicLong();
+    private final AtomicLong entriesRead = new AtomicLong();
+    private final AtomicLong entriesApplied = new AtomicLong();
+    private final AtomicLong prunedEntries = new AtomicLong();
+
+    public static CacheInvalidationLog getInstance() {
+        return instance;
+    }
+
+    private CacheInvalidationLog() {
+        this(Config.getIntProperty("CACHE_INVALIDATION_LOG_READ_SIZE", 5000),
+                Config.getIntProperty("CACHE_INVALIDATION_LOG_POLL_MILLIS", 1000),
+                TimeUnit.SECONDS.toMillis(Config.getIntProperty("CACHE_INVALIDATION_LOG_GAP_TIMEOUT_SECONDS", 10)),
+                TimeUnit.SECONDS.toMillis(Config.getIntProperty("CACHE_INVALIDATION_LOG_PRUNE_SECONDS", 60)));
+    }
+
+    @VisibleForTesting
+    CacheInvalidationLog(final int readSize, final long pollInterval, final long gapTimeout, final long pruneInterval) {
+        this.readSize = readSize;
+        this.pollInterval = pollInterval;
+        this.gapTimeout = gapTimeout;
+        this.pruneInterval = pruneInterval;
+    }
+
+    /**
+     * Adds an invalidation for the other nodes of the cluster, written along with the rest of the
+     * current transaction.
+     */
+    public void append(final String key, final String group) throws DotDataException {
+        WriteBehindBuffer.add("INSERT INTO cache_invalidation_log(object_to_index, serverid, time_entered) VALUES (?, ?, ?)",
+                key + ":" + group, ConfigUtils.getServerId(), new Timestamp(System.currentTimeMillis()));
+    }
+
+    /**
+     * Returns the invalidations sent by other nodes since the last read, as {@code key:group}
+     * entries, and moves the cursor of this node past them. Repeated entries are returned once and
+     * the entries before a flush of the whole cache are dropped.
+     */
+    public synchronized List<String> read() throws DotDataException {
+        final long start = System.currentTimeMillis();
+        final String serverId = ConfigUtils.getServerId();
+        if (cursor < 0) {
+            resetCursor(loadCursor(serverId));
+        }
+        // the invalidations of this thread still waiting to be written are read too
+        WriteBehindBuffer.flush();
+
+        final LinkedHashSet<String> entries = new LinkedHashSet<String>();
+        final List<Long> ids = new ArrayList<Long>();
+        long readFrom = cursor;
+        int read;
+        do {
+            final DotConnect dc = new DotConnect();
+            dc.setSQL(DotConnect.pageSQL("SELECT id, object_to_index, serverid FROM cache_invalidation_log"
+                    + " WHERE id > ? ORDER BY id", 0, readSize));
+            dc.addParam(readFrom);
+            final long[] last = {readFrom};
+            read = dc.forEachRow(row -> {
+                final long id = row.getLong(1);
+                last[0] = id;
+                ids.add(id);
+                if (!isApplied(id) && !serverId.equals(row.getString(3))) {
+                    final String entry = row.getString(2).toLowerCase();
+                    if (FLUSH_ALL.equals(entry)) {
+                        entries.clear();
+                    }
+                    entries.add(entry);
+                }
+                return true;
+            });
+            readFrom = last[0];
+        } while (read >= readSize);
+
+        advance(ids, System.currentTimeMillis());
+        if (cursor != savedCursor) {
+            saveCursor(serverId, cursor);
+            savedCursor = cursor;
+        }
+
+        reads.incrementAndGet();
+        readTime.addAndGet(System.currentTimeMillis() - start);
+        entriesRead.addAndGet(entries.size());
+        return new ArrayList<String>(entries);
+    }
+
+    /**
+     * Moves the cursor through the ids read, which come in order, up to the first gap that may
+     * still be filled. The ids past it are remembered so they are not applied twice.
+     */
+    @VisibleForTesting
+    synchronized void advance(final List<Long> ids, final long now) {
+        final Map<Long, Long> stillOpen = new HashMap<Long, Long>();
+        long expected = cursor + 1;
+        boolean blocked = false;
+        for (Long id : ids) {
+            if (id > expected) {
+                // ids expected to id - 1 are missing, the gap is known by its first id
+                Long firstSeen = gaps.get(expected);
+                if (firstSeen == null) {
+                    firstSeen = now;
+                }
+                if (now - firstSeen < gapTimeout) {
+                    stillOpen.put(expected, firstSeen);
+                    blocked = true;
+                }
+            }
+            if (blocked) {
+                appliedPastCursor.add(id);
+            } else {
+                cursor = id;
+            }
+            expected = id + 1;
+            lastSeenId = Math.max(lastSeenId, id);
+        }
+        gaps.clear();
+        gaps.putAll(stillOpen);
+        final Iterator<Long> applied = appliedPastCursor.iterator();
+        while (applied.hasNext()) {
+            if (applied.next() <= cursor) {
+                applied.remove();
+            }
+        }
+    }
+
+    /**
+     * Whether the invalidation was already applied, although the cursor has not passed it yet.
+     */
+    @VisibleForTesting
+    synchronized boolean isApplied(final long id) {
+        return id <= cursor || appliedPastCursor.contains(id);
+    }
+
+    @VisibleForTesting
+    synchronized void resetCursor(final long lastId) {
+        cursor = savedCursor = lastId;
+        gaps.clear();
+        appliedPastCursor.clear();
+    }
+
+    private long loadCursor(final String serverId) throws DotDataException {
+        final DotConnect dc = new DotConnect();
+        dc.setSQL("SELECT last_id FROM cache_invalidation_cursor WHERE serverid = ?");
+        dc.addParam(serverId);
+        final List<Map<String, String>> results = dc.loadResults();
+        if (!results.isEmpty() && UtilMethods.isSet(results.get(0).get("last_id"))) {
+            return Long.parseLong(results.get(0).get("last_id"));
+        }
+        // a node that just started has nothing cached yet, there is nothing before now to apply
+        dc.setSQL("SELECT max(id) AS max_id FROM cache_invalidation_log");
+        final List<Map<String, String>> max = dc.loadResults();
+        final long start = !max.isEmpty() && UtilMethods.isSet(max.get(0).get("max_id"))
+                ? Long.parseLong(max.get(0).get("max_id")) : 0;
+        saveCursor(serverId, start);
+        return start;
+    }
+
+    private void saveCursor(final String serverId, final long lastId) throws DotDataException {
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        final DotConnect dc = new DotConnect();
+        if (dc.executeUpdate("UPDATE cache_invalidation_cursor SET last_id = ?, last_read = ? WHERE serverid = ?",
+                lastId, now, serverId) == 0) {
+            dc.executeUpdate("INSERT INTO cache_invalidation_cursor(serverid, last_id, last_read) VALUES (?, ?, ?)",
+                    serverId, lastId, now);
+        }
+    }
+
+    /**
+     * Deletes the rows every live node has read, and the cursors of the nodes that are gone.
+     *
+     * @return the number of rows deleted
+     */
+    public int prune() throws DotDataException {
+        final String[] alive = APILocator.getServerAPI().getAliveServersIds();
+        final DotConnect dc = new DotConnect();
+        if (alive != null && alive.length > 0) {
+            final StringBuilder in = new StringBuilder();
+            for (int i = 0; i < alive.length; i++) {
+                in.append(i > 0 ? ", ?" : "?");
+            }
+            dc.executeUpdate("DELETE FROM cache_invalidation_cursor WHERE serverid NOT IN (" + in + ")",
+                    (Object[]) alive);
+        }
+        dc.setSQL("SELECT min(last_id) AS min_id FROM cache_invalidation_cursor");
+        final List<Map<String, String>> results = dc.loadResults();
+        if (results.isEmpty() || !UtilMethods.isSet(results.get(0).get("min_id"))) {
+            return 0;
+        }
+        final int deleted = dc.executeUpdate("DELETE FROM cache_invalidation_log WHERE id <= ?",
+                Long.parseLong(results.get(0).get("min_id")));
+        prunedEntries.addAndGet(deleted);
+        return deleted;
+    }
+
+    /**
+     * Starts reading and applying the invalidations of the other nodes, and pruning the log, in the
+     * background.
+     */
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "CacheInvalidationLogPoller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+        Logger.info(this, "Reading the cache invalidations of the cluster from the database every " + pollInterval + " ms");
+    }
+
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    private void poll() {
+        try {
+            final List<String> entries = read();
+            final DotCacheAdministrator cache = CacheLocator.getCacheAdministrator();
+            for (String entry : entries) {
+                cache.invalidateCacheMesageFromCluster(entry);
+            }
+            entriesApplied.addAndGet(entries.size());
+
+            if (System.currentTimeMillis() >= nextPrune) {
+                nextPrune = System.currentTimeMillis() + pruneInterval;
+                final int pruned = prune();
+                if (pruned > 0) {
+                    Logger.debug(this, "Pruned " + pruned + " cache invalidations read by every node");
+                }
+            }
+        } catch (Throwable e) {
+            Logger.warn(this, "Unable to read the cache invalidations of the cluster: " + e.getMessage());
+            Logger.debug(this, e.getMessage(), e);
+        } finally {
+            DbConnectionFactory.closeSilently();
+        }
+    }
+
+    /**
+     * The number of invalidations each node has not read yet, by server id.
+     */
+    public Map<String, Long> getLag() throws DotDataException {
+        final DotConnect dc = new DotConnect();
+        dc.setSQL("SELECT max(id) AS max_id FROM cache_invalidation_log");
+        final List<Map<String, String>> max = dc.loadResults();
+        final long maxId = !max.isEmpty() && UtilMethods.isSet(max.get(0).get("max_id"))
+                ? Long.parseLong(max.get(0).get("max_id")) : 0;
+        final Map<String, Long> lag = new LinkedHashMap<String, Long>();
+        dc.setSQL("SELECT serverid, last_id FROM cache_invalidation_cursor ORDER BY serverid");
+        dc.forEachRow(row -> {
+            lag.put(row.getString(1), Math.max(0, maxId - row.getLong(2)));
+            return true;
+        });
+        return lag;
+    }
+
+    /**
+     * The time since each node last moved its cursor, by server id.
+     */
+    public Map<String, Long> getLagMillis() throws DotDataException {
+        final long now = System.currentTimeMillis();
+        final Map<String, Long> lag = new LinkedHashMap<String, Long>();
+        final DotConnect dc = new DotConnect();
+        dc.setSQL("SELECT serverid, last_read FROM cache_invalidation_cursor ORDER BY serverid");
+        dc.forEachRow(row -> {
+            final Date lastRead = row.getDate(2);
+            lag.put(row.getString(1), lastRead != null ? Math.max(0, now - lastRead.getTime()) : -1);
+            return true;
+        });
+        return lag;
+    }
+
+    /**
+     * The lag of every node, for the cache stats of the maintenance portlet.
+     */
+    public CacheProviderStats getStats() {
+        final CacheProviderStats providerStats = new CacheProviderStats(new CacheStats(), "Cluster Cache Invalidations");
+        try {
+            final Map<String, Long> lagMillis = getLagMillis();
+            for (Map.Entry<String, Long> lag : getLag().entrySet()) {
+                final CacheStats stats = new CacheStats();
+                stats.addStat(CacheStats.REGION, lag.getKey());
+                stats.addStat(STATS_LAG, lag.getValue());
+                final Long millis = lagMillis.get(lag.getKey());
+                stats.addStat(STATS_LAG_TIME, millis != null && millis >= 0 ? millis + " ms" : "-");
+                providerStats.addStatRecord(stats);
+            }
+        } catch (DotDataException e) {
+            Logger.warn(this, "Unable to read the lag of the cluster cache invalidations: " + e.getMessage());
+        }
+        return providerStats;
+    }
+
+    /**
+     * The id of the last invalidation this node applied.
+     */
+    public synchronized long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * The number of invalidations this node has seen but its cursor has not passed yet, because of
+     * a gap that may still be filled.
+     */
+    public synchronized long getLocalLag() {
+        return Math.max(0, lastSeenId - cursor);
+    }
+
+    public synchronized List<Long> getOpenGaps() {
+        final List<Long> open = new ArrayList<Long>(gaps.keySet());
+        Collections.sort(open);
+        return open;
+    }
+
+    public long getReads() {
+        return reads.get();
+    }
+
+    public double getAverageReadMillis() {
+        final long count = reads.get();
+        return count > 0 ? (double) readTime.get() / count : 0;
+    }
+
+    public long getEntriesRead() {
+        return entriesRead.get();
+    }
+
+    public long getEntriesApplied() {
+        return entriesApplied.get();
+    }
+
+    public long getPrunedEntries() {
+        return prunedEntries.get();
+    }
+
+}
@@ -20,6 +20,7 @@ import com.dotmarketing.common.business.journal.IndexJournal;
 import com.dotmarketing.common.db.DotConnect;
 import com.dotmarketing.db.DbConnectionFactory;
 import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.db.WriteBehindBuffer;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.portlets.folders.model.Folder;
 import com.dotmarketing.util.Config;
@@ -77,51 +78,15 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
     @Override
     protected void addCacheEntry(String key, String group)
             throws DotDataException {
-        Connection con = null;
-        String[] serversIds = APILocator.getServerAPI().getAliveServersIds();
-        String serverId = ConfigUtils.getServerId();
+        if (!Config.getBooleanProperty("DIST_INDEXATION_ENABLED", false)) {
+            return;
+        }
         try {
-            if (Config.getBooleanProperty("DIST_INDEXATION_ENABLED", false)) {
-                con = DbConnectionFactory.getConnection();
-                con.setAutoCommit(false);
-                java.sql.Timestamp timestamp = new java.sql.Timestamp(new java.util.Date().getTime());
-                for (String serversId : serversIds) {
-                    if (!serverId.equals(serversId)) {
-                        DotConnect dc = new DotConnect();
-                        dc.setSQL("INSERT INTO dist_process(object_to_index, time_entered, serverid, journal_type)VALUES (?, ?, ?, ?)");
-                        dc.addParam(key + ":" + group);
-                        dc.addParam(timestamp);
-                        dc.addParam(serversId);
-                        dc.addParam(JOURNAL_TYPE_CACHE);
-                        try {
-                            dc.getResult(con);
-                        } catch (Exception e) {
-                            Logger
-                                    .warn(this,
-                                            "Usually not a problem but a cache entry failed to insert in the table.");
-                            Logger.debug(this, e.getMessage(), e);
-                        }
-                    }
-                }
-            }
-        } catch (SQLException e1) {
-            throw new DotDataException(e1.getMessage(), e1);
-        } finally {
-            try {
-                if(con!=null){
-                    con.commit();
-                }
-            } catch (Exception e) {
-                Logger.error(this, e.getMessage(), e);
-            } finally {
-                try {
-                    if(con!=null){
-                        con.close();
-                    }
-                } catch (Exception e) {
-                    Logger.error(this, e.getMessage(), e);
-                }
-            }
+            // a single row for all the servers, each one reads it from its own cursor
+            CacheInvalidationLog.getInstance().append(key, group);
+        } catch (Exception e) {
+            Logger.warn(this, "Usually not a problem but a cache entry failed to insert in the table.");
+            Logger.debug(this, e.getMessage(), e);
         }
     }
 
@@ -275,6 +240,7 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
 			con = DbConnectionFactory.getDataSource().getConnection();
 			con.setAutoCommit(true);
 			dc.loadResult(con);
+			ReindexJournalClaimer.getInstance().recordIndexed(recordsToDelete.size());
 		} catch (SQLException e) {
 			Logger.error(ESDistributedJournalFactoryImpl.class,e.getMessage(),e);
 		}finally{
@@ -322,58 +288,9 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
         dc.loadResult();
     }
 
-    private void deleteCacheEntries(String serverId, long id, Connection con)
-            throws DotDataException {
-        DotConnect dc = new DotConnect();
-        try {
-            dc.setSQL("DELETE FROM dist_journal where serverid = ? and journal_type = ? and id < ?");
-            dc.addParam(serverId);
-            dc.addParam(JOURNAL_TYPE_CACHE);
-            dc.addParam(id + 1);
-            dc.loadResult(con);
-        } catch (Exception e1) {
-            throw new DotDataException(e1.getMessage(), e1);
-        }
-    }
-
     @Override
     protected List<String> findCacheEntriesToRemove() throws DotDataException {
-        DotConnect dc = new DotConnect();
-        List<String> x = new ArrayList<String>();
-        Connection con = null;
-        String serverId = ConfigUtils.getServerId();
-
-        try {
-            con = DbConnectionFactory.getConnection();
-            con.setAutoCommit(false);
-            dc.setSQL("SELECT object_to_index , max(id) as id from dist_journal " +
-            		" where journal_type = ? and serverid = ? GROUP BY id, object_to_index,time_entered ORDER BY time_entered ASC");
-            dc.addParam(JOURNAL_TYPE_CACHE);
-            dc.addParam(serverId);
-
-            List<Map<String, String>> results = dc.loadResults(con);
-            long id = 0;
-            for (Map<String, String> r : results) {
-                x.add(r.get("object_to_index"));
-                id = new Long(r.get("id"));
-            }
-            deleteCacheEntries(serverId, id, con);
-        } catch (SQLException e1) {
-            throw new DotDataException(e1.getMessage(), e1);
-        } finally {
-            try {
-                con.commit();
-            } catch (Exception e) {
-                Logger.error(this, e.getMessage(), e);
-            } finally {
-                try {
-                    con.close();
-                } catch (Exception e) {
-                    Logger.error(this, e.getMessage(), e);
-                }
-            }
-        }
-        return x;
+        return CacheInvalidationLog.getInstance().read();
     }
 
     @Override
@@ -402,7 +319,11 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
 
             con = DbConnectionFactory.getConnection();
             con.setAutoCommit(false);
-            if(DbConnectionFactory.isOracle()) {
+            // claim the records concurrently with the other indexing workers when the database allows it
+            results = ReindexJournalClaimer.getInstance().claim(con, serverId, recordsToFetch, priorityLevel);
+            if(results != null) {
+                Logger.debug(this, "Claimed " + results.size() + " reindex journal records");
+            } else if(DbConnectionFactory.isOracle()) {
                 CallableStatement call = con.prepareCall("{ ? = call load_records_to_index(?,?,?) }");
                 call.registerOutParameter(1, OracleTypes.CURSOR);
                 call.setString(2, serverId);
@@ -458,6 +379,7 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
             throw new DotDataException(e1.getMessage(), e1);
         } finally {
             try {
+                WriteBehindBuffer.flush(con);
                 con.commit();
             } catch (Exception e) {
                 Logger.error(this, e.getMessage(), e);
@@ -517,6 +439,7 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
             throw new DotDataException(e1.getMessage(), e1);
         } finally {
             try {
+                WriteBehindBuffer.flush(con);
                 con.commit();
             } catch (Exception e) {
                 Logger.error(this, e.getMessage(), e);
@@ -0,0 +1,518 @@
+package com.dotcms.journal.business;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.DbConnectionFactory.DataBaseType;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
+
+/**
+ * Claims batches of records from the {@code dist_reindex_journal} table so that any number of
+ * indexing workers, in this node or in other nodes of the cluster, can take disjoint batches at
+ * the same time. The {@code load_records_to_index} procedures lock the first rows they find and
+ * make every other claimer wait for them, so the claims end up being serialized no matter how many
+ * nodes are indexing.
+ * <ul>
+ * <li>PostgreSQL 9.5+, MySQL 8+, MariaDB 10.6+ and Oracle skip the rows other transactions have
+ * locked ({@code FOR UPDATE SKIP LOCKED}), MSSQL does the same with {@code READPAST}. If the
+ * database rejects the statement anyway, the claimer falls back to the next strategy for good.</li>
+ * <li>Older MySQL and MariaDB versions partition the records by a hash of their identifier among the live
+ * servers of the cluster, so each server locks its own rows. When its partition is empty the
+ * server falls back to the stored procedure, so the records of the other partitions still get
+ * indexed if their server is slow.</li>
+ * <li>Any other case returns null and the caller uses the stored procedure.</li>
+ * </ul>
+ * A claim works as a lease held while the server that took the records keeps its heartbeat: the
+ * records claimed by servers that have not been alive for {@code REINDEX_CLAIM_GRACE_SECONDS}, and
+ * the ones this server claimed before a restart, are released so other workers can take them. The
+ * grace period keeps a single late heartbeat from handing the records of a working server to
+ * another one.
+ *
+ * @author dotCMS
+ */
+public class ReindexJournalClaimer {
+
+    enum Strategy { SKIP_LOCKED, PARTITIONED, PROCEDURE }
+
+    private static final Pattern MARIADB_VERSION = Pattern.compile("(\\d+)\\.(\\d+)(\\.\\d+)?-MariaDB", Pattern.CASE_INSENSITIVE);
+
+    private static final ReindexJournalClaimer instance = new ReindexJournalClaimer();
+
+    private static final String COLUMNS = "id, inode_to_index, ident_to_index, priority";
+
+    private final boolean enabled = Config.getBooleanProperty("REINDEX_CONCURRENT_CLAIM", true);
+    private final long leaseCheckInterval =
+            TimeUnit.SECONDS.toMillis(Config.getIntProperty("REINDEX_CLAIM_LEASE_CHECK_SECONDS", 60));
+    private final long gracePeriod;
+
+    // servers holding claims that were missing from the alive servers, and since when
+    private final Map<String, Long> missingSince = new HashMap<String, Long>();
+
+    private volatile Strategy strategy;
+    private volatile boolean ownClaimsReleased;
+    private volatile long nextLeaseCheck;
+    private volatile int partitionCount = 1;
+    private volatile int partitionIndex;
+
+    private final AtomicLong claimCount = new AtomicLong();
+    private final AtomicLong claimedRecords = new AtomicLong();
+    private final AtomicLong emptyClaims = new AtomicLong();
+    private final AtomicLong claimNanos = new AtomicLong();
+    private final AtomicLong indexedRecords = new AtomicLong();
+    private final AtomicLong releasedRecords = new AtomicLong();
+    private volatile long firstClaimTime;
+
+    public static ReindexJournalClaimer getInstance() {
+        return instance;
+    }
+
+    private ReindexJournalClaimer() {
+        this(TimeUnit.SECONDS.toMillis(Config.getIntProperty("REINDEX_CLAIM_GRACE_SECONDS", 180)));
+    }
+
+    @VisibleForTesting
+    ReindexJournalClaimer(final long gracePeriod) {
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * Claims up to {@code limit} records for the given server, with a priority lower or equal to
+     * the given one. The claim is committed with the connection.
+     *
+     * @return the claimed records, or null if the records have to be claimed through the
+     *         {@code load_records_to_index} procedure
+     */
+    List<Map<String, Object>> claim(final Connection con, final String serverId, final int limit, final int priorityLevel)
+            throws SQLException {
+        if (!enabled) {
+            return null;
+        }
+        releaseExpiredClaims(serverId);
+
+        final long start = System.nanoTime();
+        List<Map<String, Object>> records;
+        switch (getStrategy(con)) {
+            case SKIP_LOCKED:
+                try {
+                    records = claimSkippingLocked(con, serverId, limit, priorityLevel);
+                } catch (SQLException e) {
+                    // the version check let through a database that does not support SKIP LOCKED
+                    strategy = DbConnectionFactory.isMySql() ? Strategy.PARTITIONED : Strategy.PROCEDURE;
+                    Logger.warn(this, "Unable to claim reindex journal records skipping locked rows, falling back to strategy "
+                            + strategy + ": " + e.getMessage());
+                    if (strategy != Strategy.PARTITIONED) {
+                        // the transaction may be aborted, this claim has to be retried
+                        throw e;
+                    }
+                    records = claimPartition(con, serverId, limit, priorityLevel);
+                }
+                break;
+            case PARTITIONED:
+                records = claimPartition(con, serverId, limit, priorityLevel);
+                break;
+            default:
+                records = null;
+        }
+        if (records != null) {
+            recordClaim(records.size(), System.nanoTime() - start);
+        }
+        return records;
+    }
+
+    private Strategy getStrategy(final Connection con) throws SQLException {
+        if (strategy == null) {
+            final DatabaseMetaData meta = con.getMetaData();
+            strategy = chooseStrategy(getDataBaseType(), meta.getDatabaseProductVersion(),
+                    meta.getDatabaseMajorVersion(), meta.getDatabaseMinorVersion());
+            Logger.info(this, "Reindex journal records will be claimed using strategy " + strategy);
+        }
+        return strategy;
+    }
+
+    /**
+     * Picks the strategy for the given database. MariaDB speaks the MySQL protocol but numbers its
+     * versions on its own, and the driver may report a 5.5.5 prefix, so its version is read from
+     * the product version.
+     */
+    static Strategy chooseStrategy(final DataBaseType dbType, final String productVersion, final int major, final int minor) {
+        if (dbType == DataBaseType.POSTGRES) {
+            return major > 9 || (major == 9 && minor >= 5) ? Strategy.SKIP_LOCKED : Strategy.PROCEDURE;
+        } else if (dbType == DataBaseType.MySQL) {
+            final Matcher mariaDB = MARIADB_VERSION.matcher(productVersion != null ? productVersion : "");
+            if (mariaDB.find()) {
+                final int mariaMajor = Integer.parseInt(mariaDB.group(1));
+                final int mariaMinor = Integer.parseInt(mariaDB.group(2));
+                return mariaMajor > 10 || (mariaMajor == 10 && mariaMinor >= 6) ? Strategy.SKIP_LOCKED : Strategy.PARTITIONED;
+            }
+            return major >= 8 ? Strategy.SKIP_LOCKED : Strategy.PARTITIONED;
+        } else if (dbType == DataBaseType.ORACLE || dbType == DataBaseType.MSSQL) {
+            return Strategy.SKIP_LOCKED;
+        }
+        return Strategy.PROCEDURE;
+    }
+
+    private DataBaseType getDataBaseType() {
+        if (DbConnectionFactory.isPostgres()) {
+            return DataBaseType.POSTGRES;
+        } else if (DbConnectionFactory.isMySql()) {
+            return DataBaseType.MySQL;
+        } else if (DbConnectionFactory.isOracle()) {
+            return DataBaseType.ORACLE;
+        } else if (DbConnectionFactory.isMsSql()) {
+            return DataBaseType.MSSQL;
+        }
+        return DataBaseType.H2;
+    }
+
+    private List<Map<String, Object>> claimSkippingLocked(final Connection con, final String serverId,
+            final int limit, final int priorityLevel) throws SQLException {
+        if (DbConnectionFactory.isPostgres()) {
+            final PreparedStatement statement = con.prepareStatement(
+                    "UPDATE dist_reindex_journal SET serverid = ? WHERE id IN (SELECT id FROM dist_reindex_journal "
+                    + "WHERE serverid IS NULL AND priority <= ? ORDER BY priority ASC LIMIT ? FOR UPDATE SKIP LOCKED) "
+                    + "RETURNING " + COLUMNS);
+            try {
+                statement.setString(1, serverId);
+                statement.setInt(2, priorityLevel);
+                statement.setInt(3, limit);
+                return readRecords(statement.executeQuery());
+            } finally {
+                statement.close();
+            }
+        } else if (DbConnectionFactory.isMsSql()) {
+            // READPAST is only honored under READ COMMITTED
+            final Statement isolation = con.createStatement();
+            try {
+                isolation.execute("SET TRANSACTION ISOLATION LEVEL READ COMMITTED");
+            } finally {
+                isolation.close();
+            }
+            final PreparedStatement statement = con.prepareStatement(
+                    "WITH batch AS (SELECT TOP (?) " + COLUMNS + ", serverid FROM dist_reindex_journal "
+                    + "WITH (ROWLOCK, READPAST, UPDLOCK) WHERE serverid IS NULL AND priority <= ? ORDER BY priority ASC) "
+                    + "UPDATE batch SET serverid = ? OUTPUT inserted.id, inserted.inode_to_index, "
+                    + "inserted.ident_to_index, inserted.priority");
+            try {
+                statement.setInt(1, limit);
+                statement.setInt(2, priorityLevel);
+                statement.setString(3, serverId);
+                return readRecords(statement.executeQuery());
+            } finally {
+                statement.close();
+            }
+        } else if (DbConnectionFactory.isOracle()) {
+            // ROWNUM is applied before the locked rows are skipped, so the candidates are chosen
+            // first and then locked, skipping the ones another claimer got first
+            final List<Long> candidates = new ArrayList<Long>();
+            final PreparedStatement select = con.prepareStatement(
+                    "SELECT id FROM (SELECT id FROM dist_reindex_journal WHERE serverid IS NULL AND priority <= ? "
+                    + "ORDER BY priority ASC) WHERE ROWNUM <= ?");
+            try {
+                select.setInt(1, priorityLevel);
+                select.setInt(2, limit);
+                final ResultSet rs = select.executeQuery();
+                while (rs.next()) {
+                    candidates.add(rs.getLong("id"));
+                }
+                rs.close();
+            } finally {
+                select.close();
+            }
+            if (candidates.isEmpty()) {
+                return new ArrayList<Map<String, Object>>();
+            }
+            final PreparedStatement lock = con.prepareStatement("SELECT " + COLUMNS + " FROM dist_reindex_journal WHERE id IN ("
+                    + join(candidates) + ") AND serverid IS NULL FOR UPDATE SKIP LOCKED");
+            try {
+                return assign(con, serverId, readRecords(lock.executeQuery()));
+            } finally {
+                lock.close();
+            }
+        } else {
+            final PreparedStatement lock = con.prepareStatement("SELECT " + COLUMNS + " FROM dist_reindex_journal "
+                    + "WHERE (serverid IS NULL OR serverid = '') AND priority <= ? ORDER BY priority ASC LIMIT ? "
+                    + "FOR UPDATE SKIP LOCKED");
+            try {
+                lock.setInt(1, priorityLevel);
+                lock.setInt(2, limit);
+                return assign(con, serverId, readRecords(lock.executeQuery()));
+            } finally {
+                lock.close();
+            }
+        }
+    }
+
+    private List<Map<String, Object>> claimPartition(final Connection con, final String serverId,
+            final int limit, final int priorityLevel) throws SQLException {
+        final int partitions = partitionCount;
+        if (partitions < 2) {
+            return null;
+        }
+        final PreparedStatement lock = con.prepareStatement("SELECT " + COLUMNS + " FROM dist_reindex_journal "
+                + "WHERE (serverid IS NULL OR serverid = '') AND priority <= ? AND MOD(CRC32(ident_to_index), ?) = ? "
+                + "ORDER BY priority ASC LIMIT ? FOR UPDATE");
+        try {
+            lock.setInt(1, priorityLevel);
+            lock.setInt(2, partitions);
+            lock.setInt(3, partitionIndex);
+            lock.setInt(4, limit);
+            final List<Map<String, Object>> records = assign(con, serverId, readRecords(lock.executeQuery()));
+            return records.isEmpty() ? null : records;
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Sets the server id of the locked records.
+     */
+    private List<Map<String, Object>> assign(final Connection con, final String serverId,
+            final List<Map<String, Object>> records) throws SQLException {
+        if (records.isEmpty()) {
+            return records;
+        }
+        final List<Long> ids = new ArrayList<Long>(records.size());
+        for (Map<String, Object> record : records) {
+            ids.add(((Number) record.get("id")).longValue());
+        }
+        final PreparedStatement update = con.prepareStatement(
+                "UPDATE dist_reindex_journal SET serverid = ? WHERE id IN (" + join(ids) + ")");
+        try {
+            update.setString(1, serverId);
+            update.executeUpdate();
+        } finally {
+            update.close();
+        }
+        return records;
+    }
+
+    private List<Map<String, Object>> readRecords(final ResultSet rs) throws SQLException {
+        final List<Map<String, Object>> records = new ArrayList<Map<String, Object>>();
+        try {
+            while (rs.next()) {
+                final Map<String, Object> record = new HashMap<String, Object>();
+                record.put("id", rs.getLong("id"));
+                record.put("inode_to_index", rs.getString("inode_to_index"));
+                record.put("ident_to_index", rs.getString("ident_to_index"));
+                record.put("priority", rs.getInt("priority"));
+                records.add(record);
+            }
+        } finally {
+            rs.close();
+        }
+        return records;
+    }
+
+    private String join(final List<Long> ids) {
+        final StringBuilder joined = new StringBuilder();
+        for (Long id : ids) {
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(id);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Releases the records this server claimed before it was restarted, as the queue they were
+     * read into is gone, and every {@code REINDEX_CLAIM_LEASE_CHECK_SECONDS} the records claimed by
+     * servers that stopped sending their heartbeat more than the grace period ago. The list of live servers is also used to
+     * assign the hash partition of this server.
+     */
+    private void releaseExpiredClaims(final String serverId) {
+        final long now = System.currentTimeMillis();
+        if (ownClaimsReleased && (leaseCheckInterval <= 0 || now < nextLeaseCheck)) {
+            return;
+        }
+        nextLeaseCheck = now + leaseCheckInterval;
+
+        // runs in its own connection so the released records are visible to the claim that follows
+        Connection con = null;
+        try {
+            con = DbConnectionFactory.getDataSource().getConnection();
+            con.setAutoCommit(true);
+            if (!ownClaimsReleased) {
+                final PreparedStatement own = con.prepareStatement(
+                        "UPDATE dist_reindex_journal SET serverid = NULL WHERE serverid = ?");
+                try {
+                    own.setString(1, serverId);
+                    releasedRecords.addAndGet(own.executeUpdate());
+                } finally {
+                    own.close();
+                }
+                ownClaimsReleased = true;
+            }
+
+            final String[] aliveIds = APILocator.getServerAPI().getAliveServersIds();
+            if (aliveIds == null || aliveIds.length == 0) {
+                return;
+            }
+            final List<String> alive = new ArrayList<String>(Arrays.asList(aliveIds));
+            if (!alive.contains(serverId)) {
+                alive.add(serverId);
+            }
+            alive.sort(null);
+            partitionCount = alive.size();
+            partitionIndex = alive.indexOf(serverId);
+
+            final List<String> claiming = new ArrayList<String>();
+            final PreparedStatement servers = con.prepareStatement(
+                    "SELECT DISTINCT serverid FROM dist_reindex_journal WHERE serverid IS NOT NULL");
+            try {
+                final ResultSet rs = servers.executeQuery();
+                while (rs.next()) {
+                    claiming.add(rs.getString(1));
+                }
+                rs.close();
+            } finally {
+                servers.close();
+            }
+
+            final PreparedStatement expired = con.prepareStatement(
+                    "UPDATE dist_reindex_journal SET serverid = NULL WHERE serverid = ?");
+            try {
+                for (String expiredServerId : findExpiredServers(claiming, alive, now)) {
+                    expired.setString(1, expiredServerId);
+                    final int released = expired.executeUpdate();
+                    if (released > 0) {
+                        releasedRecords.addAndGet(released);
+                        Logger.info(this, "Released " + released + " reindex journal records claimed by server "
+                                + expiredServerId + ", which is no longer alive");
+                    }
+                }
+            } finally {
+                expired.close();
+            }
+        } catch (Exception e) {
+            Logger.warn(this, "Unable to release expired reindex journal claims: " + e.getMessage());
+            Logger.debug(this, e.getMessage(), e);
+        } finally {
+            if (con != null) {
+                try {
+                    con.close();
+                } catch (SQLException e) {
+                    Logger.debug(this, e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the servers holding claims that have been missing from the alive servers for the
+     * whole grace period. A server is forgotten as soon as it is alive again or holds no claims.
+     */
+    List<String> findExpiredServers(final List<String> claiming, final List<String> alive, final long now) {
+        final List<String> expired = new ArrayList<String>();
+        synchronized (missingSince) {
+            missingSince.keySet().retainAll(claiming);
+            missingSince.keySet().removeAll(alive);
+            for (String serverId : claiming) {
+                if (serverId == null || serverId.isEmpty() || alive.contains(serverId)) {
+                    continue;
+                }
+                final Long since = missingSince.get(serverId);
+                if (since == null) {
+                    missingSince.put(serverId, now);
+                    if (gracePeriod <= 0) {
+                        expired.add(serverId);
+                    }
+                } else if (now - since >= gracePeriod) {
+                    expired.add(serverId);
+                }
+            }
+            missingSince.keySet().removeAll(expired);
+        }
+        return expired;
+    }
+
+    private void recordClaim(final int records, final long elapsed) {
+        if (firstClaimTime == 0 && records > 0) {
+            firstClaimTime = System.currentTimeMillis();
+        }
+        claimCount.incrementAndGet();
+        claimNanos.addAndGet(elapsed);
+        claimedRecords.addAndGet(records);
+        if (records == 0) {
+            emptyClaims.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts the records this server indexed and removed from the journal.
+     */
+    void recordIndexed(final int records) {
+        indexedRecords.addAndGet(records);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getStrategy() {
+        return strategy != null ? strategy.name() : null;
+    }
+
+    public long getClaimCount() {
+        return claimCount.get();
+    }
+
+    public long getClaimedRecords() {
+        return claimedRecords.get();
+    }
+
+    public long getEmptyClaims() {
+        return emptyClaims.get();
+    }
+
+    public long getAverageClaimTimeMillis() {
+        final long count = claimCount.get();
+        return count > 0 ? TimeUnit.NANOSECONDS.toMillis(claimNanos.get() / count) : 0;
+    }
+
+    public long getIndexedRecords() {
+        return indexedRecords.get();
+    }
+
+    public long getReleasedRecords() {
+        return releasedRecords.get();
+    }
+
+    /**
+     * Records indexed by this server per second, since it claimed its first records.
+     */
+    public double getIndexedRecordsPerSecond() {
+        final long since = firstClaimTime;
+        if (since == 0) {
+            return 0;
+        }
+        final long elapsed = Math.max(1, System.currentTimeMillis() - since);
+        return indexedRecords.get() * 1000d / elapsed;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public int getPartitionIndex() {
+        return partitionIndex;
+    }
+
+}
@@ -30,12 +30,16 @@ public interface LanguageVariableAPI {
      * <li>If none of the previous two appraoches work, then return {@code null}.</li>
      * </ol>
      * 
+     * <p>
+     * The variables of a language are loaded all at once with the system user and shared by every
+     * user, so the {@code user} and {@code respectFrontendRoles} arguments are no longer used: any
+     * user gets the value of every Language Variable.
+     * 
      * @param key - The key to the Language Variable.
      * @param languageId - The ID of the language that the variable was created for.
-     * @param user - The user performing this action.
-     * @param respectFrontendRoles - Set to {@code true} if this method requires that front-end
-     *        roles are take in count for the search (which means this is being called from the
-     *        front-end). Otherwise, set to {@code false}.
+     * @param user - Not used, the variables are read with the system user.
+     * @param respectFrontendRoles - Not used, the variables are read without checking the
+     *        front-end roles.
      * @return The value of the Language Variable that matched the search criteria, or {@code null}
      *         if it doesn't exist.
      */
@@ -54,10 +58,11 @@ public interface LanguageVariableAPI {
      * </ol>
      *
      * This method is pretty much {@link #get(String, long, User, boolean)} with respectFrontendRoles in true.
+     * Neither the user nor the front-end roles are used to read the variables anymore.
      *
      * @param key - The key to the Language Variable.
      * @param languageId - The ID of the language that the variable was created for.
-     * @param user - The user performing this action.
+     * @param user - Not used, the variables are read with the system user.
 
      * @return The value of the Language Variable that matched the search criteria, or {@code null}
      *         if it doesn't exist.
@@ -79,10 +84,11 @@ public interface LanguageVariableAPI {
      * </ol>
      *
      * This method is pretty much {@link #get(String, long, User, boolean)} with respectFrontendRoles in false.
+     * Neither the user nor the front-end roles are used to read the variables anymore.
      *
      * @param key - The key to the Language Variable.
      * @param languageId - The ID of the language that the variable was created for.
-     * @param user - The user performing this action.
+     * @param user - Not used, the variables are read with the system user.
 
      * @return The value of the Language Variable that matched the search criteria, or {@code null}
      *         if it doesn't exist.
@@ -1,16 +1,25 @@
 package com.dotcms.languagevariable.business;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.dotcms.cache.KeyValueCache;
 import com.dotcms.contenttype.model.type.ContentType;
+import com.dotcms.contenttype.model.type.KeyValueContentType;
 import com.dotcms.contenttype.model.type.MultilinguableFallback;
-import com.dotcms.keyvalue.business.KeyValueAPI;
-import com.dotcms.keyvalue.model.KeyValue;
 import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotSecurityException;
+import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
 import com.dotmarketing.portlets.languagesmanager.business.LanguageAPI;
 import com.dotmarketing.portlets.languagesmanager.model.Language;
 import com.dotmarketing.util.Logger;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.liferay.portal.model.User;
 
 /**
@@ -25,22 +34,28 @@ public class LanguageVariableAPIImpl implements LanguageVariableAPI {
 
 
     public static final String LANGUAGEVARIABLE = "Languagevariable";
-    private final KeyValueAPI keyValueAPI;
     private final LanguageAPI languageAPI;
+    private final ContentletAPI contentletAPI;
+    private final KeyValueCache cache;
+    private final Supplier<User> systemUser;
+    private final Map<Long, Object> loadLocks = new ConcurrentHashMap<>();
 
     /**
      * Creates a new instance of the {@link LanguageVariableAPI}.
      */
     public LanguageVariableAPIImpl() {
-        this(APILocator.getKeyValueAPI(), APILocator.getLanguageAPI());
-        
+        this(APILocator.getLanguageAPI(), APILocator.getContentletAPI(), CacheLocator.getKeyValueCache(),
+                APILocator::systemUser);
     }
 
     @VisibleForTesting
-    public LanguageVariableAPIImpl(final KeyValueAPI keyValueAPI, final LanguageAPI languageAPI) {
+    public LanguageVariableAPIImpl(final LanguageAPI languageAPI, final ContentletAPI contentletAPI,
+                                   final KeyValueCache cache, final Supplier<User> systemUser) {
 
-        this.keyValueAPI = keyValueAPI;
         this.languageAPI = languageAPI;
+        this.contentletAPI = contentletAPI;
+        this.cache = cache;
+        this.systemUser = systemUser;
     }
 
     @Override
@@ -82,38 +97,92 @@ public class LanguageVariableAPIImpl implements LanguageVariableAPI {
                                             final User user, final boolean respectFrontendRoles,
                                             final ContentType languageVariableContentType) {
 
-        final KeyValue keyValue = this.keyValueAPI.get(key, languageId,
-                languageVariableContentType, user, respectFrontendRoles);
-        return (null != keyValue)?keyValue.getValue():null;
+        return this.getLanguageVariables(languageId, languageVariableContentType).get(key);
     }
 
     private String getValueFromUserFallbackLanguage(final String key, long languageId,
                                             final User user, final boolean respectFrontendRoles,
                                             final ContentType languageVariableContentType) {
 
-        KeyValue keyValue               = null;
         final Language fallbackLanguage = this.languageAPI.getFallbackLanguage
                 (this.languageAPI.getLanguage(languageId).getLanguageCode());
 
-        if (null != fallbackLanguage) {
-
-            keyValue = this.keyValueAPI.get(key, fallbackLanguage.getId(),
-                    languageVariableContentType, user, respectFrontendRoles);
-        }
-
-        return (null != keyValue)?keyValue.getValue():null;
+        return (null != fallbackLanguage)?
+                this.getLanguageVariables(fallbackLanguage.getId(), languageVariableContentType).get(key):null;
     }
 
     private String getValueFromDefaultLanguage(final String key, final User user,
                                                final boolean respectFrontendRoles,
                                                final ContentType languageVariableContentType) {
 
-        final KeyValue keyValue  = this.keyValueAPI.get(key,
-                this.languageAPI.getDefaultLanguage().getId(),
-                languageVariableContentType, user, respectFrontendRoles);
+        return this.getLanguageVariables(this.languageAPI.getDefaultLanguage().getId(),
+                languageVariableContentType).get(key);
+    }
+
+    /**
+     * Returns the values of all the live Language Variables of a language, by key. They are read
+     * from the index in a single scan the first time and kept in the {@link KeyValueCache} until a
+     * Language Variable of the language changes, so looking up a variable never goes to the index.
+     *
+     * @param languageId - The ID of the language.
+     * @param languageVariableContentType - The Language Variable Content Type.
+     * @return The immutable map of keys to values, empty if it could not be loaded.
+     */
+    private Map<String, String> getLanguageVariables(final long languageId,
+                                                     final ContentType languageVariableContentType) {
+
+        Map<String, String> languageVariables = this.cache.getLanguageVariables(languageId);
+        if (null != languageVariables) {
+            return languageVariables;
+        }
+
+        // only one thread per language scans the index, the others wait for its result
+        synchronized (this.loadLock(languageId)) {
+
+            languageVariables = this.cache.getLanguageVariables(languageId);
+            if (null != languageVariables) {
+                return languageVariables;
+            }
+
+            // a variable changed during the scan may be missing from the result, which is then not kept
+            final long generation = this.cache.getLanguageVariablesGeneration();
+            final Map<String, String> loaded = new HashMap<>();
+            final String query = "+contentType:" + languageVariableContentType.variable() +
+                    " +languageId:" + languageId + " +live:true +deleted:false";
+            try {
+
+                this.contentletAPI.scroll(query, 0, this.systemUser.get(), false, page -> {
+
+                    for (final Contentlet contentlet : page) {
+
+                        final String key   = contentlet.getStringProperty(KeyValueContentType.KEY_VALUE_KEY_FIELD_VAR);
+                        final String value = contentlet.getStringProperty(KeyValueContentType.KEY_VALUE_VALUE_FIELD_VAR);
+                        if (null != key && null != value) {
+                            loaded.putIfAbsent(key, value);
+                        }
+                    }
+                    return true;
+                });
+            } catch (DotDataException | DotSecurityException e) {
+
+                Logger.error(this, String.format("Could not load the Language Variables of language %s: %s",
+                        languageId, e.getMessage()), e);
+                return ImmutableMap.of();
+            }
+
+            languageVariables = ImmutableMap.copyOf(loaded);
+            if (!this.cache.putLanguageVariables(languageId, languageVariables, generation)) {
 
-        return (null != keyValue)?keyValue.getValue():null;
+                Logger.debug(this, String.format("Language Variables changed while the ones of language %s were loaded",
+                        languageId));
+            }
+            return languageVariables;
+        }
     }
 
+    private Object loadLock(final long languageId) {
+
+        return this.loadLocks.computeIfAbsent(languageId, id -> new Object());
+    }
 
 }
@@ -6,9 +6,11 @@ import com.dotcms.publisher.util.PublisherUtil;
 import com.dotmarketing.common.db.DotConnect;
 import com.dotmarketing.db.DbConnectionFactory;
 import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.db.WriteBehindBuffer;
 import com.dotmarketing.exception.DotHibernateException;
 import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.UtilMethods;
+import java.sql.Timestamp;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -105,28 +107,15 @@ public class PublishAuditAPIImpl extends PublishAuditAPI {
 	    boolean local=false;
 		try{
 			local = HibernateUtil.startLocalTransactionIfNeeded();
-			DotConnect dc = new DotConnect();
+			String serializedHistory = history != null ? history.getSerialized() : "";
+			// only the last status of the bundle in the transaction is written, right before it commits
             if ( updateDates ) {
-                dc.setSQL( UPDATESQL_CREATION_DATE );
+                Timestamp now = new Timestamp(new Date().getTime());
+                WriteBehindBuffer.put(UPDATESQL_CREATION_DATE, bundleId, newStatus.getCode(), serializedHistory, now, now, bundleId);
             } else {
-                dc.setSQL( UPDATESQL );
-            }
-            dc.addParam(newStatus.getCode());
-
-			if(history != null) {
-				dc.addParam(history.getSerialized());
-			} else {
-				dc.addParam("");
-			}
-            if ( updateDates ) {
-                dc.addParam( new Date() );
-                dc.addParam( new Date() );
+                WriteBehindBuffer.put(UPDATESQL, bundleId, newStatus.getCode(), serializedHistory, bundleId);
             }
 
-			dc.addParam(bundleId);
-
-			dc.loadResult();
-
 			if(local) {
 			    HibernateUtil.commitTransaction();
 			}
@@ -152,6 +141,7 @@ public class PublishAuditAPIImpl extends PublishAuditAPI {
 	    boolean local=false;
 		try{
 			local = HibernateUtil.startLocalTransactionIfNeeded();
+			WriteBehindBuffer.flush();
 			DotConnect dc = new DotConnect();
 			dc.setSQL(DELETESQL);
 			dc.addParam(bundleId);
@@ -185,6 +175,7 @@ public class PublishAuditAPIImpl extends PublishAuditAPI {
 			throws DotPublisherException {
 
 		try{
+			WriteBehindBuffer.flush();
 			DotConnect dc = new DotConnect();
 			dc.setSQL(SELECTSQL);
 
@@ -214,6 +205,7 @@ public class PublishAuditAPIImpl extends PublishAuditAPI {
 	@Override
 	public List<PublishAuditStatus> getAllPublishAuditStatus() throws DotPublisherException {
 		try{
+			WriteBehindBuffer.flush();
 			DotConnect dc = new DotConnect();
 			dc.setSQL(SELECTSQLALL);
 
@@ -229,6 +221,7 @@ public class PublishAuditAPIImpl extends PublishAuditAPI {
 	@Override
 	public List<PublishAuditStatus> getAllPublishAuditStatus(Integer limit, Integer offset) throws DotPublisherException {
 		try{
+			WriteBehindBuffer.flush();
 			DotConnect dc = new DotConnect();
 			dc.setSQL(SELECTSQLALL);
 
@@ -250,6 +243,7 @@ public class PublishAuditAPIImpl extends PublishAuditAPI {
 	@Override
 	public Date getLastPublishAuditStatusDate() throws DotPublisherException {
 		try{
+			WriteBehindBuffer.flush();
 			DotConnect dc = new DotConnect();
 			dc.setSQL(SELECTSQLMAXDATE);
 
@@ -275,6 +269,7 @@ public class PublishAuditAPIImpl extends PublishAuditAPI {
 	@Override
 	public Integer countAllPublishAuditStatus() throws DotPublisherException {
 		try{
+			WriteBehindBuffer.flush();
 			DotConnect dc = new DotConnect();
 			dc.setSQL(SELECTSQLALLCOUNT);
 			return Integer.parseInt(dc.loadObjectResults().get(0).get("count").toString());
@@ -292,6 +287,7 @@ public class PublishAuditAPIImpl extends PublishAuditAPI {
 	@Override
 	public List<PublishAuditStatus> getPendingPublishAuditStatus() throws DotPublisherException {
 		try{
+			WriteBehindBuffer.flush();
 			DotConnect dc = new DotConnect();
 			dc.setSQL(SELECTSQLPENDING);
 			dc.addParam(PublishAuditStatus.Status.BUNDLE_SENT_SUCCESSFULLY.getCode());
@@ -31,6 +31,7 @@ import com.dotmarketing.cms.factories.PublicCompanyFactory;
 import com.dotmarketing.common.db.DotConnect;
 import com.dotmarketing.db.DbConnectionFactory;
 import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.db.WriteBehindBuffer;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotHibernateException;
 import com.dotmarketing.portlets.folders.model.Folder;
@@ -473,6 +474,7 @@ public class PublisherAPIImpl extends PublisherAPI{
 	@Override
 	public List<Map<String,Object>> getQueueElementsByStatus(Status status) throws DotPublisherException {
 		try{
+			WriteBehindBuffer.flush();
 			DotConnect dc = new DotConnect();
 			dc.setSQL(GETENTRIESBYSTATUS);
 
@@ -528,6 +530,7 @@ public class PublisherAPIImpl extends PublisherAPI{
 	@Override
 	public List<Map<String,Object>> getQueueElementsGroupByBundleId() throws DotPublisherException {
 		try{
+			WriteBehindBuffer.flush();
 			DotConnect dc = new DotConnect();
 			dc.setSQL(ETENTRIESGROUPED);
 			return dc.loadObjectResults();
@@ -540,6 +543,7 @@ public class PublisherAPIImpl extends PublisherAPI{
 	@Override
 	public List<Map<String,Object>> getQueueElementsGroupByBundleId(String offset, String limit) throws DotPublisherException {
 		try{
+			WriteBehindBuffer.flush();
 			DotConnect dc = new DotConnect();
 			dc.setSQL(ETENTRIESGROUPED);
 			dc.setStartRow(offset);
@@ -599,6 +603,7 @@ public class PublisherAPIImpl extends PublisherAPI{
 	@Override
 	public List<Map<String, Object>> getQueueBundleIdsToProcess() throws DotPublisherException {
 		try{
+			WriteBehindBuffer.flush();
 			DotConnect dc = new DotConnect();
 			dc.setSQL(SQLGETBUNDLESTOPROCESS);
 			dc.addParam(Status.BUNDLE_SENT_SUCCESSFULLY.getCode());
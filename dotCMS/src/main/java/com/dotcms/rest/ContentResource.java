@@ -21,6 +21,7 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.Part;
 
 import com.dotcms.contenttype.model.type.BaseContentType;
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
 import com.dotcms.repackage.com.thoughtworks.xstream.XStream;
 import com.dotcms.repackage.com.thoughtworks.xstream.converters.Converter;
 import com.dotcms.repackage.com.thoughtworks.xstream.converters.MarshallingContext;
@@ -413,7 +414,6 @@ public class ContentResource {
 		String limitStr = paramsMap.get(RESTParams.LIMIT.getValue());
 		String offsetStr = paramsMap.get(RESTParams.OFFSET.getValue());
 		String inode = paramsMap.get(RESTParams.INODE.getValue());
-		String result = null;
 		type = UtilMethods.isSet(type)?type:"json";
 		orderBy = UtilMethods.isSet(orderBy)?orderBy:"modDate desc";
 		long language = APILocator.getLanguageAPI().getDefaultLanguage().getId();
@@ -451,6 +451,7 @@ public class ContentResource {
 		/* Fetching the content using a query if passed or an id */
 
 		List<Contentlet> contentlets = new ArrayList<Contentlet>();
+		ContentletsStreamingOutput.Pages pages = null;
 		Boolean idPassed = false;
 		Boolean inodePassed = false;
 		Boolean queryPassed = false;
@@ -464,7 +465,17 @@ public class ContentResource {
 						APILocator.getContentletAPI().find(inode, user, true)));
 			} else if(queryPassed = UtilMethods.isSet(query)) {
 				String tmDate=(String)request.getSession().getAttribute("tm_date");
-				contentlets = ContentUtils.pull(query, offset, limit,orderBy,user,tmDate);
+				int pageSize = Config.getIntProperty("REST_CONTENT_PAGE_SIZE", 100);
+				if(tmDate == null && limit > pageSize) {
+					// large results are read from a single sorted scroll and written a page at a time
+					final String pagesOrderBy = orderBy;
+					final int pagesOffset = offset;
+					final int pagesLimit = limit;
+					pages = handler -> APILocator.getContentletAPI().scroll(query, pageSize, pagesOrderBy, user, true,
+							new OffsetLimitPageHandler(pagesOffset, pagesLimit, handler));
+				} else {
+					contentlets = ContentUtils.pull(query, offset, limit,orderBy,user,tmDate);
+				}
 			}
 		} catch (Exception e) {
 			if(idPassed) {
@@ -476,54 +487,16 @@ public class ContentResource {
 			}
 		}
 
-		/* Converting the Contentlet list to XML or JSON */
-
-		try {
-			if("xml".equals(type)) {
-				result = getXML(contentlets, request, response, render, user);
-			} else {
-				result = getJSON(contentlets, request, response, render, user);
-			}
-		} catch (Exception e) {
-			Logger.warn(this, "Error converting result to XML/JSON");
-		}
-
-		return responseResource.response( result );
-	}
-
-
-	private String getXML(List<Contentlet> cons, HttpServletRequest request, HttpServletResponse response, String render, User user) throws DotDataException, IOException {
-		XStream xstream = new XStream(new DomDriver());
-		xstream.alias("content", Map.class);
-		xstream.registerConverter(new MapEntryConverter());
-		StringBuilder sb = new StringBuilder();
-		sb.append("<?xml version=\"1.0\" encoding='UTF-8'?>");
-		sb.append("<contentlets>");
-
-		for(Contentlet c : cons){
-			Map<String, Object> m = new HashMap<>();
-			Structure s = c.getStructure();
-
-			m.putAll(ContentletUtil.getContentPrintableMap(user, c));
-
-			if(s.getStructureType() == Structure.STRUCTURE_TYPE_WIDGET && "true".equals(render)) {
-				m.put("parsedCode",  WidgetResource.parseWidget(request, response, c));
-			}
-
-			Set<String> jsonFields=getJSONFields(s);
-			for(String key : m.keySet())
-				if(jsonFields.contains(key))
-					m.put(key, c.getKeyValueProperty(key));
+		/* Writing the Contentlets as XML or JSON straight to the response */
 
-			sb.append(xstream.toXML(m));
+		if(pages == null) {
+			final List<Contentlet> results = contentlets;
+			pages = handler -> handler.handle(results);
 		}
 
-		sb.append("</contentlets>");
-		return sb.toString();
+		return responseResource.response( new ContentletsStreamingOutput(pages, type, request, response, render, user) );
 	}
 
-
-
 	private String getXMLContentIds(Contentlet con) throws DotDataException, IOException {
 		XStream xstream = new XStream(new DomDriver());
 		xstream.alias("content", Map.class);
@@ -551,29 +524,6 @@ public class ContentResource {
 		return json.toString();
 	}
 
-	private String getJSON(List<Contentlet> cons, HttpServletRequest request, HttpServletResponse response, String render, User user) throws IOException, DotDataException{
-		JSONObject json = new JSONObject();
-		JSONArray jsonCons = new JSONArray();
-
-		for(Contentlet c : cons){
-			try {
-				jsonCons.put(contentletToJSON(c, request, response, render, user));
-			} catch (Exception e) {
-				Logger.warn(this.getClass(), "unable JSON contentlet " + c.getIdentifier());
-				Logger.debug(this.getClass(), "unable to find contentlet", e);
-			}
-		}
-
-		try {
-			json.put("contentlets", jsonCons);
-		} catch (JSONException e) {
-			Logger.warn(this.getClass(), "unable to create JSONObject");
-			Logger.debug(this.getClass(), "unable to create JSONObject", e);
-		}
-
-		return json.toString();
-	}
-
 	public static Set<String> getJSONFields(Structure s) {
 		Set<String> jsonFields=new HashSet<String>();
 		for(Field f : FieldsCache.getFieldsByStructureInode(s.getInode()))
@@ -583,11 +533,23 @@ public class ContentResource {
 	}
 
 	public static JSONObject contentletToJSON(Contentlet con, HttpServletRequest request, HttpServletResponse response, String render, User user) throws JSONException, IOException, DotDataException{
-		JSONObject jo = new JSONObject();
 		Structure s = con.getStructure();
+		String parsedCode = null;
 		Map<String,Object> map = ContentletUtil.getContentPrintableMap(user, con);
 
-		Set<String> jsonFields=getJSONFields(s);
+		if(s.getStructureType() == Structure.STRUCTURE_TYPE_WIDGET && "true".equals(render)) {
+			parsedCode = WidgetResource.parseWidget(request, response, con);
+		}
+
+		return contentletToJSON(con, map, getJSONFields(s), parsedCode);
+	}
+
+	/**
+	 * Builds the JSON of the contentlet from its printable map, leaving out the null values.
+	 */
+	@VisibleForTesting
+	static JSONObject contentletToJSON(Contentlet con, Map<String,Object> map, Set<String> jsonFields, String parsedCode) throws JSONException{
+		JSONObject jo = new JSONObject();
 
 		for(String key : map.keySet()) {
 			if(Arrays.binarySearch(ignoreFields, key) < 0)
@@ -600,14 +562,14 @@ public class ContentResource {
 				}
 		}
 
-		if(s.getStructureType() == Structure.STRUCTURE_TYPE_WIDGET && "true".equals(render)) {
-			jo.put("parsedCode",  WidgetResource.parseWidget(request, response, con));
+		if(parsedCode != null) {
+			jo.put("parsedCode",  parsedCode);
 		}
 
 		return jo;
 	}
 
-	public class MapEntryConverter implements Converter{
+	public static class MapEntryConverter implements Converter{
 		public boolean canConvert(@SuppressWarnings("rawtypes") Class clazz) {
 			return AbstractMap.class.isAssignableFrom(clazz);
 		}
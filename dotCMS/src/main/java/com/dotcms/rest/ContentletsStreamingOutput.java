@@ -0,0 +1,294 @@
+package com.dotcms.rest;
+
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotcms.repackage.com.thoughtworks.xstream.XStream;
+import com.dotcms.repackage.com.thoughtworks.xstream.io.xml.DomDriver;
+import com.dotcms.repackage.javax.ws.rs.WebApplicationException;
+import com.dotcms.repackage.javax.ws.rs.core.StreamingOutput;
+import com.dotcms.repackage.org.codehaus.jettison.json.JSONArray;
+import com.dotcms.repackage.org.codehaus.jettison.json.JSONException;
+import com.dotcms.repackage.org.codehaus.jettison.json.JSONObject;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotSecurityException;
+import com.dotmarketing.portlets.contentlet.business.ContentletPageHandler;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.portlets.contentlet.util.ContentletUtil;
+import com.dotmarketing.portlets.structure.model.Structure;
+import com.dotmarketing.util.Logger;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.liferay.portal.model.User;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the contentlets returned by the {@link ContentResource} straight to the response, one at a
+ * time, as the pages of results are handed to it. Neither the result set nor the whole document
+ * is kept in memory, and the client gets the first contentlets while the next pages are read.
+ *
+ * The output is the same the resource built before with {@link JSONObject} and {@link XStream}:
+ * the JSON is written with a Jackson generator but the values are formatted by the same
+ * {@link JSONObject} methods, so the strings are escaped the same way and the keys keep their order.
+ * @author dotCMS
+ */
+public class ContentletsStreamingOutput implements StreamingOutput {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Reads the fields of a contentlet with their values already formatted as JSON.
+     */
+    @FunctionalInterface
+    interface JSONFieldsReader {
+        Map<String, String> read(Contentlet contentlet) throws Exception;
+    }
+
+    /**
+     * Hands the pages of contentlets to write to the handler, usually from a scroll of the index.
+     */
+    @FunctionalInterface
+    public interface Pages {
+        void read(ContentletPageHandler handler) throws DotDataException, DotSecurityException;
+    }
+
+    private final Pages pages;
+    private final JSONFieldsReader jsonFieldsReader;
+    private final boolean xml;
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final String render;
+    private final User user;
+
+    /**
+     * @param pages    pages of contentlets, each page is written before the next one is read
+     * @param type     xml, or json for anything else
+     */
+    public ContentletsStreamingOutput(final Pages pages, final String type,
+                                      final HttpServletRequest request, final HttpServletResponse response,
+                                      final String render, final User user) {
+
+        this.pages    = pages;
+        this.xml      = "xml".equals(type);
+        this.request  = request;
+        this.response = response;
+        this.render   = render;
+        this.user     = user;
+        this.jsonFieldsReader = contentlet -> toJSONFields(contentlet, request, response, render, user);
+    }
+
+    /**
+     * Writes the contentlets as JSON, reading their fields with the given reader.
+     */
+    @VisibleForTesting
+    ContentletsStreamingOutput(final Pages pages, final JSONFieldsReader jsonFieldsReader) {
+
+        this.pages    = pages;
+        this.xml      = false;
+        this.request  = null;
+        this.response = null;
+        this.render   = null;
+        this.user     = null;
+        this.jsonFieldsReader = jsonFieldsReader;
+    }
+
+    @Override
+    public void write(final OutputStream outputStream) throws IOException, WebApplicationException {
+
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (this.xml) {
+            this.writeXML(writer);
+        } else {
+            this.writeJSON(writer);
+        }
+        writer.flush();
+    } // write.
+
+    private void writeJSON(final Writer writer) throws IOException {
+
+        final JsonGenerator generator = JSON_FACTORY.createGenerator(writer);
+        // the stream belongs to the container
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        generator.writeStartObject();
+        generator.writeFieldName("contentlets");
+        generator.writeStartArray();
+
+        this.readPages(page -> {
+            for (Contentlet contentlet : page) {
+
+                final Map<String, String> fields;
+                try {
+                    fields = this.jsonFieldsReader.read(contentlet);
+                } catch (Exception e) {
+                    Logger.warn(this.getClass(), "unable JSON contentlet " + contentlet.getIdentifier());
+                    Logger.debug(this.getClass(), "unable to find contentlet", e);
+                    continue;
+                }
+
+                generator.writeStartObject();
+                for (Map.Entry<String, String> field : fields.entrySet()) {
+                    // the keys are velocity variable names, there is nothing to escape on them
+                    generator.writeFieldName(field.getKey());
+                    generator.writeRawValue(field.getValue());
+                }
+                generator.writeEndObject();
+            }
+            generator.flush();
+        });
+
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    } // writeJSON.
+
+    /**
+     * Returns the fields of the contentlet, in the order {@link ContentResource#contentletToJSON}
+     * puts them, with their values already formatted as JSON. All of them are read before anything
+     * is written, so a contentlet that can't be converted is left out as a whole.
+     */
+    static Map<String, String> toJSONFields(final Contentlet contentlet, final HttpServletRequest request,
+                                            final HttpServletResponse response, final String render,
+                                            final User user) throws JSONException, IOException, DotDataException {
+
+        final Structure structure = contentlet.getStructure();
+        final Map<String, Object> map = ContentletUtil.getContentPrintableMap(user, contentlet);
+        final String parsedCode = structure.getStructureType() == Structure.STRUCTURE_TYPE_WIDGET && "true".equals(render)?
+                WidgetResource.parseWidget(request, response, contentlet): null;
+
+        return toJSONFields(contentlet, map, ContentResource.getJSONFields(structure), parsedCode);
+    } // toJSONFields.
+
+    /**
+     * Same as {@link ContentResource#contentletToJSON(Contentlet, Map, Set, String)}, but the values
+     * are formatted one by one instead of building the {@link JSONObject}.
+     */
+    @VisibleForTesting
+    static Map<String, String> toJSONFields(final Contentlet contentlet, final Map<String, Object> map,
+                                            final Set<String> jsonFields, final String parsedCode) throws JSONException {
+
+        final Map<String, String> fields = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            final String key = entry.getKey();
+            if (Arrays.binarySearch(ContentResource.ignoreFields, key) < 0) {
+                if (jsonFields.contains(key)) {
+                    Logger.info(ContentResource.class, key + " is a json field: " + entry.getValue().toString());
+                    fields.put(key, new JSONObject(contentlet.getKeyValueProperty(key)).toString());
+                } else if (null != entry.getValue()) {
+                    // a JSONObject leaves out the null values
+                    fields.put(key, valueToString(entry.getValue()));
+                }
+            }
+        }
+
+        if (null != parsedCode) {
+            fields.put("parsedCode", valueToString(parsedCode));
+        }
+
+        return fields;
+    } // toJSONFields.
+
+    /**
+     * Formats the value the way {@link JSONObject#toString()} does.
+     */
+    private static String valueToString(final Object value) throws JSONException {
+
+        if (null == value || value.equals(null)) {
+            return "null";
+        }
+        if (value instanceof Number) {
+            return JSONObject.numberToString((Number) value);
+        }
+        if (value instanceof Boolean || value instanceof JSONObject || value instanceof JSONArray) {
+            return value.toString();
+        }
+        return JSONObject.quote(value.toString());
+    } // valueToString.
+
+    /**
+     * Writes a page of contentlets.
+     */
+    @FunctionalInterface
+    private interface PageWriter {
+        void write(List<Contentlet> page) throws IOException;
+    }
+
+    /**
+     * Writes every page handed by the {@link Pages}. A failure reading them is logged and ends the
+     * document with the contentlets written so far, as the response is already on its way.
+     */
+    private void readPages(final PageWriter pageWriter) throws IOException {
+
+        try {
+            this.pages.read(page -> {
+                try {
+                    pageWriter.write(page);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            });
+        } catch (UncheckedIOException e) {
+            // the client is gone
+            throw e.getCause();
+        } catch (DotDataException | DotSecurityException | RuntimeException e) {
+            Logger.warn(this, "Unable to read the contentlets: " + e.getMessage());
+            Logger.debug(this, e.getMessage(), e);
+        }
+    } // readPages.
+
+    private void writeXML(final Writer writer) throws IOException {
+
+        final XStream xstream = new XStream(new DomDriver());
+        xstream.alias("content", Map.class);
+        xstream.registerConverter(new ContentResource.MapEntryConverter());
+
+        writer.write("<?xml version=\"1.0\" encoding='UTF-8'?>");
+        writer.write("<contentlets>");
+
+        this.readPages(page -> {
+            for (Contentlet contentlet : page) {
+
+                final Map<String, Object> map = new HashMap<>();
+                final Structure structure = contentlet.getStructure();
+
+                try {
+                    map.putAll(ContentletUtil.getContentPrintableMap(this.user, contentlet));
+
+                    if (structure.getStructureType() == Structure.STRUCTURE_TYPE_WIDGET && "true".equals(this.render)) {
+                        map.put("parsedCode", WidgetResource.parseWidget(this.request, this.response, contentlet));
+                    }
+                } catch (DotDataException | IOException e) {
+                    Logger.warn(this, "Error converting result to XML/JSON");
+                    Logger.debug(this, e.getMessage(), e);
+                    continue;
+                }
+
+                final Set<String> jsonFields = ContentResource.getJSONFields(structure);
+                for (String key : map.keySet()) {
+                    if (jsonFields.contains(key)) {
+                        map.put(key, contentlet.getKeyValueProperty(key));
+                    }
+                }
+
+                xstream.toXML(map, writer);
+            }
+            writer.flush();
+        });
+
+        writer.write("</contentlets>");
+    } // writeXML.
+} // E:O:F:ContentletsStreamingOutput.
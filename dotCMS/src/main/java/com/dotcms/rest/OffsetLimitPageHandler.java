@@ -0,0 +1,53 @@
+package com.dotcms.rest;
+
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotSecurityException;
+import com.dotmarketing.portlets.contentlet.business.ContentletPageHandler;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+
+import java.util.List;
+
+/**
+ * Hands to the handler only the contentlets of a scroll between the offset and the limit, and stops
+ * the scroll once the limit is reached, so a page of results can be streamed from a single scroll
+ * instead of searching again for every page.
+ * @author dotCMS
+ */
+class OffsetLimitPageHandler implements ContentletPageHandler {
+
+    private final ContentletPageHandler handler;
+    private int skip;
+    private int remaining;
+
+    /**
+     * @param offset   the contentlets to skip, a negative one is the same as 0
+     * @param limit    the number of contentlets to hand to the handler in all
+     */
+    OffsetLimitPageHandler(final int offset, final int limit, final ContentletPageHandler handler) {
+
+        this.skip      = Math.max(0, offset);
+        this.remaining = limit;
+        this.handler   = handler;
+    }
+
+    @Override
+    public boolean handle(final List<Contentlet> page) throws DotDataException, DotSecurityException {
+
+        if (this.remaining <= 0) {
+            return false;
+        }
+
+        final int from = Math.min(this.skip, page.size());
+        final int to   = Math.min(page.size(), from + this.remaining);
+        this.skip -= from;
+
+        if (from < to) {
+            this.remaining -= to - from;
+            if (!this.handler.handle(page.subList(from, to))) {
+                return false;
+            }
+        }
+
+        return this.remaining > 0;
+    }
+} // E:O:F:OffsetLimitPageHandler.
@@ -7,6 +7,8 @@ import com.dotcms.repackage.org.apache.commons.httpclient.HttpStatus;
 import com.dotcms.repackage.javax.ws.rs.core.CacheControl;
 import com.dotcms.repackage.javax.ws.rs.core.MediaType;
 import com.dotcms.repackage.javax.ws.rs.core.Response;
+import com.dotcms.repackage.javax.ws.rs.core.StreamingOutput;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -88,21 +90,60 @@ public class ResourceResponse {
 
     public Response response ( String response, CacheControl cacheControl ) {
 
+        if ( isJsonp() ) {
+            /*
+            For jsonp we need to wrap the given response code into javascript.
+             */
+            response = getJsonpCallback() + "(" + response + ")";
+        }
+
+        return response( (Object) response, cacheControl );
+    }
+
+    /**
+     * Same as {@link #response(String)}, but the data is written straight to the client by the given
+     * {@link StreamingOutput} instead of being built in memory first.
+     *
+     * @param output Writes the data to response, its format should depend on the <strong>"type"</strong> parameter
+     * @return
+     */
+    public Response response ( final StreamingOutput output ) {
+
+        StreamingOutput entity = output;
+        if ( isJsonp() ) {
+            final byte[] start = ( getJsonpCallback() + "(" ).getBytes( StandardCharsets.UTF_8 );
+            entity = outputStream -> {
+                outputStream.write( start );
+                output.write( outputStream );
+                outputStream.write( ')' );
+            };
+        }
+
+        return response( entity, null );
+    }
+
+    private boolean isJsonp () {
+        return UtilMethods.isSet( getType() ) && getType().equalsIgnoreCase( "jsonp" );
+    }
+
+    /**
+     * Returns the name of the javascript callback for jsonp, set in the params or the default one.
+     */
+    private String getJsonpCallback () {
+
+        String callback = getParamsMap().get( RESTParams.CALLBACK.getValue() );
+        if ( !UtilMethods.isSet( callback ) ) {
+            callback = "dotJsonpCall";
+        }
+        return callback;
+    }
+
+    private Response response ( Object response, CacheControl cacheControl ) {
+
         String contentType = null;
         if ( UtilMethods.isSet( getType() ) ) {
             if ( getType().equalsIgnoreCase( "jsonp" ) ) {
                 contentType = "application/javascript";
-
-                /*
-                For jsonp we need to wrap the given response code into javascript.
-                But before that lets verify if we have a callback method set in the params
-                 */
-                String callback = getParamsMap().get( RESTParams.CALLBACK.getValue() );
-                if ( !UtilMethods.isSet( callback ) ) {
-                    callback = "dotJsonpCall";
-                }
-
-                response = callback + "(" + response + ")";
             } else if ( getType().equalsIgnoreCase( "json" ) ) {
                 contentType = MediaType.APPLICATION_JSON;
             } else if ( getType().equalsIgnoreCase( "xml" ) ) {
@@ -1,6 +1,7 @@
 package com.dotcms.rest.api.v1.event;
 
 import com.dotcms.api.system.event.SystemEvent;
+import com.dotcms.api.system.event.SystemEventsFactory;
 import com.dotcms.api.web.WebSessionContext;
 import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
 import com.dotcms.repackage.javax.ws.rs.GET;
@@ -41,6 +42,7 @@ import java.util.concurrent.TimeUnit;
  * is not able to be called by any reason.
  * The @{@link EventsResource} use the long polling approach to get all the events, the call basically will wait for N seconds
  * (use the property system.events.longpolling.seconds, on the dotmarketing-config-ext.properties to custom the seconds, by default it is 15 seconds)
+ * or until new events are delivered to this node. The async call is suspended while it waits, so it does not hold any thread.
  *
  * @author jsanca
  * @version 3.7
@@ -58,15 +60,36 @@ public class EventsResource implements Serializable {
     private final MarshalUtils marshalUtils;
 
 
+    /**
+     * The polls of all the requests are kept in the same service, so a new event answers all of them.
+     */
+    private static class LongPollingServiceHolder {
+
+        private static final LongPollingService INSTANCE = createLongPollingService();
+
+        private static LongPollingService createLongPollingService() {
+
+            final LongPollingService longPollingService = new LongPollingService
+                    (Config.getLongProperty(SYSTEM_EVENT_LONGPOLLING_DEFAULTMILLIS, 15000),
+                            new SystemEventsDelegate());
+
+            if (SystemEventsFactory.getInstance().isPushEnabled()) {
+
+                // answers the pending polls as soon as the events are delivered to this node
+                SystemEventsFactory.getInstance().getSystemEventBus().subscribe(event -> longPollingService.wakeUp());
+            }
+
+            return longPollingService;
+        }
+    }
+
     /**
      * Default constructor.
      */
     public EventsResource() {
         this(new WebResource(),
                 Config.getLongProperty(SYSTEM_EVENT_LONGPOLLING_DEFAULTMILLIS, 15000)*2/1000, // the timeout for a asyn response will be the double of the long polling and in seconds.
-                new LongPollingService
-                (Config.getLongProperty(SYSTEM_EVENT_LONGPOLLING_DEFAULTMILLIS, 15000),
-                        new SystemEventsDelegate()),
+                LongPollingServiceHolder.INSTANCE,
                 MarshalFactory.getInstance().getMarshalUtils());
     }
 
@@ -1,5 +1,7 @@
 package com.dotcms.rest.api.v1.system.websocket;
 
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
 import com.liferay.portal.model.User;
 
 import javax.websocket.*;
@@ -8,17 +10,31 @@ import java.net.URI;
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Our implementation of websocket session to keep the userid and roles.
+ * It also keeps a bounded queue of the messages to send to the client, see {@link #send(Object)}.
  * @author jsanca
  */
 public class SessionWrapper implements Session {
 
+    public static final String DOTCMS_WEBSOCKET_SESSION_QUEUE_SIZE = "dotcms.websocket.session.queue.size";
+    private static final int MAX_QUEUED_MESSAGES = Config.getIntProperty(DOTCMS_WEBSOCKET_SESSION_QUEUE_SIZE, 100);
+
     private final Session session;
     private final User user;
 
+    private final Queue<Object> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+
     public SessionWrapper(final Session session, final User user) {
 
         this.session = session;
@@ -30,6 +46,78 @@ public class SessionWrapper implements Session {
         return user;
     }
 
+    /**
+     * Queues a message to be sent to the client. Messages are sent one at a time through the
+     * async remote, each one once the previous one has been written, so a slow client only delays
+     * its own messages. If the client can not keep up and the queue is full, the oldest message is
+     * dropped.
+     *
+     * @param message the text to send, or an object to be encoded by the end-point encoders
+     */
+    public void send (final Object message) {
+
+        if (this.queued.incrementAndGet() > MAX_QUEUED_MESSAGES && null != this.outbound.poll()) {
+
+            this.queued.decrementAndGet();
+            if (this.dropped.incrementAndGet() % MAX_QUEUED_MESSAGES == 1) {
+                Logger.warn(this, "The session " + this.getId() + " is not reading its messages, "
+                        + this.dropped.get() + " messages dropped so far");
+            }
+        }
+
+        this.outbound.offer(message);
+        this.sendNext();
+    }
+
+    private void sendNext () {
+
+        while (!this.outbound.isEmpty() && this.sending.compareAndSet(false, true)) {
+
+            final Object next = this.outbound.poll();
+            if (null == next) {
+
+                this.sending.set(false);
+                continue;
+            }
+
+            this.queued.decrementAndGet();
+            try {
+
+                final SendHandler handler = result -> {
+
+                    if (!result.isOK()) {
+                        Logger.debug(SessionWrapper.class, "Unable to send a message to the session: " + this.getId()
+                                + ", error: " + result.getException());
+                    }
+                    this.sending.set(false);
+                    this.sendNext();
+                };
+
+                if (next instanceof String) {
+
+                    // already serialized, shared by all the sessions getting the same message
+                    this.session.getAsyncRemote().sendText((String) next, handler);
+                } else {
+
+                    this.session.getAsyncRemote().sendObject(next, handler);
+                }
+                return;
+            } catch (Exception e) {
+
+                Logger.debug(this, "Unable to send a message to the session: " + this.getId() + ", error: " + e);
+                this.sending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of messages dropped because the client was not reading them fast enough.
+     */
+    public long getDroppedMessages () {
+
+        return this.dropped.get();
+    }
+
     @Override
     public WebSocketContainer getContainer() {
         return this.session.getContainer();
@@ -1,12 +1,14 @@
 package com.dotcms.rest.api.v1.system.websocket;
 
 import com.dotcms.api.system.event.*;
+import com.dotcms.api.system.event.verifier.UserVerifier;
 import com.dotcms.concurrent.DotConcurrentFactory;
 import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
 import com.dotcms.repackage.javax.ws.rs.ForbiddenException;
+import com.dotcms.util.marshal.MarshalFactory;
+import com.dotcms.util.marshal.MarshalUtils;
 import com.dotmarketing.business.APILocator;
 import com.dotmarketing.business.UserAPI;
-import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.init.DotInitScheduler;
 import com.dotmarketing.util.Config;
 import com.dotmarketing.util.Logger;
@@ -18,10 +20,12 @@ import javax.websocket.server.ServerEndpoint;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -30,6 +34,12 @@ import java.util.concurrent.TimeUnit;
  * regarding new notifications or system events. Other application services can
  * get an instance of this end-point via the {@link WebSocketContainerAPI} and
  * send System Events so that other components can read and process them.
+ * <p>
+ * Open sessions are indexed by user, so an event is verified and processed
+ * once per connected user instead of once per session, events for a single
+ * user only look at that user's sessions, and each processed form of an
+ * event is serialized once and sent as text to all the sessions that get it.
+ * </p>
  * 
  * @author Jose Castro
  * @version 3.7
@@ -45,8 +55,10 @@ public class SystemEventsWebSocketEndPoint implements Serializable {
 	public static final String API_WS_V1_SYSTEM_EVENTS = "/api/ws/v1/system/events";
 
 
-	private final Queue<Session> queue;
+	private final Map<String, Set<SessionWrapper>> sessionsByUser;
+	private final Map<String, SessionWrapper> sessionsById;
 	private final UserAPI userAPI;
+	private final MarshalUtils marshalUtils;
 	private final SystemEventProcessorFactory systemEventProcessorFactory;
     private final PayloadVerifierFactory payloadVerifierFactory;
     private final static ForbiddenCloseCode FORBIDDEN_CLOSE_CODE = new ForbiddenCloseCode();
@@ -60,20 +72,22 @@ public class SystemEventsWebSocketEndPoint implements Serializable {
 
 	public SystemEventsWebSocketEndPoint() {
 
-		this(new ConcurrentLinkedQueue<Session>(),
-				APILocator.getUserAPI(),
+		this(APILocator.getUserAPI(),
                 SystemEventProcessorFactory.getInstance(),
-                PayloadVerifierFactory.getInstance());
+                PayloadVerifierFactory.getInstance(),
+                MarshalFactory.getInstance().getMarshalUtils());
     }
 
 	@VisibleForTesting
-	public SystemEventsWebSocketEndPoint(final Queue<Session> queue,
-                                         final UserAPI userAPI,
+	public SystemEventsWebSocketEndPoint(final UserAPI userAPI,
                                          final SystemEventProcessorFactory systemEventProcessorFactory,
-                                         final PayloadVerifierFactory payloadVerifierFactory) {
+                                         final PayloadVerifierFactory payloadVerifierFactory,
+                                         final MarshalUtils marshalUtils) {
 
-		this.queue       = queue;
+		this.sessionsByUser = new ConcurrentHashMap<>();
+		this.sessionsById   = new ConcurrentHashMap<>();
 		this.userAPI     = userAPI;
+		this.marshalUtils = marshalUtils;
         this.systemEventProcessorFactory = systemEventProcessorFactory;
         this.payloadVerifierFactory      = payloadVerifierFactory;
 		final boolean usePingPong = Config.getBooleanProperty(DOTCMS_WEBSOCKET_USEPINGPONG, true);
@@ -90,7 +104,7 @@ public class SystemEventsWebSocketEndPoint implements Serializable {
 
 		Logger.debug(this,
 				"Processing the session queue at: " + new Date());
-		for (Session session : this.queue) {
+		for (Session session : this.sessionsById.values()) {
 
 			this.doPing(session);
 		}
@@ -139,7 +153,7 @@ public class SystemEventsWebSocketEndPoint implements Serializable {
 			try {
 
 				user = (User) session.getUserProperties().get(USER);
-				this.queue.add(new SessionWrapper(session, user));
+				this.addSession(new SessionWrapper(session, user));
 				isLoggedIn = true;
 				Logger.debug(this, "New session open: " + session +
 										", with user: " + user.getEmailAddress());
@@ -177,14 +191,48 @@ public class SystemEventsWebSocketEndPoint implements Serializable {
 	@OnError
 	public void error(final Session session, final Throwable t) {
 		Logger.debug(this, "Error on the session: " + session + ", error: " + t);
-		queue.remove(session);
+		this.removeSession(session.getId());
 	}
 
 	@OnClose
 	public void closedConnection(Session session) {
 
 		Logger.debug(this, "Closing the session: " + session);
-		queue.remove(session);
+		this.removeSession(session.getId());
+	}
+
+	private void addSession(final SessionWrapper session) {
+
+		this.sessionsById.put(session.getId(), session);
+		// added inside the compute, so a removal of the last session of the user can not drop the set in between
+		this.sessionsByUser.compute(session.getUser().getUserId(), (userId, sessions) -> {
+
+			final Set<SessionWrapper> userSessions = null == sessions?
+					Collections.newSetFromMap(new ConcurrentHashMap<>()): sessions;
+			userSessions.add(session);
+			return userSessions;
+		});
+	}
+
+	private void removeSession(final String sessionId) {
+
+		final SessionWrapper session = this.sessionsById.remove(sessionId);
+		if (null != session) {
+
+			this.sessionsByUser.computeIfPresent(session.getUser().getUserId(), (userId, sessions) -> {
+
+				sessions.remove(session);
+				return sessions.isEmpty() ? null : sessions;
+			});
+		}
+	}
+
+	/**
+	 * Returns the number of open sessions.
+	 */
+	public int getSessionsCount() {
+
+		return this.sessionsById.size();
 	}
 
 	/**
@@ -197,89 +245,115 @@ public class SystemEventsWebSocketEndPoint implements Serializable {
 	 */
 	public void sendSystemEvent(final SystemEvent event) {
 
-		final ArrayList<Session> closedSessions = new ArrayList<>();
+		final Payload payload = event.getPayload();
+		if (null == payload) {
+
+			return; // if the payload is null, must not send to any session.
+		}
 
 		try {
 
-			for (Session session : this.queue) {
+			// serialized form of each processed event, processors usually return the same instance for every user
+			final Map<SystemEvent, String> serializedEvents = new IdentityHashMap<>();
+
+			for (Map.Entry<String, Set<SessionWrapper>> userSessions : this.targetSessions(payload).entrySet()) {
+
+				final Set<SessionWrapper> sessions = userSessions.getValue();
+				final SessionWrapper firstSession  = sessions.isEmpty() ? null : sessions.iterator().next();
+				if (null == firstSession) {
+
+					continue;
+				}
+
+				final User user = firstSession.getUser();
+				if (!this.isVisible(payload, user)) {
+
+					Logger.debug(this, "The event: " + event
+							+ ", has been filtered for the user: " + userSessions.getKey());
+					continue;
+				}
 
-				if (!session.isOpen()) {
+				final SystemEvent processedEvent = this.processEvent(user, event);
+				final String message = serializedEvents.computeIfAbsent(processedEvent, this.marshalUtils::marshal);
 
-					closedSessions.add(session);
-				} else {
+				for (SessionWrapper session : sessions) {
 
-					if (this.apply (event, session)) {
+					if (session.isOpen()) {
 
-						session.getAsyncRemote().sendObject
-								(this.processEvent(session, event));
+						session.send(message);
 					} else {
 
-						Logger.debug(this, "The event: " + event
-								+ ", has been filtered for the session: " + session.getId());
+						this.removeSession(session.getId());
 					}
 				}
 			}
-
-			this.queue.removeAll(closedSessions);
 		} catch (Throwable e) {
 
 			Logger.error(this, "An error occurred when sending a message through the " + this.getClass().getName(), e);
 		}
 	} // sendSystemEvent.
 
-	private SystemEvent processEvent(final Session session,
+	/**
+	 * Returns the sessions that may receive the payload, by user id. Payloads
+	 * for a single user only get that user's sessions, the rest get all of
+	 * them and are verified once per user.
+	 */
+	private Map<String, Set<SessionWrapper>> targetSessions(final Payload payload) {
+
+		if (payload.getVisibility() == Visibility.USER && null != payload.getVisibilityValue()
+				&& this.payloadVerifierFactory.getVerifier(payload) instanceof UserVerifier) {
+
+			final String userId = payload.getVisibilityValue().toString();
+			final Set<SessionWrapper> sessions = this.sessionsByUser.get(userId);
+			return null == sessions ? Collections.emptyMap() : Collections.singletonMap(userId, sessions);
+		}
+
+		return this.sessionsByUser;
+	}
+
+	private SystemEvent processEvent(final User user,
 									 final SystemEvent event) {
 
 		final SystemEventProcessor processor =
 				this.systemEventProcessorFactory.createProcessor(event.getEventType());
 
-		return null != processor? processor.process(event,
-													(null != session && session instanceof SessionWrapper)?
-															SessionWrapper.class.cast(session).getUser():null)
-				 			      : event;
+		return null != processor? processor.process(event, user): event;
 	} // processEvent.
 
     /**
-     * Verifies if the current user has the "visibility" rights to use this given payload
+     * Verifies if the given user has the "visibility" rights to use this given payload
      *
-     * @param session Session wrapper needed in order to obtain the current user information
      * @param payload Payload to validate
-     * @return true the current user has "visibility" rights on this payload
+     * @param user the user of the sessions the payload would be sent to
+     * @return true the user has "visibility" rights on this payload
      */
-    private boolean validPayload(final SessionWrapper session,
-                                 final Payload payload) {
+    private boolean apply(final Payload payload,
+                          final User user) {
+
+        if (null == payload.getVisibility() || null == user) {
+
+            return true; // by default consider it as Visibility.GLOBAL
+        }
 
         //Get the verifier associated to this Payload
         final PayloadVerifier verifier = this.payloadVerifierFactory.getVerifier(payload);
 
         //Check if we have the "visibility" rights to use this payload
-        return (null != verifier) ? verifier.verified(payload, session.getUser()) : true;
-    }
-
-	private boolean apply(final SystemEvent event,
-						  final Session session) throws DotDataException  {
+        return (null != verifier) ? verifier.verified(payload, user) : true;
+    } // apply.
 
-		final Payload payload = event.getPayload();
-		boolean apply = true; // by default consider it as Visibility.GLOBAL
+    private boolean isVisible(final Payload payload,
+                              final User user) {
 
-		if (null != payload) {
+        try {
 
-			if (null != payload.getVisibility()) {
+            return this.apply(payload, user);
+        } catch (Exception e) {
 
-				if (session instanceof SessionWrapper) {
-
-					if (null != SessionWrapper.class.cast(session).getUser()) {
-                        apply = this.validPayload((SessionWrapper) session, payload);
-                    }
-                }
-            }
-        } else {
-
-			apply = false; // if the payload is null, must not send to the session.
-		}
-
-		return apply;
-	} // apply.
+            Logger.debug(this, "Unable to verify the payload for the user: " + user.getUserId() + ", error: " + e);
+            return false;
+        }
+    }
 
 
 
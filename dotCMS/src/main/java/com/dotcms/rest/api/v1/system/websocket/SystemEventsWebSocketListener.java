@@ -0,0 +1,27 @@
+package com.dotcms.rest.api.v1.system.websocket;
+
+import com.dotcms.api.system.event.SystemEvent;
+import com.dotcms.api.system.event.SystemEventListener;
+import com.dotmarketing.business.APILocator;
+
+/**
+ * Sends every System Event delivered by the
+ * {@link com.dotcms.api.system.event.SystemEventBus} to the clients connected
+ * to the {@link SystemEventsWebSocketEndPoint} of this node.
+ *
+ * @author dotCMS
+ */
+public class SystemEventsWebSocketListener implements SystemEventListener {
+
+	private final WebSocketContainerAPI webSocketContainerAPI = APILocator.getWebSocketContainerAPI();
+
+	@Override
+	public void onEvent(final SystemEvent event) {
+		final SystemEventsWebSocketEndPoint webSocketEndPoint = this.webSocketContainerAPI
+				.getEndpointInstance(SystemEventsWebSocketEndPoint.class);
+		if (null != webSocketEndPoint) {
+			webSocketEndPoint.sendSystemEvent(event);
+		}
+	}
+
+}
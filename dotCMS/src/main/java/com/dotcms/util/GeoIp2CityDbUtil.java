@@ -59,6 +59,13 @@ public class GeoIp2CityDbUtil {
 	private static long lastModified = 0;
 	private static String dbPath = null;
 
+	/**
+	 * The last lookup done by each thread. Rules evaluated for the same
+	 * request usually ask for the country, the location and the time zone of
+	 * the same IP address, so they all share a single database read.
+	 */
+	private static final ThreadLocal<LastLookup> lastLookup = new ThreadLocal<>();
+
 	/**
 	 * Singleton holder based on the initialization-on-demand approach.
 	 */
@@ -150,6 +157,34 @@ public class GeoIp2CityDbUtil {
 		return databaseReader;
 	}
 
+	/**
+	 * Returns the {@link CityResponse} for the specified IP address, reusing
+	 * the last one read by the current thread if it was for the same address
+	 * and the database has not been re-loaded since then.
+	 * 
+	 * @param ipAddress
+	 *            - The IP address to get information from.
+	 * @return The {@link CityResponse} of the IP address.
+	 * @throws IOException
+	 *             If the connection to the GeoIP2 service could not be
+	 *             established, or the result object could not be created.
+	 * @throws GeoIp2Exception
+	 *             If the IP address is not present in the service database.
+	 */
+	private CityResponse getCityResponse(String ipAddress) throws IOException,
+			GeoIp2Exception {
+		DatabaseReader reader = getDatabaseReader();
+		LastLookup last = lastLookup.get();
+		if (last != null && last.reader == reader
+				&& ipAddress != null && ipAddress.equals(last.ipAddress)) {
+			return last.response;
+		}
+		InetAddress inetAddress = InetAddress.getByName(ipAddress);
+		CityResponse response = reader.city(inetAddress);
+		lastLookup.set(new LastLookup(reader, ipAddress, response));
+		return response;
+	}
+
 	/**
 	 * Returns the ISO code of the state, province or region (referred to as
 	 * "subdivision") the specified IP address belongs to. The ISO code is a one
@@ -169,8 +204,7 @@ public class GeoIp2CityDbUtil {
 	 */
 	public String getSubdivisionIsoCode(String ipAddress)
 			throws UnknownHostException, IOException, GeoIp2Exception {
-		InetAddress inetAddress = InetAddress.getByName(ipAddress);
-		CityResponse city = getDatabaseReader().city(inetAddress);
+		CityResponse city = getCityResponse(ipAddress);
 		Subdivision subdivision = city.getMostSpecificSubdivision();
 		return subdivision.getIsoCode();
 	}
@@ -193,8 +227,7 @@ public class GeoIp2CityDbUtil {
 	 */
 	public String getCountryIsoCode(String ipAddress)
 			throws UnknownHostException, IOException, GeoIp2Exception {
-		InetAddress inetAddress = InetAddress.getByName(ipAddress);
-		CityResponse city = getDatabaseReader().city(inetAddress);
+		CityResponse city = getCityResponse(ipAddress);
 		Country country = city.getCountry();
 		return country.getIsoCode();
 	}
@@ -209,8 +242,7 @@ public class GeoIp2CityDbUtil {
      */
 	public Location getLocationByIp(String ipAddress)
 			throws IOException, GeoIp2Exception {
-		InetAddress inetAddress = InetAddress.getByName(ipAddress);
-		CityResponse city = getDatabaseReader().city(inetAddress);
+		CityResponse city = getCityResponse(ipAddress);
 		com.dotcms.repackage.com.maxmind.geoip2.record.Location location = city.getLocation();
 		return new Location(location.getLatitude(), location.getLongitude());
 	}
@@ -231,8 +263,7 @@ public class GeoIp2CityDbUtil {
 	 */
 	public String getCityName(String ipAddress) throws UnknownHostException,
 			IOException, GeoIp2Exception {
-		InetAddress inetAddress = InetAddress.getByName(ipAddress);
-		CityResponse cityResponse = getDatabaseReader().city(inetAddress);
+		CityResponse cityResponse = getCityResponse(ipAddress);
 		City city = cityResponse.getCity();
 		return city.getName();
 	}
@@ -255,8 +286,7 @@ public class GeoIp2CityDbUtil {
 	 */
 	public TimeZone getTimeZone(String ipAddress) throws UnknownHostException,
 			IOException, GeoIp2Exception {
-		InetAddress inetAddress = InetAddress.getByName(ipAddress);
-		CityResponse city = getDatabaseReader().city(inetAddress);
+		CityResponse city = getCityResponse(ipAddress);
 		String zone = city.getLocation().getTimeZone();
 		return TimeZone.getTimeZone(zone);
 	}
@@ -293,4 +323,19 @@ public class GeoIp2CityDbUtil {
 		return calendar;
 	}
 
+	private static final class LastLookup {
+
+		private final DatabaseReader reader;
+		private final String ipAddress;
+		private final CityResponse response;
+
+		private LastLookup(DatabaseReader reader, String ipAddress,
+				CityResponse response) {
+			this.reader = reader;
+			this.ipAddress = ipAddress;
+			this.response = response;
+		}
+
+	}
+
 }
@@ -1,5 +1,6 @@
 package com.dotcms.util;
 
+import com.dotcms.concurrent.DotConcurrentException;
 import com.dotcms.concurrent.DotConcurrentFactory;
 import com.dotcms.concurrent.DotSubmitter;
 import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
@@ -9,21 +10,55 @@ import com.dotmarketing.util.Logger;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Encapsulates the logic to do a long polling.
  * Long polling technique basically will wait for N seconds, and them will execute a delegate.
- * The long polling will perform the task based on a thread pool executor.
+ * A poll is answered before the N seconds when {@link #wakeUp()} is called, for instance when there are new events.
+ *
+ * The async polls do not take any thread while they wait: they are kept as pending and their timeouts
+ * are fired by a single {@link TimerWheel}. A completed poll goes to a queue of ready polls, whose
+ * delegates are called by a few dispatcher tasks on a thread pool executor, so waking up thousands
+ * of polls at once neither fills the pool nor calls all their delegates at the same time.
+ * When the pool is full the ready polls just wait in the queue, and the dispatchers are started
+ * again a moment later.
  * @author jsanca
  */
 public class LongPollingService implements Serializable {
 
     public static final String LONG_POLLING_THREAD_POOL_SUBMITTER_NAME = "longpolling";
     public static final String SYSTEM_LONGPOLLING_DEFAULTMILLIS = "system.longpolling.defaultmillis";
+    public static final String SYSTEM_LONGPOLLING_TICKMILLIS    = "system.longpolling.tickmillis";
+    public static final String SYSTEM_LONGPOLLING_WHEELSIZE     = "system.longpolling.wheelsize";
+    public static final String SYSTEM_LONGPOLLING_DISPATCHERS   = "system.longpolling.dispatchers";
+
+    // how long to wait before starting the dispatchers again when the pool is full
+    private static final long RETRY_MILLIS = 100;
 
     private final long milliSecondToWait;
     private final Delegate<AppContext> delegate;
     private final DotSubmitter dotSubmitter;
+    private final transient TimerWheel timerWheel;
+    private final transient Set<PendingPoll> pendingPolls = ConcurrentHashMap.newKeySet();
+    private final transient Queue<AppContext> readyPolls = new ConcurrentLinkedQueue<>();
+    private final int maxDispatchers;
+    private final AtomicInteger dispatchers = new AtomicInteger();
+    private final AtomicBoolean retryScheduled = new AtomicBoolean(false);
+
+    private static class TimerWheelHolder {
+        // by default a turn of the wheel is 51 seconds, more than a poll usually waits.
+        private static final TimerWheel INSTANCE = new TimerWheel("LongPollingTimer",
+                Config.getLongProperty(SYSTEM_LONGPOLLING_TICKMILLIS, 100),
+                Config.getIntProperty(SYSTEM_LONGPOLLING_WHEELSIZE, 512));
+    }
 
     /**
      * Constructor needs a time to wait (if it is null, will use a default one) and a delegate to perform the task.
@@ -45,9 +80,27 @@ public class LongPollingService implements Serializable {
     @VisibleForTesting
     protected LongPollingService(final long milliSecondToWait, final Delegate<AppContext> delegate, final DotConcurrentFactory dotConcurrentFactory) {
 
+        this(milliSecondToWait, delegate, dotConcurrentFactory, TimerWheelHolder.INSTANCE);
+    } // LongPollingService.
+
+    @VisibleForTesting
+    protected LongPollingService(final long milliSecondToWait, final Delegate<AppContext> delegate,
+                                 final DotConcurrentFactory dotConcurrentFactory, final TimerWheel timerWheel) {
+
+        this(milliSecondToWait, delegate, dotConcurrentFactory, timerWheel,
+                Config.getIntProperty(SYSTEM_LONGPOLLING_DISPATCHERS, 10));
+    } // LongPollingService.
+
+    @VisibleForTesting
+    protected LongPollingService(final long milliSecondToWait, final Delegate<AppContext> delegate,
+                                 final DotConcurrentFactory dotConcurrentFactory, final TimerWheel timerWheel,
+                                 final int maxDispatchers) {
+
         this.milliSecondToWait = milliSecondToWait;
         this.delegate = delegate;
         this.dotSubmitter = dotConcurrentFactory.getSubmitter(LONG_POLLING_THREAD_POOL_SUBMITTER_NAME);
+        this.timerWheel = timerWheel;
+        this.maxDispatchers = Math.max(1, maxDispatchers);
     } // LongPollingService.
 
     /**
@@ -56,29 +109,169 @@ public class LongPollingService implements Serializable {
      */
     public void execute (final AppContext appContext) {
 
+        final CountDownLatch latch = new CountDownLatch(1);
+        final PendingPoll pendingPoll = new PendingPoll(latch::countDown);
+
         try {
 
-            Logger.debug(this, "Long Polling, sleeping for at: " + new Date() + " for " + this.milliSecondToWait + " milliseconds.");
-            Thread.sleep(this.milliSecondToWait);
+            Logger.debug(this, "Long Polling, waiting at: " + new Date() + " for " + this.milliSecondToWait + " milliseconds.");
+            this.pendingPolls.add(pendingPoll);
+            latch.await(this.milliSecondToWait, TimeUnit.MILLISECONDS);
+            pendingPoll.done.set(true);
             Logger.debug(this, "Long Polling, calling the delegate at: " + new Date());
             this.delegate.execute(appContext);
         } catch (InterruptedException e) {
 
             Logger.debug(this, e.getMessage(), e);
             Thread.currentThread().interrupt();
+        } finally {
+
+            this.pendingPolls.remove(pendingPoll);
         }
     } // execute.
 
     /**
      * Executes a long polling approach in a non-blocking async block.
-     * It uses a thread-polling with a default configuration, you can override it b
+     * No thread waits for the poll: the delegate is called on the thread pool once the time expires
+     * or {@link #wakeUp()} is called, whatever happens first, as soon as a dispatcher gets to it.
      * @param appContext
      */
     public void executeAsync (final AppContext appContext) {
 
-        this.dotSubmitter.execute(() -> {
+        final PendingPoll pendingPoll = new PendingPoll(() -> this.dispatch(appContext));
 
-            this.execute(appContext);
-        });
+        Logger.debug(this, "Long Polling, pending at: " + new Date() + " for " + this.milliSecondToWait + " milliseconds.");
+        this.pendingPolls.add(pendingPoll);
+        pendingPoll.timeout = this.timerWheel.schedule(pendingPoll::complete, this.milliSecondToWait);
     } // executeAsync.
+
+    /**
+     * Answers all the pending polls now, instead of waiting for their time to expire.
+     * @return int number of polls answered
+     */
+    public int wakeUp () {
+
+        int count = 0;
+        for (PendingPoll pendingPoll : this.pendingPolls) {
+
+            if (pendingPoll.complete()) {
+                count++;
+            }
+        }
+
+        Logger.debug(this, "Long Polling, " + count + " pending polls woken up");
+        return count;
+    } // wakeUp.
+
+    /**
+     * @return int number of polls waiting
+     */
+    public int getPendingCount () {
+        return this.pendingPolls.size();
+    } // getPendingCount.
+
+    /**
+     * @return int number of async polls answered but whose delegate was not called yet
+     */
+    public int getReadyCount () {
+        return this.readyPolls.size();
+    } // getReadyCount.
+
+    private void dispatch (final AppContext appContext) {
+
+        // this thread is the timer wheel or the one delivering the events, which can't wait for the delegate
+        this.readyPolls.offer(appContext);
+        this.startDispatchers();
+    } // dispatch.
+
+    /**
+     * Starts dispatchers on the thread pool for the ready polls, up to the max number of dispatchers.
+     */
+    private void startDispatchers () {
+
+        while (!this.readyPolls.isEmpty()) {
+
+            final int running = this.dispatchers.get();
+            if (running >= this.maxDispatchers) {
+                return;
+            }
+
+            if (!this.dispatchers.compareAndSet(running, running + 1)) {
+                continue;
+            }
+
+            try {
+
+                this.dotSubmitter.execute(this::callDelegates);
+            } catch (DotConcurrentException e) {
+
+                this.dispatchers.decrementAndGet();
+                // the ready polls wait in the queue, the dispatchers are started again on the timer wheel
+                if (this.retryScheduled.compareAndSet(false, true)) {
+
+                    Logger.debug(this, "Long Polling, the thread pool is full, " + this.readyPolls.size()
+                            + " polls waiting: " + e.getMessage());
+                    this.timerWheel.schedule(() -> {
+
+                        this.retryScheduled.set(false);
+                        this.startDispatchers();
+                    }, RETRY_MILLIS);
+                }
+                return;
+            }
+        }
+    } // startDispatchers.
+
+    /**
+     * Calls the delegates of the ready polls until there are no more.
+     */
+    private void callDelegates () {
+
+        try {
+
+            AppContext appContext;
+            while (null != (appContext = this.readyPolls.poll())) {
+
+                try {
+
+                    Logger.debug(this, "Long Polling, calling the delegate at: " + new Date());
+                    this.delegate.execute(appContext);
+                } catch (Exception e) {
+
+                    Logger.warn(this, "Long Polling, error calling the delegate: " + e.getMessage(), e);
+                }
+            }
+        } finally {
+
+            this.dispatchers.decrementAndGet();
+        }
+
+        // a poll may have been queued while this dispatcher was leaving
+        this.startDispatchers();
+    } // callDelegates.
+
+    private final class PendingPoll {
+
+        private final Runnable onComplete;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private volatile TimerWheel.Timeout timeout;
+
+        private PendingPoll(final Runnable onComplete) {
+            this.onComplete = onComplete;
+        }
+
+        private boolean complete() {
+
+            if (!this.done.compareAndSet(false, true)) {
+                return false;
+            }
+
+            pendingPolls.remove(this);
+            if (null != this.timeout) {
+                this.timeout.cancel();
+            }
+            this.onComplete.run();
+            return true;
+        }
+    } // PendingPoll.
 } // E:O:F:LongPollingService.
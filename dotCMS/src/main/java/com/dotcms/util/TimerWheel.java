@@ -0,0 +1,182 @@
+package com.dotcms.util;
+
+import com.dotmarketing.util.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A hashed timer wheel: a single thread fires any number of timeouts, with a precision of one tick.
+ * The timeouts are kept in a ring of buckets, one per tick, so scheduling and cancelling a timeout
+ * costs the same no matter how many are pending. Useful when there are thousands of timeouts
+ * that are mostly cancelled before they expire, such as the pending long polls.
+ *
+ * The tasks run in the timer thread, so they must be short; hand off anything slow to a thread pool.
+ * @author dotCMS
+ */
+public class TimerWheel {
+
+    private final long tickMillis;
+    private final List<Timeout>[] buckets;
+    private final long startNanos;
+    private final Thread worker;
+
+    // last tick processed, only changed by the worker holding the lock of the tick's bucket
+    private volatile long tick = 0;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a wheel and starts its thread.
+     * @param name      String name of the thread
+     * @param tickMillis long precision of the timeouts
+     * @param wheelSize  int number of buckets, a timeout further than wheelSize ticks waits more than one turn
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(final String name, final long tickMillis, final int wheelSize) {
+
+        this.tickMillis  = Math.max(1, tickMillis);
+        this.buckets     = new List[Math.max(1, wheelSize)];
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new ArrayList<>();
+        }
+        this.startNanos  = System.nanoTime();
+        this.worker      = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    } // TimerWheel.
+
+    /**
+     * Runs the task once the delay expires, unless the returned {@link Timeout} is cancelled before.
+     * @param task        {@link Runnable}
+     * @param delayMillis long
+     * @return Timeout
+     */
+    public Timeout schedule(final Runnable task, final long delayMillis) {
+
+        final long elapsed  = this.elapsedMillis() + Math.max(0, delayMillis);
+        final long deadline = (elapsed + this.tickMillis - 1) / this.tickMillis;
+        final Timeout timeout = new Timeout(task, deadline);
+
+        while (true) {
+
+            final long target = Math.max(deadline, this.tick + 1);
+            final List<Timeout> bucket = this.buckets[(int) (target % this.buckets.length)];
+            synchronized (bucket) {
+                // if the worker got to the target tick meanwhile, try the next one
+                if (this.tick < target) {
+                    bucket.add(timeout);
+                    return timeout;
+                }
+            }
+        }
+    } // schedule.
+
+    /**
+     * @return the number of timeouts scheduled and neither fired nor cancelled yet
+     */
+    public int size() {
+
+        int size = 0;
+        for (List<Timeout> bucket : this.buckets) {
+            synchronized (bucket) {
+                for (Timeout timeout : bucket) {
+                    if (!timeout.isDone()) {
+                        size++;
+                    }
+                }
+            }
+        }
+        return size;
+    } // size.
+
+    /**
+     * Stops the timer thread, the pending timeouts never fire.
+     */
+    public void stop() {
+
+        this.running = false;
+        this.worker.interrupt();
+    } // stop.
+
+    private long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startNanos);
+    }
+
+    private void run() {
+
+        final List<Timeout> expired = new ArrayList<>();
+        while (this.running) {
+
+            final long next  = this.tick + 1;
+            final long sleep = next * this.tickMillis - this.elapsedMillis();
+            if (sleep > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+
+            final List<Timeout> bucket = this.buckets[(int) (next % this.buckets.length)];
+            synchronized (bucket) {
+                final Iterator<Timeout> iterator = bucket.iterator();
+                while (iterator.hasNext()) {
+                    final Timeout timeout = iterator.next();
+                    if (timeout.isDone()) {
+                        iterator.remove();
+                    } else if (timeout.deadline <= next) {
+                        iterator.remove();
+                        expired.add(timeout);
+                    }
+                }
+                this.tick = next;
+            }
+
+            for (Timeout timeout : expired) {
+                timeout.fire();
+            }
+            expired.clear();
+        }
+    } // run.
+
+    /**
+     * A task scheduled in the wheel.
+     */
+    public static class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+
+        private Timeout(final Runnable task, final long deadline) {
+            this.task     = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Prevents the task from running.
+         * @return boolean false if the task already ran or was cancelled
+         */
+        public boolean cancel() {
+            return this.done.compareAndSet(false, true);
+        }
+
+        public boolean isDone() {
+            return this.done.get();
+        }
+
+        private void fire() {
+
+            if (this.done.compareAndSet(false, true)) {
+                try {
+                    this.task.run();
+                } catch (Exception e) {
+                    Logger.error(TimerWheel.class, "Timeout task failed: " + e.getMessage(), e);
+                }
+            }
+        }
+    } // Timeout.
+} // E:O:F:TimerWheel.
@@ -9,6 +9,12 @@ public interface ShortyIdAPI {
 
     long getDbHits();
 
+    long getCacheHits();
+
+    long getMissCacheHits();
+
+    long getDbTimeMillis();
+
     void validShorty(final String test);
 
     String uuidIfy(String shorty);
@@ -3,6 +3,8 @@ package com.dotcms.uuid.shorty;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.dotmarketing.common.db.DotConnect;
 import com.dotmarketing.exception.DotDataException;
@@ -14,11 +16,27 @@ import com.dotmarketing.util.UUIDUtil;
 public class ShortyIdAPIImpl implements ShortyIdAPI {
 
   public long getDbHits() {
-    return dbHits;
+    return dbHits.get();
   }
 
-  long dbHits = 0;
+  public long getCacheHits() {
+    return cacheHits.get();
+  }
+
+  public long getMissCacheHits() {
+    return missCacheHits.get();
+  }
+
+  public long getDbTimeMillis() {
+    return dbTime.get();
+  }
+
+  final AtomicLong dbHits = new AtomicLong();
+  final AtomicLong cacheHits = new AtomicLong();
+  final AtomicLong missCacheHits = new AtomicLong();
+  final AtomicLong dbTime = new AtomicLong();
   public static final int MINIMUM_SHORTY_ID_LENGTH = Config.getIntProperty("MINIMUM_SHORTY_ID_LENGTH", 10);
+  static final long MISS_CACHE_MILLIS = TimeUnit.SECONDS.toMillis(Config.getIntProperty("SHORTY_MISS_CACHE_SECONDS", 120));
 
     
     
@@ -26,15 +44,24 @@ public class ShortyIdAPIImpl implements ShortyIdAPI {
     public Optional<ShortyId> getShorty(final String shortStr) {
         try {
             validShorty(shortStr);
-            ShortyId shortyId = null;
-            Optional<ShortyId> opt = new ShortyIdCache().get(shortStr);
+            final ShortyIdCache cache = new ShortyIdCache();
+            Optional<ShortyId> opt = cache.get(shortStr);
             if (opt.isPresent()) {
-                shortyId = opt.get();
-            } else {
-                shortyId = viaDb(shortStr);
-                new ShortyIdCache().add(shortyId);
+                cacheHits.incrementAndGet();
+                return opt.get().type == ShortType.CACHE_MISS ? Optional.empty() : opt;
+            }
+            if (cache.isMiss(shortStr, MISS_CACHE_MILLIS)) {
+                missCacheHits.incrementAndGet();
+                return Optional.empty();
+            }
+            ShortyId shortyId = viaDb(shortStr);
+            if (shortyId.type == ShortType.CACHE_MISS) {
+                // misses expire, the id may be created later on
+                cache.addMiss(shortStr);
+                return Optional.empty();
             }
-            return shortyId.type == ShortType.CACHE_MISS ? Optional.empty() : Optional.of(shortyId);
+            cache.add(shortyId);
+            return Optional.of(shortyId);
         } catch (ShortyException se) {
             
             Logger.warn(this.getClass(), se.getMessage());
@@ -98,7 +125,8 @@ public class ShortyIdAPIImpl implements ShortyIdAPI {
 
   ShortyId viaDb(final String shorty) {
 
-    this.dbHits++;
+    this.dbHits.incrementAndGet();
+    final long start = System.currentTimeMillis();
     ShortyId shortyId = noShorty(shorty);
 
 
@@ -124,6 +152,8 @@ public class ShortyIdAPIImpl implements ShortyIdAPI {
       }
     } catch (DotDataException e) {
       Logger.warn(this.getClass(), "db exception:" + e.getMessage());
+    } finally {
+      this.dbTime.addAndGet(System.currentTimeMillis() - start);
     }
 
 
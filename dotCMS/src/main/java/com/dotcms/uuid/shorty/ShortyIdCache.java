@@ -13,6 +13,7 @@ public class ShortyIdCache implements Cachable {
 
     private final DotCacheAdministrator cache;
     final String SHORT_CACHE = "ShortyIdCache";
+    final String MISS_CACHE = "ShortyIdMissCache";
 
 
     public ShortyIdCache(DotCacheAdministrator cache) {
@@ -33,12 +34,13 @@ public class ShortyIdCache implements Cachable {
 
     @Override
     public String[] getGroups() {
-        return new String[] {getPrimaryGroup()};
+        return new String[] {getPrimaryGroup(), MISS_CACHE};
     }
 
     @Override
     public void clearCache() {
         CacheLocator.getCacheAdministrator().flushGroup(getPrimaryGroup());
+        CacheLocator.getCacheAdministrator().flushGroup(MISS_CACHE);
     }
 
 
@@ -66,6 +68,29 @@ public class ShortyIdCache implements Cachable {
         cache.remove(ShortyId.shortId, SHORT_CACHE);
     }
 
+    /**
+     * Whether the short id was looked up less than {@code ttlMillis} ago and did not match any
+     * inode or identifier. Misses are kept in their own group so the ids made up by crawlers
+     * don't push the resolved ones out of the cache.
+     */
+    public boolean isMiss(String shortId, long ttlMillis) {
+
+        try {
+            Long missed = (Long) cache.get(shortId, MISS_CACHE);
+            return missed != null && System.currentTimeMillis() - missed < ttlMillis;
+        } catch (DotCacheException e) {
+
+        }
+
+        return false;
+    }
+
+    public void addMiss(String shortId) {
+
+        cache.put(shortId, System.currentTimeMillis(), MISS_CACHE);
+
+    }
+
 
 
 }
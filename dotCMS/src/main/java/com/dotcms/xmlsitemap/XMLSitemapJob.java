@@ -1,14 +1,17 @@
 package com.dotcms.xmlsitemap;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 import java.util.zip.GZIPOutputStream;
 
 import org.quartz.Job;
@@ -62,11 +65,21 @@ import com.liferay.portal.model.User;
  */
 public class XMLSitemapJob implements Job, StatefulJob {
 
+	// limits of a sitemap file, see http://www.sitemaps.org/protocol.html
+	private static final int MAX_URLS_PER_FILE = 50000;
+	private static final long MAX_BYTES_PER_FILE = 9437184;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final byte[] SITEMAP_HEADER = ("<?xml version='1.0' encoding='UTF-8'?>\n"
+			+ "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"http://www.sitemaps.org/schemas/sitemap/0.9 http://www.sitemaps.org/schemas/sitemap/0.9/sitemap.xsd\">\n")
+			.getBytes(StandardCharsets.UTF_8);
+	private static final byte[] SITEMAP_FOOTER = "</urlset>".getBytes(StandardCharsets.UTF_8);
+
 	private Host currentHost = null;
 	private User systemUser = null;
-	private File temporaryFile = null;
 	private File compressedFile = null;
-	private OutputStreamWriter out = null;
+	private OutputStream out = null;
+	private long writtenBytes = 0;
 
 	private int sitemapCounter = 1;
 	private int processedRegistries = 0;
@@ -166,7 +179,7 @@ public class XMLSitemapJob implements Job, StatefulJob {
 	public void generateSitemapPerHost() throws DotDataException, DotSecurityException {
 
 		List<Host> hostsList = hostAPI.findAll(systemUser, false);
-		List<ContentType> types = APILocator.getContentTypeAPI(APILocator.systemUser()).findAll() ;
+		List<DetailPage> detailPages = findDetailPages();
 
 		for (Host host : hostsList) {
 
@@ -180,18 +193,6 @@ public class XMLSitemapJob implements Job, StatefulJob {
             String stringbuf;
 
 			try {
-				/**
-				 * mark all the existing sitemaps generated in the XMLSitemap
-				 * folder for the host specified to be removed upon creating new ones
-				 */
-				List<Object> oldSiteMapsToDel = new ArrayList<Object>();
-
-				Folder folder = folderAPI.findFolderByPath(XML_SITEMAPS_FOLDER, host, systemUser, false);
-
-				if (InodeUtils.isSet(folder.getIdentifier())) {
-					oldSiteMapsToDel.addAll(conAPI.findContentletsByFolder(folder, systemUser, false));
-				}
-
 				hostFilesCounter.put(host.getHostname(), sitemapCounter);
 
 				/* adding host url */
@@ -203,147 +204,14 @@ public class XMLSitemapJob implements Job, StatefulJob {
 
 				writeFile(stringbuf);
 
-				addRegistryProcessed();
-
-				List<String> ignorableStructureIds = getIgnorableStrcutureIdsForHost(host);
 				/**
 				 * This part generate the detail pages sitemap links per
 				 * structure
 				 */
-				for (ContentType type : types) {
-					String stVelocityVarName = type.variable();
-					if (ignorableStructureIds.contains(stVelocityVarName.toLowerCase())) {
-						continue;
-					}
-
-					Structure st = new StructureTransformer(type).asStructure();
-
-                    //Continue only if have a detail
-                    if ( !InodeUtils.isSet( st.getPagedetail() ) ) {
-						continue;
-                    }
-
-					//Getting the detail page, that detail page could be a HTMLPageAsset or a legacy page
-					IHTMLPage page = null;
-						//First lets asume it is a HTMLPageAsset
-						Contentlet contentlet = APILocator.getContentletAPI().search( "+identifier:" + st.getPagedetail() + " +live:true", 0, 0, "moddate", systemUser, false ).get( 0 );
-						if ( contentlet != null ) {
-							page = APILocator.getHTMLPageAssetAPI().fromContentlet( contentlet );
-						}
-
-					if ( !UtilMethods.isSet( page ) || !UtilMethods.isSet( page.getIdentifier() ) ) {
-						Logger.error( this, "Unable to find detail page for structure [" + stVelocityVarName + "]." );
-						continue;
-					}
-
-					Identifier pageIdentifier = identAPI.find( page.getIdentifier() );
-					if ( !UtilMethods.isSet( pageIdentifier ) || !UtilMethods.isSet( pageIdentifier.getId() ) ) {
-						Logger.error( this, "Unable to find detail page for structure [" + stVelocityVarName + "]." );
-						continue;
-					}
-
-					Logger.debug( this, " Creating Site Map for Structure " + stVelocityVarName );
-
-					//Search for the content of this structure
-					String hostQuery = "+(conhost:" + host.getIdentifier() + " conhost:SYSTEM_HOST)";
-					String query = hostQuery + " +structureName:" + st.getVelocityVarName() + " +deleted:false +live:true";
-
-					List<Contentlet> hits = conAPI.search( query, -1, 0, "", systemUser, true );
-					String structureURLMap = st.getUrlMapPattern();
-
-					List<RegExMatch> matches = null;
-
-					if ( useStructureURLMap && UtilMethods.isSet( structureURLMap ) ) {
-						matches = RegEX.find( st.getUrlMapPattern(), "({[^{}]+})" );
-					}
+				for (DetailPage detailPage : detailPages) {
+					Logger.debug( this, " Creating Site Map for Structure " + detailPage.structure.getVelocityVarName() );
 
-					for (Contentlet contenlet : hits) {
-						stringbuf = null;
-						try {
-							if (usePermalinks) {
-								stringbuf = "<url><loc>"
-										+ XMLUtils.xmlEscape("http://"
-												+ host.getHostname()
-												+ "/permalink/"
-												+ contenlet.getIdentifier()
-												+ "/" + st.getPagedetail()
-												+ "/")
-										+ "</loc><lastmod>"
-										+ modifiedDateStringValue
-										+ "</lastmod><changefreq>daily</changefreq></url>\n";
-
-							} else if (useStructureURLMap && UtilMethods.isSet(structureURLMap) && (matches != null)) {
-
-								String uri = structureURLMap;
-								Logger.debug(this, " Found the URL String for validation [" + uri + "]");
-
-								for (RegExMatch match : matches) {
-									String urlMapField = match.getMatch();
-									String urlMapFieldValue = contenlet
-											.getStringProperty(urlMapField
-													.substring(1, (urlMapField
-															.length() - 1)));
-									urlMapField = urlMapField.replaceFirst(
-											"\\{", "\\\\{");
-									urlMapField = urlMapField.replaceFirst(
-											"\\}", "\\\\}");
-
-									if (urlMapFieldValue != null) {
-										uri = uri.replaceAll(urlMapField,
-												urlMapFieldValue);
-									}
-									Logger.debug(this,
-											"Performing Variable replacement - urlMapField ["
-													+ match.getMatch()
-													+ "], urlMapField [ "
-													+ urlMapField
-													+ "], urlMapFieldValue ["
-													+ urlMapFieldValue
-													+ "], uri [" + uri + "]");
-								}
-
-								if ( uri == null && UtilMethods.isSet( st.getDetailPage() ) ) {
-									if ( page != null && UtilMethods.isSet( page.getIdentifier() ) ) {
-										uri = page.getURI() + "?id=" + contenlet.getInode();
-									}
-								}
-								String urlReplacementText = getUrlPatternReplacementText( host, stVelocityVarName);
-
-								uri = uri.replaceAll(urlReplacementText, "");
-
-								Logger.debug(this,
-										"Performing URL replacement - urlRelacementText ["
-												+ urlReplacementText
-												+ "], uri [" + uri + "]");
-								if(StringUtils.isNotEmpty(uri)){
-									stringbuf = "<url><loc>"
-										+ XMLUtils.xmlEscape("http://"
-												+ host.getHostname() + uri)
-										+ "</loc><lastmod>"
-										+ modifiedDateStringValue
-										+ "</lastmod><changefreq>daily</changefreq></url>\n";
-								}
-							} else {
-								stringbuf = "<url><loc>"
-										+ XMLUtils.xmlEscape("http://"
-												+ host.getHostname()
-												+ pageIdentifier.getURI()
-												+ "?id="
-												+ contenlet.getIdentifier())
-										+ "</loc><lastmod>"
-										+ modifiedDateStringValue
-										+ "</lastmod><changefreq>daily</changefreq></url>\n";
-							}
-
-							if (stringbuf != null) {
-								writeFile(stringbuf);
-							}
-							addRegistryProcessed();
-
-						} catch (Exception e) {
-							Logger.error(this, e.getMessage(), e);
-						}
-					}
+					writeDetailPages( host, detailPage.structure, detailPage.identifier );
 				}
 
                 /*
@@ -385,12 +253,124 @@ public class XMLSitemapJob implements Job, StatefulJob {
 				Logger.error(this, e.getMessage(), e);
 			}
 
-			if (UtilMethods.isSet(temporaryFile)) {
+			if (out != null) {
 				closeFileWriter();
 			}
 		}
 	}
 
+	/**
+	 * Finds the detail page of each structure once for all the hosts
+	 */
+	private List<DetailPage> findDetailPages() throws DotDataException, DotSecurityException {
+
+		List<DetailPage> detailPages = new ArrayList<DetailPage>();
+		List<ContentType> types = APILocator.getContentTypeAPI(APILocator.systemUser()).findAll() ;
+		List<String> ignorableStructureIds = getIgnorableStrcutureIdsForHost(null);
+
+		for (ContentType type : types) {
+			String stVelocityVarName = type.variable();
+			if (ignorableStructureIds.contains(stVelocityVarName.toLowerCase())) {
+				continue;
+			}
+
+			Structure st = new StructureTransformer(type).asStructure();
+
+            //Continue only if have a detail
+            if ( !InodeUtils.isSet( st.getPagedetail() ) ) {
+				continue;
+            }
+
+			//Getting the detail page, that detail page could be a HTMLPageAsset or a legacy page
+			IHTMLPage page = null;
+			//First lets asume it is a HTMLPageAsset
+			List<Contentlet> pages = APILocator.getContentletAPI().search( "+identifier:" + st.getPagedetail() + " +live:true", 0, 0, "moddate", systemUser, false );
+			if ( !pages.isEmpty() ) {
+				page = APILocator.getHTMLPageAssetAPI().fromContentlet( pages.get( 0 ) );
+			}
+
+			if ( !UtilMethods.isSet( page ) || !UtilMethods.isSet( page.getIdentifier() ) ) {
+				Logger.error( this, "Unable to find detail page for structure [" + stVelocityVarName + "]." );
+				continue;
+			}
+
+			Identifier pageIdentifier = identAPI.find( page.getIdentifier() );
+			if ( !UtilMethods.isSet( pageIdentifier ) || !UtilMethods.isSet( pageIdentifier.getId() ) ) {
+				Logger.error( this, "Unable to find detail page for structure [" + stVelocityVarName + "]." );
+				continue;
+			}
+
+			detailPages.add( new DetailPage( st, pageIdentifier ) );
+		}
+		return detailPages;
+	}
+
+	/**
+	 * Adds the URL of the detail page of every live content of the structure in the host. The URL
+	 * map of the structure is parsed once, and the content is streamed from the index a page at a
+	 * time.
+	 */
+	private void writeDetailPages ( final Host host, final Structure st, final Identifier pageIdentifier ) throws DotDataException, DotSecurityException {
+
+		//Search for the content of this structure
+		String hostQuery = "+(conhost:" + host.getIdentifier() + " conhost:SYSTEM_HOST)";
+		String query = hostQuery + " +structureName:" + st.getVelocityVarName() + " +deleted:false +live:true";
+
+		final String structureURLMap = st.getUrlMapPattern();
+		final List<String> urlMapFields = new ArrayList<String>();
+		if ( useStructureURLMap && UtilMethods.isSet( structureURLMap ) ) {
+			for ( RegExMatch match : RegEX.find( structureURLMap, "({[^{}]+})" ) ) {
+				String urlMapField = match.getMatch();
+				urlMapFields.add( urlMapField.substring( 1, urlMapField.length() - 1 ) );
+			}
+		}
+		final boolean useURLMap = useStructureURLMap && UtilMethods.isSet( structureURLMap );
+
+		String urlReplacementText = getUrlPatternReplacementText( host, st.getVelocityVarName() );
+		final Pattern ignoredText = UtilMethods.isSet( urlReplacementText ) ? Pattern.compile( urlReplacementText ) : null;
+
+		final String hostUrl = "http://" + host.getHostname();
+
+		conAPI.scroll( query, 0, systemUser, true, hits -> {
+			for ( Contentlet contenlet : hits ) {
+				try {
+					String loc = null;
+					if ( usePermalinks ) {
+						loc = hostUrl + "/permalink/" + contenlet.getIdentifier() + "/" + st.getPagedetail() + "/";
+					} else if ( useURLMap ) {
+						String uri = structureURLMap;
+						for ( String urlMapField : urlMapFields ) {
+							String urlMapFieldValue = contenlet.getStringProperty( urlMapField );
+							if ( urlMapFieldValue != null ) {
+								uri = uri.replace( "{" + urlMapField + "}", urlMapFieldValue );
+							}
+						}
+						if ( ignoredText != null ) {
+							uri = ignoredText.matcher( uri ).replaceAll( "" );
+						}
+						Logger.debug( this, "URL map of [" + contenlet.getIdentifier() + "] is [" + uri + "]" );
+						if ( StringUtils.isNotEmpty( uri ) ) {
+							loc = hostUrl + uri;
+						}
+					} else {
+						loc = hostUrl + pageIdentifier.getURI() + "?id=" + contenlet.getIdentifier();
+					}
+
+					if ( loc != null ) {
+						writeFile( "<url><loc>"
+								+ XMLUtils.xmlEscape( loc )
+								+ "</loc><lastmod>"
+								+ modifiedDateStringValue
+								+ "</lastmod><changefreq>daily</changefreq></url>\n" );
+					}
+				} catch ( Exception e ) {
+					Logger.error( this, e.getMessage(), e );
+				}
+			}
+			return true;
+		} );
+	}
+
 	/**
 	 * Add the subfolder site map code to the xml site map file
 	 *
@@ -434,7 +414,6 @@ public class XMLSitemapJob implements Job, StatefulJob {
 			isIndexPageAlreadyConfigured = true;
 
 			writeFile( stringbuf );
-			addRegistryProcessed();
 		}
 
 		if ( currentLevel < numberOfLevels ) {
@@ -465,7 +444,6 @@ public class XMLSitemapJob implements Job, StatefulJob {
 										+ childChild2Ident.getURI() ) + "]" );
 
 						writeFile( stringbuf );
-						addRegistryProcessed();
 					}
 				} else if ( childChild2 instanceof Link ) {
 
@@ -486,65 +464,34 @@ public class XMLSitemapJob implements Job, StatefulJob {
 	}
 
 	/**
-	 * Create a new instance of the temporary file to save the index data
+	 * Starts a new sitemap file, compressed while it is written
 	 *
 	 */
-	private void openFileWriter() {
-		try {
-			temporaryFile = new File(Config.getStringProperty("org.dotcms.XMLSitemap.SITEMAP_XML_FILENAME","XMLSitemap")
-					+ ".xml");
-			out = new OutputStreamWriter(new FileOutputStream(temporaryFile),
-					"UTF-8");
-
-			out.write( "<?xml version='1.0' encoding='UTF-8'?>\n" );
-			out
-					.write("<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"http://www.sitemaps.org/schemas/sitemap/0.9 http://www.sitemaps.org/schemas/sitemap/0.9/sitemap.xsd\">\n");
-			out.flush();
-
-		} catch (Exception e) {
-			Logger.error(this, e.getMessage(), e);
-		}
+	private void openFileWriter() throws IOException {
+		int counter = hostFilesCounter.get(currentHost.getHostname());
+		String dateCounter = Calendar.getInstance().get(Calendar.MONTH)
+								+""+Calendar.getInstance().get(Calendar.DAY_OF_MONTH)
+								+""+Calendar.getInstance().get(Calendar.HOUR_OF_DAY)
+								+""+Calendar.getInstance().get(Calendar.MINUTE);
+		compressedFile = new File(Config.getStringProperty("org.dotcms.XMLSitemap.SITEMAP_XML_GZ_FILENAME","XMLSitemapGenerated")
+				+ dateCounter + counter + ".xml.gz");
+		out = new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(compressedFile), BUFFER_SIZE), BUFFER_SIZE);
+		out.write(SITEMAP_HEADER);
+		writtenBytes = SITEMAP_HEADER.length + SITEMAP_FOOTER.length;
+		processedRegistries = 0;
 	}
 
 	/**
-	 * Save in backend the new XMLSitemapGenerated.xml file and delete the
-	 * temporary file
+	 * Completes the current sitemap file and saves it in the XMLSitemap folder of the host
 	 */
 	private void closeFileWriter() {
 
 		int counter = hostFilesCounter.get(currentHost.getHostname());
+		String sitemapName = compressedFile.getName();
 		try {
-			out.write("</urlset>");
-			out.flush();
+			out.write(SITEMAP_FOOTER);
 			out.close();
 
-			/******* Begin Generate compressed file *****************************/
-			String dateCounter = Calendar.getInstance().get(Calendar.MONTH)
-									+""+Calendar.getInstance().get(Calendar.DAY_OF_MONTH)
-									+""+Calendar.getInstance().get(Calendar.HOUR_OF_DAY)
-									+""+Calendar.getInstance().get(Calendar.MINUTE);
-			String sitemapName = Config.getStringProperty("org.dotcms.XMLSitemap.SITEMAP_XML_GZ_FILENAME","XMLSitemapGenerated")
-					+ dateCounter + counter + ".xml.gz";
-			compressedFile = new File(sitemapName);
-			GZIPOutputStream gout = new GZIPOutputStream(new FileOutputStream(
-					compressedFile));
-
-			// Open the input file
-			FileInputStream in = new FileInputStream(temporaryFile);
-
-			// Transfer bytes from the input file to the GZIP output stream
-			byte[] buf = new byte[1024];
-			int len;
-			while ((len = in.read(buf)) > 0) {
-				gout.write(buf, 0, len);
-			}
-			in.close();
-
-			// Complete the GZIP file
-			gout.finish();
-			gout.close();
-			/************ End Generate compressed file **********************/
-
 			/* Saving file in dotCMS */
 
 			Folder folder = folderAPI.findFolderByPath(XML_SITEMAPS_FOLDER,
@@ -555,14 +502,13 @@ public class XMLSitemapJob implements Job, StatefulJob {
 						currentHost, systemUser, true);
 			}
 
-			java.io.File uploadedFile = new java.io.File(sitemapName);
 			// Create the new file
 			Contentlet file = new Contentlet();
 			file.setStructureInode(folder.getDefaultFileType());
 			file.setStringProperty(FileAssetAPI.TITLE_FIELD, UtilMethods.getFileName(sitemapName));
 			file.setFolder(folder.getInode());
 			file.setHost(currentHost.getIdentifier());
-			file.setBinary(FileAssetAPI.BINARY_FIELD, uploadedFile);
+			file.setBinary(FileAssetAPI.BINARY_FIELD, compressedFile);
             if ( CacheLocator.getContentTypeCache().getStructureByInode( file.getStructureInode() ).getStructureType() == Structure.STRUCTURE_TYPE_FILEASSET ) {
 				file.setStringProperty("fileName", sitemapName);
             }
@@ -577,48 +523,40 @@ public class XMLSitemapJob implements Job, StatefulJob {
 			Logger.error(this, e.getMessage(), e);
 		} finally {
 			hostFilesCounter.put(currentHost.getHostname(), counter + 1);
-			temporaryFile.delete();
 			compressedFile.delete();
-			temporaryFile = null;
 			compressedFile = null;
+			out = null;
 		}
 	}
 
 	/**
-	 * Write inside temporary file index pages
+	 * Write a URL entry in the current sitemap file, starting a new one when the entry does not fit
+	 * in it
 	 *
 	 * @param data
 	 */
 	private void writeFile(String data) {
 
 		try {
-			if (temporaryFile == null) {
-				openFileWriter();
-			}
-
-			out.write(data);
-			out.flush();
-
-			if (temporaryFile.length() > 9437184 || processedRegistries > 49999) {
+			byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+			if (out != null && (processedRegistries >= MAX_URLS_PER_FILE || writtenBytes + bytes.length > MAX_BYTES_PER_FILE)) {
 				closeFileWriter();
 				sitemapCounter = sitemapCounter + 1;
-				processedRegistries = 0;
+			}
+			if (out == null) {
 				openFileWriter();
 			}
 
+			out.write(bytes);
+			writtenBytes += bytes.length;
+			processedRegistries = processedRegistries + 1;
+
 		} catch (Exception e) {
 			Logger.error(this, e.getMessage(), e);
 		}
 
 	}
 
-	/**
-	 * Add one to the the number of pages processed counter
-	 */
-	private void addRegistryProcessed() {
-		processedRegistries = processedRegistries + 1;
-	}
-
 	private void writeContentlet ( Host host, Contentlet contentlet ) throws DotDataException, DotSecurityException {
 
 		if ( contentlet.isLive() && !contentlet.isArchived() ) {
@@ -635,7 +573,6 @@ public class XMLSitemapJob implements Job, StatefulJob {
 					+ "</lastmod><changefreq>daily</changefreq></url>\n";
 
 			writeFile( stringbuf );
-			addRegistryProcessed();
 		}
 	}
 
@@ -661,7 +598,6 @@ public class XMLSitemapJob implements Job, StatefulJob {
 					+ "</lastmod><changefreq>daily</changefreq></url>\n";
 
 			writeFile( stringbuf );
-			addRegistryProcessed();
 		}
 	}
 
@@ -678,9 +614,21 @@ public class XMLSitemapJob implements Job, StatefulJob {
 						+ "</lastmod><changefreq>daily</changefreq></url>\n";
 
 				writeFile( stringbuf );
-				addRegistryProcessed();
 			}
 		}
 	}
 
-}
\ No newline at end of file
+	/**
+	 * The identifier of the detail page of a structure, resolved once per run
+	 */
+	private static final class DetailPage {
+
+		private final Structure structure;
+		private final Identifier identifier;
+
+		private DetailPage ( Structure structure, Identifier identifier ) {
+			this.structure = structure;
+			this.identifier = identifier;
+		}
+	}
+}
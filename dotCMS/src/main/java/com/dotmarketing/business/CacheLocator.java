@@ -65,6 +65,8 @@ import com.dotmarketing.util.Config;
 import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.WebKeys;
 import com.dotmarketing.velocity.DotResourceCache;
+import com.dotmarketing.velocity.directive.DotParseCache;
+import com.dotmarketing.velocity.directive.DotParseCacheImpl;
 import com.dotmarketing.viewtools.navigation.NavToolCache;
 import com.dotmarketing.viewtools.navigation.NavToolCacheImpl;
 
@@ -197,6 +199,10 @@ public class CacheLocator extends Locator<CacheIndex>{
 		return (DotResourceCache)getInstance(CacheIndex.Velocity);
 	}
 
+	public static DotParseCache getDotParseCache(){
+		return (DotParseCache)getInstance(CacheIndex.DotParse);
+	}
+
     public static LogMapperCache getLogMapperCache () {
         return ( LogMapperCache ) getInstance( CacheIndex.LogMapper );
     }
@@ -394,6 +400,7 @@ enum CacheIndex
 	Language("Language"),
 	User("User"),
 	Velocity("Velocity"),
+	DotParse("DotParse Cache"),
 	Layout("Layout"),
 	Userproxy("User Proxy"),
 	Host("Host"),
@@ -432,6 +439,7 @@ enum CacheIndex
 	      	case Role: return new RoleCacheImpl();
 	      	case Contentlet: return new ContentletCacheImpl();
 	      	case Velocity : return new DotResourceCache();
+	      	case DotParse : return new DotParseCacheImpl();
 	      	case Relationship: return new RelationshipCacheImpl();
 	        case LogMapper: return new LogMapperCacheImpl();
 	      	case Plugin : return new PluginCacheImpl();
@@ -8,6 +8,7 @@ import com.dotcms.cluster.bean.Server;
 import com.dotcms.cluster.bean.ServerPort;
 import com.dotcms.cluster.business.ServerAPI;
 import com.dotcms.enterprise.cache.provider.CacheProviderAPI;
+import com.dotcms.journal.business.CacheInvalidationLog;
 import com.dotcms.enterprise.cluster.ClusterFactory;
 import com.dotcms.repackage.com.google.common.cache.RemovalListener;
 import com.dotcms.repackage.com.google.common.cache.RemovalNotification;
@@ -24,6 +25,7 @@ import com.dotmarketing.util.Config;
 import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.UtilMethods;
 import com.dotmarketing.util.WebKeys;
+import com.dotmarketing.velocity.ParsedTemplateStore;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -293,6 +295,8 @@ public class ChainableCacheAdministratorImpl implements DotCacheAdministrator {
 
 		//Invalidates all the Cache
 		cacheProviderAPI.removeAll(ignoreDistributed);
+		//The parsed velocity templates are not kept by the cache providers
+		ParsedTemplateStore.getInstance().clear();
 	}
 
 	public void flushGroupLocalOnly ( String group, boolean ignoreDistributed ) {
@@ -415,10 +419,18 @@ public class ChainableCacheAdministratorImpl implements DotCacheAdministrator {
 
 	public List<CacheProviderStats> getCacheStatsList () {
 		//Returns the stats for all the cache providers
-		return cacheProviderAPI.getStats();
+		List<CacheProviderStats> stats = new ArrayList<>(cacheProviderAPI.getStats());
+		//and of the parsed velocity templates, kept outside of the providers
+		stats.add(ParsedTemplateStore.getInstance().getStats());
+		//and the lag of the nodes reading the invalidations from the database
+		if ( Config.getBooleanProperty("CACHE_CLUSTER_THROUGH_DB", false) ) {
+			stats.add(CacheInvalidationLog.getInstance().getStats());
+		}
+		return stats;
 	}
 
 	public void shutdown () {
+		CacheInvalidationLog.getInstance().stop();
 		cacheProviderAPI.shutdown();
 	}
 
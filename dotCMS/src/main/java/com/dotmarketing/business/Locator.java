@@ -3,9 +3,8 @@
  */
 package com.dotmarketing.business;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -24,22 +23,21 @@ public abstract class Locator<T> {
 	protected abstract Object createService(T enumObj);
 	
 	protected Locator() {
-		cache = new HashMap<T,Object>();
+		// read without a lock, by the startup steps running in parallel among others
+		cache = new ConcurrentHashMap<T,Object>();
 	}
 	
 	protected Object getServiceInstance(T enumObj) {
 		Locator<T> instance = getLocatorInstance();
-		Object serviceRef = null; 
-		if (instance.cache.containsKey(enumObj)) {
-			serviceRef = instance.cache.get(enumObj);
-		}
-		else {
+		Object serviceRef = instance.cache.get(enumObj);
+		if (serviceRef == null) {
 			synchronized (enumObj.getClass()) {
-				if (instance.cache.containsKey(enumObj)) {
-					serviceRef = instance.cache.get(enumObj);
-				} else {
+				serviceRef = instance.cache.get(enumObj);
+				if (serviceRef == null) {
 					serviceRef = createService(enumObj);
-					instance.cache.put(enumObj, serviceRef);
+					if (serviceRef != null) {
+						instance.cache.put(enumObj, serviceRef);
+					}
 				}
 			}
 
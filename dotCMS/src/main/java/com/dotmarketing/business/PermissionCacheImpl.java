@@ -64,12 +64,14 @@ public class PermissionCacheImpl extends PermissionCache {
         // clear the cache
         cache.flushGroup(primaryGroup);
         cache.flushGroup(secondaryGroup);
+        CacheLocator.getDotParseCache().clearPermissions();
     }
 
     /* (non-Javadoc)
 	 * @see com.dotmarketing.business.PermissionCache#remove(java.lang.String)
 	 */
     protected void remove(String key){
+    	final String permissionId = key;
     	key = primaryGroup + key;
     	try{
 	        cache.remove(key,primaryGroup);
@@ -81,6 +83,7 @@ public class PermissionCacheImpl extends PermissionCache {
     	}catch (Exception e) {
 			Logger.debug(this,e.getMessage(), e);
 		} 
+    	CacheLocator.getDotParseCache().removePermissions(permissionId);
     }
     public String[] getGroups() {
     	return groupNames;
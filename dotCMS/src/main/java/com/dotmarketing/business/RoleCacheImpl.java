@@ -96,6 +96,7 @@ public class RoleCacheImpl extends RoleCache {
 		cache.flushGroup(keyGroup);
 		cache.flushGroup(layoutGroup);
 		cache.flushGroup(rootRolesGroup);
+		CacheLocator.getDotParseCache().clearPermissions();
 	}
 
 	/* (non-Javadoc)
@@ -107,6 +108,8 @@ public class RoleCacheImpl extends RoleCache {
 			cache.remove(userGroup + key,userGroup);
 			cache.remove(keyGroup + key,keyGroup);
 			cache.flushGroup(rootRolesGroup);
+			// the key is the id of a user when the roles of the user change
+			CacheLocator.getDotParseCache().removeUserRoles(key);
 		}catch (Exception e) {
 			Logger.debug(this, "Cache not able to be removed", e);
 		}
@@ -132,6 +135,7 @@ public class RoleCacheImpl extends RoleCache {
 	@Override
 	protected void clearUserRoleCache() {
 		cache.flushGroup(userGroup);
+		CacheLocator.getDotParseCache().clearPermissions();
 	}
 
 	@Override
@@ -1,5 +1,6 @@
 package com.dotmarketing.business.jgroups;
 
+import com.dotcms.api.system.event.SystemEventsFactory;
 import com.dotcms.cluster.bean.Server;
 import com.dotcms.cluster.business.ServerAPI;
 import com.dotcms.repackage.org.apache.commons.collections.map.LRUMap;
@@ -237,6 +238,8 @@ public class JGroupsCacheTransport extends ReceiverAdapter implements CacheTrans
             messages.reloadLocally();
         } else if ( v.toString().equals(ChainableCacheAdministratorImpl.DUMMY_TEXT_TO_SEND) ) {
             //Don't do anything is we are only checking sending.
+        } else if ( SystemEventsFactory.getInstance().getSystemEventBus().receive(v.toString()) ) {
+            //System Event pushed by another node, already delivered to the local listeners.
         } else {
             CacheLocator.getCacheAdministrator().invalidateCacheMesageFromCluster(v.toString());
         }
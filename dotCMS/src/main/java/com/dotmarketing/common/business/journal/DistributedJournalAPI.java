@@ -16,15 +16,16 @@ import com.dotmarketing.portlets.folders.model.Folder;
 public interface DistributedJournalAPI<T> {
 	
 	/**
-	 * Will return only the entries for the specific server the code is executed on
-	 * This method will also delete all entries from the table that are returned in the select 
+	 * Will return the cache entries added by the other servers since the last call, and move the
+	 * cursor of the server the code is executed on past them. The entries every server has read
+	 * are deleted in the background by the {@link com.dotcms.journal.business.CacheInvalidationLog}
 	 * @return
 	 * @throws DotDataException
 	 */
 	public List<String> findCacheEntriesToRemove() throws DotDataException;
 	
 	/**
-	 * Will add cache entries for all servers other then himself in the process table
+	 * Will add a cache entry for all servers other then himself to the cache invalidation log
 	 * @param key
 	 * @param group
 	 * @throws DotDataException
@@ -1,7 +1,6 @@
 package com.dotmarketing.common.db;
 
 import java.math.BigDecimal;
-import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -11,10 +10,11 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.*;
 
-import com.dotcms.repackage.org.apache.commons.collections.map.LRUMap;
 import com.dotcms.repackage.org.apache.commons.lang.StringUtils;
 import static com.dotcms.util.CloseUtils.*;
 import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.DbConnectionFactory.DataBaseType;
+import com.dotmarketing.db.WriteBehindBuffer;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotRuntimeException;
 import com.dotmarketing.util.Config;
@@ -31,8 +31,6 @@ import com.dotmarketing.util.json.JSONObject;
  */
 public class DotConnect {
     
-	private static Map<Connection, Map<String, PreparedStatement>> stmts = new LRUMap(200);
-	
 	ArrayList<Object> paramList;
 
     ArrayList<Object> results;
@@ -48,6 +46,8 @@ public class DotConnect {
     int maxRows = -1;
 
     int startRow = 0;
+
+    int fetchSize = 0;
     
     boolean forceQuery=false;
 
@@ -269,6 +269,7 @@ public class DotConnect {
         SQL = x;
         startRow = 0;
         maxRows = -1;
+        fetchSize = 0;
         
         Logger.debug(this, "setSQL: " + x);
         return this;
@@ -532,6 +533,8 @@ public class DotConnect {
         String starter = SQL.substring(0, 10);
         PreparedStatement statement = null;
         boolean cachePreparedStatement=Config.getBooleanProperty("CACHE_PREPARED_STATEMENTS", false);
+        Connection cachedOn = null;
+        boolean failed = false;
 	    boolean logSQL = "true".equals(System.getProperty("hibernate.show_sql"));
 	    if(logSQL){
 	    	
@@ -547,42 +550,17 @@ public class DotConnect {
 	        long beforePreparation = 0;
 	        long afterPreparation = 0;
 	        if(SQL.contains("?")){ // if it is a prepared statement
-	        	if (cachePreparedStatement) { // if want's to use the cache map
-	        		Map<String,PreparedStatement> m = null;
-		        	Connection rconn = conn.getMetaData().getConnection();
-		        	m = stmts.get(rconn);
-		        	if(m!=null){ // if it is in the cache.
-		        		if (starter.toLowerCase().trim().indexOf("call")!=-1) { // if it is a stored procedure
-		        		   statement = (CallableStatement)m.get(SQL);
-		        		}else{
-		        			statement = m.get(SQL);
-		        		}
-		        	}else{ // if it is not in the cache, put it there.
-		        		m = new HashMap<String, PreparedStatement>();
-		        		synchronized (stmts) {
-		        			stmts.put(rconn, m);
-		        		}
-		        	}
-		        	if(statement == null){ // if couldn't create it
-		        		beforePreparation = System.nanoTime();
-		        		if (starter.toLowerCase().trim().indexOf("call")!=-1) { // if it is a stored procedure
-		        		  statement = (CallableStatement)conn.prepareCall(SQL);
-		        		}else{
-		        		  statement = rconn.prepareStatement(SQL);
-		        		}
-		        		m.put(SQL, statement);
-		        		afterPreparation = System.nanoTime();
-		        	}
-		        	
+	        	boolean callable = starter.toLowerCase().trim().indexOf("call")!=-1; // if it is a stored procedure
+	        	beforePreparation = System.nanoTime();
+	        	if (cachePreparedStatement) { // reuse the statement prepared earlier on this connection
+	        		statement = StatementCache.getInstance().prepare(conn, SQL, callable);
+	        		cachedOn = conn;
+	        	} else if (callable) {
+	        		statement = conn.prepareCall(SQL);
 	        	} else {
-	        		beforePreparation = System.nanoTime();
-	        		if (starter.toLowerCase().trim().indexOf("call")!=-1) {
-	        			statement = (CallableStatement)conn.prepareCall(SQL);
-	        		}else{
-		        	  statement = conn.prepareStatement(SQL);
-	        		}
-	        		afterPreparation = System.nanoTime();
+	        		statement = conn.prepareStatement(SQL);
 	        	}
+	        	afterPreparation = System.nanoTime();
 	        	
 	        	
 	        	//statement.setMaxRows(maxRows);
@@ -704,10 +682,18 @@ public class DotConnect {
 	                i++;
 	            }
 	        }
+        } catch (SQLException e) {
+        	failed = true;
+        	throw e;
         } finally {
         	try { if (rs != null) rs.close(); } catch (Exception e) { }
         	try { if (stmt != null) stmt.close(); } catch (Exception e) { }
-        	try { if ( (!cachePreparedStatement) && (statement!= null) ) statement.close(); } catch (Exception e) { }
+        	if (cachedOn != null) {
+        		// a statement that failed may be stale, it is prepared again the next time
+        		StatementCache.getInstance().release(cachedOn, SQL, statement, failed);
+        	} else {
+        		try { if (statement!= null) statement.close(); } catch (Exception e) { }
+        	}
         }
 
     }
@@ -870,6 +856,147 @@ public class DotConnect {
 	}
     
 
+    /**
+     * Sets the number of rows the JDBC driver fetches from the database at a time when streaming
+     * with {@link #forEachRow(RowHandler)} or {@link #iterateRows()}. PostgreSQL only honors it when
+     * the connection is not in auto-commit mode; on MySQL any positive value makes the driver
+     * stream the rows one by one.
+     */
+    public DotConnect setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Streams the rows of the query to the handler using the connection of the current thread.
+     *
+     * @see #forEachRow(Connection, RowHandler)
+     */
+    public int forEachRow(final RowHandler handler) throws DotDataException {
+        return forEachRow(DbConnectionFactory.getConnection(), handler);
+    }
+
+    /**
+     * Streams the rows of the query to the handler, one at a time, without loading them into
+     * {@link #loadResults()} or {@link #loadObjectResults()}. The start row and max rows are pushed
+     * into the SQL of the database in use, so the rows skipped are never sent by the database.
+     *
+     * @return the number of rows handled
+     */
+    public int forEachRow(final Connection conn, final RowHandler handler) throws DotDataException {
+        int count = 0;
+        try (RowIterator rows = iterateRows(conn)) {
+            while (rows.hasNext()) {
+                count++;
+                if (!handler.handle(rows.next())) {
+                    break;
+                }
+            }
+        } catch (SQLException e) {
+            throw new DotDataException(e.getMessage(), e);
+        } catch (DotRuntimeException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw new DotDataException(e.getMessage(), e.getCause());
+            }
+            throw e;
+        }
+        return count;
+    }
+
+    /**
+     * Opens the query using the connection of the current thread.
+     *
+     * @see #iterateRows(Connection)
+     */
+    public RowIterator iterateRows() throws DotDataException {
+        return iterateRows(DbConnectionFactory.getConnection());
+    }
+
+    /**
+     * Opens the query and returns an iterator that reads its rows lazily. The iterator has to be
+     * closed if it is not read to the end. The start row and max rows are pushed into the SQL of
+     * the database in use.
+     */
+    public RowIterator iterateRows(final Connection conn) throws DotDataException {
+        String sql = SQL;
+        int skip = 0;
+        int limit = -1;
+        if (startRow > 0 || maxRows > 0) {
+            if (DbConnectionFactory.isMsSql() && !SQL.toLowerCase().contains("order by")) {
+                // OFFSET ... FETCH needs an ORDER BY, so only the upper bound goes to the database
+                if (maxRows > 0) {
+                    sql = topSQL(SQL, startRow + maxRows);
+                }
+                skip = startRow;
+                limit = maxRows;
+            } else {
+                sql = pageSQL(SQL, startRow, maxRows);
+            }
+        }
+        Logger.debug(this, "Streaming SQL = " + sql + " params:" + paramList);
+
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            statement = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            if (fetchSize > 0) {
+                statement.setFetchSize(DbConnectionFactory.isMySql() ? Integer.MIN_VALUE : fetchSize);
+            }
+            for (int i = 0; i < paramList.size(); i++) {
+                statement.setObject(i + 1, paramList.get(i));
+            }
+            rs = statement.executeQuery();
+            int skipped = 0;
+            while (skipped < skip && rs.next()) {
+                skipped++;
+            }
+            return new RowIterator(statement, rs, limit);
+        } catch (SQLException e) {
+            closeQuietly(rs, statement);
+            throw new DotDataException(e.getMessage() + ", SQL: " + sql, e);
+        }
+    }
+
+    /**
+     * Wraps the query so the database only returns {@code limit} rows starting at {@code offset}.
+     * A limit lower than 1 means no limit. On MSSQL the query needs an ORDER BY.
+     */
+    public static String pageSQL(final String sql, final int offset, final int limit) {
+        return pageSQL(DbConnectionFactory.getDataBaseType(), sql, offset, limit);
+    }
+
+    static String pageSQL(final DataBaseType dbType, final String sql, final int offset, final int limit) {
+        if (offset <= 0 && limit <= 0) {
+            return sql;
+        }
+        if (dbType == DataBaseType.ORACLE) {
+            if (offset <= 0) {
+                return "select * from (" + sql + ") where rownum <= " + limit;
+            }
+            return "select * from (select dotcms_q.*, rownum " + Row.ORACLE_ROWNUM_COLUMN + " from (" + sql + ") dotcms_q"
+                    + (limit > 0 ? " where rownum <= " + (offset + limit) : "") + ") where " + Row.ORACLE_ROWNUM_COLUMN + " > " + offset;
+        }
+        if (dbType == DataBaseType.MSSQL) {
+            return sql + " offset " + Math.max(offset, 0) + " rows" + (limit > 0 ? " fetch next " + limit + " rows only" : "");
+        }
+        if (dbType == DataBaseType.MySQL) {
+            // MySQL has no OFFSET without LIMIT
+            return sql + " limit " + Math.max(offset, 0) + ", " + (limit > 0 ? limit : "18446744073709551615");
+        }
+        return sql + (limit > 0 ? " limit " + limit : "") + (offset > 0 ? " offset " + offset : "");
+    }
+
+    /**
+     * Adds a TOP clause to a MSSQL query, right after its SELECT or SELECT DISTINCT.
+     */
+    static String topSQL(final String sql, final int top) {
+        return sql.trim().replaceFirst("(?i)^select(\\s+distinct)?\\s", "$0top " + top + " ");
+    }
+
     /**
      * Returns the object results.
      * @return ArrayList
@@ -1019,23 +1146,17 @@ public class DotConnect {
 
             if (null != listOfParams) {
 
-                for (Params params: listOfParams) {
-
-                    if (null != params) {
-
-                        this.setParams (preparedStatement, params);
-                        preparedStatement.addBatch();
-                    }
-                }
-
-                results = preparedStatement.executeBatch();
+                results = this.executeBatch(preparedStatement, listOfParams);
             }
 
+            // the connection is committed and closed, so are the writes pending on it
+            WriteBehindBuffer.flush(conn);
             conn.commit();
         } catch (SQLException e) {
 
             try {
 
+                WriteBehindBuffer.discard(conn);
                 conn.rollback();
             } catch (SQLException e1) {
 
@@ -1067,6 +1188,48 @@ public class DotConnect {
         return results;
     } // executeBatch.
 
+    /**
+     * Executes a batch on the given connection as part of its current transaction, it neither
+     * commits nor rolls back.
+     *
+     * @param connection {@link Connection}
+     * @param sql {@link String}
+     * @param listOfParams {@link Collection} of {@link Params}
+     * @return int []
+     */
+    public int [] executeBatch (final Connection connection, final String sql,
+                                final Collection<Params> listOfParams) throws DotDataException {
+
+        PreparedStatement preparedStatement = null;
+
+        try {
+
+            preparedStatement = connection.prepareStatement(sql);
+            return this.executeBatch(preparedStatement, listOfParams);
+        } catch (SQLException e) {
+
+            throw new DotDataException("SQL Error doing a batch", e);
+        } finally {
+
+            closeQuietly(preparedStatement);
+        }
+    } // executeBatch.
+
+    private int [] executeBatch (final PreparedStatement preparedStatement,
+                                 final Collection<Params> listOfParams) throws SQLException {
+
+        for (Params params: listOfParams) {
+
+            if (null != params) {
+
+                this.setParams (preparedStatement, params);
+                preparedStatement.addBatch();
+            }
+        }
+
+        return preparedStatement.executeBatch();
+    }
+
     private void setParams(final PreparedStatement preparedStatement,
                            final Params params) throws SQLException {
 
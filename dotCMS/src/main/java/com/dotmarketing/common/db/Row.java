@@ -0,0 +1,167 @@
+package com.dotmarketing.common.db;
+
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.exception.DotRuntimeException;
+
+/**
+ * A view over the current row of a result set streamed by {@link DotConnect#forEachRow(RowHandler)}
+ * or {@link DotConnect#iterateRows()}. The same instance is reused for every row, so it must not be
+ * kept once the handler returns or the iterator moves on: copy the values needed, or call
+ * {@link #toMap()}.
+ *
+ * Columns can be read by their 1-based index or by their label, case insensitive. Values are
+ * converted the same way {@link DotConnect#loadObjectResults()} does: CLOBs are read as strings
+ * and Oracle timestamps as {@link Date}.
+ *
+ * @author dotCMS
+ */
+public final class Row {
+
+    static final String ORACLE_ROWNUM_COLUMN = "dotcms_rn";
+
+    private final ResultSet rs;
+    private final String[] labels;
+    private final Map<String, Integer> indexes;
+    private final boolean oracle = DbConnectionFactory.isOracle();
+
+    private int rowNumber = -1;
+
+    Row(final ResultSet rs) throws SQLException {
+        this.rs = rs;
+        final ResultSetMetaData meta = rs.getMetaData();
+        int count = meta.getColumnCount();
+        if (count > 0 && ORACLE_ROWNUM_COLUMN.equalsIgnoreCase(meta.getColumnLabel(count))) {
+            // added by DotConnect to page the query, not part of the row
+            count--;
+        }
+        labels = new String[count];
+        indexes = new HashMap<String, Integer>(count * 2);
+        for (int i = 0; i < count; i++) {
+            labels[i] = meta.getColumnLabel(i + 1).toLowerCase();
+            if (!indexes.containsKey(labels[i])) {
+                indexes.put(labels[i], i + 1);
+            }
+        }
+    }
+
+    void next() {
+        rowNumber++;
+    }
+
+    /**
+     * The 0-based position of the row among the rows streamed.
+     */
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    public int getColumnCount() {
+        return labels.length;
+    }
+
+    /**
+     * The lower case label of the column at the given 1-based index.
+     */
+    public String getColumnLabel(final int column) {
+        return labels[column - 1];
+    }
+
+    /**
+     * The 1-based index of the column with the given label, or -1 if there is none.
+     */
+    public int getColumnIndex(final String label) {
+        final Integer index = indexes.get(label.toLowerCase());
+        return index != null ? index : -1;
+    }
+
+    private int indexOf(final String label) {
+        final int index = getColumnIndex(label);
+        if (index < 0) {
+            throw new DotRuntimeException("Column " + label + " is not part of the query");
+        }
+        return index;
+    }
+
+    public Object getObject(final int column) throws SQLException {
+        final Object value = rs.getObject(column);
+        if (value instanceof Clob) {
+            return rs.getString(column);
+        }
+        if (oracle && value instanceof oracle.sql.TIMESTAMP) {
+            return new Date(((oracle.sql.TIMESTAMP) value).timestampValue().getTime());
+        }
+        return value;
+    }
+
+    public Object getObject(final String label) throws SQLException {
+        return getObject(indexOf(label));
+    }
+
+    public String getString(final int column) throws SQLException {
+        return rs.getString(column);
+    }
+
+    public String getString(final String label) throws SQLException {
+        return getString(indexOf(label));
+    }
+
+    /**
+     * Returns the value as an int, 0 if it is null.
+     */
+    public int getInt(final int column) throws SQLException {
+        return rs.getInt(column);
+    }
+
+    public int getInt(final String label) throws SQLException {
+        return getInt(indexOf(label));
+    }
+
+    /**
+     * Returns the value as a long, 0 if it is null.
+     */
+    public long getLong(final int column) throws SQLException {
+        return rs.getLong(column);
+    }
+
+    public long getLong(final String label) throws SQLException {
+        return getLong(indexOf(label));
+    }
+
+    public boolean getBoolean(final int column) throws SQLException {
+        return rs.getBoolean(column);
+    }
+
+    public boolean getBoolean(final String label) throws SQLException {
+        return getBoolean(indexOf(label));
+    }
+
+    public Date getDate(final int column) throws SQLException {
+        return rs.getTimestamp(column);
+    }
+
+    public Date getDate(final String label) throws SQLException {
+        return getDate(indexOf(label));
+    }
+
+    /**
+     * Copies the row into a new map keyed by the lower case column labels, like the ones returned
+     * by {@link DotConnect#loadObjectResults()} but without the {@code rownumber} and
+     * {@code oddoreven} entries.
+     */
+    public Map<String, Object> toMap() throws SQLException {
+        final Map<String, Object> map = new HashMap<String, Object>(labels.length * 2);
+        for (int i = 0; i < labels.length; i++) {
+            map.put(labels[i], getObject(i + 1));
+        }
+        return map;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.dotmarketing.common.db;
+
+import java.sql.SQLException;
+
+/**
+ * Receives the rows streamed by {@link DotConnect#forEachRow(RowHandler)}, one at a time.
+ *
+ * @author dotCMS
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * Handles the current row. The row instance is reused for the next one.
+     *
+     * @return false to stop reading rows
+     */
+    boolean handle(Row row) throws SQLException;
+
+}
@@ -0,0 +1,72 @@
+package com.dotmarketing.common.db;
+
+import static com.dotcms.util.CloseUtils.closeQuietly;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.dotmarketing.exception.DotRuntimeException;
+
+/**
+ * Lazily iterates the rows of a query opened by {@link DotConnect#iterateRows()}. Every call to
+ * {@link #next()} returns the same {@link Row} moved to the next row. The statement is closed when
+ * the last row is read, but callers that may stop before have to close the iterator, ideally with
+ * a try-with-resources block.
+ *
+ * @author dotCMS
+ */
+public final class RowIterator implements Iterator<Row>, AutoCloseable {
+
+    private final Statement statement;
+    private final ResultSet rs;
+    private final Row row;
+    private final int limit;
+
+    private Boolean hasNext;
+    private boolean closed;
+
+    RowIterator(final Statement statement, final ResultSet rs, final int limit) throws SQLException {
+        this.statement = statement;
+        this.rs = rs;
+        this.row = new Row(rs);
+        this.limit = limit;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (hasNext == null) {
+            try {
+                hasNext = !closed && (limit <= 0 || row.getRowNumber() + 1 < limit) && rs.next();
+            } catch (SQLException e) {
+                close();
+                throw new DotRuntimeException(e.getMessage(), e);
+            }
+            if (!hasNext) {
+                close();
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    public Row next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNext = null;
+        row.next();
+        return row;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            closeQuietly(rs, statement);
+        }
+    }
+
+}
@@ -0,0 +1,314 @@
+package com.dotmarketing.common.db;
+
+import static com.dotcms.util.CloseUtils.closeQuietly;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
+
+/**
+ * Keeps the prepared statements used by {@link DotConnect} so hot queries are not prepared again
+ * every time they run on the same connection, e.g. in the loops of an import or a reindex batch.
+ * Statements are prepared on the connection handed out by the pool, never on the physical
+ * connection behind it, and are cached for as long as that connection is borrowed:
+ * {@link com.dotmarketing.db.DbConnectionFactory} closes them before giving the connection back.
+ *
+ * A statement is checked out by {@link #prepare} and has to be given back with {@link #release}
+ * once its results are read. Each connection keeps up to {@code CACHE_PREPARED_STATEMENTS_SIZE}
+ * statements and up to {@code CACHE_PREPARED_STATEMENTS_CONNECTIONS} connections are tracked, the
+ * least recently used being evicted. A statement that is evicted, invalidated or dropped with its
+ * connection while checked out is only closed when it is released, so eviction never closes a
+ * statement that is being executed. A statement that fails is discarded so it is prepared again.
+ *
+ * Caching is off unless {@code CACHE_PREPARED_STATEMENTS} is set.
+ *
+ * @author dotCMS
+ */
+public final class StatementCache {
+
+    private static final StatementCache instance = new StatementCache(
+            Config.getIntProperty("CACHE_PREPARED_STATEMENTS_SIZE", 50),
+            Config.getIntProperty("CACHE_PREPARED_STATEMENTS_CONNECTIONS", 200));
+
+    private static final int SWEEP_INTERVAL = 1000;
+
+    private final int statementsPerConnection;
+    private final int maxConnections;
+
+    private final Map<Connection, ConnectionStatements> connections;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public static StatementCache getInstance() {
+        return instance;
+    }
+
+    @VisibleForTesting
+    StatementCache(final int statementsPerConnection, final int maxConnections) {
+        this.statementsPerConnection = statementsPerConnection;
+        this.maxConnections = maxConnections;
+        this.connections = new LinkedHashMap<Connection, ConnectionStatements>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Connection, ConnectionStatements> eldest) {
+                if (size() > StatementCache.this.maxConnections) {
+                    eldest.getValue().closeAll();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Checks out the cached statement for the SQL on the given connection, preparing and caching
+     * it if there is none. Stored procedure calls are prepared as callable statements. If the
+     * cached statement is already checked out, a statement that is not cached is returned.
+     */
+    PreparedStatement prepare(final Connection conn, final String sql, final boolean callable) throws SQLException {
+        final ConnectionStatements statements = statementsFor(conn);
+        final PreparedStatement cached = statements.checkOut(sql);
+        if (cached != null) {
+            hits.incrementAndGet();
+            cached.clearParameters();
+            return cached;
+        }
+        misses.incrementAndGet();
+        final PreparedStatement statement = callable ? conn.prepareCall(sql) : conn.prepareStatement(sql);
+        if (!statements.add(sql, statement)) {
+            Logger.debug(this, "Statement already in use, not caching: " + sql);
+        }
+        return statement;
+    }
+
+    /**
+     * Gives back a statement returned by {@link #prepare}. A statement that failed is discarded,
+     * it may have been invalidated by a change in the schema or the connection may be broken.
+     * Statements that are not, or no longer, cached are closed.
+     */
+    void release(final Connection conn, final String sql, final PreparedStatement statement, final boolean failed) {
+        final ConnectionStatements statements;
+        synchronized (connections) {
+            statements = connections.get(conn);
+        }
+        if (statements == null || !statements.checkIn(sql, statement, failed)) {
+            closeQuietly(statement);
+        }
+        if (failed) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Closes the statements cached for the connection, to be called before it goes back to the pool.
+     */
+    public void closeStatements(final Connection conn) {
+        final ConnectionStatements statements;
+        synchronized (connections) {
+            statements = connections.remove(conn);
+        }
+        if (statements != null) {
+            statements.closeAll();
+        }
+    }
+
+    private ConnectionStatements statementsFor(final Connection conn) throws SQLException {
+        if ((hits.get() + misses.get()) % SWEEP_INTERVAL == 0) {
+            sweep();
+        }
+        ConnectionStatements statements;
+        ConnectionStatements stale = null;
+        synchronized (connections) {
+            statements = connections.get(conn);
+            if (statements != null && conn.isClosed()) {
+                connections.remove(conn);
+                stale = statements;
+                statements = null;
+            }
+            if (statements == null) {
+                statements = new ConnectionStatements();
+                connections.put(conn, statements);
+            }
+        }
+        if (stale != null) {
+            stale.closeAll();
+        }
+        return statements;
+    }
+
+    /**
+     * Drops the statements of the connections that were closed without going through
+     * {@link #closeStatements(Connection)}.
+     */
+    private void sweep() {
+        final List<ConnectionStatements> closed = new ArrayList<ConnectionStatements>();
+        synchronized (connections) {
+            final Iterator<Map.Entry<Connection, ConnectionStatements>> entries = connections.entrySet().iterator();
+            while (entries.hasNext()) {
+                final Map.Entry<Connection, ConnectionStatements> entry = entries.next();
+                boolean isClosed;
+                try {
+                    isClosed = entry.getKey().isClosed();
+                } catch (SQLException e) {
+                    isClosed = true;
+                }
+                if (isClosed) {
+                    closed.add(entry.getValue());
+                    entries.remove();
+                }
+            }
+        }
+        for (ConnectionStatements statements : closed) {
+            statements.closeAll();
+        }
+        if (!closed.isEmpty()) {
+            Logger.debug(this, "Dropped the cached statements of " + closed.size() + " closed connections");
+        }
+    }
+
+    /**
+     * Closes every cached statement.
+     */
+    public void clear() {
+        final List<ConnectionStatements> all;
+        synchronized (connections) {
+            all = new ArrayList<ConnectionStatements>(connections.values());
+            connections.clear();
+        }
+        for (ConnectionStatements statements : all) {
+            statements.closeAll();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        final long total = hits.get() + misses.get();
+        return total > 0 ? (double) hits.get() / total : 0;
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public int getConnectionCount() {
+        synchronized (connections) {
+            return connections.size();
+        }
+    }
+
+    /**
+     * A cached statement and whether it is checked out.
+     */
+    private static final class Entry {
+
+        private final PreparedStatement statement;
+        private boolean inUse;
+
+        private Entry(final PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * The LRU of statements of a single connection.
+     */
+    private final class ConnectionStatements {
+
+        private final LinkedHashMap<String, Entry> statements = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                if (size() > statementsPerConnection) {
+                    if (!eldest.getValue().inUse) {
+                        // otherwise it is closed when released
+                        closeQuietly(eldest.getValue().statement);
+                    }
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        synchronized PreparedStatement checkOut(final String sql) {
+            final Entry entry = statements.get(sql);
+            if (entry == null || entry.inUse) {
+                return null;
+            }
+            entry.inUse = true;
+            return entry.statement;
+        }
+
+        /**
+         * Caches a new statement, checked out. Returns false if the SQL has a statement in use.
+         */
+        synchronized boolean add(final String sql, final PreparedStatement statement) {
+            final Entry current = statements.get(sql);
+            if (current != null && current.inUse) {
+                return false;
+            }
+            final Entry entry = new Entry(statement);
+            entry.inUse = true;
+            statements.put(sql, entry);
+            if (current != null) {
+                closeQuietly(current.statement);
+            }
+            return true;
+        }
+
+        /**
+         * Returns false if the statement is not cached anymore, so the caller has to close it.
+         */
+        synchronized boolean checkIn(final String sql, final PreparedStatement statement, final boolean failed) {
+            final Entry entry = statements.get(sql);
+            if (entry == null || entry.statement != statement) {
+                return false;
+            }
+            if (failed) {
+                statements.remove(sql);
+                return false;
+            }
+            entry.inUse = false;
+            return true;
+        }
+
+        synchronized void closeAll() {
+            for (Entry entry : statements.values()) {
+                if (!entry.inUse) {
+                    // otherwise it is closed when released
+                    closeQuietly(entry.statement);
+                }
+            }
+            statements.clear();
+        }
+    }
+
+}
@@ -679,16 +679,16 @@ public class ReindexThread extends Thread {
         DotConnect dc = new DotConnect();
         dc.setSQL(sql);
         dc.addParam(idx.getIdentToIndex());
-        List<Map<String,String>> ret = dc.loadResults();
-        List<String> inodes = new ArrayList<String>(); 
-        for(Map<String,String> m : ret) {
-        	String workingInode = m.get("working_inode");
-        	String liveInode = m.get("live_inode");
+        final List<String> inodes = new ArrayList<String>();
+        dc.forEachRow(row -> {
+        	String workingInode = row.getString(1);
+        	String liveInode = row.getString(2);
         	inodes.add(workingInode);
         	if(UtilMethods.isSet(liveInode) && !workingInode.equals(liveInode)){
         		inodes.add(liveInode);
         	}
-        }
+        	return true;
+        });
         for(String inode : inodes) {
             Contentlet con = FactoryLocator.getContentletFactory().convertFatContentletToContentlet(
                     (com.dotmarketing.portlets.contentlet.business.Contentlet)
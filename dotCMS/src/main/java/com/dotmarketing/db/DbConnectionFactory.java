@@ -1,6 +1,7 @@
 
 package com.dotmarketing.db;
 
+import com.dotmarketing.common.db.StatementCache;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotRuntimeException;
 import com.dotmarketing.util.Config;
@@ -233,7 +234,9 @@ public class DbConnectionFactory {
                 String ds = entry.getKey();
                 Connection cn = entry.getValue();
                 if (cn != null) {
+                    flushPendingWrites(cn);
                     try {
+                        StatementCache.getInstance().closeStatements(cn);
                         cn.close();
                     } catch (Exception e) {
                         Logger.warn(DbConnectionFactory.class,
@@ -272,6 +275,8 @@ public class DbConnectionFactory {
                 Logger.debug(DbConnectionFactory.class,
                     "Closing connection for " + Thread.currentThread().getId() + "-" + ds +
                         "\n" + UtilMethods.getDotCMSStackTrace());
+                flushPendingWrites(cn);
+                StatementCache.getInstance().closeStatements(cn);
                 cn.close();
                 connectionsList.remove(ds);
                 Logger.debug(DbConnectionFactory.class,
@@ -286,6 +291,18 @@ public class DbConnectionFactory {
 
     }
 
+    /**
+     * Writes the writes buffered for the connection before it is closed, so they share the fate of
+     * the rest of its transaction.
+     */
+    private static void flushPendingWrites(final Connection cn) {
+        try {
+            WriteBehindBuffer.flush(cn);
+        } catch (Exception e) {
+            Logger.error(DbConnectionFactory.class, "Unable to write the pending writes of the connection: " + e.getMessage(), e);
+        }
+    }
+
     public static String getDBType() {
 
 		/*
@@ -401,6 +418,22 @@ public class DbConnectionFactory {
         return H2.equals(getDBType());
     }
 
+    /**
+     * Returns the type of the database in use, PostgreSQL if it is not known.
+     */
+    public static DataBaseType getDataBaseType() {
+        if (isOracle()) {
+            return DataBaseType.ORACLE;
+        } else if (isMsSql()) {
+            return DataBaseType.MSSQL;
+        } else if (isMySql()) {
+            return DataBaseType.MySQL;
+        } else if (isH2()) {
+            return DataBaseType.H2;
+        }
+        return DataBaseType.POSTGRES;
+    }
+
     public static int getDbVersion() {
         int version = 0;
         try {
@@ -488,6 +521,7 @@ public class DbConnectionFactory {
     public static void closeAndCommit() throws DotDataException {
         try {
             if (inTransaction()) {
+                HibernateUtil.runBeforeCommitListeners();
                 DbConnectionFactory.getConnection().commit();
             }
             closeConnection();
@@ -500,6 +534,8 @@ public class DbConnectionFactory {
 
     public static void rollbackTransaction() throws DotDataException {
         boolean inTransaction = inTransaction();
+        HibernateUtil.clearBeforeCommitListeners();
+        WriteBehindBuffer.discard();
         try {
             if (inTransaction) {
                 DbConnectionFactory.getConnection().rollback();
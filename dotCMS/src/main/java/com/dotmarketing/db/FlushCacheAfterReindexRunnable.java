@@ -0,0 +1,9 @@
+package com.dotmarketing.db;
+
+/**
+ * A commit listener that flushes a cache loaded from the index. It runs after the content of the
+ * transaction is indexed, so a read in between can't put the old values back in the cache.
+ */
+public abstract class FlushCacheAfterReindexRunnable extends FlushCacheRunnable {
+
+}
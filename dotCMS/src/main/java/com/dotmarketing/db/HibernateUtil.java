@@ -76,6 +76,12 @@ public class HibernateUtil {
 	    }
 	};
 
+	private static final ThreadLocal< Map<String,DotRunnable> > beforeCommitListeners=new ThreadLocal<Map<String,DotRunnable>>() {
+	    protected java.util.Map<String,DotRunnable> initialValue() {
+	        return new LinkedHashMap<String,DotRunnable>();
+	    }
+	};
+
 	private static final ThreadLocal< List<DotRunnable> > rollbackListeners=new ThreadLocal<List<DotRunnable>>() {
         protected java.util.List<DotRunnable> initialValue() {
             return new ArrayList<DotRunnable>();
@@ -719,6 +725,45 @@ public class HibernateUtil {
 	    }
 	}
 
+	/**
+	 * Registers a listener that runs right before the current transaction is committed, in the
+	 * same transaction, so whatever it writes is committed along with the rest of it. Only one
+	 * listener is kept per tag. If there is no transaction the listener runs right away.
+	 */
+	public static void addBeforeCommitListener(String tag, DotRunnable listener) throws DotHibernateException {
+	    try {
+	        if(!DbConnectionFactory.inTransaction())
+	            listener.run();
+	        else if(!beforeCommitListeners.get().containsKey(tag))
+	            beforeCommitListeners.get().put(tag,listener);
+	    }
+	    catch(Exception ex) {
+	        throw new DotHibernateException(ex.getMessage(),ex);
+	    }
+	}
+
+	/**
+	 * Runs the listeners registered with {@link #addBeforeCommitListener(String, DotRunnable)}.
+	 * Called by the methods that commit the transaction of the thread.
+	 */
+	static void runBeforeCommitListeners() {
+	    while(beforeCommitListeners.get().size()>0) {
+	        List<DotRunnable> listeners = new ArrayList<DotRunnable>(beforeCommitListeners.get().values());
+	        beforeCommitListeners.get().clear();
+	        for(DotRunnable listener : listeners) {
+	            listener.run();
+	        }
+	    }
+	}
+
+	public static boolean hasBeforeCommitListener(String tag) {
+	    return beforeCommitListeners.get().containsKey(tag);
+	}
+
+	static void clearBeforeCommitListeners() {
+	    beforeCommitListeners.get().clear();
+	}
+
 	public static void addRollbackListener(DotRunnable listener) throws DotHibernateException{
         try {
             if(getSession().connection().getAutoCommit())
@@ -736,6 +781,9 @@ public class HibernateUtil {
 		try{
 			// if there is nothing to close
 			if (sessionHolder.get() == null){
+				// the before commit listeners are cleared below, so the buffered writes join the
+				// transaction of the connection now, whoever commits it
+				WriteBehindBuffer.flush();
 				return;
 			}
 			Session session = getSession();
@@ -743,6 +791,7 @@ public class HibernateUtil {
 			if (session != null) {
 					session.flush();
 					if (!session.connection().getAutoCommit()) {
+						runBeforeCommitListeners();
 						Logger.debug(HibernateUtil.class, "Closing session. Commiting changes!");
 						session.connection().commit();
 						session.connection().setAutoCommit(true);
@@ -760,6 +809,7 @@ public class HibernateUtil {
 			throw new DotHibernateException("Unable to close Hibernate Session ", e);
 		}
 		finally {
+		    beforeCommitListeners.get().clear();
 		    commitListeners.get().clear();
 		    rollbackListeners.get().clear();
 		}
@@ -776,10 +826,14 @@ public class HibernateUtil {
 		
 		List<List<Contentlet>> listOfLists = new ArrayList<List<Contentlet>>();
 		int batchSize = Config.getIntProperty("INDEX_COMMIT_LISTENER_BATCH_SIZE", 50);
+		// the caches filled from the index are flushed once it has the content of the transaction
+		List<DotRunnable> afterReindex = new ArrayList<DotRunnable>();
 		
 		
 		for(DotRunnable runner : listeners){
-			if(runner instanceof ReindexRunnable){
+			if(runner instanceof FlushCacheAfterReindexRunnable){
+				afterReindex.add(runner);
+			} else if(runner instanceof ReindexRunnable){
 				ReindexRunnable rrunner = (ReindexRunnable) runner;
 				if(rrunner.getAction().equals(ReindexRunnable.Action.REMOVING)){
 					rrunner.run();
@@ -807,6 +861,10 @@ public class HibernateUtil {
 			new ReindexRunnable(batchList, ReindexRunnable.Action.ADDING, null, false) {}.run();
 		}
 		
+		for(DotRunnable runner : afterReindex){
+			runner.run();
+		}
+		
 
 	}
 	
@@ -825,6 +883,7 @@ public class HibernateUtil {
 		 */
 			getSession().connection().setAutoCommit(false);
 			rollbackListeners.get().clear();
+			beforeCommitListeners.get().clear();
 			commitListeners.get().clear();
 			Logger.debug(HibernateUtil.class, "Starting Transaction!");
 		}catch (Exception e) {
@@ -868,6 +927,8 @@ public class HibernateUtil {
 	}
 
 	public static void sessionCleanupAndRollback()  throws DotHibernateException{
+	    beforeCommitListeners.get().clear();
+	    WriteBehindBuffer.discard();
 	    commitListeners.get().clear();
 		Logger.debug(HibernateUtil.class, "sessionCleanupAndRollback");
 		Session session = getSession();
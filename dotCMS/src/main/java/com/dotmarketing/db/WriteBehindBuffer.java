@@ -0,0 +1,311 @@
+package com.dotmarketing.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotmarketing.common.db.DotConnect;
+import com.dotmarketing.common.db.Params;
+import com.dotmarketing.db.DbConnectionFactory.DataBaseType;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotHibernateException;
+import com.dotmarketing.exception.DotRuntimeException;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
+
+/**
+ * Collects the inserts and updates of a transaction into journal and audit tables and writes them
+ * right before the transaction is committed, grouped by statement: inserts become multi-row
+ * {@code INSERT ... VALUES} statements on the databases that support them and everything else runs
+ * as a JDBC batch. Bulk operations over thousands of items issue a handful of statements instead
+ * of one per item.
+ *
+ * The writes are part of the transaction, so they are committed or rolled back with it. Outside of
+ * a transaction they are executed right away. Statements are grouped in the order they were first
+ * added, so only writes that do not depend on each other should go through the buffer; writes
+ * given a key replace the pending write with the same key and statement, so repeated updates of
+ * the same row are written once.
+ *
+ * The buffer is written by the before commit listener of {@link HibernateUtil}, which runs when the
+ * transaction is committed by {@link HibernateUtil#closeSession()} or
+ * {@link DbConnectionFactory#closeAndCommit()}. Code that commits the connection of the thread by
+ * itself has to call {@link #flush(Connection)} first, and {@link #discard(Connection)} when it
+ * rolls it back. The pending writes are also written before the connection is closed, so they
+ * always end up in the transaction they were made in.
+ *
+ * Statements reading the tables written through the buffer are not checked: the methods that read
+ * them call {@link #flush()} first, so the transaction reads its own writes.
+ *
+ * @author dotCMS
+ */
+public final class WriteBehindBuffer {
+
+    private static final String LISTENER_TAG = "write-behind-buffer";
+
+    private static final boolean ENABLED = Config.getBooleanProperty("WRITE_BEHIND_BUFFER_ENABLED", true);
+    private static final int MAX_PENDING = Config.getIntProperty("WRITE_BEHIND_BUFFER_MAX_PENDING", 5000);
+    private static final int MAX_ROWS_PER_INSERT = Config.getIntProperty("WRITE_BEHIND_BUFFER_ROWS_PER_INSERT", 200);
+
+    private static final Pattern INSERT_VALUES =
+            Pattern.compile("(?is)^\\s*(insert\\s+into\\s+.+?\\bvalues)\\s*(\\(.*\\))\\s*$");
+
+    private static final ThreadLocal<WriteBehindBuffer> buffers = new ThreadLocal<WriteBehindBuffer>();
+
+    private final Connection connection;
+    private final DataBaseType dbType;
+    private final int maxPending;
+    private final int maxRowsPerInsert;
+    private final Map<String, Batch> batches = new LinkedHashMap<String, Batch>();
+    private final Map<String, String> keys = new HashMap<String, String>();
+    private int pending;
+
+    @VisibleForTesting
+    WriteBehindBuffer(final Connection connection, final DataBaseType dbType, final int maxPending,
+            final int maxRowsPerInsert) {
+        this.connection = connection;
+        this.dbType = dbType;
+        this.maxPending = maxPending;
+        this.maxRowsPerInsert = maxRowsPerInsert;
+    }
+
+    /**
+     * Adds a write to the transaction of the current thread.
+     */
+    public static void add(final String sql, final Object... params) throws DotDataException {
+        put(sql, null, params);
+    }
+
+    /**
+     * Adds a write to the transaction of the current thread, replacing the pending one with the
+     * same statement and key.
+     */
+    public static void put(final String sql, final String key, final Object... params) throws DotDataException {
+        if (!ENABLED || !DbConnectionFactory.inTransaction()) {
+            new DotConnect().executeUpdate(sql, params);
+            return;
+        }
+        current().append(sql, key, params);
+    }
+
+    /**
+     * Adds several rows of the same statement to the transaction of the current thread, or runs
+     * them as a batch right away if there is no transaction.
+     */
+    public static void addAll(final String sql, final Collection<Params> rows) throws DotDataException {
+        if (!ENABLED || !DbConnectionFactory.inTransaction()) {
+            new DotConnect().executeBatch(sql, rows);
+            return;
+        }
+        final WriteBehindBuffer buffer = current();
+        for (Params row : rows) {
+            final Object[] params = new Object[row.size()];
+            for (int i = 0; i < params.length; i++) {
+                params[i] = row.get(i);
+            }
+            buffer.append(sql, null, params);
+        }
+    }
+
+    /**
+     * Writes the pending writes of the current thread, to be called before reading a table that is
+     * written through the buffer.
+     */
+    public static void flush() throws DotDataException {
+        final WriteBehindBuffer buffer = buffers.get();
+        if (buffer != null) {
+            buffer.flushPending();
+        }
+    }
+
+    /**
+     * Writes the pending writes made on the connection, to be called right before committing it.
+     * Does nothing if the writes of the current thread were made on another connection.
+     */
+    public static void flush(final Connection connection) throws DotDataException {
+        final WriteBehindBuffer buffer = buffers.get();
+        if (buffer != null && buffer.connection == connection) {
+            buffer.flushPending();
+        }
+    }
+
+    /**
+     * Drops the pending writes made on the connection, to be called when it is rolled back.
+     */
+    public static void discard(final Connection connection) {
+        final WriteBehindBuffer buffer = buffers.get();
+        if (buffer != null && buffer.connection == connection) {
+            buffers.remove();
+        }
+    }
+
+    /**
+     * Drops the pending writes of the current thread, its transaction was rolled back.
+     */
+    public static void discard() {
+        buffers.remove();
+    }
+
+    private static WriteBehindBuffer current() throws DotDataException {
+        final Connection connection = DbConnectionFactory.getConnection();
+        WriteBehindBuffer buffer = buffers.get();
+        if (buffer != null && (buffer.connection != connection || !HibernateUtil.hasBeforeCommitListener(LISTENER_TAG))) {
+            // the connection it was written for was closed, or its transaction was rolled back
+            if (buffer.pending > 0) {
+                Logger.warn(WriteBehindBuffer.class, "Discarding " + buffer.pending
+                        + " pending writes of a connection that was committed or closed without writing them");
+            }
+            buffer = null;
+        }
+        if (buffer == null) {
+            buffer = new WriteBehindBuffer(connection, DbConnectionFactory.getDataBaseType(), MAX_PENDING,
+                    MAX_ROWS_PER_INSERT);
+            buffers.set(buffer);
+            try {
+                HibernateUtil.addBeforeCommitListener(LISTENER_TAG, new DotRunnable() {
+                    @Override
+                    public void run() {
+                        final WriteBehindBuffer toFlush = buffers.get();
+                        buffers.remove();
+                        if (toFlush != null) {
+                            try {
+                                toFlush.flushPending();
+                            } catch (DotDataException e) {
+                                throw new DotRuntimeException(e.getMessage(), e);
+                            }
+                        }
+                    }
+                });
+            } catch (DotHibernateException e) {
+                buffers.remove();
+                throw new DotDataException(e.getMessage(), e);
+            }
+        }
+        return buffer;
+    }
+
+    @VisibleForTesting
+    void append(final String sql, final String key, final Object[] params) throws DotDataException {
+        if (key != null) {
+            final String previousSql = keys.get(key);
+            if (previousSql != null && !previousSql.equals(sql)) {
+                // keep the writes of the same key in order
+                flushPending();
+            }
+            keys.put(key, sql);
+        }
+        Batch batch = batches.get(sql);
+        if (batch == null) {
+            batch = new Batch(sql);
+            batches.put(sql, batch);
+        }
+        if (batch.add(key, params)) {
+            pending++;
+        }
+        if (pending >= maxPending) {
+            flushPending();
+        }
+    }
+
+    @VisibleForTesting
+    int getPending() {
+        return pending;
+    }
+
+    @VisibleForTesting
+    void flushPending() throws DotDataException {
+        if (pending == 0) {
+            return;
+        }
+        final List<Batch> toRun = new ArrayList<Batch>(batches.values());
+        batches.clear();
+        keys.clear();
+        pending = 0;
+        try {
+            if (connection.isClosed()) {
+                throw new DotDataException("The connection of the transaction is closed, the pending writes are lost");
+            }
+        } catch (SQLException e) {
+            throw new DotDataException(e.getMessage(), e);
+        }
+        for (Batch batch : toRun) {
+            batch.execute();
+        }
+    }
+
+    private boolean supportsMultiRowInsert() {
+        return dbType == DataBaseType.POSTGRES || dbType == DataBaseType.MySQL
+                || dbType == DataBaseType.H2 || dbType == DataBaseType.MSSQL;
+    }
+
+    /**
+     * The pending rows of a statement.
+     */
+    private final class Batch {
+
+        private final String sql;
+        private final Map<Object, Object[]> rows = new LinkedHashMap<Object, Object[]>();
+
+        private Batch(final String sql) {
+            this.sql = sql;
+        }
+
+        /**
+         * @return whether the row was added instead of replacing a pending one
+         */
+        private boolean add(final String key, final Object[] params) {
+            return rows.put(key != null ? key : new Object(), params) == null;
+        }
+
+        private void execute() throws DotDataException {
+            final Matcher insert = INSERT_VALUES.matcher(sql);
+            if (rows.size() > 1 && insert.matches() && supportsMultiRowInsert()) {
+                executeMultiRowInsert(insert.group(1), insert.group(2));
+            } else if (rows.size() == 1) {
+                new DotConnect().executeUpdate(connection, sql, rows.values().iterator().next());
+            } else {
+                final List<Params> batch = new ArrayList<Params>(rows.size());
+                for (Object[] params : rows.values()) {
+                    batch.add(new Params(params));
+                }
+                new DotConnect().executeBatch(connection, sql, batch);
+            }
+        }
+
+        private void executeMultiRowInsert(final String head, final String values) throws DotDataException {
+            final List<Object[]> all = new ArrayList<Object[]>(rows.values());
+            final int paramsPerRow = Math.max(1, all.get(0).length);
+            int rowsPerInsert = maxRowsPerInsert;
+            if (dbType == DataBaseType.MSSQL) {
+                // MSSQL takes up to 1000 rows and 2100 parameters per statement
+                rowsPerInsert = Math.min(Math.min(rowsPerInsert, 1000), 2000 / paramsPerRow);
+            }
+            rowsPerInsert = Math.max(1, rowsPerInsert);
+
+            for (int from = 0; from < all.size(); from += rowsPerInsert) {
+                final int to = Math.min(all.size(), from + rowsPerInsert);
+                final StringBuilder statement = new StringBuilder(head.length() + (values.length() + 1) * (to - from));
+                statement.append(head).append(' ');
+                final List<Object> params = new ArrayList<Object>(paramsPerRow * (to - from));
+                for (int i = from; i < to; i++) {
+                    if (i > from) {
+                        statement.append(',');
+                    }
+                    statement.append(values);
+                    for (Object param : all.get(i)) {
+                        params.add(param);
+                    }
+                }
+                new DotConnect().executeUpdate(connection, statement.toString(), params.toArray());
+            }
+        }
+    }
+
+}
@@ -24,7 +24,10 @@ import com.dotmarketing.business.DotStateException;
 import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotHibernateException;
+import com.dotmarketing.exception.DotRuntimeException;
 import com.dotmarketing.listeners.ClickstreamListener;
+import com.dotmarketing.loggers.AsyncClickstreamLogger;
+import com.dotmarketing.loggers.ClickstreamLogger;
 import com.dotmarketing.loggers.DatabaseClickstreamLogger;
 import com.dotmarketing.util.BotChecker;
 import com.dotmarketing.util.Config;
@@ -190,7 +193,8 @@ public class ClickstreamFactory {
 	}
 
 	/**
-	 * This method forces a clickstream save
+	 * This method forces a clickstream save. Unless CLICKSTREAM_ASYNC_WRITES is false the
+	 * clickstream is queued and saved by a background thread, see {@link AsyncClickstreamLogger}
 	 *
 	 * @param stream
 	 */
@@ -199,7 +203,8 @@ public class ClickstreamFactory {
 			
 			int minToLog = Config.getIntProperty("MIN_CLICKSTREAM_REQUESTS_TO_SAVE", 2);
 			
-			DatabaseClickstreamLogger dblogger = new DatabaseClickstreamLogger();
+			ClickstreamLogger dblogger = Config.getBooleanProperty("CLICKSTREAM_ASYNC_WRITES", true)
+					? AsyncClickstreamLogger.getInstance() : new DatabaseClickstreamLogger();
 			try {
 				if (stream != null 
 						&& stream.getClickstreamRequests() != null 
@@ -218,6 +223,7 @@ public class ClickstreamFactory {
 			HibernateUtil.saveOrUpdate(clickstream);
 		} catch (DotHibernateException e) {
 			Logger.error(ClickstreamFactory.class, "Save Failed:" + e, e);
+			throw new DotRuntimeException(e.getMessage(), e);
 		}
 	}
 
@@ -337,6 +343,7 @@ public class ClickstreamFactory {
 	    	HibernateUtil.saveOrUpdate(clickstream404);
 		} catch (DotHibernateException e) {
 			Logger.error(ClickstreamFactory.class, "save: failed", e);
+			throw new DotRuntimeException(e.getMessage(), e);
 		}
 	}
 
@@ -13,15 +13,20 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.dotmarketing.util.Logger;
 
+/**
+ * Compresses the responses for the clients that accept gzip, streaming them through a
+ * {@link GZIPResponseStream}.
+ */
 public class GZIPFilter implements Filter {
 
   public void doFilter(ServletRequest req, ServletResponse res,FilterChain chain) throws IOException, ServletException {
     if (req instanceof HttpServletRequest) {
       HttpServletRequest request = (HttpServletRequest) req;
       HttpServletResponse response = (HttpServletResponse) res;
-      String ae = request.getHeader("accept-encoding");
-      if (ae != null && ae.indexOf("gzip") != -1) {
+      // ranges are served from the file as it is
+      if (GZIPUtil.acceptsGzip(request) && request.getHeader("range") == null) {
         Logger.debug(this, "GZIP supported, compressing.");
+        response.addHeader("Vary", "Accept-Encoding");
         GZIPResponseWrapper wrappedResponse = new GZIPResponseWrapper(response);
         chain.doFilter(req, wrappedResponse);
         wrappedResponse.finishResponse();
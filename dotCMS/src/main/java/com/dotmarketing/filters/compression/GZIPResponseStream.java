@@ -1,7 +1,7 @@
 package com.dotmarketing.filters.compression;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.ServletOutputStream;
@@ -10,43 +10,72 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.dotmarketing.util.Logger;
 
+/**
+ * Compresses the response as it is written. The first {@link GZIPUtil#getMinSize()} bytes are held
+ * until it is known whether the response is worth compressing: responses smaller than that, or of
+ * a content type that is already compressed, are written as they are. After that the bytes go
+ * through a {@link GZIPOutputStream} of {@link GZIPUtil#getBufferSize()} bytes straight to the
+ * client, so the response is never held in memory as a whole.
+ */
 public class GZIPResponseStream extends ServletOutputStream {
-  protected ByteArrayOutputStream baos = null;
-  protected GZIPOutputStream gzipstream = null;
+  protected GZIPResponseWrapper wrapper = null;
   protected boolean closed = false;
   protected HttpServletResponse response = null;
   protected ServletOutputStream output = null;
 
-  public GZIPResponseStream(HttpServletResponse response) throws IOException {
+  private final byte[] pending;
+  private int pendingCount = 0;
+  private OutputStream target = null;
+  private boolean compressing = false;
+
+  public GZIPResponseStream(GZIPResponseWrapper wrapper, HttpServletResponse response) throws IOException {
     super();
     closed = false;
+    this.wrapper = wrapper;
     this.response = response;
     this.output = response.getOutputStream();
-    baos = new ByteArrayOutputStream();
-    gzipstream = new GZIPOutputStream(baos);
+    this.pending = new byte[Math.max(0, GZIPUtil.getMinSize())];
   }
 
   public boolean isReady() {
-    return false;
+    return output.isReady();
   }
 
   public void setWriteListener(WriteListener writeListener) {
+    output.setWriteListener(writeListener);
+  }
 
+  /**
+   * Decides whether the response is compressed and writes what was held so far.
+   */
+  private void start(boolean compress) throws IOException {
+    if (compress && wrapper.isCompressible()) {
+      Logger.debug(this, "compressing response");
+      response.setHeader("Content-Encoding", "gzip");
+      target = new GZIPOutputStream(output, GZIPUtil.getBufferSize(), true);
+      compressing = true;
+    } else {
+      wrapper.writeContentLength();
+      target = output;
+    }
+    if (pendingCount > 0) {
+      target.write(pending, 0, pendingCount);
+      pendingCount = 0;
+    }
   }
 
   public void close() throws IOException {
     if (closed) {
       throw new IOException("This output stream has already been closed");
     }
-    gzipstream.finish();
-
-    byte[] bytes = baos.toByteArray();
-
-
-    response.addHeader("Content-Length", 
-                       Integer.toString(bytes.length)); 
-    response.addHeader("Content-Encoding", "gzip");
-    output.write(bytes);
+    if (target == null) {
+      // smaller than the minimum, not worth compressing
+      wrapper.setContentLengthLong(pendingCount);
+      start(false);
+    }
+    if (compressing) {
+      ((GZIPOutputStream) target).finish();
+    }
     output.flush();
     output.close();
     closed = true;
@@ -56,14 +85,24 @@ public class GZIPResponseStream extends ServletOutputStream {
     if (closed) {
       throw new IOException("Cannot flush a closed output stream");
     }
-    gzipstream.flush();
+    // until we know whether it gets compressed nothing is sent, there is at most the minimum size held
+    if (target != null) {
+      target.flush();
+    }
   }
 
   public void write(int b) throws IOException {
     if (closed) {
       throw new IOException("Cannot write to a closed output stream");
     }
-    gzipstream.write((byte)b);
+    if (target == null && pendingCount < pending.length) {
+      pending[pendingCount++] = (byte) b;
+      return;
+    }
+    if (target == null) {
+      start(true);
+    }
+    target.write(b);
   }
 
   public void write(byte b[]) throws IOException {
@@ -71,20 +110,29 @@ public class GZIPResponseStream extends ServletOutputStream {
   }
 
   public void write(byte b[], int off, int len) throws IOException {
-    Logger.debug(this, "writing bytes to gzip stream gzip");
     if (closed) {
       throw new IOException("Cannot write to a closed output stream");
     }
-    gzipstream.write(b, off, len);
+    if (target == null && pendingCount + len <= pending.length) {
+      System.arraycopy(b, off, pending, pendingCount, len);
+      pendingCount += len;
+      return;
+    }
+    if (target == null) {
+      start(true);
+    }
+    target.write(b, off, len);
   }
 
   public boolean closed() {
     return (this.closed);
   }
-  
+
+  /**
+   * Drops what was written and not sent yet.
+   */
   public void reset() {
+    pendingCount = 0;
   }
 
-
-
-}
\ No newline at end of file
+}
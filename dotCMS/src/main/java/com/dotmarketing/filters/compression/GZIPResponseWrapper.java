@@ -9,17 +9,40 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 
 public class GZIPResponseWrapper extends HttpServletResponseWrapper {
+  private static final String CONTENT_LENGTH = "Content-Length";
+  private static final String CONTENT_ENCODING = "Content-Encoding";
+
   protected HttpServletResponse origResponse = null;
-  protected ServletOutputStream stream = null;
+  protected GZIPResponseStream stream = null;
   protected PrintWriter writer = null;
 
+  // held until we know whether the response is compressed, when it no longer applies
+  private long contentLength = -1;
+  private boolean encoded = false;
+
   public GZIPResponseWrapper(HttpServletResponse response) {
     super(response);
     origResponse = response;
   }
 
   public ServletOutputStream createOutputStream() throws IOException {
-    return (new GZIPResponseStream(origResponse));
+    return (new GZIPResponseStream(this, origResponse));
+  }
+
+  /**
+   * @return false when the response is already encoded or of a type that is already compressed
+   */
+  boolean isCompressible() {
+    return !encoded && GZIPUtil.isCompressible(getContentType());
+  }
+
+  /**
+   * Sends the length set by the servlet, for the responses that are not compressed.
+   */
+  void writeContentLength() {
+    if (contentLength >= 0 && !origResponse.isCommitted()) {
+      origResponse.setHeader(CONTENT_LENGTH, String.valueOf(contentLength));
+    }
   }
 
   public void finishResponse() {
@@ -35,7 +58,28 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
   }
 
   public void flushBuffer() throws IOException {
-    stream.flush();
+    if (writer != null) {
+      writer.flush();
+    }
+    if (stream != null) {
+      stream.flush();
+    }
+  }
+
+  public void reset() {
+    super.reset();
+    contentLength = -1;
+    encoded = false;
+    if (stream != null) {
+      stream.reset();
+    }
+  }
+
+  public void resetBuffer() {
+    super.resetBuffer();
+    if (stream != null) {
+      stream.reset();
+    }
   }
 
   public ServletOutputStream getOutputStream() throws IOException {
@@ -44,7 +88,7 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
     }
 
     if (stream == null)
-      stream = createOutputStream();
+      stream = (GZIPResponseStream) createOutputStream();
     return (stream);
   }
 
@@ -57,10 +101,54 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
       throw new IllegalStateException("getOutputStream() has already been called!");
     }
 
-   stream = createOutputStream();
+   stream = (GZIPResponseStream) createOutputStream();
    writer = new PrintWriter(new OutputStreamWriter(stream, "UTF-8"));
    return (writer);
   }
 
-  public void setContentLength(int length) {}
+  public void setContentLength(int length) {
+    contentLength = length;
+  }
+
+  public void setContentLengthLong(long length) {
+    contentLength = length;
+  }
+
+  public void setHeader(String name, String value) {
+    if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+      setContentLengthHeader(value);
+      return;
+    }
+    if (CONTENT_ENCODING.equalsIgnoreCase(name)) {
+      encoded = true;
+    }
+    super.setHeader(name, value);
+  }
+
+  public void addHeader(String name, String value) {
+    if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+      setContentLengthHeader(value);
+      return;
+    }
+    if (CONTENT_ENCODING.equalsIgnoreCase(name)) {
+      encoded = true;
+    }
+    super.addHeader(name, value);
+  }
+
+  public void setIntHeader(String name, int value) {
+    if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+      contentLength = value;
+      return;
+    }
+    super.setIntHeader(name, value);
+  }
+
+  private void setContentLengthHeader(String value) {
+    try {
+      contentLength = Long.parseLong(value.trim());
+    } catch (NumberFormatException | NullPointerException e) {
+      contentLength = -1;
+    }
+  }
 }
@@ -0,0 +1,147 @@
+package com.dotmarketing.filters.compression;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UtilMethods;
+import com.dotmarketing.util.WebKeys;
+
+/**
+ * Decides what gets compressed, for {@link GZIPFilter} and for the file assets served already
+ * compressed, and keeps the compressed copies of those files.
+ *
+ * GZIP_MIN_SIZE: responses smaller than this many bytes are sent as they are (default 1024)
+ * GZIP_BUFFER_SIZE: bytes compressed before they are written to the client (default 8192)
+ * GZIP_EXCLUDED_CONTENT_TYPES: content types already compressed, matched by prefix
+ * GZIP_PRECOMPRESS_FILE_ASSETS: keep a compressed copy of text file assets (default true)
+ *
+ * @author dotCMS
+ */
+public class GZIPUtil {
+
+  private static final String[] DEFAULT_EXCLUDED = {"image/", "video/", "audio/", "application/zip",
+      "application/gzip", "application/x-gzip", "application/x-compress", "application/x-rar",
+      "application/x-7z", "application/pdf", "application/octet-stream", "font/woff"};
+
+  private static final String[] TEXT_TYPES = {"text/", "application/javascript",
+      "application/x-javascript", "application/json", "application/xml", "application/rss+xml",
+      "application/atom+xml", "image/svg+xml"};
+
+  private static final String GZ_EXTENSION = ".gz";
+
+  private GZIPUtil() {
+  }
+
+  public static int getMinSize() {
+    return Config.getIntProperty("GZIP_MIN_SIZE", 1024);
+  }
+
+  public static int getBufferSize() {
+    return Math.max(512, Config.getIntProperty("GZIP_BUFFER_SIZE", 8192));
+  }
+
+  public static boolean acceptsGzip(final HttpServletRequest request) {
+    final String ae = request.getHeader("accept-encoding");
+    return ae != null && ae.indexOf("gzip") != -1;
+  }
+
+  /**
+   * @return false for the content types that are already compressed, so compressing them again
+   *         only costs time
+   */
+  public static boolean isCompressible(final String contentType) {
+    if (!UtilMethods.isSet(contentType)) {
+      return true;
+    }
+    final String type = contentType.toLowerCase();
+    if (type.startsWith("image/svg")) {
+      return true;
+    }
+    String[] excluded = Config.getStringArrayProperty("GZIP_EXCLUDED_CONTENT_TYPES");
+    if (excluded == null || excluded.length == 0) {
+      excluded = DEFAULT_EXCLUDED;
+    }
+    for (String prefix : excluded) {
+      if (type.startsWith(prefix.trim().toLowerCase())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return whether a file with the mime type is worth keeping compressed: CSS, javascript and the
+   *         rest of the text files
+   */
+  public static boolean isPrecompressible(final String mimeType, final long length) {
+    if (!Config.getBooleanProperty("GZIP_PRECOMPRESS_FILE_ASSETS", true) || mimeType == null
+        || length < getMinSize()) {
+      return false;
+    }
+    final String type = mimeType.toLowerCase();
+    for (String prefix : TEXT_TYPES) {
+      if (type.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the ETag of the compressed copy of a file, which has to differ from the one of the file
+   *         itself so caches and clients never take one for the other
+   */
+  public static String getPrecompressedETag(final String eTag) {
+    return eTag + "-gzip";
+  }
+
+  /**
+   * Returns the compressed copy of the binary of a content, creating it the first time. The copies
+   * are kept in dotGenerated with the rest of the files generated from the binaries, so they are
+   * removed with them.
+   *
+   * @return the compressed file, or null if it could not be created
+   */
+  public static File getPrecompressedFile(final File source, final String inode, final String fieldVarName) {
+    final File gz = new File(APILocator.getFileAssetAPI().getRealAssetsRootPath() + File.separator
+        + "dotGenerated" + File.separator + inode.charAt(0) + File.separator + inode.charAt(1)
+        + File.separator + WebKeys.GENERATED_FILE + inode + "_" + fieldVarName + GZ_EXTENSION);
+    if (gz.exists() && gz.lastModified() >= source.lastModified()) {
+      return gz;
+    }
+
+    Path tmp = null;
+    try {
+      gz.getParentFile().mkdirs();
+      tmp = Files.createTempFile(gz.getParentFile().toPath(), gz.getName(), ".tmp");
+      try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), getBufferSize())) {
+        Files.copy(source.toPath(), out);
+      }
+      Files.move(tmp, gz.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      return gz;
+    } catch (IOException e) {
+      Logger.warn(GZIPUtil.class, "Unable to compress " + source + ": " + e.getMessage());
+      return null;
+    } finally {
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+          Logger.debug(GZIPUtil.class, e.getMessage());
+        }
+      }
+    }
+  }
+
+}
@@ -11,6 +11,7 @@ import com.dotmarketing.business.APILocator;
 import com.dotmarketing.business.CacheLocator;
 import com.dotmarketing.db.DbConnectionFactory;
 import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.db.WriteBehindBuffer;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotRuntimeException;
 import com.dotmarketing.exception.DotSecurityException;
@@ -141,8 +142,10 @@ public class FixTask00090RecreateMissingFoldersInParentPath implements FixTask {
 			f.setIdentifier(identifier.getId());
 			APILocator.getFolderAPI().save(f, APILocator.getUserAPI().getSystemUser(), false);
 
+			WriteBehindBuffer.flush(DbConnectionFactory.getConnection());
 			DbConnectionFactory.getConnection().commit();
 		} catch (Exception e) {
+			WriteBehindBuffer.discard(DbConnectionFactory.getConnection());
 			DbConnectionFactory.getConnection().rollback();
 			throw e;
 		} finally {
@@ -19,11 +19,13 @@ import org.quartz.JobDetail;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 
+import com.dotcms.api.system.event.SystemEventsFactory;
 import com.dotcms.enterprise.DashboardProxy;
 import com.dotcms.enterprise.linkchecker.LinkCheckerJob;
 import com.dotcms.job.system.event.DeleteOldSystemEventsJob;
 import com.dotcms.job.system.event.SystemEventsJob;
 import com.dotcms.publisher.business.PublisherQueueJob;
+import com.dotcms.rest.api.v1.system.websocket.SystemEventsWebSocketListener;
 import com.dotcms.workflow.EscalationThread;
 import com.dotmarketing.business.cluster.mbeans.Cluster;
 import com.dotmarketing.quartz.QuartzUtils;
@@ -871,6 +873,13 @@ public class DotInitScheduler {
 		if (Config.getBooleanProperty("ENABLE_SYSTEM_EVENTS", true)) {
 			try {
 
+				if (SystemEventsFactory.getInstance().isPushEnabled()) {
+
+					// events are pushed by the node that creates them, no need to poll the table
+					SystemEventsFactory.getInstance().getSystemEventBus().subscribe(new SystemEventsWebSocketListener());
+					return;
+				}
+
 				final int initialDelay = Config.getIntProperty("SYSTEM_EVENTS_INITIAL_DELAY", 0);
 				final int delaySeconds = Config.getIntProperty("SYSTEM_EVENTS_DELAY_SECONDS", 5); // runs every 5 seconds.
 				getScheduledThreadPoolExecutor().scheduleWithFixedDelay(new SystemEventsJob(), initialDelay, delaySeconds, TimeUnit.SECONDS);
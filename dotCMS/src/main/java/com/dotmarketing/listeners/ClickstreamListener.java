@@ -14,6 +14,7 @@ import com.dotmarketing.beans.Clickstream;
 import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotHibernateException;
 import com.dotmarketing.factories.ClickstreamFactory;
+import com.dotmarketing.loggers.AsyncClickstreamLogger;
 import com.dotmarketing.util.Config;
 import com.dotmarketing.util.Logger;
 
@@ -40,6 +41,11 @@ public class ClickstreamListener implements ServletContextListener, HttpSessionL
     }
 
     public void contextDestroyed(ServletContextEvent sce) {
+    	if(Config.getBooleanProperty("ENABLE_CLICKSTREAM_TRACKING", false)
+    			&& Config.getBooleanProperty("CLICKSTREAM_ASYNC_WRITES", true)){
+    		// save the clickstreams still queued
+    		AsyncClickstreamLogger.getInstance().shutdown(Config.getIntProperty("CLICKSTREAM_SHUTDOWN_WAIT_SECONDS", 10) * 1000L);
+    	}
     }
 
     public void sessionCreated(HttpSessionEvent hse) {
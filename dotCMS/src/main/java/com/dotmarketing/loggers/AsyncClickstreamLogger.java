@@ -0,0 +1,244 @@
+package com.dotmarketing.loggers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotmarketing.beans.Clickstream;
+import com.dotmarketing.beans.Clickstream404;
+import com.dotmarketing.beans.ClickstreamRequest;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.exception.DotHibernateException;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
+
+/**
+ * A ClickstreamLogger that keeps the finished clickstreams in a bounded queue and saves them from a
+ * background thread, so the thread ending the session never waits for the database.
+ *
+ * The writer takes up to CLICKSTREAM_WRITER_BATCH_SIZE clickstreams at a time and saves them, with
+ * their requests and 404s, in a single transaction through the {@link DatabaseClickstreamLogger}.
+ * Once the batch is committed the user of the older clickstreams of each cookie is filled in, once
+ * per cookie.
+ *
+ * The queue holds CLICKSTREAM_QUEUE_SIZE clickstreams. When the database can't keep up and the
+ * queue is more than 3/4 full only one of every CLICKSTREAM_SAMPLE_RATE clickstreams is kept, and
+ * when it is full they are dropped. The clickstreams left out are counted and reported in the log.
+ *
+ * @author dotCMS
+ */
+public class AsyncClickstreamLogger implements ClickstreamLogger {
+
+    private static final long DROP_REPORT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final BlockingQueue<Clickstream> queue;
+    private final int batchSize;
+    private final int sampleRate;
+    private final int sampleThreshold;
+    private final Predicate<List<Clickstream>> batchWriter;
+
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong saved = new AtomicLong();
+    private volatile long lastDropReport = 0;
+    private volatile boolean running = true;
+    private final Thread writer;
+
+    private AsyncClickstreamLogger() {
+        this(Math.max(1, Config.getIntProperty("CLICKSTREAM_QUEUE_SIZE", 10000)),
+                Math.max(1, Config.getIntProperty("CLICKSTREAM_WRITER_BATCH_SIZE", 100)),
+                Math.max(1, Config.getIntProperty("CLICKSTREAM_SAMPLE_RATE", 10)),
+                AsyncClickstreamLogger::saveBatch);
+    }
+
+    /**
+     * @param batchWriter saves a batch of clickstreams, returning false when it could not be saved
+     */
+    @VisibleForTesting
+    AsyncClickstreamLogger(final int queueSize, final int batchSize, final int sampleRate,
+            final Predicate<List<Clickstream>> batchWriter) {
+        this.queue = new ArrayBlockingQueue<Clickstream>(queueSize);
+        this.batchSize = batchSize;
+        this.sampleRate = sampleRate;
+        this.sampleThreshold = queueSize * 3 / 4;
+        this.batchWriter = batchWriter;
+        this.writer = new Thread(new Writer(), "ClickstreamWriter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private static class SingletonHolder {
+        private static final AsyncClickstreamLogger INSTANCE = new AsyncClickstreamLogger();
+    }
+
+    public static AsyncClickstreamLogger getInstance() {
+        return AsyncClickstreamLogger.SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * Queues the clickstream to be saved. Never blocks: when the queue is busy the clickstream may
+     * be sampled out or dropped.
+     */
+    public void log(final Clickstream clickstream) {
+        if (clickstream == null) {
+            return;
+        }
+        final long count = offered.incrementAndGet();
+        if (!running || (queue.size() >= sampleThreshold && count % sampleRate != 0) || !queue.offer(clickstream)) {
+            dropped.incrementAndGet();
+            reportDrops();
+        }
+    }
+
+    private void reportDrops() {
+        final long now = System.currentTimeMillis();
+        if (now - lastDropReport > DROP_REPORT_MILLIS) {
+            lastDropReport = now;
+            Logger.warn(this, "The clickstream queue is full, " + dropped.get() + " clickstreams have not been saved so far");
+        }
+    }
+
+    /**
+     * @return the clickstreams sampled out or dropped because the queue was busy
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getSavedCount() {
+        return saved.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Saves what is queued, waiting up to the given time, and stops the writer.
+     */
+    public void shutdown(final long timeoutMillis) {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            Logger.warn(this, queue.size() + " clickstreams were not saved on shutdown");
+        }
+    }
+
+    private void save(final List<Clickstream> batch) {
+        if (batchWriter.test(batch)) {
+            saved.addAndGet(batch.size());
+        } else if (batch.size() > 1) {
+            // one bad clickstream should not lose the whole batch
+            for (Clickstream clickstream : batch) {
+                resetIds(clickstream);
+                if (batchWriter.test(Collections.singletonList(clickstream))) {
+                    saved.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Clickstreams are only saved once they end, so after a rollback the ids given to them and to
+     * their rows do not exist and they have to be inserted again.
+     */
+    private static void resetIds(final Clickstream clickstream) {
+        clickstream.setClickstreamId(0);
+        for (ClickstreamRequest request : clickstream.getClickstreamRequests()) {
+            request.setClickstreamRequestId(0);
+        }
+        for (Clickstream404 clickstream404 : clickstream.getClickstream404s()) {
+            clickstream404.setClickstream404Id(0);
+        }
+    }
+
+    private static boolean saveBatch(final List<Clickstream> batch) {
+        final DatabaseClickstreamLogger databaseLogger = new DatabaseClickstreamLogger();
+        final boolean saved = inTransaction(batch.size() + " clickstreams", () -> {
+            for (Clickstream clickstream : batch) {
+                databaseLogger.save(clickstream);
+            }
+        });
+        if (saved) {
+            // the older clickstreams of a cookie are looked up once per batch, not once per clickstream
+            final Map<String, String> usersByCookie = new LinkedHashMap<String, String>();
+            for (Clickstream clickstream : batch) {
+                if (clickstream.getCookieId() != null && usersByCookie.get(clickstream.getCookieId()) == null) {
+                    usersByCookie.put(clickstream.getCookieId(), clickstream.getUserId());
+                }
+            }
+            for (Map.Entry<String, String> cookie : usersByCookie.entrySet()) {
+                inTransaction("the user of cookie " + cookie.getKey(),
+                        () -> databaseLogger.fillInUser(cookie.getKey(), cookie.getValue()));
+            }
+        }
+        return saved;
+    }
+
+    private static boolean inTransaction(final String description, final Runnable work) {
+        try {
+            HibernateUtil.startTransaction();
+            work.run();
+            HibernateUtil.commitTransaction();
+            return true;
+        } catch (Exception e) {
+            Logger.error(AsyncClickstreamLogger.class, "Unable to save " + description + ": " + e.getMessage(), e);
+            try {
+                HibernateUtil.rollbackTransaction();
+            } catch (DotHibernateException rollbackException) {
+                Logger.warn(AsyncClickstreamLogger.class, rollbackException.getMessage(), rollbackException);
+            }
+            return false;
+        } finally {
+            try {
+                HibernateUtil.closeSession();
+            } catch (DotHibernateException e) {
+                Logger.warn(AsyncClickstreamLogger.class, e.getMessage(), e);
+            } finally {
+                DbConnectionFactory.closeConnection();
+            }
+        }
+    }
+
+    private final class Writer implements Runnable {
+
+        @Override
+        public void run() {
+            final List<Clickstream> batch = new ArrayList<Clickstream>(batchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    if (running) {
+                        final Clickstream first = queue.poll(1, TimeUnit.SECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        batch.add(first);
+                    }
+                } catch (InterruptedException e) {
+                    // shutting down, save what is left
+                    continue;
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                if (!batch.isEmpty()) {
+                    save(batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+}
@@ -27,7 +27,14 @@ public class DatabaseClickstreamLogger implements ClickstreamLogger {
 		if (clickstream == null)
 			return;
 
-		
+		save(clickstream);
+		fillInUser(clickstream.getCookieId(), clickstream.getUserId());
+	}
+
+	/**
+	 * Saves the clickstream along with its requests and 404s.
+	 */
+	public void save(Clickstream clickstream) {
 		// try to build a reverse lookup
 		if(!UtilMethods.isSet(clickstream.getRemoteHostname()) && UtilMethods.isSet(clickstream.getRemoteAddress())){
 			String x = clickstream.getRemoteAddress();
@@ -68,15 +75,14 @@ public class DatabaseClickstreamLogger implements ClickstreamLogger {
 				ClickstreamFactory.save404(myClickstream404);
 			}
 		}
+	}
 
-		/*
-		 * Loop over old clickstreams (by long lived cookie) that don't have any user
-		 * information and update them to our known information
-		 * This should log people even if they don't login
-		 */
-		String _dotCMSID = clickstream.getCookieId();
-		String _loggedInUser = clickstream.getUserId();
-
+	/**
+	 * Loop over old clickstreams (by long lived cookie) that don't have any user
+	 * information and update them to our known information
+	 * This should log people even if they don't login
+	 */
+	public void fillInUser(String _dotCMSID, String _loggedInUser) {
 		if (_dotCMSID != null) {
 			List<Clickstream> csl = ClickstreamFactory.getClickstreamsByCookieId(_dotCMSID);
 			if (_loggedInUser == null) {
@@ -1,6 +1,7 @@
 package com.dotmarketing.portlets.categories.business;
 
 import java.util.List;
+import java.util.Map;
 
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotSecurityException;
@@ -405,6 +406,23 @@ public interface CategoryAPI {
 	 */
 	public List<Category> getAllChildren(Category category, User user, boolean respectFrontendRoles) throws DotDataException, DotSecurityException;
 
+	/**
+	 * Returns the categories below the given parent, down to maxDepth levels (1 for the
+	 * children only), depth first and in the order of the children of each category. Each
+	 * entry of the list is a map with the "category" and its "level", starting at 1.
+	 * The categories the user can't read, and the inactive ones when onlyActive is set, are
+	 * left out together with everything below them.
+	 * @param parent
+	 * @param maxDepth
+	 * @param onlyActive
+	 * @param user
+	 * @param respectFrontendRoles
+	 * @return
+	 * @throws DotDataException
+	 * @throws DotSecurityException
+	 */
+	public List<Map<String, Object>> getAllChildrenByLevel(Categorizable parent, int maxDepth, boolean onlyActive, User user, boolean respectFrontendRoles) throws DotDataException, DotSecurityException;
+
 	/**
 	 * Retrieves a list all the line of parent categories of the given child category
 	 * a final fake top category is added at the beginning of the list to represent the top of
@@ -2,8 +2,12 @@ package com.dotmarketing.portlets.categories.business;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import com.dotmarketing.business.APILocator;
@@ -455,17 +459,70 @@ public class CategoryAPIImpl implements CategoryAPI {
 	public List<Category> getAllChildren(Category category, User user, boolean respectFrontendRoles)
 			throws DotDataException, DotSecurityException {
 		List<Category> categoryTree = new ArrayList<Category>();
+		CategoryGraph graph = catFactory.getGraph();
+		// categories shared by several parents are returned once
+		Set<String> found = new HashSet<String>();
+		found.add(category.getInode());
 		LinkedList<Category> children = new LinkedList<Category>(getChildren(category, user, respectFrontendRoles));
-		if (children != null) {
-			while(children.size() > 0) {
-				Category child = children.poll();
-				children.addAll(getChildren(child, user, respectFrontendRoles));
-				categoryTree.add(child);
+		while(children.size() > 0) {
+			Category child = children.poll();
+			if(!found.add(child.getInode())) {
+				continue;
+			}
+			categoryTree.add(child);
+			for(String id : graph.getChildren(child.getInode())) {
+				if(!found.contains(id)) {
+					Category grandChild = catFactory.find(id);
+					if(grandChild != null && perAPI.doesUserHavePermission(grandChild, PermissionAPI.PERMISSION_READ, user, respectFrontendRoles)) {
+						children.add(grandChild);
+					}
+				}
 			}
 		}
 		return categoryTree;
 	}
 
+	public List<Map<String, Object>> getAllChildrenByLevel(Categorizable parent, int maxDepth, final boolean onlyActive,
+			final User user, final boolean respectFrontendRoles) throws DotDataException, DotSecurityException {
+		final List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+		if(maxDepth < 1) {
+			return result;
+		}
+		final CategoryGraph graph = catFactory.getGraph();
+		final DotDataException[] error = new DotDataException[1];
+		for(Category child : getChildren(parent, onlyActive, user, respectFrontendRoles)) {
+			result.add(levelEntry(child, 1));
+			graph.walkDescendants(child.getInode(), maxDepth - 1, (id, level) -> {
+				if(error[0] != null) {
+					return false;
+				}
+				try {
+					Category descendant = catFactory.find(id);
+					if(descendant == null || (onlyActive && !descendant.isActive())
+							|| !perAPI.doesUserHavePermission(descendant, PermissionAPI.PERMISSION_READ, user, respectFrontendRoles)) {
+						return false;
+					}
+					result.add(levelEntry(descendant, level + 1));
+					return true;
+				} catch (DotDataException e) {
+					error[0] = e;
+					return false;
+				}
+			});
+			if(error[0] != null) {
+				throw error[0];
+			}
+		}
+		return result;
+	}
+
+	private Map<String, Object> levelEntry(Category category, int level) {
+		Map<String, Object> entry = new HashMap<String, Object>();
+		entry.put("level", level);
+		entry.put("category", category);
+		return entry;
+	}
+
 	public void clearCache() {
 		catFactory.clearCache();
 	}
@@ -483,18 +540,27 @@ public class CategoryAPIImpl implements CategoryAPI {
 	private List<Category> getCategoryTree(Category child, List<Category> l, User user, boolean respectFrontendRoles)
 		throws DotDataException, DotSecurityException {
 
-		if (InodeUtils.isSet(child.getInode())) {
-			l.add(0, child);
-		}
-		List<Category> parents = getParents(child, user, respectFrontendRoles);
-		if (parents.size() > 0) {
-			Category parent = (Category) parents.get(0);
-			return getCategoryTree(parent, l, user, respectFrontendRoles);
-		} else {
-			Category fakeCat = new Category();
-			fakeCat.setCategoryName("Top Level");
-			l.add(0, fakeCat);
+		CategoryGraph graph = catFactory.getGraph();
+		Set<String> found = new HashSet<String>();
+		Category current = child;
+		while (current != null && found.add(current.getInode())) {
+			if (InodeUtils.isSet(current.getInode())) {
+				l.add(0, current);
+			}
+			// goes up through the first parent the user can read
+			Category parent = null;
+			for (String parentId : graph.getParents(current.getInode())) {
+				Category candidate = catFactory.find(parentId);
+				if (candidate != null && perAPI.doesUserHavePermission(candidate, PermissionAPI.PERMISSION_READ, user, respectFrontendRoles)) {
+					parent = candidate;
+					break;
+				}
+			}
+			current = parent;
 		}
+		Category fakeCat = new Category();
+		fakeCat.setCategoryName("Top Level");
+		l.add(0, fakeCat);
 		return l;
 	}
 
@@ -536,33 +602,11 @@ public class CategoryAPIImpl implements CategoryAPI {
 	}
 
 	public boolean isParent(Category givenChild, Category givenParent, User user) {
-
-		CategoryAPI catAPI = APILocator.getCategoryAPI();
-		List<Category> parents;
-
 		try {
-			parents = catAPI.getParents(givenChild, user, false);
-
-			if(parents==null || parents.isEmpty()) {
-				return false;
-			}
-
-			for(Category localParent: parents) {
-				if(localParent.getCategoryId().equals(givenParent.getCategoryId())) {
-					return true;
-				} else {
-					return isParent(localParent, givenParent, user);
-				}
-			}
+			return catFactory.getGraph().isAncestor(givenParent.getCategoryId(), givenChild.getCategoryId());
 		} catch (DotDataException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (DotSecurityException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			Logger.error(this, e.getMessage(), e);
 		}
-
-
 		return false;
 	}
 
@@ -203,5 +203,18 @@ public abstract class CategoryCache implements Cachable{
 	 */
 	abstract public String getCategoryParentsGroup();
 
-	
+	/**
+	 * Returns the hierarchy of categories, or null if it has to be loaded
+	 * @return
+	 */
+	abstract protected CategoryGraph getGraph();
+
+	abstract protected void putGraph(CategoryGraph graph);
+
+	/**
+	 * Removes the hierarchy of categories, in this node and the rest of the cluster, after a
+	 * category or a relation between categories changed
+	 */
+	abstract protected void removeGraph();
+
 }
@@ -25,9 +25,11 @@ public class CategoryCacheImpl extends CategoryCache {
 	private String categoryByKeyCacheGroup = "categoryByKeyCache";
     private String categoryChildrenCacheGroup = "categoryChildrenCache";
     private String categoryParentsCacheGroup = "categoryParentsCache";
+    private String categoryGraphCacheGroup = "categoryGraphCache";
+    private static final String GRAPH_KEY = "graph";
 	
     // region's name for the cache
-    private String[] groupNames = {primaryGroup, categoryByKeyCacheGroup, categoryChildrenCacheGroup, categoryParentsCacheGroup};
+    private String[] groupNames = {primaryGroup, categoryByKeyCacheGroup, categoryChildrenCacheGroup, categoryParentsCacheGroup, categoryGraphCacheGroup};
     
     public CategoryCacheImpl() {
     	cache = CacheLocator.getCacheAdministrator();
@@ -300,6 +302,7 @@ public class CategoryCacheImpl extends CategoryCache {
 		cache.flushGroup(categoryChildrenCacheGroup);
 		cache.flushGroup(categoryByKeyCacheGroup);
 		cache.flushGroup(categoryParentsCacheGroup);		
+		cache.flushGroup(categoryGraphCacheGroup);
 	}
 	
 	@Override
@@ -328,4 +331,25 @@ public class CategoryCacheImpl extends CategoryCache {
     public String getCategoryParentsGroup() {
     	return categoryParentsCacheGroup;
     }
+
+	@Override
+	protected CategoryGraph getGraph() {
+		try{
+			return (CategoryGraph) cache.get(GRAPH_KEY, categoryGraphCacheGroup);
+		}catch (DotCacheException e) {
+			Logger.debug(this, "Cache Entry not found", e);
+			return null;
+		}
+	}
+
+	@Override
+	protected void putGraph(CategoryGraph graph) {
+		cache.put(GRAPH_KEY, graph, categoryGraphCacheGroup);
+	}
+
+	@Override
+	protected void removeGraph() {
+		cache.remove(GRAPH_KEY, categoryGraphCacheGroup);
+	}
+
 }
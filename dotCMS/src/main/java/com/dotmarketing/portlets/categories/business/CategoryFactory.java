@@ -257,5 +257,12 @@ public abstract class CategoryFactory {
 	abstract protected String suggestVelocityVarName (String categoryVelVarName) throws DotDataException;
 
 	abstract protected  void clearCache();
+
+	/**
+	 * Returns the whole hierarchy of categories, loading it if it is not in cache
+	 * @return
+	 * @throws DotDataException
+	 */
+	abstract protected CategoryGraph getGraph() throws DotDataException;
 	
 }
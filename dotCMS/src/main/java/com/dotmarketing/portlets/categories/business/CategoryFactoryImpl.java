@@ -69,6 +69,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 		try {
 			cleanParentChildrenCaches(object);
 			catCache.remove(object);
+			catCache.removeGraph();
 		} catch (DotCacheException e) {
 			throw new DotDataException(e.getMessage(), e);
 		}
@@ -156,6 +157,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 				BeanUtils.copyProperties(cat,object);
 				HibernateUtil.saveOrUpdate(cat);
 				cleanParentChildrenCaches(object);
+				catCache.removeGraph();
 
 			}catch(Exception ex){
 				throw new DotDataException(ex.getMessage(),ex);
@@ -165,6 +167,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 			try {
 				cleanParentChildrenCaches(object);
 				catCache.remove(object);
+				catCache.removeGraph();
 			} catch (DotCacheException e) {
 				throw new DotDataException(e.getMessage(), e);
 			}
@@ -178,6 +181,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 		try {
 			cleanParentChildrenCaches(object);
 			catCache.remove(object);
+			catCache.removeGraph();
 		} catch (DotCacheException e) {
 			throw new DotDataException(e.getMessage(), e);
 		}
@@ -197,6 +201,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 		}
 		try {
 			catCache.removeChild(parent, child);
+			removeGraph(parent);
 		} catch (DotCacheException e) {
 			throw new DotDataException(e.getMessage(), e);
 		}
@@ -215,6 +220,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 		}
 		try {
 			catCache.removeParent(child, parent);
+			removeGraph(child);
 		} catch (DotCacheException e) {
 			throw new DotDataException(e.getMessage(), e);
 		}
@@ -362,6 +368,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 		}
 		try {
 			catCache.removeChild(parent, child);
+			removeGraph(parent);
 		} catch (DotCacheException e) {
 			throw new DotDataException(e.getMessage(), e);
 		}
@@ -377,6 +384,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 		}
 		try {
 			catCache.removeChildren(parent);
+			removeGraph(parent);
 		} catch (DotCacheException e) {
 			throw new DotDataException(e.getMessage(), e);
 		}
@@ -393,6 +401,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 		}
 		try {
 			catCache.removeParent(child, parent);
+			removeGraph(child);
 		} catch (DotCacheException e) {
 			throw new DotDataException(e.getMessage(), e);
 		}
@@ -407,6 +416,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 		}
 		try {
 			catCache.removeParents(child);
+			removeGraph(child);
 		} catch (DotCacheException e) {
 			throw new DotDataException(e.getMessage(), e);
 		}
@@ -427,6 +437,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 		}
 		try {
 			catCache.removeChildren(parent);
+			removeGraph(parent);
 		} catch (DotCacheException e) {
 			throw new DotDataException(e.getMessage(), e);
 		}
@@ -446,6 +457,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 		}
 		try {
 			catCache.removeParents(child);
+			removeGraph(child);
 		} catch (DotCacheException e) {
 			throw new DotDataException(e.getMessage(), e);
 		}
@@ -464,6 +476,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 			sql.append("inode category_1_ where tree.child is null and category_1_.inode = category.inode and category_1_.type = 'category' ");
 			s.executeUpdate(sql.toString());
 			conn.commit();
+			catCache.removeGraph();
 		} catch (SQLException e) {
 			try {
 				conn.rollback();
@@ -605,6 +618,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 			sql.append(" tree.parent = '").append(inode).append("' and category_1_.type = 'category' and cat.inode = c.inode ) ");
 			s.executeUpdate(sql.toString());
 			conn.commit();
+			catCache.removeGraph();
 		} catch (SQLException e) {
 			try {
 				conn.rollback();
@@ -673,6 +687,27 @@ public class CategoryFactoryImpl extends CategoryFactory {
 	protected void clearCache() {
 		catCache.clearCache();
 	}
+
+	@Override
+	protected CategoryGraph getGraph() throws DotDataException {
+		CategoryGraph graph = catCache.getGraph();
+		if(graph == null) {
+			graph = CategoryGraph.load();
+			catCache.putGraph(graph);
+		}
+		return graph;
+	}
+
+	/**
+	 * Relations between a category and a contentlet, user or structure are kept in the
+	 * same table as the relations between categories but they are not part of the graph
+	 */
+	private void removeGraph(Categorizable categorizable) {
+		if(categorizable instanceof Category) {
+			catCache.removeGraph();
+		}
+	}
+
 	public boolean  hasDependencies(Category cat) throws DotDataException {
 
 		String query;
@@ -704,6 +739,8 @@ public class CategoryFactoryImpl extends CategoryFactory {
 			s.executeUpdate(catSQL.getUpdateSort());
 			s.executeUpdate(catSQL.getDropSort());
 			conn.commit();
+			// the graph keeps the children in sort order
+			catCache.removeGraph();
 
 			rs = s.executeQuery(catSQL.getSortParents());
 
@@ -749,6 +786,7 @@ public class CategoryFactoryImpl extends CategoryFactory {
 			statement.executeUpdate(sql);
 
 			conn.commit();
+			catCache.removeGraph();
 
             PreparedStatement getSortedPreparedStatement = conn.prepareStatement( catSQL.getSortedChildren() );
             getSortedPreparedStatement.setString( 1, inode );
@@ -0,0 +1,398 @@
+package com.dotmarketing.portlets.categories.business;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.dotmarketing.common.db.DotConnect;
+import com.dotmarketing.exception.DotDataException;
+
+/**
+ * The whole category hierarchy held in memory, so multi level queries (descendants, ancestors,
+ * depth limited walks) are answered without going to the database or the cache once per level.
+ *
+ * Categories are numbered from 0 and the parent/child relations are kept as adjacency arrays, the
+ * children of each category sorted the way {@link CategoryFactory#getChildren(Categorizable)}
+ * sorts them. A depth-first tour of the hierarchy numbers the categories in pre-order, so the
+ * descendants of a category are the contiguous range between its entry and exit positions and
+ * checking whether a category is below another is a comparison of two positions. That only holds
+ * while every category has a single parent: when categories are shared by several parents, or
+ * there are cycles, the queries walk the adjacency arrays instead.
+ *
+ * Instances are immutable and rebuilt by {@link CategoryFactory#getGraph()} whenever a category or
+ * a relation between categories changes, in this node or in any other node of the cluster.
+ *
+ * @author dotCMS
+ */
+public class CategoryGraph implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String[] ids;
+	private final Map<String, Integer> indexes;
+
+	private final int[] childOffsets;
+	private final int[] children;
+	private final int[] parentOffsets;
+	private final int[] parents;
+
+	// the depth-first tour, only meaningful when isTree
+	private final int[] preorder;
+	private final int[] entry;
+	private final int[] exit;
+	private final int[] depth;
+	private final boolean isTree;
+
+	/**
+	 * Loads the categories and the relations between them.
+	 */
+	static CategoryGraph load() throws DotDataException {
+		// in the order of the children returned by CategoryFactory, names compared with the
+		// collation of the database
+		final List<String> ids = new ArrayList<>();
+		final DotConnect dc = new DotConnect();
+		dc.setSQL("select inode from category order by sort_order, category_name");
+		dc.setFetchSize(1000);
+		dc.forEachRow(row -> {
+			ids.add(row.getString(1));
+			return true;
+		});
+
+		final Map<String, Integer> indexes = new HashMap<>(ids.size() * 2);
+		for (int i = 0; i < ids.size(); i++) {
+			indexes.put(ids.get(i), i);
+		}
+
+		final List<int[]> edges = new ArrayList<>();
+		final Set<Long> seen = new HashSet<>();
+		dc.setSQL("select tree.parent, tree.child from tree join category p on (p.inode = tree.parent) "
+				+ "join category c on (c.inode = tree.child)");
+		dc.setFetchSize(1000);
+		dc.forEachRow(row -> {
+			final Integer parent = indexes.get(row.getString(1));
+			final Integer child = indexes.get(row.getString(2));
+			// the same relation can be stored with several relation types
+			if (parent != null && child != null && !parent.equals(child)
+					&& seen.add(((long) parent << 32) | child)) {
+				edges.add(new int[] {parent, child});
+			}
+			return true;
+		});
+
+		final int[] rank = new int[ids.size()];
+		for (int i = 0; i < rank.length; i++) {
+			rank[i] = i;
+		}
+		return new CategoryGraph(ids.toArray(new String[ids.size()]), indexes, edges, rank);
+	}
+
+	CategoryGraph(final String[] ids, final Map<String, Integer> indexes, final List<int[]> edges, final int[] rank) {
+		this.ids = ids;
+		this.indexes = indexes;
+		final int size = ids.length;
+
+		// edges sorted by the rank of the child give children lists already in order
+		final List<int[]> byChild = new ArrayList<>(edges);
+		Collections.sort(byChild, (a, b) -> Integer.compare(rank[a[1]], rank[b[1]]));
+		childOffsets = new int[size + 1];
+		children = new int[byChild.size()];
+		fill(byChild, 0, 1, childOffsets, children);
+
+		final List<int[]> byParent = new ArrayList<>(edges);
+		Collections.sort(byParent, (a, b) -> Integer.compare(rank[a[0]], rank[b[0]]));
+		parentOffsets = new int[size + 1];
+		parents = new int[byParent.size()];
+		fill(byParent, 1, 0, parentOffsets, parents);
+
+		preorder = new int[size];
+		entry = new int[size];
+		exit = new int[size];
+		depth = new int[size];
+		isTree = tour(rank);
+	}
+
+	/**
+	 * Builds the adjacency arrays: the neighbours of category i are
+	 * {@code values[offsets[i]] .. values[offsets[i + 1] - 1]}, in the order of the edges.
+	 */
+	private static void fill(final List<int[]> edges, final int from, final int to, final int[] offsets, final int[] values) {
+		for (int[] edge : edges) {
+			offsets[edge[from] + 1]++;
+		}
+		for (int i = 1; i < offsets.length; i++) {
+			offsets[i] += offsets[i - 1];
+		}
+		final int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+		for (int[] edge : edges) {
+			values[next[edge[from]]++] = edge[to];
+		}
+	}
+
+	/**
+	 * Numbers the categories in a depth-first tour from the top level ones.
+	 *
+	 * @return false if a category has more than one parent or is its own ancestor
+	 */
+	private boolean tour(final int[] rank) {
+		final int size = ids.length;
+		boolean tree = true;
+		for (int i = 0; i < size && tree; i++) {
+			tree = parentOffsets[i + 1] - parentOffsets[i] <= 1;
+		}
+
+		final List<Integer> roots = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			if (parentOffsets[i + 1] == parentOffsets[i]) {
+				roots.add(i);
+			}
+		}
+		Collections.sort(roots, (a, b) -> Integer.compare(rank[a], rank[b]));
+
+		final boolean[] visited = new boolean[size];
+		final int[] stack = new int[size];
+		final int[] position = new int[size];
+		int counter = 0;
+		for (int root : roots) {
+			int top = 0;
+			stack[top] = root;
+			position[top] = childOffsets[root];
+			visited[root] = true;
+			depth[root] = 0;
+			entry[root] = counter;
+			preorder[counter++] = root;
+			while (top >= 0) {
+				final int current = stack[top];
+				if (position[top] < childOffsets[current + 1]) {
+					final int child = children[position[top]++];
+					if (visited[child]) {
+						tree = false;
+						continue;
+					}
+					visited[child] = true;
+					depth[child] = depth[current] + 1;
+					entry[child] = counter;
+					preorder[counter++] = child;
+					stack[++top] = child;
+					position[top] = childOffsets[child];
+				} else {
+					exit[current] = counter - 1;
+					top--;
+				}
+			}
+		}
+		// anything not reached from a top level category is part of a cycle
+		return tree && counter == size;
+	}
+
+	public int size() {
+		return ids.length;
+	}
+
+	public boolean contains(final String id) {
+		return id != null && indexes.containsKey(id);
+	}
+
+	/**
+	 * Whether every category has at most one parent, in which case the descendant and ancestor
+	 * queries use the depth-first tour.
+	 */
+	public boolean isTree() {
+		return isTree;
+	}
+
+	private int indexOf(final String id) {
+		final Integer index = id != null ? indexes.get(id) : null;
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * The ids of the direct children of the category, in order.
+	 */
+	public List<String> getChildren(final String id) {
+		final int index = indexOf(id);
+		if (index < 0) {
+			return Collections.emptyList();
+		}
+		final List<String> result = new ArrayList<>(childOffsets[index + 1] - childOffsets[index]);
+		for (int i = childOffsets[index]; i < childOffsets[index + 1]; i++) {
+			result.add(ids[children[i]]);
+		}
+		return result;
+	}
+
+	/**
+	 * The ids of the direct parents of the category, in order.
+	 */
+	public List<String> getParents(final String id) {
+		final int index = indexOf(id);
+		if (index < 0) {
+			return Collections.emptyList();
+		}
+		final List<String> result = new ArrayList<>(parentOffsets[index + 1] - parentOffsets[index]);
+		for (int i = parentOffsets[index]; i < parentOffsets[index + 1]; i++) {
+			result.add(ids[parents[i]]);
+		}
+		return result;
+	}
+
+	/**
+	 * The number of categories below the given one.
+	 */
+	public int countDescendants(final String id) {
+		final int index = indexOf(id);
+		if (index < 0) {
+			return 0;
+		}
+		return isTree ? exit[index] - entry[index] : getDescendantsBreadthFirst(id).size();
+	}
+
+	/**
+	 * Whether {@code ancestorId} is above {@code id}, at any level.
+	 */
+	public boolean isAncestor(final String ancestorId, final String id) {
+		final int ancestor = indexOf(ancestorId);
+		final int index = indexOf(id);
+		if (ancestor < 0 || index < 0 || ancestor == index) {
+			return false;
+		}
+		if (isTree) {
+			return entry[ancestor] < entry[index] && entry[index] <= exit[ancestor];
+		}
+		final boolean[] visited = new boolean[ids.length];
+		final int[] queue = new int[ids.length];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = index;
+		visited[index] = true;
+		while (head < tail) {
+			final int current = queue[head++];
+			for (int i = parentOffsets[current]; i < parentOffsets[current + 1]; i++) {
+				final int parent = parents[i];
+				if (parent == ancestor) {
+					return true;
+				}
+				if (!visited[parent]) {
+					visited[parent] = true;
+					queue[tail++] = parent;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The ids of the categories above the given one, the closest first, following the first
+	 * parent of each category up to a top level one.
+	 */
+	public List<String> getAncestors(final String id) {
+		final List<String> result = new ArrayList<>();
+		int index = indexOf(id);
+		final boolean[] visited = new boolean[ids.length];
+		while (index >= 0 && !visited[index] && parentOffsets[index + 1] > parentOffsets[index]) {
+			visited[index] = true;
+			index = parents[parentOffsets[index]];
+			result.add(ids[index]);
+		}
+		return result;
+	}
+
+	/**
+	 * The ids of the categories below the given one, level by level, each one once.
+	 */
+	public List<String> getDescendantsBreadthFirst(final String id) {
+		final int index = indexOf(id);
+		if (index < 0) {
+			return Collections.emptyList();
+		}
+		final List<String> result = new ArrayList<>();
+		final boolean[] visited = new boolean[ids.length];
+		final int[] queue = new int[ids.length];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = index;
+		visited[index] = true;
+		while (head < tail) {
+			final int current = queue[head++];
+			for (int i = childOffsets[current]; i < childOffsets[current + 1]; i++) {
+				final int child = children[i];
+				if (!visited[child]) {
+					visited[child] = true;
+					queue[tail++] = child;
+					result.add(ids[child]);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Walks the categories below the given one depth first, down to {@code maxDepth} levels (1
+	 * for the children only). The walk does not go below the categories the visitor rejects.
+	 * Categories with several parents are visited once per path, as a level by level walk would.
+	 */
+	public void walkDescendants(final String id, final int maxDepth, final Visitor visitor) {
+		final int index = indexOf(id);
+		if (index >= 0 && maxDepth > 0) {
+			walk(index, maxDepth, (descendant, level) -> visitor.visit(ids[descendant], level));
+		}
+	}
+
+	private void walk(final int index, final int maxDepth, final IndexVisitor visitor) {
+		if (isTree) {
+			// the descendants are the range of the tour after the category
+			final int base = depth[index];
+			int position = entry[index] + 1;
+			while (position <= exit[index]) {
+				final int current = preorder[position];
+				final int level = depth[current] - base;
+				if (level <= maxDepth && visitor.visit(current, level)) {
+					position++;
+				} else {
+					// skip the whole subtree
+					position = exit[current] + 1;
+				}
+			}
+			return;
+		}
+		walk(index, 1, maxDepth, new boolean[ids.length], visitor);
+	}
+
+	private void walk(final int index, final int level, final int maxDepth, final boolean[] onPath,
+			final IndexVisitor visitor) {
+		onPath[index] = true;
+		for (int i = childOffsets[index]; i < childOffsets[index + 1]; i++) {
+			final int child = children[i];
+			if (!onPath[child] && visitor.visit(child, level) && level < maxDepth) {
+				walk(child, level + 1, maxDepth, onPath, visitor);
+			}
+		}
+		onPath[index] = false;
+	}
+
+	/**
+	 * Receives the categories found by {@link #walkDescendants(String, int, Visitor)}.
+	 */
+	@FunctionalInterface
+	public interface Visitor {
+
+		/**
+		 * @param id the id of the category
+		 * @param level 1 for the children of the category the walk started from, 2 for the
+		 *        grandchildren and so on
+		 * @return false to skip the categories below this one
+		 */
+		boolean visit(String id, int level);
+	}
+
+	@FunctionalInterface
+	private interface IndexVisitor {
+		boolean visit(int index, int level);
+	}
+
+}
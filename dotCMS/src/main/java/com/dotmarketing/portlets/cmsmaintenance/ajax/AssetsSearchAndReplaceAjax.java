@@ -127,6 +127,8 @@ public class AssetsSearchAndReplaceAjax extends AjaxAction{
 					+ java.io.File.separator + APILocator.getFileAssetAPI().BINARY_FIELD + java.io.File.separator + WebKeys.TEMP_FILE_PREFIX + file.getFileAsset().getName());
 		}else{
 			fileData = file.getFileAsset();
+			// the binary can be shared with other content, write a new file instead of changing it
+			fileData.delete();
 		}
 		fileData.deleteOnExit();
 		FileOutputStream fos = null;
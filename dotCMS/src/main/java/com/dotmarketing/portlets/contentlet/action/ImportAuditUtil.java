@@ -2,6 +2,7 @@ package com.dotmarketing.portlets.contentlet.action;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -12,6 +13,7 @@ import com.dotcms.repackage.org.apache.commons.collections.map.LRUMap;
 import com.dotmarketing.business.APILocator;
 import com.dotmarketing.common.db.DotConnect;
 import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.util.ImportProgress;
 import com.dotmarketing.util.InodeUtils;
 import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.UtilMethods;
@@ -23,6 +25,9 @@ public class ImportAuditUtil {
 	public static final int STATUS_USERSTOPPED = 30;
 	
 	public static LRUMap cancelledImports = new LRUMap(50); 
+
+	@SuppressWarnings("unchecked")
+	private static final Map<Long, ImportProgress> importProgress = Collections.synchronizedMap(new LRUMap(50));
 	
 	/**
 	 * Should only be used when the system is starting to clean imports
@@ -71,6 +76,20 @@ public class ImportAuditUtil {
 		}
 	}
 	
+	/**
+	 * Keeps the progress of an import running in this server, for the import screen to show it.
+	 */
+	public static void setImportProgress(long importId, ImportProgress progress){
+		importProgress.put(importId, progress);
+	}
+
+	/**
+	 * @return the progress of the import, or null if it didn't run in this server
+	 */
+	public static ImportProgress getImportProgress(long importId){
+		return importProgress.get(importId);
+	}
+	
 	public static HashMap<String, List<String>> loadImportResults(Long Id){
 		DotConnect db = new DotConnect();
 		db.setSQL("SELECT id,last_inode, warnings, errors, results, messages FROM import_audit where id= ?");
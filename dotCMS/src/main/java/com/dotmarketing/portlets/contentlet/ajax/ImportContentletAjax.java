@@ -1,6 +1,17 @@
 package com.dotmarketing.portlets.contentlet.ajax;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import com.dotcms.repackage.org.directwebremoting.WebContextFactory;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.portlets.contentlet.action.ImportAuditUtil;
+import com.dotmarketing.util.ImportProgress;
+import com.liferay.portal.PortalException;
+import com.liferay.portal.SystemException;
+import com.liferay.portal.model.User;
+import com.liferay.portal.util.PortalUtil;
 
 
 public class ImportContentletAjax {
@@ -15,4 +26,20 @@ public class ImportContentletAjax {
 		return importId;
 	}
 
+	/**
+	 * @return the progress of the import, empty if it is not running in this server or the
+	 *         current user is neither the one who started it nor an administrator
+	 */
+	public Map<String, Object> getImportProgress(Long importId) throws PortalException, SystemException, DotDataException {
+		ImportProgress progress = ImportAuditUtil.getImportProgress(importId);
+		if (progress == null) {
+			return new HashMap<String, Object>();
+		}
+		User user = PortalUtil.getUser(WebContextFactory.get().getHttpServletRequest());
+		if (user == null || !(user.getUserId().equals(progress.getUserId()) || APILocator.getUserAPI().isCMSAdmin(user))) {
+			return new HashMap<String, Object>();
+		}
+		return progress.toMap();
+	}
+
 }
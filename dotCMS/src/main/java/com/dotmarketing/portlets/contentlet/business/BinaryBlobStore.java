@@ -0,0 +1,228 @@
+package com.dotmarketing.portlets.contentlet.business;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
+import com.liferay.util.FileUtil;
+
+/**
+ * Stores the binaries of the contentlets once per content.
+ *
+ * Each distinct binary is kept under {@code assets/blobs}, named by the SHA-256 of its content, and
+ * the file in the inode directory of every contentlet with that binary is a hard link to it. The
+ * paths of the binaries do not change, so everything reading them keeps working, but uploading the
+ * same file to many sites or many times takes the space of one file. The number of links of a blob
+ * is its reference count: deleting the inode directories of the contentlets releases it, and
+ * {@link #deleteUnreferenced(Date)} removes the blobs nobody links to anymore.
+ *
+ * Blobs are read-only, so a blob is trusted to still have the content its name says and it is only
+ * checked for its size and permissions before it is linked again, without reading it. Code writing a
+ * binary in an inode directory has to delete the file first and write a new one, the way
+ * {@link FileUtil#copyFile(File, File, boolean)} does, instead of writing through the link into
+ * every content sharing it. A blob made writable to write through a link is never linked again.
+ *
+ * When hard links are disabled with {@code CONTENT_VERSION_HARD_LINK}, the store is disabled with
+ * {@code BINARY_STORE_DEDUPLICATE}, or the file system does not support links or can't report how
+ * many a file has (Windows), the binaries are copied the way they always were.
+ *
+ * @author dotCMS
+ */
+public class BinaryBlobStore {
+
+    private static final String BLOBS_FOLDER = "blobs";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Supplier<File> blobsDir;
+    private final BooleanSupplier enabled;
+    private final boolean linkCounts;
+
+    private BinaryBlobStore() {
+        this(() -> new File(APILocator.getFileAssetAPI().getRealAssetsRootPath() + File.separator + BLOBS_FOLDER),
+                () -> Config.getBooleanProperty("BINARY_STORE_DEDUPLICATE", true)
+                        && Config.getBooleanProperty("CONTENT_VERSION_HARD_LINK", true),
+                FileSystems.getDefault().supportedFileAttributeViews().contains("unix"));
+    }
+
+    @VisibleForTesting
+    BinaryBlobStore(final File blobsDir, final boolean linkCounts) {
+        this(() -> blobsDir, () -> true, linkCounts);
+    }
+
+    private BinaryBlobStore(final Supplier<File> blobsDir, final BooleanSupplier enabled, final boolean linkCounts) {
+        this.blobsDir = blobsDir;
+        this.enabled = enabled;
+        this.linkCounts = linkCounts;
+    }
+
+    private static class SingletonHolder {
+        private static final BinaryBlobStore INSTANCE = new BinaryBlobStore();
+    }
+
+    public static BinaryBlobStore getInstance() {
+        return BinaryBlobStore.SingletonHolder.INSTANCE;
+    }
+
+    private boolean isEnabled() {
+        // without link counts the blobs could never be collected
+        return linkCounts && enabled.getAsBoolean();
+    }
+
+    private File getBlobsDir() {
+        return blobsDir.get();
+    }
+
+    /**
+     * Puts the content of the source file in the destination, as a link to the blob with that
+     * content. The blob is created when it is the first time the content is stored.
+     *
+     * @return the {@link #hash(File)} of the content, read while storing it, or null when the store
+     *         is disabled and the file was copied without reading its content
+     */
+    public String store(final File source, final File destination) throws IOException {
+        if (!isEnabled() || !source.exists() || source.length() == 0) {
+            FileUtil.copyFile(source, destination);
+            return null;
+        }
+
+        final String hash = hash(source);
+        final File blob = new File(getBlobsDir(), hash.substring(0, 2) + File.separator + hash);
+
+        if (destination.getParentFile() != null && !destination.getParentFile().exists()) {
+            destination.getParentFile().mkdirs();
+        }
+        Files.deleteIfExists(destination.toPath());
+
+        // the blob can be collected right after we found it, so try twice
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                if (!blob.exists() || blob.length() != source.length() || isWritable(blob)) {
+                    // missing, or opened for writing by a writer that did not unlink it. The
+                    // content linked to the changed blob keeps it, the new content gets a good one
+                    createBlob(source, blob);
+                }
+                Files.createLink(destination.toPath(), blob.toPath());
+                return hash;
+            } catch (NoSuchFileException e) {
+                Logger.debug(this, "Blob " + blob + " was removed while linking it, storing it again");
+            } catch (IOException | UnsupportedOperationException e) {
+                Logger.debug(this, "Could not link " + destination + " to " + blob + ", copying it: " + e.getMessage());
+                break;
+            }
+        }
+
+        FileUtil.copyFile(source, destination, false);
+        return hash;
+    }
+
+    private static boolean isWritable(final File blob) throws IOException {
+        // on the permissions, root can write anything
+        return Files.getPosixFilePermissions(blob.toPath()).contains(PosixFilePermission.OWNER_WRITE);
+    }
+
+    private void createBlob(final File source, final File blob) throws IOException {
+        blob.getParentFile().mkdirs();
+        final Path tmp = Files.createTempFile(blob.getParentFile().toPath(), blob.getName(), ".tmp");
+        try {
+            Files.copy(source.toPath(), tmp, StandardCopyOption.REPLACE_EXISTING);
+            // shared by every content linked to it, so nobody writes into it
+            tmp.toFile().setReadOnly();
+            Files.move(tmp, blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // stored by someone else meanwhile
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Deletes the blobs that are not linked from any inode directory and were created before the
+     * given date, so the blobs being stored right now are left alone.
+     *
+     * @return the number of blobs deleted
+     */
+    public int deleteUnreferenced(final Date olderThan) {
+        if (!linkCounts) {
+            // nothing was linked, see isEnabled
+            return 0;
+        }
+        final File blobsDir = getBlobsDir();
+        final File[] prefixes = blobsDir.listFiles();
+        if (prefixes == null) {
+            return 0;
+        }
+
+        int deleted = 0;
+        for (File prefix : prefixes) {
+            final File[] blobs = prefix.listFiles();
+            if (blobs == null) {
+                continue;
+            }
+            for (File blob : blobs) {
+                if (blob.lastModified() >= olderThan.getTime()) {
+                    continue;
+                }
+                try {
+                    // temporary files left by an interrupted store have no links either
+                    final int links = (Integer) Files.getAttribute(blob.toPath(), "unix:nlink");
+                    if (links <= 1 && blob.delete()) {
+                        deleted++;
+                    }
+                } catch (UnsupportedOperationException e) {
+                    Logger.warn(this, "The file system does not report the links of " + blobsDir + ", blobs can't be collected");
+                    return deleted;
+                } catch (IOException | IllegalArgumentException e) {
+                    Logger.warn(this, "Unable to read the links of " + blob + ": " + e.getMessage());
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Returns the SHA-256 of the content of the file, in hex. It is the name of the blob of the
+     * content, and a key for anything else that depends on the content of a binary alone.
+     */
+    public static String hash(final File file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        final byte[] buffer = new byte[8192];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        final byte[] bytes = digest.digest();
+        final char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+}
@@ -311,6 +311,40 @@ public interface ContentletAPI {
 	 * @throws DotDataException 
 	 */
 	public List<ContentletSearch> searchIndex(String luceneQuery, int limit, int offset, String sortBy, User user, boolean respectFrontendRoles) throws DotSecurityException, DotDataException;
+
+	/**
+	 * Streams the contentlets matching the lucene query to the handler in pages, reading the index with
+	 * a scroll so that only one page of results is in memory at a time. Use it instead of
+	 * {@link #search(String, int, int, String, User, boolean)} without a limit when the query can match
+	 * a large part of the content. The results come in no particular order, and every page is
+	 * filtered with only the contentlets that the user can read(use).
+	 * @param luceneQuery
+	 * @param pageSize the hits read from each shard of the index per page
+	 * @param user
+	 * @param respectFrontendRoles
+	 * @param handler receives each page of contentlets and can stop the scroll by returning false
+	 * @return the number of contentlets handed to the handler
+	 * @throws DotSecurityException if user is null and respectFrontendRoles is false
+	 * @throws DotDataException
+	 */
+	public int scroll(String luceneQuery, int pageSize, User user, boolean respectFrontendRoles, ContentletPageHandler handler) throws DotSecurityException, DotDataException;
+
+	/**
+	 * Same as {@link #scroll(String, int, User, boolean, ContentletPageHandler)}, but the results come
+	 * sorted the way {@link #search(String, int, int, String, User, boolean)} sorts them. The index
+	 * sorts the hits once, when the scroll starts, so the pages neither skip nor repeat results when
+	 * the content changes while they are read.
+	 * @param luceneQuery
+	 * @param pageSize the hits read per page
+	 * @param sortBy the same sortBy search takes, null for the order of relevance
+	 * @param user
+	 * @param respectFrontendRoles
+	 * @param handler receives each page of contentlets and can stop the scroll by returning false
+	 * @return the number of contentlets handed to the handler
+	 * @throws DotSecurityException if user is null and respectFrontendRoles is false
+	 * @throws DotDataException
+	 */
+	public int scroll(String luceneQuery, int pageSize, String sortBy, User user, boolean respectFrontendRoles, ContentletPageHandler handler) throws DotSecurityException, DotDataException;
 	
 	/**
 	 * Publishes all related HTMLPage
@@ -1102,6 +1102,38 @@ public class ContentletAPIInterceptor implements ContentletAPI, Interceptor {
 		return c;
 	}
 
+	@Override
+	public int scroll(String luceneQuery, int pageSize, User user, boolean respectFrontendRoles, ContentletPageHandler handler) throws DotSecurityException, DotDataException {
+		for(ContentletAPIPreHook pre : preHooks){
+			boolean preResult = pre.scroll(luceneQuery, pageSize, user, respectFrontendRoles, handler);
+			if(!preResult){
+				Logger.error(this, "The following prehook failed " + pre.getClass().getName());
+				throw new DotRuntimeException("The following prehook failed " + pre.getClass().getName());
+			}
+		}
+		int c = conAPI.scroll(luceneQuery, pageSize, user, respectFrontendRoles, handler);
+		for(ContentletAPIPostHook post : postHooks){
+			post.scroll(luceneQuery, pageSize, user, respectFrontendRoles, handler, c);
+		}
+		return c;
+	}
+
+	@Override
+	public int scroll(String luceneQuery, int pageSize, String sortBy, User user, boolean respectFrontendRoles, ContentletPageHandler handler) throws DotSecurityException, DotDataException {
+		for(ContentletAPIPreHook pre : preHooks){
+			boolean preResult = pre.scroll(luceneQuery, pageSize, sortBy, user, respectFrontendRoles, handler);
+			if(!preResult){
+				Logger.error(this, "The following prehook failed " + pre.getClass().getName());
+				throw new DotRuntimeException("The following prehook failed " + pre.getClass().getName());
+			}
+		}
+		int c = conAPI.scroll(luceneQuery, pageSize, sortBy, user, respectFrontendRoles, handler);
+		for(ContentletAPIPostHook post : postHooks){
+			post.scroll(luceneQuery, pageSize, sortBy, user, respectFrontendRoles, handler, c);
+		}
+		return c;
+	}
+
 	@Override
 	public boolean isContentEqual(Contentlet contentlet1, Contentlet contentlet2, User user, boolean respectFrontendRoles) throws DotSecurityException, DotDataException {
 		for(ContentletAPIPreHook pre : preHooks){
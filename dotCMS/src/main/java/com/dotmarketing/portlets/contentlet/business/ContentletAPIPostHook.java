@@ -219,6 +219,31 @@ public interface ContentletAPIPostHook {
 	 */
 
 	public default void searchIndex(String luceneQuery, int limit, int offset, String sortBy, User user, boolean respectFrontendRoles,List<ContentletSearch> returnValue){}
+
+	/**
+	 * Streams the contentlets matching the lucene query to the handler in pages, reading the index with
+	 * a scroll
+	 * @param luceneQuery
+	 * @param pageSize
+	 * @param user
+	 * @param respectFrontendRoles
+	 * @param handler
+	 * @param returnValue - value returned by primary API Method
+	 */
+	public default void scroll(String luceneQuery, int pageSize, User user, boolean respectFrontendRoles, ContentletPageHandler handler, int returnValue){}
+
+	/**
+	 * Streams the contentlets matching the lucene query to the handler in sorted pages, reading the
+	 * index with a scroll
+	 * @param luceneQuery
+	 * @param pageSize
+	 * @param sortBy
+	 * @param user
+	 * @param respectFrontendRoles
+	 * @param handler
+	 * @param returnValue - value returned by primary API Method
+	 */
+	public default void scroll(String luceneQuery, int pageSize, String sortBy, User user, boolean respectFrontendRoles, ContentletPageHandler handler, int returnValue){}
 	
 	/**
 	 * Publishes all related HTMLPage
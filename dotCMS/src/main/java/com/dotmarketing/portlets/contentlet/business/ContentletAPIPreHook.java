@@ -250,6 +250,35 @@ public interface ContentletAPIPreHook {
 	public default boolean searchIndex(String luceneQuery, int limit, int offset, String sortBy, User user, boolean respectFrontendRoles){
       return true;
     }
+
+	/**
+	 * Streams the contentlets matching the lucene query to the handler in pages, reading the index with
+	 * a scroll
+	 * @param luceneQuery
+	 * @param pageSize
+	 * @param user
+	 * @param respectFrontendRoles
+	 * @param handler
+	 * @return
+	 */
+	public default boolean scroll(String luceneQuery, int pageSize, User user, boolean respectFrontendRoles, ContentletPageHandler handler){
+      return true;
+    }
+
+	/**
+	 * Streams the contentlets matching the lucene query to the handler in sorted pages, reading the
+	 * index with a scroll
+	 * @param luceneQuery
+	 * @param pageSize
+	 * @param sortBy
+	 * @param user
+	 * @param respectFrontendRoles
+	 * @param handler
+	 * @return
+	 */
+	public default boolean scroll(String luceneQuery, int pageSize, String sortBy, User user, boolean respectFrontendRoles, ContentletPageHandler handler){
+      return true;
+    }
 	
 	/**
 	 * Publishes all related HTMLPage
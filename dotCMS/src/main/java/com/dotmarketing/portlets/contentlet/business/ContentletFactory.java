@@ -140,6 +140,22 @@ public abstract class ContentletFactory {
 	 * @return
 	 */
 	protected abstract SearchHits indexSearch(String luceneQuery, int limit, int offset, String sortBy);
+
+	/**
+	 * Streams the contentlets matching the lucene query to the handler with an index scroll, so only
+	 * one page of results is in memory at a time.
+	 * @param luceneQuery
+	 * @param pageSize the hits per page, read from each shard of the index when not sorted
+	 * @param sorted true to get the results in the order {@link #indexSearch(String, int, int, String)}
+	 * returns them with the sortBy, false for no particular order, which is cheaper for the cluster
+	 * @param sortBy the same sortBy {@link #indexSearch(String, int, int, String)} takes, null to get the
+	 * sorted results by relevance. It is ignored when they are not sorted
+	 * @param handler
+	 * @return the number of contentlets handed to the handler
+	 * @throws DotDataException
+	 * @throws DotSecurityException
+	 */
+	protected abstract int scroll(String luceneQuery, int pageSize, boolean sorted, String sortBy, ContentletPageHandler handler) throws DotDataException, DotSecurityException;
 	
 	/**
 	 * Returns the contentlets on a given page.  You can pass -1 for languageId if you don't want to query to pull based
@@ -346,6 +362,16 @@ public abstract class ContentletFactory {
 	protected abstract void removeFolderReferences(Folder folder) throws DotDataException, DotSecurityException;
 
     protected abstract Object loadField(String inode, String fieldContentlet) throws DotDataException;
+
+    /**
+     * Writes a text field of a contentlet without touching the rest of its row, so concurrent
+     * changes to the other fields are kept, and removes the contentlet from the cache.
+     * @param inode
+     * @param fieldContentlet the column of the field
+     * @param value
+     * @throws DotDataException
+     */
+    protected abstract void saveField(String inode, String fieldContentlet, String value) throws DotDataException;
     
     protected abstract long indexCount(String query);
     
@@ -0,0 +1,24 @@
+package com.dotmarketing.portlets.contentlet.business;
+
+import java.util.List;
+
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotSecurityException;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+
+/**
+ * Receives the contentlets streamed by {@link ContentletAPI#scroll}, one page at a time.
+ *
+ * @author dotCMS
+ */
+@FunctionalInterface
+public interface ContentletPageHandler {
+
+    /**
+     * Handles the next page of results. The page is not kept once this returns.
+     *
+     * @return false to stop reading pages
+     */
+    boolean handle(List<Contentlet> page) throws DotDataException, DotSecurityException;
+
+}
@@ -62,6 +62,7 @@ public class HostAPIImpl implements HostAPI {
     private ContentletFactory conFac = FactoryLocator.getContentletFactory();
     private HostCache hostCache = CacheLocator.getHostCache();
     private Host systemHost;
+    private static final Object HOST_NAME_MAP_LOCK = new Object();
     private final SystemEventsAPI systemEventsAPI;
 
     public HostAPIImpl() {
@@ -127,8 +128,9 @@ public class HostAPIImpl implements HostAPI {
 
     /**
      * This method takes a server name (from a web request) and maps it to a host.
-     * It is designed to do a lightweight cache lookup to get the mapping from server name -> host
-     * and to prevent unnecessary lucene lookups
+     * Server names are looked up in an in-memory map of all the host names and aliases (see
+     * {@link HostNameMap}), so no search is done per request and names that do not match any host,
+     * like the random ones sent by scanners, resolve to the default host without being cached.
      * @param serverName
      * @param user
      * @param respectFrontendRoles
@@ -138,29 +140,21 @@ public class HostAPIImpl implements HostAPI {
      */
 
     public Host resolveHostName(String serverName, User user, boolean respectFrontendRoles) throws DotDataException, DotSecurityException {
-        Host host = hostCache.getHostByAlias(serverName);
-        
-        if(host == null){
-            User systemUser = APILocator.getUserAPI().getSystemUser();
-            
-            try {
-                host = findByNameNotDefault(serverName, systemUser, respectFrontendRoles);
-            } catch (Exception e) {
-                return findDefaultHost(systemUser, respectFrontendRoles);
-            }
-            
-            if(host == null){
-                host = findByAlias(serverName, systemUser, respectFrontendRoles);
-            }
-            
-            //If no host matches then we set the default host.
-            if(host == null){
-                host = findDefaultHost(systemUser, respectFrontendRoles);
-            }
-            
-            if(host != null){
-                hostCache.addHostAlias(serverName, host);
+        User systemUser = APILocator.getUserAPI().getSystemUser();
+        Host host = null;
+
+        try {
+            String hostId = getHostNameMap().resolve(serverName);
+            if(hostId != null){
+                host = find(hostId, systemUser, respectFrontendRoles);
             }
+        } catch (Exception e) {
+            Logger.debug(HostAPIImpl.class, "Unable to resolve host for " + serverName + ": " + e.getMessage(), e);
+        }
+
+        //If no host matches then we set the default host.
+        if(host == null){
+            host = findDefaultHost(systemUser, respectFrontendRoles);
         }
         
         if(APILocator.getPermissionAPI().doesUserHavePermission(host, PermissionAPI.PERMISSION_READ, user, respectFrontendRoles)){
@@ -172,6 +166,25 @@ public class HostAPIImpl implements HostAPI {
         }
     }
 
+    /**
+     * Returns the map of host names and aliases, building it from the database if it is not cached.
+     * Only one thread builds it, the rest wait for it instead of building their own.
+     */
+    private HostNameMap getHostNameMap() throws DotDataException, DotSecurityException {
+        HostNameMap hostNameMap = hostCache.getHostNameMap();
+        if(hostNameMap == null){
+            synchronized (HOST_NAME_MAP_LOCK) {
+                hostNameMap = hostCache.getHostNameMap();
+                if(hostNameMap == null){
+                    hostNameMap = new HostNameMap(findAllFromDB(APILocator.getUserAPI().getSystemUser(), false), this);
+                    hostCache.setHostNameMap(hostNameMap);
+                    Logger.debug(HostAPIImpl.class, "Built host name map with " + hostNameMap.size() + " names and aliases");
+                }
+            }
+        }
+        return hostNameMap;
+    }
+
     /**
      *
      * @param hostName
@@ -22,4 +22,8 @@ public abstract class HostCache implements Cachable{
 	
 	abstract protected void addHostAlias(String alias, Host host);
 	abstract protected  void clearAliasCache() ;
+
+	abstract protected HostNameMap getHostNameMap();
+
+	abstract protected void setHostNameMap(HostNameMap hostNameMap);
 }
\ No newline at end of file
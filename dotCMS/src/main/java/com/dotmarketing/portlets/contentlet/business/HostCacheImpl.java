@@ -1,5 +1,6 @@
 package com.dotmarketing.portlets.contentlet.business;
 
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
 import com.dotmarketing.beans.Host;
 import com.dotmarketing.business.CacheLocator;
 import com.dotmarketing.business.DotCacheAdministrator;
@@ -14,6 +15,7 @@ import com.dotmarketing.util.UtilMethods;
 public class HostCacheImpl extends HostCache {
 	
 	final String DEFAULT_HOST = "_dotCMSDefaultHost_";
+	final String HOST_NAME_MAP = "_dotCMSHostNameMap_";
 	
 	private DotCacheAdministrator cache;
 	
@@ -22,7 +24,12 @@ public class HostCacheImpl extends HostCache {
     private String[] groupNames = {PRIMARY_GROUP, ALIAS_GROUP};
 
 	public HostCacheImpl() {
-        cache = CacheLocator.getCacheAdministrator();
+        this(CacheLocator.getCacheAdministrator());
+	}
+
+	@VisibleForTesting
+	HostCacheImpl(DotCacheAdministrator cache) {
+        this.cache = cache;
 	}
 
 	@Override
@@ -134,6 +141,25 @@ public class HostCacheImpl extends HostCache {
     }
     
     
+    /**
+     * The map is kept in the alias group, so anything that clears the aliases (any host being
+     * saved, published or removed, locally or in another node) drops it too.
+     */
+    protected HostNameMap getHostNameMap() {
+    	try{
+    		return (HostNameMap) cache.get(HOST_NAME_MAP, ALIAS_GROUP);
+    	}catch (DotCacheException e) {
+			Logger.debug(this, "Cache Entry not found", e);
+		}
+    	return null;
+    }
+
+    protected void setHostNameMap(HostNameMap hostNameMap) {
+    	if(hostNameMap != null){
+    		cache.put(HOST_NAME_MAP, hostNameMap, ALIAS_GROUP);
+    	}
+    }
+
 	protected void clearAliasCache() {
         // clear the alias cache
         cache.flushGroup(ALIAS_GROUP);
@@ -0,0 +1,94 @@
+package com.dotmarketing.portlets.contentlet.business;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.dotmarketing.beans.Host;
+
+/**
+ * Maps every host name and alias in the system to the identifier of its host, so server names can
+ * be resolved in memory. Aliases starting with {@code *.} match any sub-domain of the rest of the
+ * alias, the most specific one wins.
+ *
+ * Host names take precedence over aliases and, when several hosts share an alias, the default host
+ * is preferred, as the search based lookups this replaces did. The map is built from the whole list
+ * of hosts and is never modified afterwards: names that do not match any host are not added, so
+ * random server names can not grow it.
+ *
+ * @author dotCMS
+ */
+public class HostNameMap implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String WILDCARD_PREFIX = "*.";
+
+    private final Map<String, String> names = new HashMap<String, String>();
+    private final Map<String, String> wildcards = new HashMap<String, String>();
+
+    /**
+     * @param hosts all the hosts, but the system host
+     * @param hostAPI used to parse the aliases of each host
+     */
+    HostNameMap(final Collection<Host> hosts, final HostAPI hostAPI) {
+        final Map<String, String> aliases = new HashMap<String, String>();
+        for (Host host : hosts) {
+            if (host.getHostname() != null) {
+                names.put(host.getHostname().toLowerCase(), host.getIdentifier());
+            }
+            final List<String> hostAliases = hostAPI.parseHostAliases(host);
+            for (String alias : hostAliases) {
+                alias = alias.toLowerCase();
+                if (alias.startsWith(WILDCARD_PREFIX)) {
+                    putAlias(wildcards, alias.substring(WILDCARD_PREFIX.length()), host);
+                } else {
+                    putAlias(aliases, alias, host);
+                }
+            }
+        }
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            if (!names.containsKey(alias.getKey())) {
+                names.put(alias.getKey(), alias.getValue());
+            }
+        }
+    }
+
+    private void putAlias(final Map<String, String> map, final String alias, final Host host) {
+        if (!map.containsKey(alias) || host.isDefault()) {
+            map.put(alias, host.getIdentifier());
+        }
+    }
+
+    /**
+     * Returns the identifier of the host the server name belongs to, or null if it does not match
+     * any host name or alias.
+     */
+    public String resolve(final String serverName) {
+        if (serverName == null) {
+            return null;
+        }
+        String name = serverName.toLowerCase();
+        final String hostId = names.get(name);
+        if (hostId != null || wildcards.isEmpty()) {
+            return hostId;
+        }
+        int dot = name.indexOf('.');
+        while (dot >= 0) {
+            name = name.substring(dot + 1);
+            final String wildcardHostId = wildcards.get(name);
+            if (wildcardHostId != null) {
+                return wildcardHostId;
+            }
+            dot = name.indexOf('.');
+        }
+        return null;
+    }
+
+    public int size() {
+        return names.size() + wildcards.size();
+    }
+
+}
@@ -6,6 +6,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -339,6 +340,10 @@ public class FileAssetAPIImpl implements FileAssetAPI {
 			    File oldFile = fileAssetCont.getBinary(BINARY_FIELD);
 				File newFile = new File(oldFile.getPath().substring(0,oldFile.getPath().indexOf(oldFile.getName()))+newName+"."+ext);
 				try {
+					// the binary can be linked from other content, never write into it
+					if(!newFile.equals(oldFile)) {
+						Files.deleteIfExists(newFile.toPath());
+					}
 					FileUtils.copyFile(oldFile, newFile);
 					fileAssetCont.setInode(null);
 					fileAssetCont.setFolder(folder.getInode());
@@ -590,6 +590,7 @@ public class FolderFactoryImpl extends FolderFactory {
 
 		IdentifierAPI identAPI = APILocator.getIdentifierAPI();
 		Identifier folderId = identAPI.find(folder.getIdentifier());
+		final String oldHostId = folderId.getHostId();
 
         //Clean up the cache
         if ( folder.isShowOnMenu() ) {
@@ -655,6 +656,9 @@ public class FolderFactoryImpl extends FolderFactory {
 		}
 
 		CacheLocator.getIdentifierCache().removeFromCacheByIdentifier(folderId.getId());
+		// the #dotParse paths under the folder change
+		CacheLocator.getDotParseCache().removeHost(oldHostId);
+		CacheLocator.getDotParseCache().removeHost(newParentHostId);
 
 
 		
@@ -845,6 +849,8 @@ public class FolderFactoryImpl extends FolderFactory {
                 for(String id : childIdents) {
                     CacheLocator.getIdentifierCache().removeFromCacheByIdentifier(id);
                 }
+                // the #dotParse paths under the folder change
+                CacheLocator.getDotParseCache().removeHost(ident.getHostId());
             }
 		});
 
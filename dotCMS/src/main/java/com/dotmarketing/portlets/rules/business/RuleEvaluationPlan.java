@@ -0,0 +1,205 @@
+package com.dotmarketing.portlets.rules.business;
+
+import com.dotcms.repackage.com.google.common.cache.Cache;
+import com.dotmarketing.portlets.rules.exception.RuleEngineException;
+import com.dotmarketing.portlets.rules.model.Condition;
+import com.dotmarketing.portlets.rules.model.ConditionGroup;
+import com.dotmarketing.portlets.rules.model.LogicalOperator;
+import com.dotmarketing.portlets.rules.model.Rule;
+import com.dotmarketing.portlets.rules.model.RuleAction;
+import com.dotmarketing.portlets.rules.util.LogicalCondition;
+import com.dotmarketing.portlets.rules.util.LogicalStatement;
+import com.dotmarketing.util.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The rules of a parent for a given fire-on, validated once and ready to be evaluated. Each rule is
+ * compiled once per version: the compiled rules are kept in a bounded cache keyed by the rule id and
+ * the modification dates of the rule and its groups, conditions and actions, so a plan can be put
+ * together from the rules cache on every request without validating or sorting anything again, even
+ * when the cache provider hands back a new copy of the rules each time.
+ *
+ * Rules that are not valid are logged once per version and left out of the plan. Inside a condition group whose
+ * conditions are all joined by the same operator, the conditions are sorted by
+ * {@link com.dotmarketing.portlets.rules.conditionlet.Conditionlet#getEvaluationCost()}, so the
+ * cheap ones decide the group and the expensive ones (GeoIP lookups, User-Agent parsing) are only
+ * evaluated when needed. Groups that mix operators keep their order, as it defines the precedence.
+ *
+ * @author dotCMS
+ */
+final class RuleEvaluationPlan {
+
+    private final List<CompiledRule> rules;
+
+    private RuleEvaluationPlan(List<CompiledRule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Builds the plan for the given rules, compiling only the rules that are not in the given cache
+     * yet.
+     */
+    static RuleEvaluationPlan compile(Set<Rule> source, Cache<String, CompiledRule> compiledRules) {
+        List<CompiledRule> rules = new ArrayList<>(source.size());
+        for (Rule rule : source) {
+            String key = versionKey(rule);
+            CompiledRule compiled = compiledRules.getIfPresent(key);
+            if (compiled == null) {
+                compiled = compile(rule);
+                compiledRules.put(key, compiled);
+            }
+            if (compiled.isValid()) {
+                rules.add(compiled);
+            }
+        }
+        return new RuleEvaluationPlan(Collections.unmodifiableList(rules));
+    }
+
+    private static CompiledRule compile(Rule rule) {
+        try {
+            rule.checkValid();
+            return new CompiledRule(rule, true);
+        } catch (RuleEngineException e) {
+            Logger.error(RuleEvaluationPlan.class, "Rule is not valid and will not be fired. Rule ID: " + rule.getId(), e);
+            return new CompiledRule(rule, false);
+        }
+    }
+
+    /**
+     * Identifies a version of the rule: its id and the modification dates of the rule and of
+     * everything it is made of, as saving a condition or an action does not touch the rule.
+     */
+    static String versionKey(Rule rule) {
+        StringBuilder key = new StringBuilder(rule.getId()).append(':').append(time(rule.getModDate()));
+        for (ConditionGroup group : rule.getGroups()) {
+            key.append(";g").append(group.getId()).append(':').append(time(group.getModDate()));
+            for (Condition condition : group.getConditions()) {
+                key.append(",c").append(condition.getId()).append(':').append(time(condition.getModDate()));
+            }
+        }
+        List<RuleAction> actions = rule.getRuleActions();
+        if (actions != null) {
+            for (RuleAction action : actions) {
+                key.append(";a").append(action.getId()).append(':').append(time(action.getModDate()));
+            }
+        }
+        return key.toString();
+    }
+
+    private static long time(Date date) {
+        return date == null ? 0 : date.getTime();
+    }
+
+    List<CompiledRule> getRules() {
+        return rules;
+    }
+
+    static final class CompiledRule {
+
+        private final Rule rule;
+        private final boolean valid;
+        private final List<CompiledGroup> groups;
+
+        private CompiledRule(Rule rule, boolean valid) {
+            this.rule = rule;
+            this.valid = valid;
+            List<CompiledGroup> groups = new ArrayList<>();
+            if (valid) {
+                for (ConditionGroup group : rule.getGroups()) {
+                    groups.add(new CompiledGroup(group));
+                }
+            }
+            this.groups = groups;
+        }
+
+        Rule getRule() {
+            return rule;
+        }
+
+        boolean isValid() {
+            return valid;
+        }
+
+        /**
+         * Evaluates the conditions of the rule and, if they are met, runs its actions.
+         *
+         * @return whether the conditions were met
+         */
+        boolean evaluate(HttpServletRequest req, HttpServletResponse res) {
+            LogicalStatement statement = new LogicalStatement();
+            for (CompiledGroup group : groups) {
+                LogicalCondition condition = () -> group.evaluate(req, res);
+                if (group.group.getOperator() == LogicalOperator.AND) {
+                    statement.and(condition);
+                } else {
+                    statement.or(condition);
+                }
+            }
+            if (statement.evaluate()) {
+                rule.evaluateActions(req, res);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class CompiledGroup {
+
+        private final ConditionGroup group;
+        private final List<Condition> conditions;
+        private final LogicalOperator operator;
+
+        private CompiledGroup(ConditionGroup group) {
+            this.group = group;
+            List<Condition> conditions = new ArrayList<>(group.getConditions());
+            this.operator = commonOperator(conditions);
+            if (operator != null) {
+                conditions.sort(Comparator.comparingInt(condition -> condition.getConditionlet().getEvaluationCost()));
+            }
+            this.conditions = conditions;
+        }
+
+        /**
+         * The operator joining all the conditions, or null if they mix operators. The operator of
+         * the first condition joins it to nothing, so it is not taken into account.
+         */
+        private static LogicalOperator commonOperator(List<Condition> conditions) {
+            if (conditions.size() < 2) {
+                return LogicalOperator.AND;
+            }
+            LogicalOperator operator = conditions.get(1).getOperator();
+            for (int i = 2; i < conditions.size(); i++) {
+                if (conditions.get(i).getOperator() != operator) {
+                    return null;
+                }
+            }
+            return operator;
+        }
+
+        private boolean evaluate(HttpServletRequest req, HttpServletResponse res) {
+            if (operator == null) {
+                return group.evaluate(req, res, conditions);
+            }
+            LogicalStatement statement = new LogicalStatement();
+            for (Condition condition : conditions) {
+                LogicalCondition logicalCondition = () -> condition.evaluate(req, res);
+                if (operator == LogicalOperator.AND) {
+                    statement.and(logicalCondition);
+                } else {
+                    statement.or(logicalCondition);
+                }
+            }
+            return statement.evaluate();
+        }
+    }
+
+}
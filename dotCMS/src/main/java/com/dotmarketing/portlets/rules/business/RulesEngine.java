@@ -1,6 +1,8 @@
 package com.dotmarketing.portlets.rules.business;
 
 import com.dotcms.enterprise.LicenseUtil;
+import com.dotcms.repackage.com.google.common.cache.Cache;
+import com.dotcms.repackage.com.google.common.cache.CacheBuilder;
 import com.dotmarketing.beans.Host;
 import com.dotmarketing.business.APILocator;
 import com.dotmarketing.business.Ruleable;
@@ -17,6 +19,9 @@ import com.dotmarketing.util.WebKeys;
 import com.liferay.portal.model.User;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -44,6 +49,22 @@ public final class RulesEngine {
 	
 	private static final String SKIP_RULES_EXECUTION = "skip"; 
 
+	/**
+	 * Compiled rules by rule version, see {@link RuleEvaluationPlan}. Old versions are evicted
+	 * as the cache fills up.
+	 */
+	private static final Cache<String, RuleEvaluationPlan.CompiledRule> compiledRules = CacheBuilder.newBuilder()
+			.maximumSize(Config.getIntProperty("RULES_COMPILED_CACHE_SIZE", 1000))
+			.build();
+
+	/**
+	 * Evaluation times by rule identifier, bounded like the compiled rules so the timings of
+	 * rules that are no longer evaluated are evicted as well.
+	 */
+	private static final Cache<String, RuleTiming> timings = CacheBuilder.newBuilder()
+			.maximumSize(Config.getIntProperty("RULES_COMPILED_CACHE_SIZE", 1000))
+			.build();
+
 	/**
 	 * Triggers a specific category of Rules associated to the site (Host) based
 	 * on the requested resource.
@@ -108,11 +129,14 @@ public final class RulesEngine {
 
 			Set<Rule> rules = APILocator.getRulesAPI().getRulesByParentFireOn(parent.getIdentifier(), systemUser, false,
 					fireOn);
-            for (Rule rule : rules) {
+			RuleEvaluationPlan plan = RuleEvaluationPlan.compile(rules, compiledRules);
+            for (RuleEvaluationPlan.CompiledRule compiledRule : plan.getRules()) {
+                Rule rule = compiledRule.getRule();
                 try {
-                	long before = System.currentTimeMillis();
-                    rule.checkValid(); // @todo ggranum: this should actually be done on writing to the DB, or at worst reading from.
-                    boolean evaled = rule.evaluate(req, res);
+                	long before = System.nanoTime();
+                    boolean evaled = compiledRule.evaluate(req, res);
+                    long elapsed = System.nanoTime() - before;
+                    recordTiming(rule, elapsed);
 
                     if(res.isCommitted()) {
                       return;
@@ -130,8 +154,7 @@ public final class RulesEngine {
 						
 						trackFiredRule(rCopy, req);
 					}
-                    long after = System.currentTimeMillis();
-        			if((after - before) > SLOW_RULE_LOG_MIN) {
+        			if(TimeUnit.NANOSECONDS.toMillis(elapsed) > SLOW_RULE_LOG_MIN) {
 						Logger.warn(RulesEngine.class, "Rule ID: " + rule.getId()
 								+ " is running too slow. The rule is fired on: " + rule.getFireOn().name());
         			}
@@ -148,6 +171,63 @@ public final class RulesEngine {
         }
     }
 
+	private static void recordTiming(Rule rule, long nanos) {
+		ConcurrentMap<String, RuleTiming> byRule = timings.asMap();
+		RuleTiming timing = byRule.get(rule.getId());
+		if (timing == null) {
+			byRule.putIfAbsent(rule.getId(), new RuleTiming());
+			timing = byRule.get(rule.getId());
+		}
+		if (timing != null) {
+			timing.record(nanos);
+		}
+	}
+
+	/**
+	 * Returns the evaluation times of the rules evaluated since startup, by
+	 * rule identifier. Only the most recently evaluated rules are kept.
+	 */
+	public static Map<String, RuleTiming> getRuleTimings() {
+		return Collections.unmodifiableMap(timings.asMap());
+	}
+
+	/**
+	 * Number of evaluations, total and maximum time spent evaluating a rule,
+	 * including its actions.
+	 */
+	public static final class RuleTiming {
+
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		private void record(long nanos) {
+			count.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+			long max = maxNanos.get();
+			while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+				max = maxNanos.get();
+			}
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		public long getTotalTimeMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(totalNanos.get());
+		}
+
+		public long getMaxTimeMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+		}
+
+		public double getAverageTimeMillis() {
+			long evaluations = count.get();
+			return evaluations == 0 ? 0 : totalNanos.get() / (evaluations * 1000000d);
+		}
+	}
+
 	/**
 	 * Keeps track of the rules that have been fired for a given HTTP request.
 	 * This will allow Web developers to access the list of rules that were
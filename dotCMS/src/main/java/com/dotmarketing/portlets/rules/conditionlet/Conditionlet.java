@@ -8,7 +8,19 @@ public abstract class Conditionlet<T extends RuleComponentInstance> extends Rule
 
     public static final String COMPARISON_KEY = "comparison";
 
+    public static final int DEFAULT_COST = 1;
+    public static final int USER_AGENT_COST = 5;
+    public static final int GEO_LOOKUP_COST = 10;
+
     protected Conditionlet(String i18nKey, ParameterDefinition... parameterDefinitions) {
         super(i18nKey, parameterDefinitions);
     }
+
+    /**
+     * Relative cost of evaluating this conditionlet. Conditions joined by the same operator are
+     * evaluated cheapest first, so the expensive ones are skipped when the result is already known.
+     */
+    public int getEvaluationCost() {
+        return DEFAULT_COST;
+    }
 }
@@ -4,7 +4,6 @@ import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
 import com.dotcms.repackage.com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.dotcms.repackage.org.apache.logging.log4j.util.Strings;
 import com.dotcms.util.GeoIp2CityDbUtil;
-import com.dotcms.util.HttpRequestDataUtil;
 import com.dotmarketing.portlets.rules.RuleComponentInstance;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotPresentException;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotSupportedException;
@@ -96,7 +95,7 @@ public class DateTimeConditionlet extends Conditionlet<DateTimeConditionlet.Inst
         LocalDateTime localDateTime = null;
         InetAddress address;
         try {
-            address = HttpRequestDataUtil.getIpAddress(request);
+            address = RuleEvaluationFacts.of(request).getIpAddress();
         } catch (UnknownHostException e) {
             throw new RuleEvaluationFailedException(e, "Unknown host.");
         }
@@ -114,6 +113,11 @@ public class DateTimeConditionlet extends Conditionlet<DateTimeConditionlet.Inst
         return localDateTime;
     }
 
+    @Override
+    public int getEvaluationCost() {
+        return GEO_LOOKUP_COST;
+    }
+
     @Override
     public Instance instanceFrom(Map<String, ParameterModel> parameters) {
         return new Instance(this, parameters);
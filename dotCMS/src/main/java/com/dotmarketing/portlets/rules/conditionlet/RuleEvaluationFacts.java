@@ -0,0 +1,65 @@
+package com.dotmarketing.portlets.rules.conditionlet;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.dotcms.util.HttpRequestDataUtil;
+import com.dotmarketing.util.WebKeys;
+
+import eu.bitwalker.useragentutils.UserAgent;
+
+/**
+ * Values derived from the request that several conditionlets need, computed the first time one of
+ * them asks for it and kept as a request attribute. The rules fired on every request, once per
+ * visit and once per visitor run against the same request, so they all share the same client IP
+ * address and parsed {@code User-Agent} header instead of resolving them once per condition.
+ *
+ * @author dotCMS
+ */
+public final class RuleEvaluationFacts {
+
+    private final HttpServletRequest request;
+
+    private InetAddress ipAddress;
+    private UserAgent userAgent;
+
+    private RuleEvaluationFacts(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * Returns the facts of the given request, creating them if this is the first conditionlet
+     * evaluated for it.
+     */
+    public static RuleEvaluationFacts of(HttpServletRequest request) {
+        RuleEvaluationFacts facts = (RuleEvaluationFacts) request.getAttribute(WebKeys.RULES_ENGINE_FACTS);
+        if (facts == null) {
+            facts = new RuleEvaluationFacts(request);
+            request.setAttribute(WebKeys.RULES_ENGINE_FACTS, facts);
+        }
+        return facts;
+    }
+
+    /**
+     * The client IP address, as resolved by {@link HttpRequestDataUtil#getIpAddress(HttpServletRequest)}.
+     */
+    public InetAddress getIpAddress() throws UnknownHostException {
+        if (ipAddress == null) {
+            ipAddress = HttpRequestDataUtil.getIpAddress(request);
+        }
+        return ipAddress;
+    }
+
+    /**
+     * The parsed {@code User-Agent} header of the request.
+     */
+    public UserAgent getUserAgent() {
+        if (userAgent == null) {
+            userAgent = UserAgent.parseUserAgentString(request.getHeader("User-Agent"));
+        }
+        return userAgent;
+    }
+
+}
@@ -80,8 +80,7 @@ public class UsersBrowserConditionlet extends Conditionlet<UsersBrowserCondition
     private String lookupBrowser(HttpServletRequest request, Instance instance) {
         String browser = "unknown";
         try {
-            String userAgentInfo = request.getHeader("User-Agent");
-            UserAgent agent = UserAgent.parseUserAgentString(userAgentInfo);
+            UserAgent agent = RuleEvaluationFacts.of(request).getUserAgent();
             if (agent != null && agent.getBrowser() != null) {
                 browser = agent.getBrowser().getName().replaceAll("[0-9]*$", "").trim();//remove version number of the browser name e.g Firefox4
                 if(browser.toLowerCase().contains(instance.browser.toLowerCase())){// avoid issues with the device e.g Chrome_Mobile
@@ -94,6 +93,11 @@ public class UsersBrowserConditionlet extends Conditionlet<UsersBrowserCondition
         return browser;
     }
     
+    @Override
+    public int getEvaluationCost() {
+        return USER_AGENT_COST;
+    }
+
     @Override
     public Instance instanceFrom(Map<String, ParameterModel> parameters) {
         return new Instance(this, parameters);
@@ -3,7 +3,6 @@ package com.dotmarketing.portlets.rules.conditionlet;
 import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
 import com.dotcms.repackage.com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.dotcms.util.GeoIp2CityDbUtil;
-import com.dotcms.util.HttpRequestDataUtil;
 import com.dotmarketing.portlets.rules.RuleComponentInstance;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotPresentException;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotSupportedException;
@@ -315,7 +314,7 @@ public class UsersCountryConditionlet extends Conditionlet<UsersCountryCondition
         String country = "unknown";
         InetAddress address;
         try {
-            address = HttpRequestDataUtil.getIpAddress(request);
+            address = RuleEvaluationFacts.of(request).getIpAddress();
         } catch (UnknownHostException e) {
             throw new RuleEvaluationFailedException(e, "Unknown host.");
         }
@@ -328,6 +327,11 @@ public class UsersCountryConditionlet extends Conditionlet<UsersCountryCondition
         return country;
     }
 
+    @Override
+    public int getEvaluationCost() {
+        return GEO_LOOKUP_COST;
+    }
+
     @Override
     public Instance instanceFrom(Map<String, ParameterModel> parameters) {
         return new Instance(this, parameters);
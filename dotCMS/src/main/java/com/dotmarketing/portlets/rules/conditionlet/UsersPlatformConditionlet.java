@@ -75,8 +75,7 @@ public class UsersPlatformConditionlet extends Conditionlet<UsersPlatformConditi
     private String lookupPlatform(HttpServletRequest request) {
         String platform = "unknown";
         try {
-            String userAgentInfo = request.getHeader("User-Agent");
-            UserAgent agent = UserAgent.parseUserAgentString(userAgentInfo);
+            UserAgent agent = RuleEvaluationFacts.of(request).getUserAgent();
             if (agent.getOperatingSystem() != null) {
                 platform = agent.getOperatingSystem().getDeviceType().name();
             }
@@ -86,6 +85,11 @@ public class UsersPlatformConditionlet extends Conditionlet<UsersPlatformConditi
         return platform;
     }
 
+    @Override
+    public int getEvaluationCost() {
+        return USER_AGENT_COST;
+    }
+
     @Override
     public Instance instanceFrom(Map<String, ParameterModel> parameters) {
         return new Instance(this, parameters);
@@ -3,7 +3,6 @@ package com.dotmarketing.portlets.rules.conditionlet;
 import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
 import com.dotcms.repackage.com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.dotcms.util.GeoIp2CityDbUtil;
-import com.dotcms.util.HttpRequestDataUtil;
 import com.dotmarketing.portlets.rules.RuleComponentInstance;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotPresentException;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotSupportedException;
@@ -109,7 +108,7 @@ public class VisitorsGeolocationConditionlet extends Conditionlet<VisitorsGeoloc
 
     private Location lookupLocation(HttpServletRequest request) {
         try {
-            InetAddress address = HttpRequestDataUtil.getIpAddress(request);
+            InetAddress address = RuleEvaluationFacts.of(request).getIpAddress();
             String ipAddress = address.getHostAddress();
             return geoIp2Util.getLocationByIp(ipAddress);
         } catch (UnknownHostException e) {
@@ -119,6 +118,11 @@ public class VisitorsGeolocationConditionlet extends Conditionlet<VisitorsGeoloc
         }
     }
 
+    @Override
+    public int getEvaluationCost() {
+        return GEO_LOOKUP_COST;
+    }
+
     @Override
     public Instance instanceFrom(Map<String, ParameterModel> parameters) {
         return new Instance(this, parameters);
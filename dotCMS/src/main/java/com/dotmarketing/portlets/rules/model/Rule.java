@@ -281,6 +281,13 @@ public class Rule implements Permissionable, Serializable {
         return false;
     }
 
+    /**
+     * Runs the actions of this rule, to be used once its conditions were evaluated to true.
+     */
+    public void evaluateActions(HttpServletRequest req, HttpServletResponse res) {
+        this.evaluateActions(req, res, getRuleActions());
+    }
+
     private void evaluateActions(HttpServletRequest req, HttpServletResponse res, List<RuleAction> actions) {
         for (RuleAction action : actions) {
             try {
@@ -16,6 +16,7 @@ import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 
 import com.dotmarketing.business.APILocator;
+import com.dotmarketing.portlets.contentlet.business.BinaryBlobStore;
 import com.dotmarketing.util.Config;
 import com.dotmarketing.util.Constants;
 import com.dotmarketing.util.Logger;
@@ -24,6 +25,7 @@ import com.liferay.util.FileUtil;
 /**
  * This job will clean up the binary folder created under the binary directory.  It will cleanup files older then 12 hours by default.
  * This can be over ridden via the property BINARY_CLEANUP_FILE_LIFE_HOURS 
+ * It also deletes the stored binaries no content links to anymore, see {@link BinaryBlobStore}.
  * The DotScheduler will also look for BINARY_CLEANUP_JOB_CRON_EXPRESSION to see if it should start the job or not. 
  * @author BayLogic
  * @since 
@@ -49,6 +51,12 @@ public class BinaryCleanupJob implements Job {
 		Calendar c = Calendar.getInstance();
 		c.add(Calendar.HOUR_OF_DAY, -hours);
 		Date dDate = c.getTime();
+
+		int blobs = BinaryBlobStore.getInstance().deleteUnreferenced(dDate);
+		if(blobs > 0){
+			Logger.info(this, "Deleted " + blobs + " unreferenced binaries");
+		}
+
 		File tempDir = null;
 		try {
 			tempDir = getTempBinaryDir();
@@ -8,7 +8,10 @@ import com.dotmarketing.business.DotStateException;
 import com.dotmarketing.cache.FieldsCache;
 import com.dotmarketing.comparators.ContentComparator;
 import com.dotmarketing.comparators.WebAssetSortOrderComparator;
+import com.dotmarketing.db.FlushCacheAfterReindexRunnable;
+import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotHibernateException;
 import com.dotmarketing.exception.DotSecurityException;
 import com.dotmarketing.portlets.categories.business.CategoryAPI;
 import com.dotmarketing.portlets.categories.model.Category;
@@ -173,10 +176,24 @@ public class ContentletServices {
 		}
 		if(content != null && content.isKeyValue()){
 			//remove from cache
-			CacheLocator.getKeyValueCache().remove(content);
+			invalidateKeyValue(content);
 		}
 	}
 
+	/**
+	 * Removes the Key/Value content from the cache once the transaction is committed and the content
+	 * is indexed. The values are loaded from the index, so removing them any earlier lets a render
+	 * load the old ones again and keep them in the cache.
+	 */
+	public static void invalidateKeyValue(final Contentlet content) throws DotHibernateException {
+		HibernateUtil.addCommitListener(content.getInode() + "-key-value-cache", new FlushCacheAfterReindexRunnable() {
+			@Override
+			public void run() {
+				CacheLocator.getKeyValueCache().remove(content);
+			}
+		});
+	}
+
 	public static InputStream buildVelocity(Contentlet content, Identifier identifier, boolean EDIT_MODE) throws DotDataException, DotSecurityException {
 		InputStream result;
 		ContentletAPI conAPI= APILocator.getContentletAPI();
@@ -48,6 +48,7 @@ import com.dotmarketing.cms.factories.PublicEncryptionFactory;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotRuntimeException;
 import com.dotmarketing.exception.DotSecurityException;
+import com.dotmarketing.filters.compression.GZIPUtil;
 import com.dotmarketing.image.reader.SVGImageReaderSpi;
 import com.dotmarketing.portlets.contentlet.business.BinaryContentExporter;
 import com.dotmarketing.portlets.contentlet.business.BinaryContentExporterException;
@@ -375,13 +376,26 @@ public class BinaryExporterServlet extends HttpServlet {
 			if (mimeType == null) {
 				mimeType = "application/octet-stream";
 			}
+
+			// text files are sent from a copy compressed once instead of compressing them on every request
+			boolean download = req.getParameter("dotcms_force_download") != null || req.getParameter("force_download") != null;
+			File gzFile = null;
+			if (!download && inputFile != null && data.getDataFile().equals(inputFile) && UtilMethods.isSet(assetInode) && assetInode.length() > 1
+					&& GZIPUtil.isPrecompressible(mimeType, _fileLength)) {
+				// the same url is sent compressed or not, caches have to keep them apart
+				resp.addHeader("Vary", "Accept-Encoding");
+				if (GZIPUtil.acceptsGzip(req) && !UtilMethods.isSet(req.getHeader("range"))) {
+					gzFile = GZIPUtil.getPrecompressedFile(data.getDataFile(), assetInode, fieldVarName);
+				}
+			}
+			long _contentLength = gzFile != null ? gzFile.length() : _fileLength;
 			
 			resp.setHeader("Content-Disposition", "inline; filename=\"" + UtilMethods.encodeURL(downloadName) + "\"" );
-			resp.setHeader("Content-Length", String.valueOf(_fileLength));
+			resp.setHeader("Content-Length", String.valueOf(_contentLength));
 
 			resp.setContentType(mimeType);
 			
-			if (req.getParameter("dotcms_force_download") != null || req.getParameter("force_download") != null) {
+			if (download) {
 
 				// if we are downloading a jpeg version of a png or gif
 				String x = UtilMethods.getFileExtension(downloadName);
@@ -420,6 +434,10 @@ public class BinaryExporterServlet extends HttpServlet {
 
 					
 					String _eTag = "dot:" + assetInode + ":" + _lastModified + ":" + _fileLength;
+					if (gzFile != null) {
+						// the compressed copy is another representation of the file
+						_eTag = GZIPUtil.getPrecompressedETag(_eTag);
+					}
 
 					SimpleDateFormat httpDate = new SimpleDateFormat(Constants.RFC2822_FORMAT);
 					httpDate.setTimeZone(TimeZone.getTimeZone("GMT"));
@@ -441,7 +459,7 @@ public class BinaryExporterServlet extends HttpServlet {
 		            }
 
 		            resp.setHeader("Last-Modified", httpDate.format(_lastModifiedDate));
-		            resp.setHeader("Content-Length", String.valueOf(_fileLength));
+		            resp.setHeader("Content-Length", String.valueOf(_contentLength));
 		            resp.setHeader("ETag", _eTag);
 
                 /* if we are in ADMIN MODE, don't cache */
@@ -531,7 +549,12 @@ public class BinaryExporterServlet extends HttpServlet {
 
 				} 
 			}else{
-				is = new FileInputStream(data.getDataFile());
+				File dataFile = data.getDataFile();
+				if (gzFile != null) {
+					dataFile = gzFile;
+					resp.setHeader("Content-Encoding", "gzip");
+				}
+				is = new FileInputStream(dataFile);
 	            int count = 0;
 	            byte[] buffer = new byte[4096];
 	            out = resp.getOutputStream();
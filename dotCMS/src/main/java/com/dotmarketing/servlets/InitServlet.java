@@ -28,6 +28,7 @@ import com.dotmarketing.portlets.contentlet.business.HostAPI;
 import com.dotmarketing.portlets.languagesmanager.business.LanguageAPI;
 import com.dotmarketing.portlets.languagesmanager.model.Language;
 import com.dotmarketing.quartz.job.ShutdownHookThread;
+import com.dotmarketing.startup.StartupSteps;
 import com.dotmarketing.util.Config;
 import com.dotmarketing.util.ConfigUtils;
 import com.dotmarketing.util.Logger;
@@ -148,131 +149,126 @@ public class InitServlet extends HttpServlet {
 
         Logger.info(this, "");
 
-        //Check and start the ES Content Store
-        APILocator.getContentletIndexAPI().checkAndInitialiazeIndex();
-        Logger.info(this, "");
-
-        Logger.info(this, "");
-
-        String classPath = config.getServletContext().getRealPath("/WEB-INF/lib");
-
-        new PluginLoader().loadPlugins(config.getServletContext().getRealPath("/"),classPath);
-
-
-
-
-
-
-
-
-
         int mc = Config.getIntProperty("lucene_max_clause_count", 4096);
         BooleanQuery.setMaxClauseCount(mc);
 
-        ImportAuditUtil.voidValidateAuditTableOnStartup();
+        // Each step runs as soon as the steps it depends on are done
+        final StartupSteps steps = new StartupSteps("InitServlet");
+
+        //Check and start the ES Content Store
+        steps.add("index", () -> APILocator.getContentletIndexAPI().checkAndInitialiazeIndex());
 
-        // Set up the database
-//        try {
-//            DotCMSInitDb.InitializeDb();
-//        } catch (DotDataException e1) {
-//            throw new ServletException(e1);
-//        }
+        // the plugins deploy classes usually create structures and content, so they need the index
+        steps.add("plugins", () -> new PluginLoader().loadPlugins(config.getServletContext().getRealPath("/"),
+                config.getServletContext().getRealPath("/WEB-INF/lib")), "index");
 
+        // Create the GeoIP2 database reader on startup since it takes around 2
+        // seconds to load the file. If the prop is not set, just move on
+        if (UtilMethods.isSet(Config.getStringProperty(
+                "GEOIP2_CITY_DATABASE_PATH", ""))) {
+            steps.add("geoIp", () -> {
+                try {
+                    GeoIp2CityDbUtil geoIp2Util = GeoIp2CityDbUtil.getInstance();
+                    // Validation query to initialize the GeoIP DB
+                    geoIp2Util.getSubdivisionIsoCode("www.google.com");
+                    Logger.info(this,
+                            "Local GeoIP2 DB connection established successfully!");
+                } catch (IOException | GeoIp2Exception | DotRuntimeException e) {
+                    Logger.info(this,
+                            "Could not read from GeoIP2 DB: " + e.getMessage());
+                }
+            });
+        }
 
+        steps.add("importAudit", () -> ImportAuditUtil.voidValidateAuditTableOnStartup());
 
         // set the application context for use all over the site
-        Logger.debug(this, "");
-        Logger.debug(this, "InitServlet: Setting Application Context!!!!!!");
-
-        // creates the velocity folders to make sure they are there
-        new java.io.File(ConfigUtils.getDynamicVelocityPath() + File.separator + "live").mkdirs();
-        new java.io.File(ConfigUtils.getDynamicVelocityPath() + File.separator + "working").mkdirs();
+        steps.add("folders", () -> {
+            // creates the velocity folders to make sure they are there
+            new java.io.File(ConfigUtils.getDynamicVelocityPath() + File.separator + "live").mkdirs();
+            new java.io.File(ConfigUtils.getDynamicVelocityPath() + File.separator + "working").mkdirs();
+
+            //Used com.dotmarketing.viewtools.NavigationWebAPI
+            String velocityRootPath = ConfigUtils.getDynamicVelocityPath() + java.io.File.separator;
+            String menuVLTPath = velocityRootPath + "menus" + java.io.File.separator;
+
+            java.io.File fileFolder = new java.io.File(menuVLTPath);
+            if (!fileFolder.exists()) {
+                fileFolder.mkdirs();
+            }
 
-        //Used com.dotmarketing.viewtools.NavigationWebAPI
-        String velocityRootPath = ConfigUtils.getDynamicVelocityPath() + java.io.File.separator;
-        String menuVLTPath = velocityRootPath + "menus" + java.io.File.separator;
+            if(Config.getBooleanProperty("CACHE_DISK_SHOULD_DELETE_NAVTOOL", false)){
+                // deletes all menues that have been generated
+                RefreshMenus.deleteMenus();
+                CacheLocator.getCacheAdministrator().flushGroupLocalOnly("navCache", false);
+            }
+        }, "plugins");
 
-        java.io.File fileFolder = new java.io.File(menuVLTPath);
-        if (!fileFolder.exists()) {
-            fileFolder.mkdirs();
-        }
+        steps.add("language", () -> {
+            Language language = langAPI.getDefaultLanguage();
 
-        if(Config.getBooleanProperty("CACHE_DISK_SHOULD_DELETE_NAVTOOL", false)){
-            // deletes all menues that have been generated
-            RefreshMenus.deleteMenus();
-            CacheLocator.getCacheAdministrator().flushGroupLocalOnly("navCache", false);
-        }
+            if (language.getId() == 0) {
+                Logger.debug(this, "Creating Default Language");
+                langAPI.createDefaultLanguage();
+            }
+        }, "plugins");
 
         //Initialize the Cached Vanity URL cache
-        VanityUrlServices.getInstance().initializeVanityUrlCache();
+        steps.add("vanityUrls", () -> VanityUrlServices.getInstance().initializeVanityUrlCache(), "index", "language");
 
-        Language language = langAPI.getDefaultLanguage();
+        //Just get the Engine to make sure it gets inited on time before the first request
+        steps.add("velocity", () -> VelocityUtil.getEngine(), "plugins");
 
-        if (language.getId() == 0) {
-            Logger.debug(this, "Creating Default Language");
-            langAPI.createDefaultLanguage();
-        }
+        //Ensure the system host is in the system
+        steps.add("systemHost", () -> {
+            try {
+                APILocator.getHostAPI().findSystemHost(APILocator.getUserAPI().getSystemUser(), false);
+            } catch (DotDataException | DotSecurityException e) {
+                Logger.fatal(InitServlet.class, e.getMessage(), e);
+                throw new ServletException("Unable to initialize system host", e);
+            }
 
-        try {
-            DotInitScheduler.start();
-        } catch (SchedulerException e2) {
-            Logger.fatal(InitServlet.class, e2.getMessage(), e2);
-            throw new ServletException(e2.getMessage(), e2);
-        }
+            try {
+                APILocator.getFolderAPI().findSystemFolder();
+            } catch (DotDataException e1) {
+                Logger.error(InitServlet.class, e1.getMessage(), e1);
+                throw new ServletException("Unable to initialize system folder", e1);
+            }
+        }, "index", "language");
 
-        //Adding the shutdown hook
-        Runtime.getRuntime().addShutdownHook(new ShutdownHookThread());
+        steps.add("scheduler", () -> {
+            try {
+                DotInitScheduler.start();
+            } catch (SchedulerException e2) {
+                Logger.fatal(InitServlet.class, e2.getMessage(), e2);
+                throw new ServletException(e2.getMessage(), e2);
+            }
+        }, "index", "importAudit", "folders", "vanityUrls", "velocity", "systemHost");
 
         /*
-         * Delete the files out of the temp dir (this gets huge)
+         * Delete the files out of the temp dir (this gets huge), last, so no other step is writing to it
          */
+        steps.add("tempFiles", () -> deleteFiles(new File(SystemUtils.JAVA_IO_TMPDIR)),
+                "index", "plugins", "importAudit", "folders", "language", "vanityUrls", "velocity", "systemHost", "scheduler");
 
-        deleteFiles(new File(SystemUtils.JAVA_IO_TMPDIR));
-
+        try {
+            steps.await();
+        } catch (DotRuntimeException e) {
+            if (e.getCause() instanceof ServletException) {
+                throw (ServletException) e.getCause();
+            }
+            throw new ServletException(e.getMessage(), e);
+        }
+        Logger.info(this, "");
 
+        //Adding the shutdown hook
+        Runtime.getRuntime().addShutdownHook(new ShutdownHookThread());
 
         // runs the InitThread
 
         InitThread it = new InitThread();
         it.start();
 
-        //Ensure the system host is in the system
-        try {
-            APILocator.getHostAPI().findSystemHost(APILocator.getUserAPI().getSystemUser(), false);
-        } catch (DotDataException e1) {
-            Logger.fatal(InitServlet.class, e1.getMessage(), e1);
-            throw new ServletException("Unable to initialize system host", e1);
-        } catch (DotSecurityException e) {
-            Logger.fatal(InitServlet.class, e.getMessage(), e);
-            throw new ServletException("Unable to initialize system host", e);
-        }
-
-        try {
-            APILocator.getFolderAPI().findSystemFolder();
-        } catch (DotDataException e1) {
-            Logger.error(InitServlet.class, e1.getMessage(), e1);
-            throw new ServletException("Unable to initialize system folder", e1);
-        }
-
-        // Create the GeoIP2 database reader on startup since it takes around 2
-        // seconds to load the file. If the prop is not set, just move on
-        if (UtilMethods.isSet(Config.getStringProperty(
-                "GEOIP2_CITY_DATABASE_PATH", ""))) {
-            try {
-                Logger.info(this, "");
-                GeoIp2CityDbUtil geoIp2Util = GeoIp2CityDbUtil.getInstance();
-                // Validation query to initialize the GeoIP DB
-                String state = geoIp2Util
-                        .getSubdivisionIsoCode("www.google.com");
-                Logger.info(this,
-                        "Local GeoIP2 DB connection established successfully!");
-            } catch (IOException | GeoIp2Exception | DotRuntimeException e) {
-                Logger.info(this,
-                        "Could not read from GeoIP2 DB: " + e.getMessage());
-            }
-            Logger.info(this, "");
-        }
-
         /*
          * SHOULD BE LAST THING THAT HAPPENS
          */
@@ -301,9 +297,6 @@ public class InitServlet extends HttpServlet {
         }
 
 
-        //Just get the Engine to make sure it gets inited on time before the first request
-        VelocityUtil.getEngine();
-
         // Tell the world we are started up
         System.setProperty(WebKeys.DOTCMS_STARTED_UP, "true");
 
@@ -0,0 +1,208 @@
+package com.dotmarketing.startup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.exception.DotHibernateException;
+import com.dotmarketing.exception.DotRuntimeException;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
+
+/**
+ * Runs the steps of the startup that declare what they depend on. A step starts as soon as the
+ * steps it depends on are done, so the independent ones (the index check, loading the plugins,
+ * warming up the GeoIP database...) run at the same time. The time taken by each step is logged,
+ * along with a summary once all of them are done.
+ *
+ * Steps must be added after the steps they depend on. The steps run in a pool of STARTUP_THREADS
+ * threads (default 4), each one with its own Hibernate session and connection, which are closed when
+ * the step ends. With STARTUP_THREADS=1 every step runs in the calling thread, in the order they
+ * were added, as they always did.
+ *
+ * @author dotCMS
+ */
+public class StartupSteps {
+
+	/**
+	 * A piece of the startup.
+	 */
+	@FunctionalInterface
+	public interface Step {
+		void run() throws Exception;
+	}
+
+	private final String name;
+	private final ExecutorService pool;
+	private final Runnable afterStep;
+	private final Map<String, CompletableFuture<Void>> steps = new LinkedHashMap<String, CompletableFuture<Void>>();
+	private final Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
+	private final long start = System.currentTimeMillis();
+
+	public StartupSteps(final String name) {
+		this(name, Config.getIntProperty("STARTUP_THREADS", 4), StartupSteps::closeSession);
+	}
+
+	/**
+	 * @param afterStep runs in the pool thread once each step is done
+	 */
+	@VisibleForTesting
+	StartupSteps(final String name, final int threads, final Runnable afterStep) {
+		this.name = name;
+		this.pool = threads > 1 ? Executors.newFixedThreadPool(threads, new StepThreadFactory(name)) : null;
+		this.afterStep = afterStep;
+	}
+
+	/**
+	 * Adds a step, which starts once the given steps are done.
+	 *
+	 * @throws IllegalArgumentException if a step it depends on was not added before
+	 */
+	public StartupSteps add(final String stepName, final Step step, final String... dependsOn) {
+		final List<CompletableFuture<Void>> dependencies = new ArrayList<CompletableFuture<Void>>();
+		for (String dependency : dependsOn) {
+			final CompletableFuture<Void> future = steps.get(dependency);
+			if (future == null) {
+				throw new IllegalArgumentException("Startup step " + stepName + " depends on " + dependency + ", which has to be added first");
+			}
+			dependencies.add(future);
+		}
+
+		final CompletableFuture<Void> future;
+		if (pool == null) {
+			future = new CompletableFuture<Void>();
+			if (failed()) {
+				// the startup stops at the first error, as it did before the steps
+				future.cancel(false);
+			} else {
+				try {
+					run(stepName, step);
+					future.complete(null);
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+			}
+		} else {
+			future = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[dependencies.size()]))
+					.thenRunAsync(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								StartupSteps.this.run(stepName, step);
+							} finally {
+								afterStep.run();
+							}
+						}
+					}, pool);
+		}
+		steps.put(stepName, future);
+		return this;
+	}
+
+	private boolean failed() {
+		for (CompletableFuture<Void> future : steps.values()) {
+			if (future.isCompletedExceptionally()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void run(final String stepName, final Step step) {
+		final long stepStart = System.currentTimeMillis();
+		try {
+			step.run();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new DotRuntimeException(e.getMessage(), e);
+		} finally {
+			final long took = System.currentTimeMillis() - stepStart;
+			timings.put(stepName, took);
+			Logger.debug(this, name + " step " + stepName + " took " + took + " ms");
+		}
+	}
+
+	private static void closeSession() {
+		try {
+			HibernateUtil.closeSession();
+		} catch (DotHibernateException e) {
+			Logger.warn(StartupSteps.class, e.getMessage(), e);
+		} finally {
+			DbConnectionFactory.closeConnection();
+		}
+	}
+
+	/**
+	 * Waits for all the steps and logs how long each one took.
+	 *
+	 * @throws DotRuntimeException with the error of the first step that failed
+	 */
+	public void await() throws DotRuntimeException {
+		Throwable failure = null;
+		String failed = null;
+		try {
+			for (Map.Entry<String, CompletableFuture<Void>> step : steps.entrySet()) {
+				try {
+					step.getValue().join();
+				} catch (CancellationException e) {
+					// skipped after an earlier step failed
+				} catch (CompletionException e) {
+					if (failure == null) {
+						failure = e.getCause() != null ? e.getCause() : e;
+						failed = step.getKey();
+					}
+				}
+			}
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+
+		final StringBuilder summary = new StringBuilder();
+		synchronized (timings) {
+			for (Map.Entry<String, Long> timing : timings.entrySet()) {
+				summary.append(summary.length() == 0 ? "" : ", ").append(timing.getKey()).append(' ').append(timing.getValue()).append(" ms");
+			}
+		}
+		Logger.info(this, name + " took " + (System.currentTimeMillis() - start) + " ms (" + summary + ")");
+
+		if (failure != null) {
+			if (failure instanceof DotRuntimeException) {
+				throw (DotRuntimeException) failure;
+			}
+			throw new DotRuntimeException("Startup step " + failed + " failed: " + failure.getMessage(), failure);
+		}
+	}
+
+	private static final class StepThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+		private final AtomicInteger count = new AtomicInteger();
+
+		private StepThreadFactory(final String name) {
+			this.prefix = name + "-";
+		}
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
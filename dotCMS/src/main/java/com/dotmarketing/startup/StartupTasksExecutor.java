@@ -125,6 +125,7 @@ public class StartupTasksExecutor {
 		}
 		Collections.sort(runOnce, comparator);
 		Collections.sort(runAlways, comparator);
+		final long start = System.currentTimeMillis();
 		Logger.debug(this.getClass(), "Locking db_version table");
 		setupSQL();
 		//Integer currentVersion = null;
@@ -206,7 +207,9 @@ public class StartupTasksExecutor {
 						HibernateUtil.commitTransaction();
 						HibernateUtil.startTransaction();
 						Logger.info(this, "Running: " + name);
+						final long taskStart = System.currentTimeMillis();
 						task.executeUpgrade();
+						Logger.info(this, name + " took " + (System.currentTimeMillis() - taskStart) + " ms");
 						if(name.equals("Task00001LoadSchema")){
 							firstTimeStart = true;
 						}
@@ -216,7 +219,7 @@ public class StartupTasksExecutor {
 					HibernateUtil.commitTransaction();
 				}
 			}
-			Logger.info(this, "Finishing startup tasks.");
+			Logger.info(this, "Finishing startup tasks, took " + (System.currentTimeMillis() - start) + " ms.");
 		} catch (Exception e) {
 			HibernateUtil.rollbackTransaction();
 			Logger.fatal(this, "Unable to execute the upgrade task : " + name, e);
@@ -233,7 +236,15 @@ public class StartupTasksExecutor {
 
 		Logger.info(this, "Database version: " + Config.DB_VERSION);
 
+		// Nothing to upgrade: skip the tasks and keep the reindex thread running
+		final int latestTaskId = getLatestTaskId(runOnce);
+		if (Config.DB_VERSION >= latestTaskId) {
+			Logger.info(this, "Database is up to date with the upgrade tasks (" + latestTaskId + ")");
+			runOnce = Collections.emptyList();
+		}
+
 		name = null;
+		final long upgradeStart = System.currentTimeMillis();
 		//HibernateUtil.startTransaction();
 		try {
 			if(runOnce.size() > 0)
@@ -258,6 +269,7 @@ public class StartupTasksExecutor {
 							HibernateUtil.commitTransaction();
 							HibernateUtil.startTransaction();
 							Logger.info(this, "Running: " + name);
+							final long taskStart = System.currentTimeMillis();
 							if(name.equals("Task00250UpdateMysqlTablesToINNODB")){
 								s = conn.createStatement();
 								s.execute(commit);
@@ -267,6 +279,7 @@ public class StartupTasksExecutor {
 							}else{
 							  task.executeUpgrade();
 							}
+							Logger.info(this, name + " took " + (System.currentTimeMillis() - taskStart) + " ms");
 						} 
 						// Nothing to execute, or the task ran ok so bump
 						// the db version.
@@ -333,11 +346,26 @@ public class StartupTasksExecutor {
 						"Exception finishing upgrade tasks: " + e.getMessage(),
 						e);
 			}
-			Logger.info(this, "Finishing upgrade tasks.");
+			Logger.info(this, "Finishing upgrade tasks, took " + (System.currentTimeMillis() - upgradeStart) + " ms.");
 		}
 
 	}
 
-
+	/**
+	 * Returns the version the database gets to once all the tasks run, read from the names of the
+	 * tasks so none of them has to be created.
+	 */
+	private int getLatestTaskId(final List<Class<?>> runOnce) {
+		int latest = 0;
+		for (Class<?> c : runOnce) {
+			try {
+				latest = Math.max(latest, Integer.parseInt(c.getSimpleName().substring(4, 9)));
+			} catch (NumberFormatException | IndexOutOfBoundsException e) {
+				// reported when the tasks run
+				return Integer.MAX_VALUE;
+			}
+		}
+		return latest;
+	}
 
 }
@@ -0,0 +1,121 @@
+package com.dotmarketing.startup.runonce;
+
+import java.util.List;
+
+import com.dotmarketing.startup.AbstractJDBCStartupTask;
+
+/**
+ * Creates the {@code cache_invalidation_log} table, where the cache invalidations are sent to the
+ * other nodes of the cluster when {@code CACHE_CLUSTER_THROUGH_DB} is on, and the
+ * {@code cache_invalidation_cursor} table that keeps the last invalidation read by each node.
+ *
+ * @author dotCMS
+ */
+public class Task04215CreateCacheInvalidationLog extends AbstractJDBCStartupTask {
+
+	@Override
+	public boolean forceRun() {
+		return true;
+	}
+
+	@Override
+	public String getPostgresScript () {
+		return "CREATE TABLE cache_invalidation_log (\n" +
+					"id bigserial NOT NULL,\n" +
+					"object_to_index VARCHAR(1024) NOT NULL,\n" +
+					"serverid VARCHAR(64) NOT NULL,\n" +
+					"time_entered TIMESTAMP NOT NULL,\n" +
+					"PRIMARY KEY (id)\n" +
+				");\n" +
+				"CREATE TABLE cache_invalidation_cursor (\n" +
+					"serverid VARCHAR(64) NOT NULL,\n" +
+					"last_id BIGINT NOT NULL,\n" +
+					"last_read TIMESTAMP NOT NULL,\n" +
+					"PRIMARY KEY (serverid)\n" +
+				");";
+	}
+
+	@Override
+	public String getMySQLScript () {
+		return "CREATE TABLE cache_invalidation_log (\n" +
+					"id BIGINT NOT NULL AUTO_INCREMENT,\n" +
+					"object_to_index VARCHAR(1024) NOT NULL,\n" +
+					"serverid VARCHAR(64) NOT NULL,\n" +
+					"time_entered DATETIME NOT NULL,\n" +
+					"PRIMARY KEY (id)\n" +
+				");\n" +
+				"CREATE TABLE cache_invalidation_cursor (\n" +
+					"serverid VARCHAR(64) NOT NULL,\n" +
+					"last_id BIGINT NOT NULL,\n" +
+					"last_read DATETIME NOT NULL,\n" +
+					"PRIMARY KEY (serverid)\n" +
+				");";
+	}
+
+	@Override
+	public String getOracleScript () {
+		return "CREATE TABLE cache_invalidation_log (\n" +
+					"id NUMBER(19, 0) NOT NULL,\n" +
+					"object_to_index VARCHAR2(1024) NOT NULL,\n" +
+					"serverid VARCHAR2(64) NOT NULL,\n" +
+					"time_entered TIMESTAMP NOT NULL,\n" +
+					"PRIMARY KEY (id)\n" +
+				");\n" +
+				"CREATE SEQUENCE cache_invalidation_log_id_seq START WITH 1 INCREMENT BY 1;\n" +
+				"CREATE TRIGGER cache_invalidation_log_trg\n" +
+				"BEFORE INSERT ON cache_invalidation_log\n" +
+				"FOR EACH ROW\n" +
+				"WHEN (new.id IS NULL)\n" +
+				"BEGIN\n" +
+				"SELECT cache_invalidation_log_id_seq.nextval INTO :new.id FROM dual;\n" +
+				"END;\n" +
+				"/\n" +
+				"CREATE TABLE cache_invalidation_cursor (\n" +
+					"serverid VARCHAR2(64) NOT NULL,\n" +
+					"last_id NUMBER(19, 0) NOT NULL,\n" +
+					"last_read TIMESTAMP NOT NULL,\n" +
+					"PRIMARY KEY (serverid)\n" +
+				");";
+	}
+
+	@Override
+	public String getMSSQLScript () {
+		return "CREATE TABLE cache_invalidation_log (\n" +
+					"id BIGINT NOT NULL IDENTITY (1, 1),\n" +
+					"object_to_index NVARCHAR(1024) NOT NULL,\n" +
+					"serverid NVARCHAR(64) NOT NULL,\n" +
+					"time_entered DATETIME NOT NULL,\n" +
+					"PRIMARY KEY (id)\n" +
+				");\n" +
+				"CREATE TABLE cache_invalidation_cursor (\n" +
+					"serverid NVARCHAR(64) NOT NULL,\n" +
+					"last_id BIGINT NOT NULL,\n" +
+					"last_read DATETIME NOT NULL,\n" +
+					"PRIMARY KEY (serverid)\n" +
+				");";
+	}
+
+	@Override
+	public String getH2Script () {
+		return "CREATE TABLE cache_invalidation_log (\n" +
+					"id BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH 1),\n" +
+					"object_to_index VARCHAR(1024) NOT NULL,\n" +
+					"serverid VARCHAR(64) NOT NULL,\n" +
+					"time_entered TIMESTAMP NOT NULL,\n" +
+					"PRIMARY KEY (id)\n" +
+				");\n" +
+				"CREATE TABLE cache_invalidation_cursor (\n" +
+					"serverid VARCHAR(64) NOT NULL,\n" +
+					"last_id BIGINT NOT NULL,\n" +
+					"last_read TIMESTAMP NOT NULL,\n" +
+					"PRIMARY KEY (serverid)\n" +
+				");";
+	}
+
+	@Override
+	protected List<String> getTablesToDropConstraints() {
+		// Not required for this task
+		return null;
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.dotmarketing.startup.runonce;
+
+import java.util.List;
+
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.startup.AbstractJDBCStartupTask;
+
+/**
+ * Adds the indexes PostgreSQL needs to resolve Shorty ids. The primary keys of {@code inode} and
+ * {@code identifier} follow the collation of the database, which can't be used for the
+ * {@code LIKE 'prefix%'} lookups unless it is the C collation, so every lookup was a scan of both
+ * tables. The other databases already use their primary keys for prefix lookups.
+ *
+ * @author dotCMS
+ */
+public class Task04220AddShortyIdPrefixIndexes extends AbstractJDBCStartupTask {
+
+    @Override
+    public boolean forceRun() {
+        return DbConnectionFactory.isPostgres();
+    }
+
+    @Override
+    public String getPostgresScript() {
+        return "CREATE INDEX idx_inode_prefix ON inode (inode varchar_pattern_ops);\n" +
+               "CREATE INDEX idx_identifier_prefix ON identifier (id varchar_pattern_ops);\n";
+    }
+
+    @Override
+    public String getMySQLScript() {
+        return "";
+    }
+
+    @Override
+    public String getOracleScript() {
+        return "";
+    }
+
+    @Override
+    public String getMSSQLScript() {
+        return "";
+    }
+
+    @Override
+    public String getH2Script() {
+        return "";
+    }
+
+    @Override
+    protected List<String> getTablesToDropConstraints() {
+        return null;
+    }
+
+}
@@ -0,0 +1,332 @@
+package com.dotmarketing.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.dotmarketing.common.model.ContentletSearch;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotHibernateException;
+import com.dotmarketing.portlets.structure.model.Field;
+
+/**
+ * Hands the lines read from a CSV file by {@link ImportUtil} to the threads that import them.
+ *
+ * The thread reading the file submits the lines in order, and each one goes to the worker chosen
+ * by the key of the line. Lines with the same key, which create or update the same content, are
+ * imported one after the other in the order of the file. Lines with different keys are imported in
+ * parallel. Each worker imports its lines in its own transaction, committed every
+ * {@code CONTENT_IMPORT_COMMIT_GRANULARITY} lines. The content of the committed lines goes to the
+ * index in a single bulk request.
+ *
+ * With a single worker the lines are imported right away by the thread submitting them, in its own
+ * transaction, the way imports always worked.
+ *
+ * The pipeline has to be {@link #close() closed} once the file is read, even when reading it
+ * fails, so the workers don't wait forever for more lines holding their transaction and their
+ * connection. An import stopped by an error keeps the lines the workers had already committed.
+ *
+ * @author dotCMS
+ */
+final class ImportPipeline {
+
+    private static final int COMMIT_GRANULARITY =
+            Math.max(1, Config.getIntProperty("CONTENT_IMPORT_COMMIT_GRANULARITY", 10));
+    private static final long SLEEP_MILLIS = Config.getIntProperty("CONTENT_IMPORT_SLEEP_MILLIS", 200);
+    private static final int QUEUE_SIZE = Config.getIntProperty("CONTENT_IMPORT_WORKER_QUEUE_SIZE", 500);
+
+    private static final Line END = new Line(-1, null, null, -1, false, null, null);
+
+    /**
+     * Imports one line. Errors in the data of the line are expected to be reported by the importer,
+     * anything it throws stops the whole import.
+     */
+    interface LineImporter {
+        void importLine(Line line) throws Exception;
+    }
+
+    private final LineImporter importer;
+    private final ImportProgress progress;
+    private final boolean transactional;
+    private final Worker inline;
+    private final List<Worker> workers = new ArrayList<Worker>();
+    private final List<Thread> threads = new ArrayList<Thread>();
+
+    private volatile Throwable failure;
+    private volatile boolean cancelled;
+    private volatile boolean aborted;
+    private boolean finished;
+
+    /**
+     * @param transactional whether the lines change content, so they have to be imported in a
+     *        transaction
+     * @param workers the number of threads importing lines, 1 to import them in the calling thread
+     */
+    ImportPipeline(final Long importId, final int workers, final boolean transactional,
+            final LineImporter importer, final ImportProgress progress) {
+        this.importer = importer;
+        this.progress = progress;
+        this.transactional = transactional;
+        if (workers <= 1) {
+            inline = new Worker();
+            return;
+        }
+        inline = null;
+        for (int i = 0; i < workers; i++) {
+            final Worker worker = new Worker();
+            final Thread thread = new Thread(worker, "ContentImport-" + importId + "-" + i);
+            thread.setDaemon(true);
+            this.workers.add(worker);
+            this.threads.add(thread);
+        }
+    }
+
+    /**
+     * Starts the workers, and the transaction of the calling thread when it is the one importing.
+     */
+    void start() throws DotDataException {
+        if (inline != null) {
+            if (transactional) {
+                HibernateUtil.startTransaction();
+            }
+            return;
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+    }
+
+    /**
+     * Imports the line, or queues it for its worker, waiting while the queue of the worker is full.
+     */
+    void submit(final Line line) throws Exception {
+        if (inline != null) {
+            inline.importLine(line);
+            return;
+        }
+        checkFailure();
+        final int partition = line.partitionKey != null
+                ? (line.partitionKey.hashCode() & Integer.MAX_VALUE) % workers.size()
+                : line.lineNumber % workers.size();
+        final BlockingQueue<Line> queue = workers.get(partition).queue;
+        while (!queue.offer(line, 1, TimeUnit.SECONDS)) {
+            checkFailure();
+        }
+    }
+
+    /**
+     * Drops the lines that are still queued.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Waits for the queued lines to be imported and commits what is left.
+     */
+    void finish() throws DotDataException {
+        finished = true;
+        if (inline != null) {
+            if (transactional) {
+                HibernateUtil.commitTransaction();
+            }
+            return;
+        }
+        stopWorkers();
+        checkFailure();
+    }
+
+    /**
+     * Stops the import if it wasn't {@link #finish() finished}, because reading the file or
+     * importing a line failed: the queued lines are dropped, and the lines not committed yet are
+     * rolled back. Does nothing after {@link #finish()}.
+     */
+    void close() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        aborted = true;
+        cancel();
+        try {
+            if (inline != null) {
+                if (transactional) {
+                    HibernateUtil.rollbackTransaction();
+                }
+                return;
+            }
+            stopWorkers();
+        } catch (DotDataException e) {
+            Logger.warn(ImportPipeline.class, "Error stopping the import: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tells every worker there are no more lines and waits for them to be done.
+     */
+    private void stopWorkers() throws DotDataException {
+        try {
+            for (int i = 0; i < workers.size(); i++) {
+                while (!workers.get(i).queue.offer(END, 1, TimeUnit.SECONDS)) {
+                    if (!threads.get(i).isAlive()) {
+                        break;
+                    }
+                }
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new DotDataException("Interrupted while waiting for the import to finish", e);
+        }
+    }
+
+    private void checkFailure() throws DotDataException {
+        final Throwable error = failure;
+        if (error != null) {
+            throw new DotDataException("The import stopped after an error: " + error.getMessage(), error);
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        private final BlockingQueue<Line> queue = new ArrayBlockingQueue<Line>(Math.max(1, QUEUE_SIZE));
+        private int imported;
+
+        private void importLine(final Line line) throws Exception {
+            importer.importLine(line);
+            progress.lineImported();
+            if (transactional && ++imported % COMMIT_GRANULARITY == 0) {
+                HibernateUtil.commitTransaction();
+                if (SLEEP_MILLIS > 0) {
+                    Thread.sleep(SLEEP_MILLIS);
+                }
+                HibernateUtil.startTransaction();
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean failed = false;
+            try {
+                if (transactional) {
+                    HibernateUtil.startTransaction();
+                }
+                Line line;
+                while ((line = queue.take()) != END) {
+                    // after an error the remaining lines are dropped, the queue is still emptied so
+                    // the reading thread is never left waiting
+                    if (failed || failure != null || cancelled) {
+                        continue;
+                    }
+                    try {
+                        importLine(line);
+                    } catch (Throwable t) {
+                        failed = true;
+                        failure = t;
+                        Logger.error(ImportPipeline.class, "Error importing line " + line.lineNumber + ": " + t.getMessage(), t);
+                        if (transactional) {
+                            HibernateUtil.rollbackTransaction();
+                        }
+                    }
+                }
+                if (transactional && !failed) {
+                    if (aborted) {
+                        HibernateUtil.rollbackTransaction();
+                    } else {
+                        HibernateUtil.commitTransaction();
+                    }
+                }
+            } catch (Throwable t) {
+                failure = t;
+                Logger.error(ImportPipeline.class, t.getMessage(), t);
+            } finally {
+                try {
+                    HibernateUtil.closeSession();
+                } catch (DotHibernateException e) {
+                    Logger.warn(ImportPipeline.class, e.getMessage(), e);
+                } finally {
+                    DbConnectionFactory.closeConnection();
+                }
+            }
+        }
+    }
+
+    /**
+     * A line of the file on its way to the thread importing it.
+     */
+    static final class Line {
+
+        private final int lineNumber;
+        private final String[] values;
+        private final String rawRecord;
+        private final long language;
+        private final boolean sameKeyBatchInsert;
+        private final String partitionKey;
+        private final List<Field> repeatedUniqueFields;
+        private List<ContentletSearch> identifierMatches;
+
+        /**
+         * @param partitionKey the key of the content the line creates or updates, null if it is
+         *        always new content
+         * @param repeatedUniqueFields the unique fields whose value was already used by a line
+         *        above, found while reading the file so it does not depend on the order in which
+         *        the workers import the lines
+         */
+        Line(final int lineNumber, final String[] values, final String rawRecord, final long language,
+                final boolean sameKeyBatchInsert, final String partitionKey, final List<Field> repeatedUniqueFields) {
+            this.lineNumber = lineNumber;
+            this.values = values;
+            this.rawRecord = rawRecord;
+            this.language = language;
+            this.sameKeyBatchInsert = sameKeyBatchInsert;
+            this.partitionKey = partitionKey;
+            this.repeatedUniqueFields = repeatedUniqueFields != null ? repeatedUniqueFields
+                    : Collections.<Field>emptyList();
+        }
+
+        String getRawRecord() {
+            return rawRecord;
+        }
+
+        int getLineNumber() {
+            return lineNumber;
+        }
+
+        String[] getValues() {
+            return values;
+        }
+
+        long getLanguage() {
+            return language;
+        }
+
+        boolean isSameKeyBatchInsert() {
+            return sameKeyBatchInsert;
+        }
+
+        List<Field> getRepeatedUniqueFields() {
+            return repeatedUniqueFields;
+        }
+
+        /**
+         * @return the content found in the index for the identifier of the line, looked up with
+         *         the rest of its batch, or null if it has to be looked up by the line
+         */
+        List<ContentletSearch> getIdentifierMatches() {
+            return identifierMatches;
+        }
+
+        void setIdentifierMatches(final List<ContentletSearch> identifierMatches) {
+            this.identifierMatches = identifierMatches;
+        }
+    }
+
+}
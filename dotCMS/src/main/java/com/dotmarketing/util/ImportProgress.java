@@ -0,0 +1,95 @@
+package com.dotmarketing.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How far a content import is, updated by {@link ImportUtil} while the lines of the file are read
+ * and imported so the import screen can show it.
+ *
+ * @author dotCMS
+ */
+public class ImportProgress {
+
+    private final String userId;
+    private final long started = System.currentTimeMillis();
+    private final AtomicInteger linesRead = new AtomicInteger();
+    private final AtomicInteger linesImported = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private volatile long finished;
+
+    /**
+     * @param userId the user running the import
+     */
+    ImportProgress(final String userId) {
+        this.userId = userId;
+    }
+
+    void lineRead() {
+        linesRead.incrementAndGet();
+    }
+
+    void lineImported() {
+        linesImported.incrementAndGet();
+    }
+
+    void lineFailed() {
+        errors.incrementAndGet();
+    }
+
+    void finish() {
+        finished = System.currentTimeMillis();
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return the lines read from the file so far
+     */
+    public int getLinesRead() {
+        return linesRead.get();
+    }
+
+    /**
+     * @return the lines already imported, or checked when the import is a preview, including the
+     *         ones with errors
+     */
+    public int getLinesImported() {
+        return linesImported.get();
+    }
+
+    public int getErrors() {
+        return errors.get();
+    }
+
+    public boolean isFinished() {
+        return finished > 0;
+    }
+
+    public long getElapsedMillis() {
+        return (finished > 0 ? finished : System.currentTimeMillis()) - started;
+    }
+
+    /**
+     * @return the lines imported per second since the import started
+     */
+    public double getLinesPerSecond() {
+        final long elapsed = getElapsedMillis();
+        return elapsed > 0 ? getLinesImported() * 1000d / elapsed : 0;
+    }
+
+    public Map<String, Object> toMap() {
+        final Map<String, Object> map = new HashMap<String, Object>();
+        map.put("linesRead", getLinesRead());
+        map.put("linesImported", getLinesImported());
+        map.put("errors", getErrors());
+        map.put("finished", isFinished());
+        map.put("elapsedMillis", getElapsedMillis());
+        map.put("linesPerSecond", Math.round(getLinesPerSecond() * 10) / 10d);
+        return map;
+    }
+
+}
@@ -8,7 +8,7 @@ import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -16,6 +16,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import com.dotcms.repackage.com.csvreader.CsvReader;
 import com.dotmarketing.beans.Host;
@@ -28,7 +30,6 @@ import com.dotmarketing.business.FactoryLocator;
 import com.dotmarketing.business.PermissionAPI;
 import com.dotmarketing.cache.FieldsCache;
 import com.dotmarketing.common.model.ContentletSearch;
-import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotRuntimeException;
 import com.dotmarketing.exception.DotSecurityException;
@@ -79,14 +80,27 @@ public class ImportUtil {
     private final static String languageCodeHeader = "languageCode";
     private final static String countryCodeHeader = "countryCode";
 
-    private final static int commitGranularity = 10;
-    private final static int sleepTime = 200;
+    /**
+     * Threads importing the lines of a file, lines for the same content always go to the same one
+     */
+    private final static int importWorkers = Config.getIntProperty("CONTENT_IMPORT_WORKERS",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+    /**
+     * Lines read before looking up, with a single search, the content their identifiers refer to
+     */
+    private final static int lookupBatchSize = Config.getIntProperty("CONTENT_IMPORT_LOOKUP_BATCH_SIZE", 100);
+    private final static Pattern IDENTIFIER_PATTERN = Pattern.compile("[\\w-]+");
 
     public static final String[] IMP_DATE_FORMATS = new String[] { "d-MMM-yy", "MMM-yy", "MMMM-yy", "d-MMM", "dd-MMM-yyyy",
         "MM/dd/yy hh:mm aa", "MM/dd/yyyy hh:mm aa",	"MM/dd/yy HH:mm", "MM/dd/yyyy HH:mm", "MMMM dd, yyyy", "M/d/y", "M/d",
         "EEEE, MMMM dd, yyyy", "MM/dd/yyyy", "hh:mm:ss aa", "HH:mm:ss", "hh:mm aa", "yyyy-MM-dd" };
 
-    private static final SimpleDateFormat DATE_FIELD_FORMAT = new SimpleDateFormat("yyyyMMdd");
+    private static final ThreadLocal<SimpleDateFormat> DATE_FIELD_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyyMMdd");
+        }
+    };
 
 	/**
 	 * Imports the data contained in a CSV file into dotCMS. The data can be
@@ -102,6 +116,10 @@ public class ImportUtil {
 	 * the system try to import the contents right away. The method will also
 	 * return a summary with the status of the operation.</li>
 	 * </ul>
+	 * The lines are imported by {@code CONTENT_IMPORT_WORKERS} threads. Lines
+	 * with the same key fields, or the same identifier, are imported by the
+	 * same thread in the order of the file. The progress of the import can be
+	 * followed through {@link ImportAuditUtil#getImportProgress(long)}.
 	 * 
 	 * @param importId
 	 *            - The ID of this data import.
@@ -147,33 +165,38 @@ public class ImportUtil {
     public static HashMap<String, List<String>> importFile(Long importId, String currentSiteId, String contentTypeInode, String[] keyfields, boolean preview, boolean isMultilingual, User user, long language, String[] csvHeaders, CsvReader csvreader, int languageCodeHeaderColumn, int countryCodeHeaderColumn, Reader reader)
             throws DotRuntimeException, DotDataException {
 
-        HashMap<String, List<String>> results = new HashMap<String, List<String>>();
-        results.put("warnings", new ArrayList<String>());
-        results.put("errors", new ArrayList<String>());
-        results.put("messages", new ArrayList<String>());
-        results.put("results", new ArrayList<String>());
-        results.put("counters", new ArrayList<String>());
-        results.put("identifiers", new ArrayList<String>());
-        results.put("updatedInodes", new ArrayList<String>());
-        results.put("lastInode", new ArrayList<String>());
-
-        Structure contentType = CacheLocator.getContentTypeCache().getStructureByInode (contentTypeInode);
-        List<Permission> contentTypePermissions = permissionAPI.getPermissions(contentType);
-        List<UniqueFieldBean> uniqueFieldBeans = new ArrayList<UniqueFieldBean>();
-        List<Field> uniqueFields = new ArrayList<Field>();
+        // the lines can be imported by several threads
+        final HashMap<String, List<String>> results = new HashMap<String, List<String>>();
+        results.put("warnings", Collections.synchronizedList(new ArrayList<String>()));
+        results.put("errors", Collections.synchronizedList(new ArrayList<String>()));
+        results.put("messages", Collections.synchronizedList(new ArrayList<String>()));
+        results.put("results", Collections.synchronizedList(new ArrayList<String>()));
+        results.put("counters", Collections.synchronizedList(new ArrayList<String>()));
+        results.put("identifiers", Collections.synchronizedList(new ArrayList<String>()));
+        results.put("updatedInodes", Collections.synchronizedList(new ArrayList<String>()));
+        results.put("lastInode", Collections.synchronizedList(new ArrayList<String>()));
+
+        final Structure contentType = CacheLocator.getContentTypeCache().getStructureByInode (contentTypeInode);
+        final List<Permission> contentTypePermissions = permissionAPI.getPermissions(contentType);
+        final UniqueFieldValues uniqueFieldValues = new UniqueFieldValues();
+        final List<Field> uniqueFields = new ArrayList<Field>();
 
         //Initializing variables
         int lines = 0;
-        int errors = 0;
         int lineNumber = 0;
 
-        Counters counters = new Counters();
-        HashSet<String> keyContentUpdated = new HashSet<String>();
-        StringBuffer choosenKeyField = new StringBuffer();
+        final ImportProgress progress = new ImportProgress(user != null ? user.getUserId() : null);
+        if (importId != null) {
+            ImportAuditUtil.setImportProgress(importId, progress);
+        }
+        final Counters counters = new Counters();
+        final Set<String> keyContentUpdated = Collections.synchronizedSet(new HashSet<String>());
+        final StringBuffer choosenKeyField = new StringBuffer();
+        final Map<String, Contentlet> importedByKey = new ConcurrentHashMap<String, Contentlet>();
 
-        HashMap<Integer, Field> headers = new HashMap<Integer, Field>();
-        HashMap<Integer, Field> keyFields = new HashMap<Integer, Field>();
-        HashMap<Integer, Relationship> relationships = new HashMap<Integer, Relationship>();
+        final HashMap<Integer, Field> headers = new HashMap<Integer, Field>();
+        final HashMap<Integer, Field> keyFields = new HashMap<Integer, Field>();
+        final HashMap<Integer, Relationship> relationships = new HashMap<Integer, Relationship>();
 
         //Get unique fields for structure
         for(Field field : FieldsCache.getFieldsByStructureInode(contentType.getInode())){
@@ -197,18 +220,47 @@ public class ImportUtil {
 
                 //Reading the whole file
                 if (headers.size() > 0) {
-                    if (!preview) {
-                        HibernateUtil.startTransaction();
+                    int identifierColumn = -1;
+                    try {
+                        identifierColumn = Integer.parseInt( results.get( "identifiers" ).get( 0 ) );
+                    } catch ( Exception e ) {
                     }
-                    String[] csvLine;
-                    while (csvreader.readRecord()) {
-                        if(ImportAuditUtil.cancelledImports.containsKey(importId)){
-                            break;
+
+                    //Lines are read here and imported by the pipeline, in this thread or in its workers
+                    final ImportPipeline pipeline = new ImportPipeline( importId, preview ? 1 : importWorkers, !preview, new ImportPipeline.LineImporter() {
+                        @Override
+                        public void importLine ( ImportPipeline.Line line ) throws Exception {
+                            try {
+                                //Importing content record...
+                                ImportUtil.importLine( line.getValues(), currentSiteId, contentType, preview, isMultilingual, user, results, line.getLineNumber(), line.getLanguage(), headers, keyFields, choosenKeyField,
+                                        counters, keyContentUpdated, contentTypePermissions, line.getRepeatedUniqueFields(), uniqueFields, relationships, onlyChild, onlyParent, line.isSameKeyBatchInsert(),
+                                        line.getIdentifierMatches(), importedByKey );
+                            } catch ( DotRuntimeException ex ) {
+                                String errorMessage = ex.getMessage();
+                                if(errorMessage.indexOf("Line #") == -1){
+                                    errorMessage = "Line #"+line.getLineNumber()+" "+errorMessage;
+                                }
+                                results.get("errors").add(errorMessage);
+                                progress.lineFailed();
+                                Logger.info(ImportUtil.class, "Error line: " + (line.getLineNumber() - 1) + " (" + line.getRawRecord()
+                                        + "). Line Ignored.");
+                            }
                         }
-                        lineNumber++;
-                        csvLine = csvreader.getValues();
-                        try {
+                    }, progress );
+                    try {
+                        pipeline.start();
+
+                        List<ImportPipeline.Line> batch = new ArrayList<ImportPipeline.Line>();
+                        String[] csvLine;
+                        while (csvreader.readRecord()) {
+                            if(ImportAuditUtil.cancelledImports.containsKey(importId)){
+                                pipeline.cancel();
+                                break;
+                            }
+                            lineNumber++;
+                            csvLine = csvreader.getValues();
                             lines++;
+                            progress.lineRead();
                             Logger.debug(ImportUtil.class, "Line " + lines + ": (" + csvreader.getRawRecord() + ").");
 
                             //Importing a line
@@ -226,55 +278,62 @@ public class ImportUtil {
                                 Useful to know if we have batch uploads with the same keys, mostly visible for batch content uploads with multiple languages
                                  */
                                 boolean sameKeyBatchInsert = true;
+                                StringBuilder partitionKey = null;
                                 if ( keyFields != null && !keyFields.isEmpty() ) {
+                                    partitionKey = new StringBuilder();
                                     for ( Integer column : keyFields.keySet() ) {
                                         Field keyField = keyFields.get( column );
-										if (!counters.matchKey(keyField.getVelocityVarName(), csvLine[column])) {
+                                        String keyValue = column < csvLine.length ? csvLine[column] : null;
+                                        if (sameKeyBatchInsert && !counters.matchKey(keyField.getVelocityVarName(), keyValue)) {
                                             sameKeyBatchInsert = false;
-                                            break;
                                         }
+                                        partitionKey.append( keyValue ).append( '\u0000' );
                                     }
-                                }
-
-                                //Importing content record...
-                                importLine( csvLine, currentSiteId, contentType, preview, isMultilingual, user, results, lineNumber, languageToImport, headers, keyFields, choosenKeyField,
-                                        counters, keyContentUpdated, contentTypePermissions, uniqueFieldBeans, uniqueFields, relationships, onlyChild, onlyParent, sameKeyBatchInsert );
-
-                                //Storing the record keys we just imported for a later reference...
-                                if ( keyFields != null && !keyFields.isEmpty() ) {
+                                    //Storing the record keys for a later reference...
                                     for ( Integer column : keyFields.keySet() ) {
                                         Field keyField = keyFields.get( column );
-										counters.addKey(keyField.getVelocityVarName(), csvLine[column]);
+                                        counters.addKey(keyField.getVelocityVarName(), column < csvLine.length ? csvLine[column] : null);
                                     }
                                 }
+                                if ( identifierColumn > -1 && identifierColumn < csvLine.length && UtilMethods.isSet( csvLine[identifierColumn] ) ) {
+                                    partitionKey = new StringBuilder( csvLine[identifierColumn] );
+                                }
+                                /*
+                                Unique values repeated in the file are found here, in the order of the file, as the lines
+                                with the same value and different keys would be imported in parallel by different workers
+                                 */
+                                List<Field> repeatedUniqueFields = new ArrayList<Field>();
+                                for ( Integer column : headers.keySet() ) {
+                                    Field field = headers.get( column );
+                                    if ( field.isUnique() && column < csvLine.length && uniqueFieldValues.repeats( field, languageToImport,
+                                            csvLine[column], partitionKey != null ? partitionKey.toString() : null ) ) {
+                                        repeatedUniqueFields.add( field );
+                                    }
+                                }
+
+                                batch.add( new ImportPipeline.Line( lineNumber, csvLine, csvreader.getRawRecord(), languageToImport, sameKeyBatchInsert,
+                                        partitionKey != null ? partitionKey.toString() : null, repeatedUniqueFields ) );
+                                if ( batch.size() >= lookupBatchSize ) {
+                                    submitBatch( pipeline, batch, identifierColumn, contentType, user );
+                                }
                             } else {
                                 results.get( "errors" ).add( LanguageUtil.get( user, "Line--" ) + lineNumber + LanguageUtil.get( user, "Locale-not-found-for-languageCode" ) + " ='" + csvLine[languageCodeHeaderColumn] + "' countryCode='" + csvLine[countryCodeHeaderColumn] + "'" );
-                                errors++;
-                            }
-
-                            if ( !preview && (lineNumber % commitGranularity == 0) ) {
-                                HibernateUtil.commitTransaction();
-                                Thread.sleep( sleepTime );
-                                HibernateUtil.startTransaction();
-                            }
-                        } catch ( DotRuntimeException ex ) {
-                            String errorMessage = ex.getMessage();
-                            if(errorMessage.indexOf("Line #") == -1){
-                                errorMessage = "Line #"+lineNumber+" "+errorMessage;
+                                progress.lineFailed();
                             }
-                            results.get("errors").add(errorMessage);
-                            errors++;
-                            Logger.info(ImportUtil.class, "Error line: " + lines + " (" + csvreader.getRawRecord()
-                                    + "). Line Ignored.");
                         }
+                        submitBatch( pipeline, batch, identifierColumn, contentType, user );
+                        pipeline.finish();
+                    } finally {
+                        // stops the workers when reading the file or importing a line failed
+                        pipeline.close();
                     }
 
+                    final int errors = progress.getErrors();
                     if(!preview){
                         results.get("counters").add("linesread="+lines);
                         results.get("counters").add("errors="+errors);
                         results.get("counters").add("newContent="+counters.getNewContentCounter());
                         results.get("counters").add("contentToUpdate="+counters.getContentToUpdateCounter());
-                        HibernateUtil.commitTransaction();
                     }
 
                     results.get("messages").add(lines + " "+LanguageUtil.get(user, "lines-of-data-were-read" ));
@@ -302,9 +361,12 @@ public class ImportUtil {
                 }
             }
         } catch (Exception e) {
-            Logger.error(ImportContentletsAction.class,e.getMessage());
-
+            Logger.error(ImportContentletsAction.class,e.getMessage(),e);
+            // the workers commit their lines every few lines, so what they committed before the error is kept
+            results.get("errors").add("The import stopped at line " + lineNumber + " because of an error: " + e.getMessage()
+                    + (preview ? "" : ". Some of the lines above it may have been imported already."));
         } finally {
+            progress.finish();
             if (reader != null) {
                 try {
                     reader.close();
@@ -313,10 +375,64 @@ public class ImportUtil {
                 }
             }
         }
-        Logger.info(ImportUtil.class, lines + " lines read correctly. " + errors + " errors found.");
+        Logger.info(ImportUtil.class, lines + " lines read correctly. " + progress.getErrors() + " errors found.");
         return results;
     }
 
+    /**
+     * Hands a batch of lines to the pipeline, first looking up the content of the lines that
+     * reference it by identifier with a single search for the whole batch.
+     */
+    private static void submitBatch ( ImportPipeline pipeline, List<ImportPipeline.Line> batch, int identifierColumn, Structure contentType, User user ) throws Exception {
+        if ( batch.isEmpty() ) {
+            return;
+        }
+        if ( identifierColumn > -1 ) {
+            findByIdentifier( batch, identifierColumn, contentType, user );
+        }
+        for ( ImportPipeline.Line line : batch ) {
+            pipeline.submit( line );
+        }
+        batch.clear();
+    }
+
+    private static void findByIdentifier ( List<ImportPipeline.Line> batch, int identifierColumn, Structure contentType, User user ) {
+        Map<String, List<ContentletSearch>> found = new HashMap<String, List<ContentletSearch>>();
+        StringBuilder query = new StringBuilder( "+structureName:" ).append( contentType.getVelocityVarName() )
+                .append( " +working:true +deleted:false +(" );
+        for ( ImportPipeline.Line line : batch ) {
+            String identifier = identifierColumn < line.getValues().length ? line.getValues()[identifierColumn] : null;
+            // anything that isn't an identifier is left for the line to report
+            if ( UtilMethods.isSet( identifier ) && IDENTIFIER_PATTERN.matcher( identifier ).matches() && !found.containsKey( identifier ) ) {
+                query.append( found.isEmpty() ? "" : " OR " ).append( "identifier:" ).append( identifier );
+                found.put( identifier, new ArrayList<ContentletSearch>() );
+            }
+        }
+        if ( found.isEmpty() ) {
+            return;
+        }
+        query.append( ")" );
+        try {
+            for ( ContentletSearch contentSearch : conAPI.searchIndex( query.toString(), 0, -1, null, user, true ) ) {
+                List<ContentletSearch> matches = found.get( contentSearch.getIdentifier() );
+                if ( matches != null ) {
+                    matches.add( contentSearch );
+                }
+            }
+        } catch ( Exception e ) {
+            // each line will search for its own identifier
+            Logger.warn( ImportUtil.class, "Unable to look up the identifiers of lines " + batch.get( 0 ).getLineNumber() + " to "
+                    + batch.get( batch.size() - 1 ).getLineNumber() + ": " + e.getMessage() );
+            return;
+        }
+        for ( ImportPipeline.Line line : batch ) {
+            String identifier = identifierColumn < line.getValues().length ? line.getValues()[identifierColumn] : null;
+            if ( identifier != null ) {
+                line.setIdentifierMatches( found.get( identifier ) );
+            }
+        }
+    }
+
 	/**
 	 * Reads the CSV file headers in order to find inconsistencies or errors.
 	 * Such situations will be saved in the {@code results} list.
@@ -563,10 +679,10 @@ public class ImportUtil {
 	 * @param keyContentUpdated
 	 * @param contentTypePermissions
 	 *            - The list of permissions associated to this Content Type.
-	 * @param uniqueFieldBeans
-	 *            - Tracking object used to identify repeated values for unique
-	 *            fields. If repeated fields are found, the line of the CSV file
-	 *            will be ignored.
+	 * @param repeatedUniqueFields
+	 *            - The unique fields whose value was already used by a line
+	 *            above. If there are any, the line of the CSV file will be
+	 *            ignored.
 	 * @param uniqueFields
 	 *            - The list of fields that are unique (if any).
 	 * @param relationships
@@ -582,14 +698,20 @@ public class ImportUtil {
 	 *            batch upload, help us to see if there is a batch content
 	 *            upload with multiple records and the same key, mostly used for
 	 *            content with multiple languages.
+	 * @param identifierMatches
+	 *            - The content found for the identifier of the line, if it was
+	 *            already looked up. Otherwise it is looked up here.
+	 * @param importedByKey
+	 *            - The content created by this import, by the values of its
+	 *            key fields.
 	 * @throws DotRuntimeException
 	 *             An error was detected when importing a line from the CSV
 	 *             file.
 	 */
     private static void importLine ( String[] line, String currentHostId, Structure contentType, boolean preview, boolean isMultilingual, User user, HashMap<String, List<String>> results, int lineNumber, long language,
             HashMap<Integer, Field> headers, HashMap<Integer, Field> keyFields, StringBuffer choosenKeyField, Counters counters,
-            HashSet<String> keyContentUpdated, List<Permission> contentTypePermissions, List<UniqueFieldBean> uniqueFieldBeans, List<Field> uniqueFields, HashMap<Integer, Relationship> relationships, HashMap<Integer, Boolean> onlyChild, HashMap<Integer, Boolean> onlyParent,
-            boolean sameKeyBatchInsert ) throws DotRuntimeException {
+            Set<String> keyContentUpdated, List<Permission> contentTypePermissions, List<Field> repeatedUniqueFields, List<Field> uniqueFields, HashMap<Integer, Relationship> relationships, HashMap<Integer, Boolean> onlyChild, HashMap<Integer, Boolean> onlyParent,
+            boolean sameKeyBatchInsert, List<ContentletSearch> identifierMatches, Map<String, Contentlet> importedByKey ) throws DotRuntimeException {
 
         try {
             //Building a values HashMap based on the headers/columns position
@@ -786,15 +908,6 @@ public class ImportUtil {
                     valueObj = Config.getBooleanProperty("CONTENT_ESCAPE_HTML_TEXT",true) ? UtilMethods.escapeUnicodeCharsForHTML(value) : value;
                 }
                 values.put(column, valueObj);
-
-                if(field.isUnique()){
-                    UniqueFieldBean bean = new UniqueFieldBean();
-                    bean.setField(field);
-                    bean.setValue(valueObj);
-                    bean.setLineNumber(lineNumber);
-                    bean.setLanguageId(language);
-                    uniqueFieldBeans.add(bean);
-                }
             }
 
             //Find the relationships and their related contents
@@ -877,7 +990,8 @@ public class ImportUtil {
             if ( UtilMethods.isSet( identifier ) ) {
                 buffy.append( " +identifier:" + identifier );
 
-                List<ContentletSearch> contentsSearch = conAPI.searchIndex( buffy.toString(), 0, -1, null, user, true );
+                List<ContentletSearch> contentsSearch = identifierMatches != null ? identifierMatches
+                        : conAPI.searchIndex( buffy.toString(), 0, -1, null, user, true );
 
                 if ( (contentsSearch == null) || (contentsSearch.size() == 0) ) {
                     throw new DotRuntimeException( "Line #" + lineNumber + ": Content not found with identifier " + identifier + "\n" );
@@ -900,7 +1014,7 @@ public class ImportUtil {
                     if (value instanceof Date || value instanceof Timestamp) {
                         SimpleDateFormat formatter = null;
                         if(field.getFieldType().equals(Field.FieldType.DATE.toString())){
-                            text = DATE_FIELD_FORMAT.format((Date)value);
+                            text = DATE_FIELD_FORMAT.get().format((Date)value);
                         }else if(field.getFieldType().equals(Field.FieldType.DATE_TIME.toString())){
                             DateFormat df = new SimpleDateFormat("MM/dd/yyyy");
                             text = df.format((Date)value);
@@ -927,6 +1041,7 @@ public class ImportUtil {
                     }
 
                     if(!field.isUnique()){
+                      synchronized (choosenKeyField) {
                         if(UtilMethods.isSet(choosenKeyField.toString())){
                             int count = 1;
                             String[] chosenArr = choosenKeyField.toString().split(",");
@@ -941,6 +1056,7 @@ public class ImportUtil {
                         }else{
                             choosenKeyField.append(", " + field.getVelocityVarName());
                         }
+                      }
                     }
 
                 }
@@ -981,8 +1097,8 @@ public class ImportUtil {
                                     conValue = df.format((Date)conValue);
                                     value = df.format((Date)value);
                                 }else if(field.getFieldType().equals(Field.FieldType.DATE.toString())){
-                                    value = DATE_FIELD_FORMAT.format((Date)value);
-                                    conValue = DATE_FIELD_FORMAT.format((Date)conValue);
+                                    value = DATE_FIELD_FORMAT.get().format((Date)value);
+                                    conValue = DATE_FIELD_FORMAT.get().format((Date)conValue);
                                 }else{
                                     if(conValue instanceof java.sql.Timestamp){
                                         value = new java.sql.Timestamp(((Date)value).getTime());
@@ -1024,30 +1140,21 @@ public class ImportUtil {
                      */
                     if ( sameKeyBatchInsert && contentlets.isEmpty() ) {
 
-                        //Searching for all the contentlets of this structure
-                        List<Contentlet> foundContentlets = conAPI.findByStructure( contentType, user, true, 0, -1 );
-
-                        for ( Contentlet contentlet : foundContentlets ) {
-
-                            boolean match = true;
-                            for ( Integer column : keyFields.keySet() ) {
-
-                                //Getting key values
-                                Field field = keyFields.get( column );
-                                Object value = values.get( column );
-
-                                //Ok, comparing our keys with the contentlets we found trying to see if there is a contentlet to update with the specified keys
-                                Object conValue = conAPI.getFieldValue( contentlet, field );
-                                if ( !conValue.equals( value ) ) {
-                                    match = false;
-                                }
+                        //Looking for the content created by an earlier line of this file with the same keys
+                        Contentlet imported = importedByKey.get( keySignature( keyFields, values ) );
+                        if ( imported != null ) {
+                            Contentlet contentlet = null;
+                            try {
+                                contentlet = conAPI.findContentletByIdentifier( imported.getIdentifier(), false, language, user, true );
+                            } catch ( DotContentletStateException e ) {
+                                Logger.debug( ImportUtil.class, e.getMessage() );
                             }
-
-                            //Ok, we found our record
-                            if ( match ) {
+                            if ( contentlet == null || !InodeUtils.isSet( contentlet.getInode() ) ) {
+                                contentlet = conAPI.findContentletByIdentifier( imported.getIdentifier(), false, imported.getLanguageId(), user, true );
+                            }
+                            if ( contentlet != null && InodeUtils.isSet( contentlet.getInode() ) ) {
                                 contentlets.add( contentlet );
                                 isMultilingual = true;
-                                break;
                             }
                         }
                     }
@@ -1058,7 +1165,7 @@ public class ImportUtil {
             boolean isNew = false;
             Long existingMultilingualLanguage = null;//For multilingual batch imports we need the language of an existing contentlet if there is any
             if ( contentlets.size() == 0 ) {
-                counters.setNewContentCounter( counters.getNewContentCounter() + 1 );
+                counters.addNewContentCounter( 1 );
                 isNew = true;
                 Contentlet newCont = new Contentlet();
                 newCont.setStructureInode( contentType.getInode() );
@@ -1080,7 +1187,7 @@ public class ImportUtil {
                         isNew = true;
                         for ( Contentlet contentlet : contentlets ) {
                             if ( !contentlet.getIdentifier().equals( lastIdentifier ) ) {
-                                counters.setNewContentCounter( counters.getNewContentCounter() + 1 );
+                                counters.addNewContentCounter( 1 );
                                 Contentlet newCont = new Contentlet();
                                 newCont.setIdentifier( contentlet.getIdentifier() );
                                 newCont.setStructureInode( contentType.getInode() );
@@ -1098,7 +1205,7 @@ public class ImportUtil {
 
                 if ( !isNew ) {
                     if ( conditionValues.equals( "" ) || !keyContentUpdated.contains( conditionValues ) || isMultilingual ) {
-                        counters.setContentToUpdateCounter( counters.getContentToUpdateCounter() + contentlets.size() );
+                        counters.addContentToUpdateCounter( contentlets.size() );
                         if ( preview ) {
                             keyContentUpdated.add( conditionValues );
                         }
@@ -1232,9 +1339,9 @@ public class ImportUtil {
 
                 //Check if line has repeated values for a unique field, if it does then ignore the line
                 boolean ignoreLine = false;
-                if(!uniqueFieldBeans.isEmpty()){
+                if(!repeatedUniqueFields.isEmpty()){
                     ignoreLine =
-                        validateUniqueFields(user, results, lineNumber, language, counters, uniqueFieldBeans,
+                        validateUniqueFields(user, results, lineNumber, counters, repeatedUniqueFields,
                             uniqueFields);
                 }
 
@@ -1290,6 +1397,15 @@ public class ImportUtil {
                         }
                         //END Load the old relationShips and add the new ones
                         cont = conAPI.checkin(cont,contentletRelationships, new ArrayList<Category>(categories), contentTypePermissions, user, false);
+                        if (isNew && !keyFields.isEmpty()) {
+                            //Keeping the keys of the new content for the lines below with the same keys
+                            Contentlet imported = new Contentlet();
+                            imported.setIdentifier(cont.getIdentifier());
+                            imported.setLanguageId(cont.getLanguageId());
+                            if (importedByKey.get(keySignature(keyFields, values)) == null) {
+                                importedByKey.put(keySignature(keyFields, values), imported);
+                            }
+                        }
 
                         if(Config.getBooleanProperty("PUBLISH_CSV_IMPORTED_CONTENT_AUTOMATICALLY", false)){
                             APILocator.getContentletAPI().publish(cont, user, false);
@@ -1340,21 +1456,25 @@ public class ImportUtil {
                                 }
                             }
                         }
-                        results.get("lastInode").clear();
+                        //The content of the last line of the file, whatever the worker importing it
                         List<String> l = results.get("lastInode");
-                        l.add(cont.getInode());
-                        results.put("lastInode", l);
+                        synchronized (l) {
+                            if (counters.setLastLineImported(lineNumber)) {
+                                l.clear();
+                                l.add(cont.getInode());
+                            }
+                        }
                     }
 
                     if (isNew){
-                        counters.setContentCreated(counters.getContentCreated() + 1);
+                        counters.addContentCreated(1);
                     }else{
                         if (conditionValues.equals("") || !keyContentUpdated.contains(conditionValues)) {
-                            counters.setContentUpdated(counters.getContentUpdated() + 1);
-                            counters.setContentUpdatedDuplicated(counters.getContentUpdatedDuplicated() + 1);
+                            counters.addContentUpdated(1);
+                            counters.addContentUpdatedDuplicated(1);
                             keyContentUpdated.add(conditionValues);
                         }else{
-                            counters.setContentUpdatedDuplicated(counters.getContentUpdatedDuplicated() + 1);
+                            counters.addContentUpdatedDuplicated(1);
                         }
 
                     }
@@ -1371,41 +1491,46 @@ public class ImportUtil {
      * @param user
      * @param results
      * @param lineNumber
-     * @param language
      * @param counters
-     * @param uniqueFieldBeans
+     * @param repeatedUniqueFields
+     *            - The unique fields of the line with the same value the line before had.
      * @param uniqueFields
      * @return
      * @throws LanguageException
      */
     private static boolean validateUniqueFields(User user, HashMap<String, List<String>> results, int lineNumber,
-                                                long language, Counters counters,
-                                                List<UniqueFieldBean> uniqueFieldBeans,
+                                                Counters counters,
+                                                List<Field> repeatedUniqueFields,
                                                 List<Field> uniqueFields) throws LanguageException {
         boolean ignoreLine = false;
         for (Field f : uniqueFields) {
-            Object value = null;
-            int count = 0;
-            for (UniqueFieldBean bean : uniqueFieldBeans) {
-                if (bean.getField().equals(f) && language == bean.getLanguageId()) {
-                    if (count > 0 && value != null && value.equals(bean.getValue()) && lineNumber == bean
-                        .getLineNumber()) {
-                        counters.setNewContentCounter(counters.getNewContentCounter() - 1);
-                        ignoreLine = true;
-                        results.get("warnings").add(
-                            LanguageUtil.get(user, "Line--") + " " + lineNumber + " " + LanguageUtil
-                                .get(user, "contains-duplicate-values-for-structure-unique-field") + " " + f
-                                .getVelocityVarName() + " " + LanguageUtil.get(user, "and-will-be-ignored"));
-                    }
-                    value = bean.getValue();
-                    count++;
-
+            for (Field repeated : repeatedUniqueFields) {
+                if (repeated.getInode().equals(f.getInode())) {
+                    counters.addNewContentCounter(-1);
+                    ignoreLine = true;
+                    results.get("warnings").add(
+                        LanguageUtil.get(user, "Line--") + " " + lineNumber + " " + LanguageUtil
+                            .get(user, "contains-duplicate-values-for-structure-unique-field") + " " + f
+                            .getVelocityVarName() + " " + LanguageUtil.get(user, "and-will-be-ignored"));
+                    break;
                 }
             }
         }
         return ignoreLine;
     }
 
+    /**
+     * Identifies the content of a line by the values of its key fields.
+     */
+    private static String keySignature(Map<Integer, Field> keyFields, Map<Integer, Object> values) {
+        StringBuilder signature = new StringBuilder();
+        for (Integer column : keyFields.keySet()) {
+            Object value = values.get(column);
+            signature.append(value instanceof Date ? String.valueOf(((Date) value).getTime()) : String.valueOf(value)).append('\u0000');
+        }
+        return signature.toString();
+    }
+
     /**
      * 
      * @return
@@ -1454,86 +1579,122 @@ public class ImportUtil {
         public int contentUpdated = 0;
         public int contentUpdatedDuplicated = 0;
 
-        private Collection<Map<String, String>> keys = new ArrayList<Map<String, String>>();
+        private final Map<String, Set<String>> keys = new HashMap<String, Set<String>>();
+        private int keysCount = 0;
+        private int lastLineImported = 0;
+
+        /**
+         * Keeps the number of the line if it comes after every line imported so far.
+         *
+         * @return whether the line is the last one of the file imported so far
+         */
+        public synchronized boolean setLastLineImported ( int lineNumber ) {
+            if ( lineNumber <= lastLineImported ) {
+                return false;
+            }
+            lastLineImported = lineNumber;
+            return true;
+        }
 
         /**
          * @return the newContentCounter
          */
-        public int getNewContentCounter () {
+        public synchronized int getNewContentCounter () {
             return newContentCounter;
         }
 
         /**
          * @param newContentCounter the newContentCounter to set
          */
-        public void setNewContentCounter ( int newContentCounter ) {
+        public synchronized void setNewContentCounter ( int newContentCounter ) {
             this.newContentCounter = newContentCounter;
         }
 
         /**
          * @return the contentToUpdateCounter
          */
-        public int getContentToUpdateCounter () {
+        public synchronized int getContentToUpdateCounter () {
             return contentToUpdateCounter;
         }
 
         /**
          * @param contentToUpdateCounter the contentToUpdateCounter to set
          */
-        public void setContentToUpdateCounter(int contentToUpdateCounter) {
+        public synchronized void setContentToUpdateCounter(int contentToUpdateCounter) {
             this.contentToUpdateCounter = contentToUpdateCounter;
         }
         /**
          * @return the contentCreated
          */
-        public int getContentCreated() {
+        public synchronized int getContentCreated() {
             return contentCreated;
         }
         /**
          * @param contentCreated the contentCreated to set
          */
-        public void setContentCreated(int contentCreated) {
+        public synchronized void setContentCreated(int contentCreated) {
             this.contentCreated = contentCreated;
         }
         /**
          * @return the contentUpdated
          */
-        public int getContentUpdated() {
+        public synchronized int getContentUpdated() {
             return contentUpdated;
         }
         /**
          * @param contentUpdated the contentUpdated to set
          */
-        public void setContentUpdated(int contentUpdated) {
+        public synchronized void setContentUpdated(int contentUpdated) {
             this.contentUpdated = contentUpdated;
         }
         /**
          * @return the contentUpdatedDuplicated
          */
-        public int getContentUpdatedDuplicated() {
+        public synchronized int getContentUpdatedDuplicated() {
             return contentUpdatedDuplicated;
         }
         /**
          * @param contentUpdatedDuplicated the contentUpdatedDuplicated to set
          */
-        public void setContentUpdatedDuplicated(int contentUpdatedDuplicated) {
+        public synchronized void setContentUpdatedDuplicated(int contentUpdatedDuplicated) {
             this.contentUpdatedDuplicated = contentUpdatedDuplicated;
         }
 
+        public synchronized void addNewContentCounter ( int count ) {
+            this.newContentCounter += count;
+        }
+
+        public synchronized void addContentToUpdateCounter ( int count ) {
+            this.contentToUpdateCounter += count;
+        }
+
+        public synchronized void addContentCreated ( int count ) {
+            this.contentCreated += count;
+        }
+
+        public synchronized void addContentUpdated ( int count ) {
+            this.contentUpdated += count;
+        }
+
+        public synchronized void addContentUpdatedDuplicated ( int count ) {
+            this.contentUpdatedDuplicated += count;
+        }
+
         /**
          * Stores unique keys per line, useful to know if we have batch uploads with the same keys, mostly use it for batch content uploads with multiple languages
          *
          * @param key
          * @param value
          */
-        public void addKey ( String key, String value ) {
-
-            if ( !matchKey( key, value ) ) {
+        public synchronized void addKey ( String key, String value ) {
 
-                Map<String, String> keyMap = new HashMap<String, String>();
-                keyMap.put( key, value );
-
-                keys.add( keyMap );
+            Set<String> values = keys.get( key );
+            if ( values == null ) {
+                values = new HashSet<String>();
+                keys.put( key, values );
+            }
+            if ( values.add( value ) ) {
+                keysCount++;
             }
         }
 
@@ -1544,21 +1705,14 @@ public class ImportUtil {
          * @param value
          * @return
          */
-        public boolean matchKey ( String key, String value ) {
-
-            for ( Map<String, String> keyMap : keys ) {
-
-                String match = keyMap.get( key );
-                if ( match != null && match.equals( value ) ) {
-                    return true;
-                }
-            }
+        public synchronized boolean matchKey ( String key, String value ) {
 
-            return false;
+            Set<String> values = keys.get( key );
+            return values != null && values.contains( value );
         }
 
-        public int uniqueKeysCount () {
-            return keys.size();
+        public synchronized int uniqueKeysCount () {
+            return keysCount;
         }
 
     }
@@ -1588,76 +1742,34 @@ public class ImportUtil {
     }
 
     /**
-     * 
-     * @author root
-     * @version 1.x
-     * @since Mar 22, 2012
-     *
+     * Keeps the values the lines read so far had for each unique field, per language, and the
+     * content using each one, to find the lines repeating them. Only used by the thread reading the
+     * file.
      */
-    private static class UniqueFieldBean {
-
-        private Field field;
+    private static class UniqueFieldValues {
 
-        private Object value;
-
-        private Integer lineNumber;
-
-        private long languageId;
-
-        /**
-         * 
-         * @return
-         */
-        public Field getField() {
-            return field;
-        }
-
-        /**
-         * 
-         * @param field
-         */
-        public void setField(Field field) {
-            this.field = field;
-        }
-
-        /**
-         * 
-         * @return
-         */
-        public Object getValue() {
-            return value;
-        }
+        private final Map<String, String> lastValues = new HashMap<String, String>();
+        private final Map<String, String> contentKeys = new HashMap<String, String>();
 
         /**
-         * 
-         * @param value
-         */
-        public void setValue(Object value) {
-            this.value = value;
-        }
-
-        /**
-         * 
-         * @return
-         */
-        public Integer getLineNumber() {
-            return lineNumber;
-        }
-
-        /**
-         * 
-         * @param lineNumber
+         * @param contentKey the key of the content the line creates or updates, null if it is
+         *        always new content
+         * @return whether the line before had the same value for the field in the language, or a
+         *         line above used it for other content
          */
-        public void setLineNumber(Integer lineNumber) {
-            this.lineNumber = lineNumber;
-        }
-
-        public long getLanguageId() {
-            return languageId;
-        }
-
-        public void setLanguageId(long languageId) {
-            this.languageId = languageId;
+        boolean repeats(Field field, long languageId, String value, String contentKey) {
+            String fieldKey = field.getInode() + "-" + languageId;
+            String previous = lastValues.put(fieldKey, value);
+            if (value == null) {
+                return false;
+            }
+            String valueKey = fieldKey + "-" + value;
+            if (!contentKeys.containsKey(valueKey)) {
+                contentKeys.put(valueKey, contentKey);
+                return false;
+            }
+            String owner = contentKeys.get(valueKey);
+            return value.equals(previous) || owner == null || !owner.equals(contentKey);
         }
 
     }
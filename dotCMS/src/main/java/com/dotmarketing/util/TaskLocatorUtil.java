@@ -210,6 +210,8 @@ public class TaskLocatorUtil {
 		ret.add(Task04200CreateDefaultVanityURL.class);
 		ret.add(Task04205MigrateVanityURLToContent.class);
         ret.add(Task04210CreateDefaultLanguageVariable.class);
+        ret.add(Task04215CreateCacheInvalidationLog.class);
+        ret.add(Task04220AddShortyIdPrefixIndexes.class);
 
 		return ret;
 	}
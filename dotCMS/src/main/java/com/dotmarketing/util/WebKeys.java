@@ -356,6 +356,7 @@ public final class WebKeys {
     public static final String RULES_CONDITIONLET_VISITEDURLS = "RULES_CONDITIONLET_VISITEDURLS";
     public static final String RULES_ENGINE_PARAM = "dotRules";
     public static final String RULES_ENGINE_FIRE_LIST = "dotRulesFired";
+    public static final String RULES_ENGINE_FACTS = "dotRulesFacts";
 
 	//ADMIN CONTROL
     public static final String ADMIN_CONTROL_TOP = "com.dotmarketing.admin.control.top";
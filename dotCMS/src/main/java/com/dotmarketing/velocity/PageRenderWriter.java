@@ -0,0 +1,258 @@
+package com.dotmarketing.velocity;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.dotmarketing.util.Config;
+
+/**
+ * Writer used to render live pages. Output is streamed to the response as it is produced and,
+ * when the page is going to be cached, is also kept in fixed size char segments taken from a shared
+ * pool, so the cached copy is built once at the end with its exact size instead of growing a
+ * {@link java.io.StringWriter} and copying it again to trim it.
+ *
+ * Leading and trailing whitespace of the page is removed like {@link String#trim()} does. Only the
+ * edges of each chunk written are inspected: leading whitespace is skipped until the first
+ * character that is not whitespace, and whitespace at the end of a chunk is held back until
+ * something else is written after it, so it is dropped if the page ends there.
+ *
+ * @author dotCMS
+ */
+public class PageRenderWriter extends Writer {
+
+    private static final int SEGMENT_SIZE = Config.getIntProperty("VELOCITY_OUTPUT_SEGMENT_SIZE", 8192);
+    private static final int POOL_SIZE = Config.getIntProperty("VELOCITY_OUTPUT_SEGMENT_POOL_SIZE", 256);
+
+    private static final Queue<char[]> pool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooled = new AtomicInteger();
+
+    private final Writer target;
+    private final boolean retain;
+    private final List<char[]> segments;
+
+    private char[] current;
+    private int position;
+    private int length;
+    private boolean started;
+    private StringBuilder pendingWhitespace;
+    private boolean closed;
+
+    /**
+     * @param target the writer to stream the page to, can be null to only retain it
+     * @param retain whether the page has to be kept to be returned by {@link #getContent()}
+     */
+    public PageRenderWriter(final Writer target, final boolean retain) {
+        this.target = target;
+        this.retain = retain;
+        this.segments = retain ? new ArrayList<char[]>() : null;
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        if (c <= ' ') {
+            if (started) {
+                pending().append((char) c);
+            }
+            return;
+        }
+        started = true;
+        flushPending();
+        if (target != null) {
+            target.write(c);
+        }
+        if (retain) {
+            if (current == null || position == current.length) {
+                nextSegment();
+            }
+            current[position++] = (char) c;
+            length++;
+        }
+    }
+
+    @Override
+    public void write(final char[] cbuf, int off, final int len) throws IOException {
+        final int end = off + len;
+        if (!started) {
+            while (off < end && cbuf[off] <= ' ') {
+                off++;
+            }
+            if (off == end) {
+                return;
+            }
+            started = true;
+        }
+
+        int last = end - 1;
+        while (last >= off && cbuf[last] <= ' ') {
+            last--;
+        }
+        if (last < off) {
+            pending().append(cbuf, off, end - off);
+            return;
+        }
+
+        flushPending();
+        emit(cbuf, off, last + 1 - off);
+        if (last + 1 < end) {
+            pending().append(cbuf, last + 1, end - last - 1);
+        }
+    }
+
+    @Override
+    public void write(final String str, int off, final int len) throws IOException {
+        final int end = off + len;
+        if (!started) {
+            while (off < end && str.charAt(off) <= ' ') {
+                off++;
+            }
+            if (off == end) {
+                return;
+            }
+            started = true;
+        }
+
+        int last = end - 1;
+        while (last >= off && str.charAt(last) <= ' ') {
+            last--;
+        }
+        if (last < off) {
+            pending().append(str, off, end);
+            return;
+        }
+
+        flushPending();
+        emit(str, off, last + 1 - off);
+        if (last + 1 < end) {
+            pending().append(str, last + 1, end);
+        }
+    }
+
+    private StringBuilder pending() {
+        if (pendingWhitespace == null) {
+            pendingWhitespace = new StringBuilder();
+        }
+        return pendingWhitespace;
+    }
+
+    private void flushPending() throws IOException {
+        if (pendingWhitespace != null && pendingWhitespace.length() > 0) {
+            final String whitespace = pendingWhitespace.toString();
+            pendingWhitespace.setLength(0);
+            emit(whitespace, 0, whitespace.length());
+        }
+    }
+
+    private void emit(final char[] cbuf, int off, int len) throws IOException {
+        if (target != null) {
+            target.write(cbuf, off, len);
+        }
+        if (retain) {
+            length += len;
+            while (len > 0) {
+                if (current == null || position == current.length) {
+                    nextSegment();
+                }
+                final int count = Math.min(len, current.length - position);
+                System.arraycopy(cbuf, off, current, position, count);
+                position += count;
+                off += count;
+                len -= count;
+            }
+        }
+    }
+
+    private void emit(final String str, int off, int len) throws IOException {
+        if (target != null) {
+            target.write(str, off, len);
+        }
+        if (retain) {
+            length += len;
+            while (len > 0) {
+                if (current == null || position == current.length) {
+                    nextSegment();
+                }
+                final int count = Math.min(len, current.length - position);
+                str.getChars(off, off + count, current, position);
+                position += count;
+                off += count;
+                len -= count;
+            }
+        }
+    }
+
+    private void nextSegment() {
+        char[] segment = pool.poll();
+        if (segment != null) {
+            pooled.decrementAndGet();
+        } else {
+            segment = new char[SEGMENT_SIZE];
+        }
+        segments.add(segment);
+        current = segment;
+        position = 0;
+    }
+
+    /**
+     * Returns the trimmed page written so far, only available when the writer retains its output.
+     */
+    public String getContent() {
+        if (!retain) {
+            throw new IllegalStateException("The page output is not being retained");
+        }
+        if (segments.size() == 1) {
+            // the whole page fits in a segment, the string is copied straight from it
+            return new String(segments.get(0), 0, length);
+        }
+        final char[] content = new char[length];
+        int copied = 0;
+        for (char[] segment : segments) {
+            final int count = Math.min(length - copied, segment.length);
+            System.arraycopy(segment, 0, content, copied, count);
+            copied += count;
+        }
+        return new String(content);
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (target != null) {
+            target.flush();
+        }
+    }
+
+    /**
+     * Closes the target writer and returns the segments to the pool. Whitespace still pending at
+     * this point is the end of the page and is dropped.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (retain) {
+            for (char[] segment : segments) {
+                if (pooled.incrementAndGet() <= POOL_SIZE) {
+                    pool.offer(segment);
+                } else {
+                    pooled.decrementAndGet();
+                }
+            }
+            segments.clear();
+            current = null;
+        }
+        if (target != null) {
+            target.close();
+        }
+    }
+
+}
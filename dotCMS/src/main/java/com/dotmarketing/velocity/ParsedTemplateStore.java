@@ -0,0 +1,341 @@
+package com.dotmarketing.velocity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.velocity.runtime.parser.ParseException;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
+
+import com.dotcms.concurrent.DotConcurrentFactory;
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotcms.repackage.com.google.common.cache.Cache;
+import com.dotcms.repackage.com.google.common.cache.CacheBuilder;
+import com.dotcms.repackage.org.apache.commons.codec.digest.DigestUtils;
+import com.dotcms.repackage.org.apache.commons.io.FileUtils;
+import com.dotcms.repackage.org.apache.commons.io.IOUtils;
+import com.dotmarketing.business.cache.provider.CacheProviderStats;
+import com.dotmarketing.business.cache.provider.CacheStats;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.ConfigUtils;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.VelocityUtil;
+
+/**
+ * Keeps the parsed Velocity AST of every template keyed by the template name and the hash of its
+ * generated source, so a template whose source did not change is not parsed again after a velocity
+ * cache flush. Since the key includes the hash, a flush does not need to clear the store.
+ *
+ * When VELOCITY_PARSED_TEMPLATE_PERSIST is on, the sources are also written to disk
+ * (VELOCITY_PARSED_TEMPLATE_PATH, which can be a directory shared by the nodes of a cluster) and
+ * parsed in the background on startup, so after a restart the first requests find the ASTs ready
+ * as long as the regenerated source has the same hash.
+ *
+ * Sources that define macros are never reused: macros are registered while parsing and skipping the
+ * parse would skip the registration.
+ *
+ * @author dotCMS
+ */
+public class ParsedTemplateStore {
+
+    private static final String SUBMITTER_NAME = "velocityparse";
+    private static final String FILE_EXTENSION = ".vtl";
+    private static final String STATS_REGION = "velocity.parsed.templates";
+    private static final String STATS_MAX_PARSE_TIME = "velocity.parsed.templates.max.parse.time";
+    private static final String STATS_WARMED_UP = "velocity.parsed.templates.warmed.up";
+
+    private static volatile ParsedTemplateStore instance;
+
+    private final Cache<String, ParsedTemplate> templates;
+    private final int maxSize;
+    private final File storeDirectory;
+    private final boolean persist;
+    private final SourceParser parser;
+    private final Executor executor;
+
+    private final AtomicLong parseCount = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+    private final AtomicLong maxParseNanos = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong warmedUpCount = new AtomicLong();
+
+    /**
+     * An AST together with whether it was already initialized by a {@link org.apache.velocity.Template}.
+     * ASTs parsed on startup are not initialized until a template uses them.
+     */
+    public static final class ParsedTemplate {
+
+        private final SimpleNode data;
+        private volatile boolean initialized;
+
+        private ParsedTemplate(SimpleNode data, boolean initialized) {
+            this.data = data;
+            this.initialized = initialized;
+        }
+
+        public SimpleNode getData() {
+            return data;
+        }
+
+        public boolean isInitialized() {
+            return initialized;
+        }
+
+        public void setInitialized() {
+            this.initialized = true;
+        }
+    }
+
+    /**
+     * Turns a velocity source into its AST.
+     */
+    @FunctionalInterface
+    interface SourceParser {
+        SimpleNode parse(String source, String templateName) throws ParseException;
+    }
+
+    public static ParsedTemplateStore getInstance() {
+        if (instance == null) {
+            synchronized (ParsedTemplateStore.class) {
+                if (instance == null) {
+                    instance = new ParsedTemplateStore();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private ParsedTemplateStore() {
+        this(Config.getIntProperty("VELOCITY_PARSED_TEMPLATE_STORE_SIZE", 5000),
+                Config.getBooleanProperty("VELOCITY_PARSED_TEMPLATE_PERSIST", false),
+                new File(Config.getStringProperty("VELOCITY_PARSED_TEMPLATE_PATH",
+                        ConfigUtils.getDynamicContentPath() + File.separator + "velocity" + File.separator + "parsed")),
+                (source, templateName) -> VelocityUtil.getEngine().getRuntimeServices().parse(new StringReader(source), templateName),
+                runnable -> DotConcurrentFactory.getInstance().getSubmitter(SUBMITTER_NAME).submit(runnable));
+    }
+
+    @VisibleForTesting
+    ParsedTemplateStore(final int maxSize, final boolean persist, final File storeDirectory,
+                        final SourceParser parser, final Executor executor) {
+        this.maxSize = maxSize;
+        this.templates = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+        this.persist = persist;
+        this.storeDirectory = storeDirectory;
+        this.parser = parser;
+        this.executor = executor;
+
+        if (persist) {
+            if (!storeDirectory.exists() && !storeDirectory.mkdirs()) {
+                Logger.warn(this, "Unable to create the parsed template directory " + storeDirectory);
+            }
+            submit(this::warmUp);
+        }
+    }
+
+    /**
+     * Returns the AST for the given source, parsing it only if this exact source was not parsed
+     * before for the same template name.
+     *
+     * @param reader the generated source, it is read fully
+     * @param templateName name of the template being parsed
+     * @return the AST, callers have to init it when {@link ParsedTemplate#isInitialized()} is false
+     */
+    public ParsedTemplate parse(final Reader reader, final String templateName) throws ParseException, IOException {
+        final String source = IOUtils.toString(reader);
+
+        if (definesMacros(source)) {
+            return new ParsedTemplate(timedParse(source, templateName), false);
+        }
+
+        final String key = buildKey(templateName, DigestUtils.md5Hex(source));
+        ParsedTemplate parsed = templates.getIfPresent(key);
+        if (parsed != null) {
+            hitCount.incrementAndGet();
+            if (!parsed.isInitialized()) {
+                // first use of an AST parsed on startup, keep its file from aging out
+                touch(templateName);
+            }
+            return parsed;
+        }
+
+        parsed = new ParsedTemplate(timedParse(source, templateName), false);
+        templates.put(key, parsed);
+        store(templateName, source);
+        return parsed;
+    }
+
+    private SimpleNode timedParse(final String source, final String templateName) throws ParseException {
+        final long start = System.nanoTime();
+        final SimpleNode node = parser.parse(source, templateName);
+        final long elapsed = System.nanoTime() - start;
+
+        parseCount.incrementAndGet();
+        parseNanos.addAndGet(elapsed);
+        long max = maxParseNanos.get();
+        while (elapsed > max && !maxParseNanos.compareAndSet(max, elapsed)) {
+            max = maxParseNanos.get();
+        }
+        Logger.debug(this, "Parsed " + templateName + " in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+        return node;
+    }
+
+    private boolean definesMacros(final String source) {
+        return source.contains("#macro") || source.contains("#{macro}");
+    }
+
+    private String buildKey(final String templateName, final String sourceHash) {
+        return templateName + ":" + sourceHash;
+    }
+
+    private File fileFor(final String templateName) {
+        return new File(storeDirectory, DigestUtils.md5Hex(templateName) + FILE_EXTENSION);
+    }
+
+    /**
+     * Writes the source to disk in the background. The first line of the file is the template name.
+     */
+    private void store(final String templateName, final String source) {
+        if (!persist) {
+            return;
+        }
+        submit(() -> {
+            try {
+                FileUtils.writeStringToFile(fileFor(templateName), templateName + "\n" + source, "UTF-8");
+            } catch (IOException e) {
+                Logger.debug(ParsedTemplateStore.class, "Unable to store parsed template " + templateName + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private void touch(final String templateName) {
+        if (!persist) {
+            return;
+        }
+        submit(() -> fileFor(templateName).setLastModified(System.currentTimeMillis()));
+    }
+
+    /**
+     * Parses the most recently stored sources, up to the size of the store, so the ASTs are ready
+     * when the templates are requested. Files older than VELOCITY_PARSED_TEMPLATE_MAX_AGE_DAYS are
+     * deleted.
+     */
+    private void warmUp() {
+        final File[] files = storeDirectory.listFiles();
+        if (files == null || files.length == 0) {
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        final long maxAge = TimeUnit.DAYS.toMillis(Config.getIntProperty("VELOCITY_PARSED_TEMPLATE_MAX_AGE_DAYS", 30));
+        final int limit = maxSize;
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return Long.compare(f2.lastModified(), f1.lastModified());
+            }
+        });
+
+        int loaded = 0;
+        for (File file : files) {
+            if (!file.getName().endsWith(FILE_EXTENSION)) {
+                continue;
+            }
+            if (start - file.lastModified() > maxAge) {
+                FileUtils.deleteQuietly(file);
+                continue;
+            }
+            if (loaded >= limit) {
+                continue;
+            }
+            try {
+                final String content = FileUtils.readFileToString(file, "UTF-8");
+                final int newLine = content.indexOf('\n');
+                if (newLine < 0) {
+                    continue;
+                }
+                final String templateName = content.substring(0, newLine);
+                final String source = content.substring(newLine + 1);
+                final String key = buildKey(templateName, DigestUtils.md5Hex(source));
+                if (templates.getIfPresent(key) == null) {
+                    templates.put(key, new ParsedTemplate(timedParse(source, templateName), false));
+                    warmedUpCount.incrementAndGet();
+                    loaded++;
+                }
+            } catch (Exception e) {
+                Logger.debug(this, "Unable to warm up " + file + ": " + e.getMessage());
+                FileUtils.deleteQuietly(file);
+            }
+        }
+
+        Logger.info(this, "Parsed " + loaded + " stored velocity templates in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private void submit(final Runnable runnable) {
+        try {
+            executor.execute(runnable);
+        } catch (Exception e) {
+            Logger.debug(this, "Unable to submit parsed template task: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drops every AST, called when all the caches are flushed from the maintenance portlet or by
+     * another node of the cluster.
+     */
+    public void clear() {
+        templates.invalidateAll();
+    }
+
+    /**
+     * Returns the parse counters in the shape of the cache stats, so they are listed in the cache
+     * stats of the maintenance portlet next to the velocity cache.
+     */
+    public CacheProviderStats getStats() {
+        final CacheStats stats = new CacheStats();
+        stats.addStat(CacheStats.REGION, STATS_REGION);
+        stats.addStat(CacheStats.REGION_CONFIGURED_SIZE, maxSize);
+        stats.addStat(CacheStats.REGION_SIZE, getSize());
+        stats.addStat(CacheStats.REGION_LOAD, getParseCount());
+        stats.addStat(CacheStats.REGION_HITS, getHitCount());
+        stats.addStat(CacheStats.REGION_AVG_LOAD_TIME,
+                (getParseCount() == 0 ? 0 : getParseTimeMillis() / getParseCount()) + " ms");
+        stats.addStat(STATS_MAX_PARSE_TIME, getMaxParseTimeMillis() + " ms");
+        stats.addStat(STATS_WARMED_UP, getWarmedUpCount());
+
+        final CacheProviderStats providerStats = new CacheProviderStats(new CacheStats(), "Velocity Parsed Templates");
+        providerStats.addStatRecord(stats);
+        return providerStats;
+    }
+
+    public long getParseCount() {
+        return parseCount.get();
+    }
+
+    public long getParseTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(parseNanos.get());
+    }
+
+    public long getMaxParseTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxParseNanos.get());
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getWarmedUpCount() {
+        return warmedUpCount.get();
+    }
+
+    public long getSize() {
+        return templates.size();
+    }
+
+}
@@ -6,11 +6,8 @@ import static com.dotmarketing.business.PermissionAPI.PERMISSION_READ;
 import static com.dotmarketing.business.PermissionAPI.PERMISSION_WRITE;
 
 import java.io.File;
-import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.net.URLDecoder;
 import java.util.*;
 import java.util.Calendar;
@@ -575,7 +572,7 @@ public abstract class VelocityServlet extends HttpServlet {
     			}
     		}
     
-    		Writer out = (buildCache) ? new StringWriter(4096) : new VelocityFilterWriter(response.getWriter());
+    		PageRenderWriter out = new PageRenderWriter(response.getWriter(), buildCache);
     		//get the context from the requst if possible
     		Context context = VelocityUtil.getWebContext(request, response);
     		request.setAttribute("velocityContext", context);
@@ -596,9 +593,8 @@ public abstract class VelocityServlet extends HttpServlet {
     		}
     		session = request.getSession(false);
     		if (buildCache) {
-    			String trimmedPage = out.toString().trim();
-    			response.getWriter().write(trimmedPage);
-    			response.getWriter().close();
+    			String trimmedPage = out.getContent();
+    			out.close();
     			synchronized (key.intern()) {
     				//CacheLocator.getHTMLPageCache().remove(page);
     				CacheLocator.getBlockPageCache().add(page, trimmedPage, cacheParameters);
@@ -1180,60 +1176,4 @@ public abstract class VelocityServlet extends HttpServlet {
 		return htmlPage.isArchived();
 	}
 
-	/**
-	 * @author will this filter class strips all leading whitespace from the
-	 *         server response which is helpful for xml feeds and the like.
-	 */
-
-	public class VelocityFilterWriter extends FilterWriter {
-
-		private boolean firstNonWhiteSpace = false;
-
-		public VelocityFilterWriter(Writer arg0) {
-			super(arg0);
-
-		}
-
-		@Override
-		public void write(char[] arg0) throws IOException {
-			if (firstNonWhiteSpace) {
-				super.write(arg0);
-			} else {
-
-				for (int i = 0; i < arg0.length; i++) {
-					if (arg0[i] > 32) {
-						firstNonWhiteSpace = true;
-					}
-					if (firstNonWhiteSpace) {
-						super.write(arg0[i]);
-					}
-
-				}
-
-			}
-
-		}
-
-		@Override
-		public void write(String arg0) throws IOException {
-			if (firstNonWhiteSpace) {
-				super.write(arg0);
-			} else {
-				char[] stringChar = arg0.toCharArray();
-				for (int i = 0; i < stringChar.length; i++) {
-
-					if (stringChar[i] > 32) {
-						firstNonWhiteSpace = true;
-						super.write(arg0.substring(i, stringChar.length));
-						break;
-					}
-
-				}
-
-			}
-
-		}
-
-	}
-
 }
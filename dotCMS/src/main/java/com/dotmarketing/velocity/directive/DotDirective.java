@@ -38,6 +38,14 @@ abstract class DotDirective extends InputBase {
 
   abstract String resolveTemplatePath(Context context, Writer writer, RenderParams params, String argument);
 
+  /**
+   * Called before the argument of the directive is resolved, gives subclasses the chance to look at
+   * the template the directive lives in. Does nothing by default.
+   */
+  void prepare(InternalContextAdapter context, RenderParams params, Node node) {
+
+  }
+
   final Template loadTemplate(InternalContextAdapter context,  String templatePath){
     
     try {
@@ -74,6 +82,7 @@ abstract class DotDirective extends InputBase {
     String argument = value == null ? null : value.toString();
 
     RenderParams params = new RenderParams(request);
+    prepare(context, params, node);
 
     try{
       String templatePath = this.resolveTemplatePath(context, writer, params, argument);
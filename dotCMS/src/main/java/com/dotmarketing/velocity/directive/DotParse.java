@@ -1,11 +1,18 @@
 package com.dotmarketing.velocity.directive;
 
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotcms.repackage.com.google.common.cache.CacheBuilder;
 import com.dotmarketing.beans.Host;
 import com.dotmarketing.beans.Identifier;
 import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
 import com.dotmarketing.business.DotStateException;
 import com.dotmarketing.business.PermissionAPI;
+import com.dotmarketing.business.UserAPI;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotSecurityException;
 import com.dotmarketing.filters.CMSFilter;
+import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
 import com.dotmarketing.portlets.contentlet.model.Contentlet;
 import com.dotmarketing.portlets.contentlet.model.ContentletVersionInfo;
 import com.dotmarketing.portlets.fileassets.business.FileAsset;
@@ -13,21 +20,60 @@ import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.UtilMethods;
 import com.liferay.portal.model.User;
 import org.apache.velocity.context.Context;
+import org.apache.velocity.context.InternalContextAdapter;
 import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.runtime.parser.node.ASTDirective;
+import org.apache.velocity.runtime.parser.node.ASTStringLiteral;
+import org.apache.velocity.runtime.parser.node.Node;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 public class DotParse extends DotDirective {
 
   private static final long serialVersionUID = 1L;
 
+  /**
+   * Parsed templates whose #dotParse targets have already been pre-resolved, with the
+   * host/language/mode combinations they were resolved for. Weak keys so a re-parsed template is
+   * pre-resolved again and the old AST can be collected.
+   */
+  private static final ConcurrentMap<Node, Set<String>> preResolved =
+      CacheBuilder.newBuilder().weakKeys().<Node, Set<String>>build().asMap();
+
+  private final transient DotParseCache dotParseCache;
+  private final transient ContentletAPI contentletAPI;
+  private final transient PermissionAPI permissionAPI;
+  private final transient UserAPI userAPI;
+
+  private static final String ANONYMOUS = "anonymous";
+
   private final String hostIndicator = "//";
   private final String EDIT_ICON =
       "<div class='dot_parseIcon'><a href='javascript:window.top.document.getElementById(\"detailFrame\").contentWindow.editFile(\"${_dotParseInode}\");' title='$_dotParsePath'><span class='editIcon'></span></a></div>";
 
 
+  public DotParse() {
+    this(CacheLocator.getDotParseCache(), APILocator.getContentletAPI(), APILocator.getPermissionAPI(),
+        APILocator.getUserAPI());
+  }
+
+  @VisibleForTesting
+  DotParse(final DotParseCache dotParseCache, final ContentletAPI contentletAPI, final PermissionAPI permissionAPI,
+      final UserAPI userAPI) {
+    this.dotParseCache = dotParseCache;
+    this.contentletAPI = contentletAPI;
+    this.permissionAPI = permissionAPI;
+    this.userAPI = userAPI;
+  }
+
+
   @Override
   public final String getName() {
 
@@ -35,33 +81,158 @@ public class DotParse extends DotDirective {
   }
 
 
+  /**
+   * The first time a template is rendered for a host, language and mode, resolves every #dotParse
+   * in it that takes a constant path, so all of them land in the {@link DotParseCache} in one pass
+   * instead of one by one as the render (or later renders down other branches) reaches them.
+   */
+  @Override
+  void prepare(final InternalContextAdapter context, final RenderParams params, final Node node) {
+    if (params.currentHost == null || params.language == null) {
+      return;
+    }
+
+    Node root = node;
+    while (root.jjtGetParent() != null) {
+      root = root.jjtGetParent();
+    }
+
+    final String variant = params.currentHost.getIdentifier() + ":" + params.language.getId() + ":" + params.live;
+    if (!preResolved.computeIfAbsent(root, key -> ConcurrentHashMap.newKeySet()).add(variant)) {
+      return;
+    }
+
+    final List<String> arguments = new ArrayList<>();
+    collectArguments(root, context, arguments);
+    for (String argument : arguments) {
+      try {
+        Host host = resolveHost(argument, params);
+        resolveResource(host, resolvePath(argument), params.language.getId(), params.live);
+      } catch (Exception e) {
+        Logger.debug(this.getClass(), " - unable to pre-resolve " + argument + ": " + e.getMessage());
+      }
+    }
+  }
+
+  private void collectArguments(final Node node, final InternalContextAdapter context, final List<String> arguments) {
+    if (node instanceof ASTDirective && getName().equals(((ASTDirective) node).getDirectiveName())
+        && node.jjtGetNumChildren() > 0 && node.jjtGetChild(0) instanceof ASTStringLiteral
+        && ((ASTStringLiteral) node.jjtGetChild(0)).isConstant()) {
+      Object value = node.jjtGetChild(0).value(context);
+      if (value != null) {
+        arguments.add(value.toString());
+      }
+    }
+    for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+      collectArguments(node.jjtGetChild(i), context, arguments);
+    }
+  }
+
+  private Host resolveHost(final String argument, final RenderParams params) throws Exception {
+    if (argument.startsWith(hostIndicator)) {
+      String hostName = argument.substring(hostIndicator.length(), argument.indexOf('/', hostIndicator.length()));
+      return APILocator.getHostAPI().resolveHostName(hostName, params.user, params.live);
+    }
+    return params.currentHost;
+  }
 
+  private String resolvePath(final String argument) {
+    if (argument.startsWith(hostIndicator)) {
+      return argument.substring(argument.indexOf('/', hostIndicator.length()));
+    }
+    return argument;
+  }
+
+  /**
+   * Returns the file asset behind the given path, from the {@link DotParseCache} when possible, or
+   * null if there is no resource with that path. Lookups are done as the system user, callers have
+   * to check permissions on the result.
+   */
+  private DotParseResource resolveResource(final Host host, final String templatePath, final long lang, final boolean live)
+      throws Exception {
 
+    final DotParseCache cache = this.dotParseCache;
+    DotParseResource resource = cache.get(host.getIdentifier(), templatePath, lang, live);
+    if (resource != null) {
+      return resource;
+    }
+
+    Identifier id = APILocator.getIdentifierAPI().find(host, templatePath);
+
+    //Verify if we found a resource with the given path
+    if ( null == id || !UtilMethods.isSet(id.getId()) ) {
+      return null;
+    }
+
+    ContentletVersionInfo cv = APILocator.getVersionableAPI().getContentletVersionInfo(id.getId(), lang);
+
+    if (cv == null) {
+      long defaultLang = APILocator.getLanguageAPI().getDefaultLanguage().getId();
+      if (defaultLang != lang) {
+        cv = APILocator.getVersionableAPI().getContentletVersionInfo(id.getId(), defaultLang);
+      }
+    }
+    String inode = (cv == null) ? null : ((live) ? cv.getLiveInode() : cv.getWorkingInode());
+
+    //We found the resource but not the version we are looking for
+    if ( null == inode ) {
+      String errorMessage = String.format("Not found %s version of [%s]", (live) ? "Live" : "Working", templatePath);
+      throw new ResourceNotFoundException(errorMessage);
+    }
+
+    Contentlet c = this.contentletAPI.find(inode, this.userAPI.getSystemUser(), false);
+    FileAsset asset = APILocator.getFileAssetAPI().fromContentlet(c);
+
+    resource = new DotParseResource(id.getId(), inode, id.getParentPath(), asset.getFileAsset().getAbsolutePath());
+    cache.add(host.getIdentifier(), templatePath, lang, live, resource);
+    return resource;
+  }
+
+
+  /**
+   * Throws a {@link DotSecurityException} if the user can't read the resolved resource. The outcome
+   * is kept in the {@link DotParseCache} per version and user, until the permissions of the resource
+   * or the roles of the user change, so rendering a page does not load the contentlet of every parsed
+   * fragment again.
+   */
+  @VisibleForTesting
+  void checkReadPermission(final DotParseResource resource, final User user, final boolean live)
+      throws DotDataException, DotSecurityException {
+
+    final String userId = (user == null) ? ANONYMOUS : user.getUserId();
+    // taken before the check, so a change of the permissions while checking them is not missed
+    final String stamp = this.dotParseCache.getPermissionStamp(resource.getIdentifier(), userId);
+    Boolean canRead = this.dotParseCache.getReadPermission(resource.getInode(), userId, live, stamp);
+    if (canRead == null) {
+      Contentlet c = this.contentletAPI.find(resource.getInode(), this.userAPI.getSystemUser(), false);
+      canRead = this.permissionAPI.doesUserHavePermission(c, PermissionAPI.PERMISSION_READ, user, live);
+      this.dotParseCache.addReadPermission(resource.getInode(), userId, live, stamp, canRead);
+    }
+
+    if (!canRead) {
+      throw new DotSecurityException("User " + userId + " does not have permission to read " + resource.getInode());
+    }
+  }
 
 
   @Override
   String resolveTemplatePath(final Context context, final Writer writer, final RenderParams params,final String argument) {
     String templatePath = argument;
     boolean live = params.live;
-    Host host = params.currentHost;;
     User user = params.user;
     HttpServletRequest request = (HttpServletRequest) context.get("request");
     
     try {
 
       // if we have a host
-      if (templatePath.startsWith(hostIndicator)) {
-        templatePath = templatePath.substring(hostIndicator.length(), templatePath.length());
-        String hostName = templatePath.substring(0, templatePath.indexOf('/'));
-        templatePath = templatePath.substring(templatePath.indexOf('/'), templatePath.length());
-        host = APILocator.getHostAPI().resolveHostName(hostName, user, live);
-      }
+      Host host = resolveHost(argument, params);
+      templatePath = resolvePath(argument);
 
       long lang = params.language.getId();
-      Identifier id = APILocator.getIdentifierAPI().find(host, templatePath);
+      DotParseResource resource = resolveResource(host, templatePath, lang, live);
 
       //Verify if we found a resource with the given path
-      if ( null == id || !UtilMethods.isSet(id.getId()) ) {
+      if ( null == resource ) {
 
         String errorMessage = String.format("No resource found for [%s]", templatePath);
 
@@ -77,37 +248,18 @@ public class DotParse extends DotDirective {
         }
       }
 
-      ContentletVersionInfo cv = APILocator.getVersionableAPI().getContentletVersionInfo(id.getId(), lang);
-
-      if (cv == null) {
-        long defaultLang = APILocator.getLanguageAPI().getDefaultLanguage().getId();
-        if (defaultLang != lang) {
-          cv = APILocator.getVersionableAPI().getContentletVersionInfo(id.getId(), defaultLang);
-        }
-      }
-      String inode = ((live) ? cv.getLiveInode() : cv.getWorkingInode());
-
-      //We found the resource but not the version we are looking for
-      if ( null == inode ) {
-        String errorMessage = String.format("Not found %s version of [%s]", (live) ? "Live" : "Working", templatePath);
-        throw new ResourceNotFoundException(errorMessage);
-      }
+      // the resolved resource is shared by every user, the permission check is not
+      checkReadPermission(resource, user, live);
 
-      Contentlet c = APILocator.getContentletAPI().find(inode, params.user, params.live);
-      FileAsset asset = APILocator.getFileAssetAPI().fromContentlet(c);
-      
-      
       // add the edit control if we have run through a page render
       if (!context.containsKey("dontShowIcon") && params.editMode &&  (request.getAttribute(CMSFilter.CMS_FILTER_URI_OVERRIDE)!=null)) {
-        if (APILocator.getPermissionAPI().doesUserHavePermission(c, PermissionAPI.PERMISSION_READ, user)) {
-          String editIcon = new String(EDIT_ICON).replace("${_dotParseInode}", c.getInode()).replace("${_dotParsePath}",
-              id.getParentPath());
-          writer.append(editIcon);
-        }
+        String editIcon = new String(EDIT_ICON).replace("${_dotParseInode}", resource.getInode()).replace("${_dotParsePath}",
+            resource.getParentPath());
+        writer.append(editIcon);
       }
 
 
-      return asset.getFileAsset().getAbsolutePath();
+      return resource.getAbsolutePath();
     } catch (Exception e) {
       Logger.warn(this.getClass(), " - unable to resolve " + templatePath + " getting this: "+ e.getMessage() );
       if(e.getStackTrace().length>0)
@@ -124,4 +276,3 @@ public class DotParse extends DotDirective {
 
 
 }
-
@@ -0,0 +1,57 @@
+package com.dotmarketing.velocity.directive;
+
+import com.dotmarketing.business.Cachable;
+
+/**
+ * Caches the resources resolved by the <code>#dotParse</code> directive keyed by host, path,
+ * language and mode, so rendering a page does not need to look up the identifier, version info and
+ * file asset of every parsed fragment.
+ */
+public interface DotParseCache extends Cachable {
+
+  DotParseResource get(String hostId, String path, long languageId, boolean live);
+
+  void add(String hostId, String path, long languageId, boolean live, DotParseResource resource);
+
+  /**
+   * Removes the resolved resource for the given path in every language and mode.
+   */
+  void remove(String hostId, String path);
+
+  /**
+   * Forgets the resolved resources of every path of the host, to be called when a folder is renamed
+   * or moved, as the paths of everything under it change.
+   */
+  void removeHost(String hostId);
+
+  /**
+   * Returns the stamp of the current permissions of the permissionable and roles of the user. A
+   * permission check is only valid for the stamp it was added with, so the stamp has to be taken
+   * before checking the permission.
+   */
+  String getPermissionStamp(String permissionId, String userId);
+
+  /**
+   * Returns whether the user can read the given version of a resource, or null if it has not been
+   * checked yet for the given stamp.
+   */
+  Boolean getReadPermission(String inode, String userId, boolean live, String stamp);
+
+  void addReadPermission(String inode, String userId, boolean live, String stamp, boolean canRead);
+
+  /**
+   * Forgets the permission checks on the permissionable, to be called when its permissions change.
+   */
+  void removePermissions(String permissionId);
+
+  /**
+   * Forgets the permission checks of the user, to be called when the roles of the user change.
+   */
+  void removeUserRoles(String userId);
+
+  /**
+   * Forgets every permission check.
+   */
+  void clearPermissions();
+
+}
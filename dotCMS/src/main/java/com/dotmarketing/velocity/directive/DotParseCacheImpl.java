@@ -0,0 +1,161 @@
+package com.dotmarketing.velocity.directive;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.business.DotCacheAdministrator;
+import com.dotmarketing.business.DotCacheException;
+import com.dotmarketing.portlets.languagesmanager.model.Language;
+import com.dotmarketing.util.Logger;
+
+/**
+ * The entries are not removed one by one when a folder, a permission or the roles of a user change,
+ * as there is no way to find them in the cache. Instead each entry keeps the stamps of its host,
+ * permissionable and user when it was added, and it is ignored once any of them is removed, so the
+ * change is seen on every node of the cluster.
+ */
+public class DotParseCacheImpl implements DotParseCache {
+
+  private final String group = "DotParseCache";
+  private final String permissionGroup = "DotParsePermissionCache";
+  private final String stampGroup = "DotParseStampCache";
+  private final String[] groups = {group, permissionGroup, stampGroup};
+
+  private final DotCacheAdministrator cache;
+
+  public DotParseCacheImpl() {
+    this(CacheLocator.getCacheAdministrator());
+  }
+
+  @VisibleForTesting
+  DotParseCacheImpl(final DotCacheAdministrator cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  public String getPrimaryGroup() {
+    return group;
+  }
+
+  @Override
+  public String[] getGroups() {
+    return groups;
+  }
+
+  @Override
+  public void clearCache() {
+    cache.flushGroup(group);
+    cache.flushGroup(permissionGroup);
+    cache.flushGroup(stampGroup);
+  }
+
+  /**
+   * Returns the current stamp for the key, a new one if it was removed.
+   */
+  private String getStamp(String key) {
+    try {
+      String stamp = (String) cache.get(key, stampGroup);
+      if (stamp != null) {
+        return stamp;
+      }
+    } catch (DotCacheException e) {
+      Logger.debug(this, "Cache Entry not found", e);
+    }
+    String stamp = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    cache.put(key, stamp, stampGroup);
+    return stamp;
+  }
+
+  private Object getStamped(String key, String group, String stamp) {
+    try {
+      Object entry = cache.get(key, group);
+      return (entry instanceof Stamped && ((Stamped) entry).stamp.equals(stamp)) ? ((Stamped) entry).value : null;
+    } catch (DotCacheException e) {
+      Logger.debug(this, "Cache Entry not found", e);
+      return null;
+    }
+  }
+
+  private String buildKey(String hostId, String path, long languageId, boolean live) {
+    return hostId + ":" + path.toLowerCase() + ":" + languageId + ":" + (live ? "live" : "working");
+  }
+
+  @Override
+  public DotParseResource get(String hostId, String path, long languageId, boolean live) {
+    return (DotParseResource) getStamped(buildKey(hostId, path, languageId, live), group, getStamp("host:" + hostId));
+  }
+
+  @Override
+  public void add(String hostId, String path, long languageId, boolean live, DotParseResource resource) {
+    cache.put(buildKey(hostId, path, languageId, live), new Stamped(resource, getStamp("host:" + hostId)), group);
+  }
+
+  @Override
+  public void remove(String hostId, String path) {
+    List<Language> languages = APILocator.getLanguageAPI().getLanguages();
+    for (Language language : languages) {
+      cache.remove(buildKey(hostId, path, language.getId(), true), group);
+      cache.remove(buildKey(hostId, path, language.getId(), false), group);
+    }
+  }
+
+  @Override
+  public void removeHost(String hostId) {
+    cache.remove("host:" + hostId, stampGroup);
+  }
+
+  private String buildPermissionKey(String inode, String userId, boolean live) {
+    return inode + ":" + userId + ":" + (live ? "live" : "working");
+  }
+
+  @Override
+  public String getPermissionStamp(String permissionId, String userId) {
+    return getStamp("permission:" + permissionId) + ":" + getStamp("user:" + userId);
+  }
+
+  @Override
+  public Boolean getReadPermission(String inode, String userId, boolean live, String stamp) {
+    return (Boolean) getStamped(buildPermissionKey(inode, userId, live), permissionGroup, stamp);
+  }
+
+  @Override
+  public void addReadPermission(String inode, String userId, boolean live, String stamp, boolean canRead) {
+    cache.put(buildPermissionKey(inode, userId, live), new Stamped(canRead, stamp), permissionGroup);
+  }
+
+  @Override
+  public void removePermissions(String permissionId) {
+    cache.remove("permission:" + permissionId, stampGroup);
+  }
+
+  @Override
+  public void removeUserRoles(String userId) {
+    cache.remove("user:" + userId, stampGroup);
+  }
+
+  @Override
+  public void clearPermissions() {
+    cache.flushGroup(permissionGroup);
+  }
+
+  /**
+   * A cached value with the stamp it is valid for.
+   */
+  private static class Stamped implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object value;
+    private final String stamp;
+
+    private Stamped(Object value, String stamp) {
+      this.value = value;
+      this.stamp = stamp;
+    }
+  }
+
+}
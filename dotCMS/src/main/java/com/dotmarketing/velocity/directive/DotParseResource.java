@@ -0,0 +1,47 @@
+package com.dotmarketing.velocity.directive;
+
+import java.io.Serializable;
+
+/**
+ * Holds the outcome of resolving a <code>#dotParse</code> argument: the file asset that was found
+ * for a given host, path and language and the absolute path on disk of the version that has to be
+ * rendered.
+ */
+public class DotParseResource implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String identifier;
+  private final String inode;
+  private final String parentPath;
+  private final String absolutePath;
+
+  public DotParseResource(String identifier, String inode, String parentPath, String absolutePath) {
+    this.identifier = identifier;
+    this.inode = inode;
+    this.parentPath = parentPath;
+    this.absolutePath = absolutePath;
+  }
+
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  public String getInode() {
+    return inode;
+  }
+
+  public String getParentPath() {
+    return parentPath;
+  }
+
+  public String getAbsolutePath() {
+    return absolutePath;
+  }
+
+  @Override
+  public String toString() {
+    return "DotParseResource [identifier=" + identifier + ", inode=" + inode + ", absolutePath=" + absolutePath + "]";
+  }
+
+}
@@ -1,7 +1,6 @@
 package com.dotmarketing.viewtools;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -186,43 +185,20 @@ public class CategoriesWebAPI implements ViewTool {
 		try {
 			List<Category> categories = new ArrayList<Category>();
 			Category cat = categoryAPI.find(inode, user, true);
-			List<Category> cats = categoryAPI.getChildren(cat, user, true);
 
 			if(!UtilMethods.isSet(maxDepth))
 				maxDepth = 5;
-			for (Category childCat : cats) {
-				categories.add(childCat);
-				if(includeGrandChildren)
-					categories.addAll(getChildrenCategories(childCat, 1 , maxDepth));
+			// maxDepth counts the levels below the children
+			int depth = includeGrandChildren ? maxDepth + 1 : 1;
+			for (Map<String, Object> entry : categoryAPI.getAllChildrenByLevel(cat, depth, false, user, true)) {
+				categories.add((Category) entry.get("category"));
 			}
-			
-			return perAPI.filterCollection(categories, PermissionAPI.PERMISSION_READ, true, user);
+			return categories;
 		} catch (Exception e) {
 			Logger.error(this, "An unknown error happening while trying to retrieve categories : ", e);
 			return null;
 		}
 	}
-	
-	private List<Category> getChildrenCategories(Category parentCategory, int level, int maxDepth) throws DotDataException, DotSecurityException{
-		
-		List<Category> result = new ArrayList<Category>();
-		
-		if(level <= maxDepth)
-		{
-			int nextLevel = level + 1;
-			List<Category> childCategories = categoryAPI.getChildren(parentCategory, user, true);
-			//Get the children categories of each child
-			for(Category categoryAux : childCategories)
-			{
-				result.add(categoryAux);
-				List<Category> children = getChildrenCategories(categoryAux,nextLevel, maxDepth);
-				if(children.size() > 0) {
-					result.addAll(children);
-				}
-			}
-		}
-		return result;
-	}
 
 	public List<Category> getActiveChildrenCategories(Category cat) {
 		try {
@@ -367,23 +343,6 @@ public class CategoriesWebAPI implements ViewTool {
 		}
 	}
 
-	private List<Map<String, Object>> getAllActiveChildrenCategories(List<Category> children, int currentLevel)
-			throws DotDataException, DotSecurityException {
-		List<Map<String, Object>> retList = new ArrayList<Map<String, Object>>();
-		for (Category ccat : children) {
-			Map<String, Object> valMap = new HashMap<String, Object>();
-			valMap.put("level", currentLevel);
-			valMap.put("category", ccat);
-			retList.add(valMap);
-			List<Category> cchildren = categoryAPI.getChildren(ccat, true, user, true);
-			if (cchildren.size() > 0) {
-				List<Map<String, Object>> childrenMaps = getAllActiveChildrenCategories(cchildren, currentLevel + 1);
-				retList.addAll(childrenMaps);
-			}
-		}
-		return retList;
-	}
-
 	/**
 	 * Retrieves a plain list of all the children categories (any depth) of the
 	 * given parent category key The list returned is a list of maps, each map
@@ -406,8 +365,7 @@ public class CategoriesWebAPI implements ViewTool {
 			if (!InodeUtils.isSet(cat.getInode())) {
 				return new ArrayList<Map<String, Object>>();
 			}
-			List<Category> children = categoryAPI.getChildren(cat, true, user, true);
-			return getAllActiveChildrenCategories(children, 1);
+			return categoryAPI.getAllChildrenByLevel(cat, Integer.MAX_VALUE, true, user, true);
 		} catch (DotSecurityException se) {
 			Logger.info(this, "The logged in user cannot access the categories");
 			return null;
@@ -435,8 +393,7 @@ public class CategoriesWebAPI implements ViewTool {
 
 	public List<Map<String, Object>> getAllActiveChildrenCategories(Inode inode) {
 		try {
-			List<Category> children = categoryAPI.getChildren(inode, true, user, true);
-			return getAllActiveChildrenCategories(children, 1);
+			return categoryAPI.getAllChildrenByLevel(inode, Integer.MAX_VALUE, true, user, true);
 		} catch (DotSecurityException se) {
 			Logger.info(this, "The logged in user cannot access the categories");
 			return null;
@@ -465,8 +422,7 @@ public class CategoriesWebAPI implements ViewTool {
 	public List<Map<String, Object>> getAllActiveChildrenCategories(String inode) {
 		try {
 			Category parent = categoryAPI.find(inode, user, true);
-			List<Category> children = categoryAPI.getChildren(parent, true, user, true);
-			return getAllActiveChildrenCategories(children, 1);
+			return categoryAPI.getAllChildrenByLevel(parent, Integer.MAX_VALUE, true, user, true);
 		} catch (DotSecurityException se) {
 			Logger.info(this, "The logged in user cannot access the categories");
 			return null;
@@ -25,6 +25,7 @@ package com.liferay.portal.servlet;
 import com.dotcms.cluster.common.ClusterServerActionThread;
 import com.dotcms.config.DotInitializationService;
 import com.dotcms.enterprise.ClusterThreadProxy;
+import com.dotcms.journal.business.CacheInvalidationLog;
 import com.dotcms.repackage.com.httpbridge.webproxy.http.TaskController;
 import com.dotcms.repackage.org.apache.struts.Globals;
 import com.dotcms.repackage.org.apache.struts.action.ActionServlet;
@@ -114,6 +115,11 @@ public class MainServlet extends ActionServlet {
 
 			ReindexThread.startThread(Config.getIntProperty("REINDEX_THREAD_SLEEP", 500), Config.getIntProperty("REINDEX_THREAD_INIT_DELAY", 5000));
 
+			// The cache invalidations of the other nodes are read from the database once its tables are upgraded
+			if (Config.getBooleanProperty("CACHE_CLUSTER_THROUGH_DB", false)) {
+				CacheInvalidationLog.getInstance().start();
+			}
+
 			//Start Cluster Server Action Thread.
 			ClusterServerActionThread.startThread(Config.getIntProperty("CLUSTER_SERVER_THREAD_SLEEP", 2000));
 
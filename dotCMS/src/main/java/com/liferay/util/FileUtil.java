@@ -206,6 +206,12 @@ public class FileUtil {
 
         if (!hardLinks) {
 
+            // the destination can be a hard link shared with other files, write a new one instead
+            // of truncating it
+            if (destination.exists() && !destination.getCanonicalPath().equals(source.getCanonicalPath())) {
+                Files.delete(Paths.get(destination.getAbsolutePath()));
+            }
+
             FileInputStream ios = new FileInputStream(source);
             FileOutputStream fos = new FileOutputStream(destination);
             FileChannel srcChannel = ios.getChannel();
@@ -46,6 +46,8 @@ import org.apache.velocity.runtime.resource.ResourceManager;
 import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.VelocityUtil;
 import com.dotmarketing.velocity.DotResourceLoader;
+import com.dotmarketing.velocity.ParsedTemplateStore;
+import com.dotmarketing.velocity.ParsedTemplateStore.ParsedTemplate;
 
 /**
  * This class is used for controlling all template
@@ -136,8 +138,25 @@ public class Template extends Resource
             try
             {
                 BufferedReader br = new BufferedReader( new InputStreamReader( is, encoding ) );
-                data = VelocityUtil.getEngine().getRuntimeServices().parse( br, name);
-                initDocument();
+
+                /*
+                 *  the store hands back the same AST for a source it already parsed,
+                 *  only the first template using it has to init it
+                 */
+                ParsedTemplate parsed = ParsedTemplateStore.getInstance().parse( br, name);
+                data = parsed.getData();
+                synchronized (parsed)
+                {
+                    if (parsed.isInitialized())
+                    {
+                        readScopeControl();
+                    }
+                    else
+                    {
+                        initDocument();
+                        parsed.setInitialized();
+                    }
+                }
                 return true;
             }
             catch( UnsupportedEncodingException  uce )
@@ -148,6 +167,11 @@ public class Template extends Resource
                 errorCondition  = new ParseErrorException( msg );
                 throw errorCondition;
             }
+            catch( IOException ioe )
+            {
+                errorCondition = new VelocityException("Exception reading Template " + name, ioe);
+                throw errorCondition;
+            }
             catch ( ParseException pex )
             {
                 /*
@@ -231,8 +255,7 @@ public class Template extends Resource
             RuntimeServices rsvc=VelocityUtil.getEngine().getRuntimeServices();
             ((SimpleNode)data).init( ica, rsvc);
 
-            String property = scopeName+'.'+RuntimeConstants.PROVIDE_SCOPE_CONTROL;
-            provideScope = rsvc.getBoolean(property, provideScope);
+            readScopeControl();
         }
         finally
         {
@@ -247,6 +270,16 @@ public class Template extends Resource
 
     }
 
+    /**
+     *  reads whether the template scope control has to be provided
+     */
+    private void readScopeControl()
+    {
+        RuntimeServices rsvc=VelocityUtil.getEngine().getRuntimeServices();
+        String property = scopeName+'.'+RuntimeConstants.PROVIDE_SCOPE_CONTROL;
+        provideScope = rsvc.getBoolean(property, provideScope);
+    }
+
     /**
      * The AST node structure is merged with the
      * context to produce the final output.
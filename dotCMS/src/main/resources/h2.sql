@@ -2273,3 +2273,6 @@ CREATE TABLE system_event (
 );
 ALTER TABLE system_event ADD CONSTRAINT PK_system_event PRIMARY KEY (identifier);
 CREATE INDEX idx_system_event ON system_event (created);
+
+CREATE TABLE cache_invalidation_log (id bigint generated by default as identity (start with 1), object_to_index varchar(1024) NOT NULL, serverid varchar(64) NOT NULL, time_entered timestamp NOT NULL, PRIMARY KEY (id));
+CREATE TABLE cache_invalidation_cursor (serverid varchar(64) NOT NULL, last_id bigint NOT NULL, last_read timestamp NOT NULL, PRIMARY KEY (serverid));
@@ -2629,3 +2629,6 @@ CREATE TABLE system_event (
 );
 ALTER TABLE system_event ADD CONSTRAINT pk_system_event PRIMARY KEY (identifier);
 CREATE INDEX idx_system_event ON system_event (created);
+
+CREATE TABLE cache_invalidation_log (id bigint NOT NULL IDENTITY (1, 1), object_to_index NVARCHAR(1024) NOT NULL, serverid NVARCHAR(64) NOT NULL, time_entered datetime NOT NULL, PRIMARY KEY (id));
+CREATE TABLE cache_invalidation_cursor (serverid NVARCHAR(64) NOT NULL, last_id bigint NOT NULL, last_read datetime NOT NULL, PRIMARY KEY (serverid));
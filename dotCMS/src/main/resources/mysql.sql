@@ -2302,3 +2302,6 @@ CREATE TABLE system_event (
 );
 ALTER TABLE system_event ADD CONSTRAINT PK_system_event PRIMARY KEY (identifier);
 CREATE INDEX idx_system_event ON system_event (created);
+
+CREATE TABLE cache_invalidation_log (id BIGINT NOT NULL AUTO_INCREMENT, object_to_index VARCHAR(1024) NOT NULL, serverid VARCHAR(64) NOT NULL, time_entered DATETIME NOT NULL, PRIMARY KEY (id));
+CREATE TABLE cache_invalidation_cursor (serverid VARCHAR(64) NOT NULL, last_id BIGINT NOT NULL, last_read DATETIME NOT NULL, PRIMARY KEY (serverid));
@@ -2504,3 +2504,15 @@ CREATE INDEX idx_system_event ON system_event (created);
 
 --Content Types improvement
 CREATE INDEX idx_lower_structure_name ON structure (LOWER(velocity_var_name));
+
+CREATE TABLE cache_invalidation_log (id NUMBER(19, 0) NOT NULL, object_to_index VARCHAR2(1024) NOT NULL, serverid VARCHAR2(64) NOT NULL, time_entered TIMESTAMP NOT NULL, PRIMARY KEY (id));
+CREATE SEQUENCE cache_invalidation_log_id_seq START WITH 1 INCREMENT BY 1;
+create trigger cache_invalidation_log_trg
+before insert on cache_invalidation_log
+for each row
+when (new.id is null)
+begin
+select cache_invalidation_log_id_seq.nextval into :new.id from dual;
+end;
+/
+CREATE TABLE cache_invalidation_cursor (serverid VARCHAR2(64) NOT NULL, last_id NUMBER(19, 0) NOT NULL, last_read TIMESTAMP NOT NULL, PRIMARY KEY (serverid));
@@ -2458,3 +2458,9 @@ CREATE INDEX idx_system_event ON system_event (created);
 --Content Types improvement
 CREATE INDEX idx_lower_structure_name ON structure (LOWER(velocity_var_name));
 
+
+CREATE TABLE cache_invalidation_log (id bigserial NOT NULL, object_to_index varchar(1024) NOT NULL, serverid varchar(64) NOT NULL, time_entered timestamp NOT NULL, PRIMARY KEY (id));
+CREATE TABLE cache_invalidation_cursor (serverid varchar(64) NOT NULL, last_id bigint NOT NULL, last_read timestamp NOT NULL, PRIMARY KEY (serverid));
+
+CREATE INDEX idx_inode_prefix ON inode (inode varchar_pattern_ops);
+CREATE INDEX idx_identifier_prefix ON identifier (id varchar_pattern_ops);
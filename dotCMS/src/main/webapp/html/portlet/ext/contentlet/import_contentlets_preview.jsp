@@ -39,10 +39,19 @@
 			form.submit();
         }
         else{
+        	ImportContentletAjax.getImportProgress(importId, importProgressCallback);
         	setTimeout('importCheck(importId)', 5000);
         }
     }
 
+	function importProgressCallback(progress){
+		if(progress && progress.linesImported != undefined){
+			dojo.byId("importProgressLines").innerHTML = progress.linesImported;
+			dojo.byId("importProgressRate").innerHTML = progress.linesPerSecond;
+			dojo.style("importProgress", "display", "");
+		}
+	}
+
 	function importCancelCallback(response){
 		importCheck(response);
 	}
@@ -111,6 +120,10 @@
 			<div style="padding:5px;text-align: center;">
 				<%= UtilMethods.escapeSingleQuotes(LanguageUtil.get(pageContext, "import-cannot-be-undone")) %>
 			</div>
+			<div id="importProgress" style="padding:5px;text-align: center;display:none">
+				<%= LanguageUtil.get(pageContext, "import-lines-imported") %>: <span id="importProgressLines">0</span>
+				(<span id="importProgressRate">0</span>/s)
+			</div>
 	</div>
 </div>
 
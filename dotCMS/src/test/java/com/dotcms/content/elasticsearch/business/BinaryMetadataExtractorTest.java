@@ -0,0 +1,187 @@
+package com.dotcms.content.elasticsearch.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dotcms.UnitTestBase;
+import com.dotmarketing.portlets.contentlet.business.BinaryBlobStore;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.portlets.fileassets.business.FileAssetAPI;
+import com.dotmarketing.portlets.structure.model.Field;
+import com.dotmarketing.portlets.structure.model.Structure;
+
+public class BinaryMetadataExtractorTest extends UnitTestBase {
+
+    private static final String FULL_TEXT = "the full text";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ESContentFactoryImpl conFac;
+    private ContentletIndexAPI indexAPI;
+    private FileAssetAPI fileAssetAPI;
+    private BinaryMetadataExtractor extractor;
+
+    @Before
+    public void setUp() throws Exception {
+        conFac = mock(ESContentFactoryImpl.class);
+        indexAPI = mock(ContentletIndexAPI.class);
+        fileAssetAPI = mock(FileAssetAPI.class);
+        when(fileAssetAPI.getContentMetadataFile(anyString())).thenAnswer(invocation ->
+                new File(folder.getRoot(), "metaData/" + invocation.getArguments()[0] + "/content"));
+        // parsing writes the full text to the metadata file of the inode
+        when(fileAssetAPI.getMetaDataMap(any(Contentlet.class), any(File.class))).thenAnswer(invocation -> {
+            final Contentlet contentlet = (Contentlet) invocation.getArguments()[0];
+            final File binFile = (File) invocation.getArguments()[1];
+            final File fullText = fileAssetAPI.getContentMetadataFile(contentlet.getInode());
+            fullText.getParentFile().mkdirs();
+            Files.write(fullText.toPath(), FULL_TEXT.getBytes(StandardCharsets.UTF_8));
+            final Map<String, String> metadata = new HashMap<>();
+            metadata.put("resourceName", binFile.getName());
+            metadata.put("contentType", "application/pdf");
+            return metadata;
+        });
+        extractor = new BinaryMetadataExtractor(conFac, indexAPI, () -> fileAssetAPI, true);
+    }
+
+    private File binary(final String name, final String content) throws Exception {
+        final File file = new File(folder.newFolder(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static Contentlet contentlet(final String inode, final File binFile) throws Exception {
+        final Contentlet contentlet = mock(Contentlet.class);
+        when(contentlet.getInode()).thenReturn(inode);
+        when(contentlet.getBinary(FileAssetAPI.BINARY_FIELD)).thenReturn(binFile);
+        final Field field = new Field();
+        field.setFieldContentlet("text_area1");
+        final Structure structure = mock(Structure.class);
+        when(structure.getFieldVar(FileAssetAPI.META_DATA_FIELD)).thenReturn(field);
+        when(contentlet.getStructure()).thenReturn(structure);
+        return contentlet;
+    }
+
+    private String fullText(final String inode) throws Exception {
+        return new String(Files.readAllBytes(fileAssetAPI.getContentMetadataFile(inode).toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testSameBinaryIsParsedOnce() throws Exception {
+        final File first = binary("report.pdf", "%PDF binary");
+        final File copy = binary("copy.pdf", "%PDF binary");
+
+        extractor.getMetaDataMap(contentlet("inode-1", first), first);
+        final Map<String, String> reused = extractor.getMetaDataMap(contentlet("inode-2", copy), copy);
+
+        verify(fileAssetAPI, times(1)).getMetaDataMap(any(Contentlet.class), any(File.class));
+        assertEquals("copy.pdf", reused.get("resourceName"));
+        assertEquals("application/pdf", reused.get("contentType"));
+        // with the full text of the new inode
+        assertEquals(FULL_TEXT, fullText("inode-2"));
+    }
+
+    @Test
+    public void testHashOfTheStoredBinaryIsUsedWithoutReadingIt() throws Exception {
+        final File first = binary("report.pdf", "%PDF binary");
+        final String hash = BinaryBlobStore.hash(first);
+        extractor.getMetaDataMap(contentlet("inode-1", first), first, hash);
+
+        // the binary can't be read, the hash handed by the checkin is enough
+        final File unreadable = new File(folder.getRoot(), "missing/copy.pdf");
+        final Map<String, String> reused = extractor.getCachedMetaDataMap(contentlet("inode-2", unreadable), unreadable, hash);
+
+        verify(fileAssetAPI, times(1)).getMetaDataMap(any(Contentlet.class), any(File.class));
+        assertEquals("copy.pdf", reused.get("resourceName"));
+        // and it is the same hash read from the binary
+        assertEquals("application/pdf", extractor.getCachedMetaDataMap(contentlet("inode-3", first), first).get("contentType"));
+    }
+
+    @Test
+    public void testWithoutCacheTheBinaryIsParsedWithoutHashingIt() throws Exception {
+        final BinaryMetadataExtractor uncached = new BinaryMetadataExtractor(conFac, indexAPI, () -> fileAssetAPI, false, 0);
+        // a binary that can't be read is still handed to the parser
+        final File unreadable = new File(folder.getRoot(), "missing/report.pdf");
+
+        assertEquals("application/pdf", uncached.getMetaDataMap(contentlet("inode-1", unreadable), unreadable).get("contentType"));
+        uncached.getMetaDataMap(contentlet("inode-2", unreadable), unreadable);
+
+        assertNull(uncached.getCachedMetaDataMap(contentlet("inode-3", unreadable), unreadable));
+        verify(fileAssetAPI, times(2)).getMetaDataMap(any(Contentlet.class), any(File.class));
+    }
+
+    @Test
+    public void testOtherBinaryIsParsed() throws Exception {
+        final File first = binary("report.pdf", "%PDF binary");
+        final File other = binary("report.pdf", "%PDF other binary");
+
+        extractor.getMetaDataMap(contentlet("inode-1", first), first);
+
+        assertNull(extractor.getCachedMetaDataMap(contentlet("inode-2", other), other));
+        extractor.getMetaDataMap(contentlet("inode-2", other), other);
+        verify(fileAssetAPI, times(2)).getMetaDataMap(any(Contentlet.class), any(File.class));
+    }
+
+    @Test
+    public void testBinaryIsParsedAgainWhenTheFullTextIsGone() throws Exception {
+        final File first = binary("report.pdf", "%PDF binary");
+        final File copy = binary("copy.pdf", "%PDF binary");
+
+        extractor.getMetaDataMap(contentlet("inode-1", first), first);
+        assertTrue(fileAssetAPI.getContentMetadataFile("inode-1").delete());
+
+        // the cached metadata alone would leave the content without its full text
+        assertNull(extractor.getCachedMetaDataMap(contentlet("inode-2", copy), copy));
+        extractor.getMetaDataMap(contentlet("inode-2", copy), copy);
+
+        verify(fileAssetAPI, times(2)).getMetaDataMap(any(Contentlet.class), any(File.class));
+        assertEquals(FULL_TEXT, fullText("inode-2"));
+    }
+
+    @Test
+    public void testExtractWritesTheMetadataFieldAlone() throws Exception {
+        final File binFile = binary("report.pdf", "%PDF binary");
+        final Contentlet contentlet = contentlet("inode-1", binFile);
+        when(conFac.find("inode-1")).thenReturn(contentlet);
+
+        extractor.extract("inode-1");
+
+        verify(conFac).saveField(eq("inode-1"), eq("text_area1"), anyString());
+        verify(conFac, never()).save(any(Contentlet.class));
+        verify(indexAPI).addContentToIndex(contentlet, false);
+    }
+
+    @Test
+    public void testExtractSkipsContentWithoutBinary() throws Exception {
+        final Contentlet contentlet = contentlet("inode-1", null);
+        when(conFac.find("inode-1")).thenReturn(contentlet);
+
+        extractor.extract("inode-1");
+
+        verify(fileAssetAPI, never()).getMetaDataMap(any(Contentlet.class), any(File.class));
+        verify(conFac, never()).saveField(anyString(), anyString(), anyString());
+        verify(indexAPI, never()).addContentToIndex(any(Contentlet.class), anyBoolean());
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.dotcms.journal.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+
+public class CacheInvalidationLogTest extends UnitTestBase {
+
+    private static final long GAP_TIMEOUT = 1000;
+
+    private CacheInvalidationLog log;
+
+    @Before
+    public void setUp() {
+        log = new CacheInvalidationLog(100, 1000, GAP_TIMEOUT, 60000);
+        log.resetCursor(10);
+    }
+
+    @Test
+    public void testCursorMovesThroughConsecutiveIds() {
+        log.advance(Arrays.asList(11L, 12L, 13L), 0);
+
+        assertEquals(13, log.getCursor());
+        assertTrue(log.getOpenGaps().isEmpty());
+        assertEquals(0, log.getLocalLag());
+        assertTrue(log.isApplied(13));
+        assertFalse(log.isApplied(14));
+    }
+
+    @Test
+    public void testCursorStopsBeforeAGap() {
+        log.advance(Arrays.asList(11L, 13L, 14L), 0);
+
+        assertEquals(11, log.getCursor());
+        assertEquals(Collections.singletonList(12L), log.getOpenGaps());
+        assertEquals(3, log.getLocalLag());
+        // the ids past the gap were returned by this read and are not applied again
+        assertTrue(log.isApplied(13));
+        assertTrue(log.isApplied(14));
+        assertFalse(log.isApplied(12));
+    }
+
+    @Test
+    public void testGapFilledByALateCommit() {
+        log.advance(Arrays.asList(11L, 13L, 14L), 0);
+        // the next read starts at the cursor and finds the row of the gap
+        log.advance(Arrays.asList(12L, 13L, 14L), 500);
+
+        assertEquals(14, log.getCursor());
+        assertTrue(log.getOpenGaps().isEmpty());
+        assertEquals(0, log.getLocalLag());
+    }
+
+    @Test
+    public void testGapIsSkippedAfterTheTimeout() {
+        log.advance(Arrays.asList(11L, 13L), 0);
+        // the gap is timed from when it was first seen, not from every read
+        log.advance(Collections.singletonList(13L), GAP_TIMEOUT - 1);
+        assertEquals(11, log.getCursor());
+        assertEquals(Collections.singletonList(12L), log.getOpenGaps());
+
+        log.advance(Collections.singletonList(13L), GAP_TIMEOUT);
+        assertEquals(13, log.getCursor());
+        assertTrue(log.getOpenGaps().isEmpty());
+    }
+
+    @Test
+    public void testEveryGapIsTrackedOnItsOwn() {
+        log.advance(Arrays.asList(12L, 14L), 0);
+
+        assertEquals(10, log.getCursor());
+        assertEquals(Arrays.asList(11L, 13L), log.getOpenGaps());
+
+        // the first gap is filled, the second one still blocks the cursor
+        log.advance(Arrays.asList(11L, 12L, 14L), 100);
+        assertEquals(12, log.getCursor());
+        assertEquals(Collections.singletonList(13L), log.getOpenGaps());
+        assertTrue(log.isApplied(14));
+
+        // and keeps the time it was first seen
+        log.advance(Collections.singletonList(14L), GAP_TIMEOUT);
+        assertEquals(14, log.getCursor());
+        assertTrue(log.getOpenGaps().isEmpty());
+    }
+
+    @Test
+    public void testNothingReadKeepsTheCursor() {
+        log.advance(Collections.<Long>emptyList(), 0);
+
+        assertEquals(10, log.getCursor());
+        assertTrue(log.getOpenGaps().isEmpty());
+    }
+
+}
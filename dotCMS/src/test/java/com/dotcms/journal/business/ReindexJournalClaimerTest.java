@@ -0,0 +1,93 @@
+package com.dotcms.journal.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotcms.journal.business.ReindexJournalClaimer.Strategy;
+import com.dotmarketing.db.DbConnectionFactory.DataBaseType;
+
+public class ReindexJournalClaimerTest extends UnitTestBase {
+
+    private static final long GRACE = 180000;
+
+    @Test
+    public void testStrategyByDatabase() {
+        assertEquals(Strategy.SKIP_LOCKED, ReindexJournalClaimer.chooseStrategy(DataBaseType.POSTGRES, "9.6.3", 9, 6));
+        assertEquals(Strategy.SKIP_LOCKED, ReindexJournalClaimer.chooseStrategy(DataBaseType.POSTGRES, "10.1", 10, 1));
+        assertEquals(Strategy.PROCEDURE, ReindexJournalClaimer.chooseStrategy(DataBaseType.POSTGRES, "9.4.12", 9, 4));
+
+        assertEquals(Strategy.SKIP_LOCKED, ReindexJournalClaimer.chooseStrategy(DataBaseType.MySQL, "8.0.11", 8, 0));
+        assertEquals(Strategy.PARTITIONED, ReindexJournalClaimer.chooseStrategy(DataBaseType.MySQL, "5.7.22-log", 5, 7));
+
+        assertEquals(Strategy.SKIP_LOCKED, ReindexJournalClaimer.chooseStrategy(DataBaseType.ORACLE, "Oracle Database 11g", 11, 2));
+        assertEquals(Strategy.SKIP_LOCKED, ReindexJournalClaimer.chooseStrategy(DataBaseType.MSSQL, "13.00.4001", 13, 0));
+        assertEquals(Strategy.PROCEDURE, ReindexJournalClaimer.chooseStrategy(DataBaseType.H2, "1.4.196", 1, 4));
+    }
+
+    @Test
+    public void testMariaDBIsCheckedByItsOwnVersion() {
+        // MariaDB 10.x reports a major version over 8, but only supports SKIP LOCKED from 10.6
+        assertEquals(Strategy.PARTITIONED, ReindexJournalClaimer.chooseStrategy(DataBaseType.MySQL, "10.3.7-MariaDB", 10, 3));
+        assertEquals(Strategy.PARTITIONED, ReindexJournalClaimer.chooseStrategy(DataBaseType.MySQL, "10.5.12-MariaDB-1:10.5.12+maria~focal", 10, 5));
+        assertEquals(Strategy.SKIP_LOCKED, ReindexJournalClaimer.chooseStrategy(DataBaseType.MySQL, "10.6.4-MariaDB", 10, 6));
+        assertEquals(Strategy.SKIP_LOCKED, ReindexJournalClaimer.chooseStrategy(DataBaseType.MySQL, "11.0.2-MariaDB", 11, 0));
+        // older servers send a 5.5.5 prefix and the driver reports 5.5
+        assertEquals(Strategy.PARTITIONED, ReindexJournalClaimer.chooseStrategy(DataBaseType.MySQL, "5.5.5-10.1.26-MariaDB", 5, 5));
+        assertEquals(Strategy.SKIP_LOCKED, ReindexJournalClaimer.chooseStrategy(DataBaseType.MySQL, "5.5.5-10.6.4-MariaDB", 5, 5));
+    }
+
+    @Test
+    public void testClaimsAreReleasedAfterTheGracePeriod() {
+        final ReindexJournalClaimer claimer = new ReindexJournalClaimer(GRACE);
+        final List<String> claiming = Arrays.asList("server-1", "server-2");
+        final List<String> alive = Collections.singletonList("server-1");
+
+        // server-2 missed its heartbeat
+        assertTrue(claimer.findExpiredServers(claiming, alive, 0).isEmpty());
+        assertTrue(claimer.findExpiredServers(claiming, alive, GRACE - 1).isEmpty());
+        assertEquals(Collections.singletonList("server-2"), claimer.findExpiredServers(claiming, alive, GRACE));
+    }
+
+    @Test
+    public void testLateHeartbeatResetsTheGracePeriod() {
+        final ReindexJournalClaimer claimer = new ReindexJournalClaimer(GRACE);
+        final List<String> claiming = Arrays.asList("server-1", "server-2");
+
+        assertTrue(claimer.findExpiredServers(claiming, Collections.singletonList("server-1"), 0).isEmpty());
+        // the heartbeat of server-2 arrives late, but it arrives
+        assertTrue(claimer.findExpiredServers(claiming, Arrays.asList("server-1", "server-2"), 60000).isEmpty());
+        // missing again, the grace period starts over
+        assertTrue(claimer.findExpiredServers(claiming, Collections.singletonList("server-1"), GRACE).isEmpty());
+        assertTrue(claimer.findExpiredServers(claiming, Collections.singletonList("server-1"), 2 * GRACE - 1).isEmpty());
+        assertEquals(Collections.singletonList("server-2"),
+                claimer.findExpiredServers(claiming, Collections.singletonList("server-1"), 2 * GRACE));
+    }
+
+    @Test
+    public void testServersWithoutClaimsAreForgotten() {
+        final ReindexJournalClaimer claimer = new ReindexJournalClaimer(GRACE);
+        final List<String> alive = Collections.singletonList("server-1");
+
+        claimer.findExpiredServers(Arrays.asList("server-1", "server-2"), alive, 0);
+        // server-2 finished its records before being checked again
+        assertTrue(claimer.findExpiredServers(Collections.singletonList("server-1"), alive, GRACE).isEmpty());
+        // it claims again later, it gets a whole grace period
+        assertTrue(claimer.findExpiredServers(Arrays.asList("server-1", "server-2"), alive, GRACE + 1).isEmpty());
+    }
+
+    @Test
+    public void testNoGracePeriodReleasesRightAway() {
+        final ReindexJournalClaimer claimer = new ReindexJournalClaimer(0);
+
+        assertEquals(Collections.singletonList("server-2"), claimer.findExpiredServers(
+                Arrays.asList("server-1", "server-2"), Collections.singletonList("server-1"), 0));
+    }
+
+}
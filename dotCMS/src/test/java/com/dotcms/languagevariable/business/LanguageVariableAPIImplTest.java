@@ -0,0 +1,171 @@
+package com.dotcms.languagevariable.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotcms.cache.KeyValueCacheImpl;
+import com.dotcms.contenttype.model.type.ContentType;
+import com.dotcms.contenttype.model.type.KeyValueContentType;
+import com.dotcms.contenttype.model.type.MultilinguableFallback;
+import com.dotmarketing.business.DotCacheAdministrator;
+import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
+import com.dotmarketing.portlets.contentlet.business.ContentletPageHandler;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.portlets.languagesmanager.business.LanguageAPI;
+import com.dotmarketing.portlets.languagesmanager.model.Language;
+import com.liferay.portal.model.User;
+
+public class LanguageVariableAPIImplTest extends UnitTestBase {
+
+    private static final long ENGLISH = 1;
+    private static final long SPANISH = 2;
+    private static final long SPANISH_MEXICO = 3;
+
+    // the Language Variables in the index, by language
+    private final Map<Long, List<Contentlet>> index = new HashMap<>();
+    // the cache entries, by group and key
+    private final Map<String, Object> entries = new HashMap<>();
+
+    private ContentletAPI contentletAPI;
+    private KeyValueCacheImpl cache;
+    private LanguageVariableAPIImpl languageVariableAPI;
+    private final User user = new User("user");
+
+    @Before
+    public void setUp() throws Exception {
+        final LanguageAPI languageAPI = mock(LanguageAPI.class);
+        when(languageAPI.getLanguage(ENGLISH)).thenReturn(new Language(ENGLISH, "en", "US", "English", "United States"));
+        when(languageAPI.getLanguage(SPANISH)).thenReturn(new Language(SPANISH, "es", "ES", "Espanol", "Espana"));
+        when(languageAPI.getLanguage(SPANISH_MEXICO)).thenReturn(new Language(SPANISH_MEXICO, "es", "MX", "Espanol", "Mexico"));
+        when(languageAPI.getFallbackLanguage("es")).thenReturn(new Language(SPANISH, "es", "ES", "Espanol", "Espana"));
+        when(languageAPI.getDefaultLanguage()).thenReturn(new Language(ENGLISH, "en", "US", "English", "United States"));
+
+        contentletAPI = mock(ContentletAPI.class);
+        doAnswer(invocation -> {
+            final String query = (String) invocation.getArguments()[0];
+            final long languageId = Long.parseLong(query.replaceAll(".*\\+languageId:(\\d+).*", "$1"));
+            final List<Contentlet> page = index.containsKey(languageId) ? index.get(languageId) : new ArrayList<>();
+            ((ContentletPageHandler) invocation.getArguments()[4]).handle(page);
+            return page.size();
+        }).when(contentletAPI).scroll(anyString(), anyInt(), any(User.class), anyBoolean(), any(ContentletPageHandler.class));
+
+        final DotCacheAdministrator cacheAdministrator = mock(DotCacheAdministrator.class);
+        doAnswer(invocation -> entries.put(invocation.getArguments()[2] + ":" + invocation.getArguments()[0],
+                invocation.getArguments()[1])).when(cacheAdministrator).put(anyString(), any(), anyString());
+        when(cacheAdministrator.get(anyString(), anyString())).thenAnswer(invocation ->
+                entries.get(invocation.getArguments()[1] + ":" + invocation.getArguments()[0]));
+        doAnswer(invocation -> entries.remove(invocation.getArguments()[1] + ":" + invocation.getArguments()[0]))
+                .when(cacheAdministrator).remove(anyString(), anyString());
+        cache = new KeyValueCacheImpl(cacheAdministrator);
+
+        languageVariableAPI = new LanguageVariableAPIImpl(languageAPI, contentletAPI, cache, () -> user);
+        contentType(false);
+    }
+
+    private static void contentType(final boolean fallback) throws Exception {
+        final ContentType languageVariableType = mock(ContentType.class,
+                withSettings().extraInterfaces(MultilinguableFallback.class));
+        when(languageVariableType.variable()).thenReturn(LanguageVariableAPIImpl.LANGUAGEVARIABLE);
+        when(((MultilinguableFallback) languageVariableType).fallback()).thenReturn(fallback);
+        when(contentTypeAPI.find(LanguageVariableAPIImpl.LANGUAGEVARIABLE)).thenReturn(languageVariableType);
+    }
+
+    private Contentlet variable(final long languageId, final String key, final String value) {
+        final Contentlet contentlet = mock(Contentlet.class);
+        when(contentlet.getLanguageId()).thenReturn(languageId);
+        when(contentlet.getStringProperty(KeyValueContentType.KEY_VALUE_KEY_FIELD_VAR)).thenReturn(key);
+        when(contentlet.getStringProperty(KeyValueContentType.KEY_VALUE_VALUE_FIELD_VAR)).thenReturn(value);
+        index.computeIfAbsent(languageId, id -> new ArrayList<>()).add(contentlet);
+        return contentlet;
+    }
+
+    @Test
+    public void testValueOfTheLanguage() throws Exception {
+        variable(ENGLISH, "welcome", "Welcome");
+        variable(SPANISH, "welcome", "Bienvenido");
+
+        assertEquals("Welcome", languageVariableAPI.get("welcome", ENGLISH, user, false));
+        assertEquals("Bienvenido", languageVariableAPI.get("welcome", SPANISH, user, false));
+    }
+
+    @Test
+    public void testValueOfTheFallbackLanguage() throws Exception {
+        variable(SPANISH, "welcome", "Bienvenido");
+        variable(SPANISH_MEXICO, "bye", "Nos vemos");
+
+        assertEquals("Bienvenido", languageVariableAPI.get("welcome", SPANISH_MEXICO, user, false));
+        assertEquals("Nos vemos", languageVariableAPI.get("bye", SPANISH_MEXICO, user, false));
+    }
+
+    @Test
+    public void testValueOfTheDefaultLanguageOnlyWithFallback() throws Exception {
+        variable(ENGLISH, "welcome", "Welcome");
+
+        assertEquals("welcome", languageVariableAPI.get("welcome", SPANISH_MEXICO, user, false));
+
+        contentType(true);
+        assertEquals("Welcome", languageVariableAPI.get("welcome", SPANISH_MEXICO, user, false));
+    }
+
+    @Test
+    public void testMissingVariableIsItsKey() throws Exception {
+        variable(ENGLISH, "welcome", "Welcome");
+
+        assertEquals("missing.key", languageVariableAPI.get("missing.key", ENGLISH, user, false));
+    }
+
+    @Test
+    public void testLanguageIsScannedOnceUntilAVariableChanges() throws Exception {
+        final Contentlet welcome = variable(ENGLISH, "welcome", "Welcome");
+        variable(ENGLISH, "bye", "Bye");
+
+        assertEquals("Welcome", languageVariableAPI.get("welcome", ENGLISH, user, false));
+        assertEquals("Bye", languageVariableAPI.get("bye", ENGLISH, user, false));
+        verify(contentletAPI, times(1)).scroll(anyString(), anyInt(), any(User.class), anyBoolean(), any(ContentletPageHandler.class));
+
+        when(welcome.getStringProperty(KeyValueContentType.KEY_VALUE_VALUE_FIELD_VAR)).thenReturn("Hello");
+        cache.remove(welcome);
+
+        assertEquals("Hello", languageVariableAPI.get("welcome", ENGLISH, user, false));
+        verify(contentletAPI, times(2)).scroll(anyString(), anyInt(), any(User.class), anyBoolean(), any(ContentletPageHandler.class));
+    }
+
+    @Test
+    public void testVariablesRemovedDuringTheScanAreNotKept() throws Exception {
+        final Contentlet welcome = variable(ENGLISH, "welcome", "Welcome");
+        // the variable is saved while the scan is running, after it was read
+        doAnswer(invocation -> {
+            ((ContentletPageHandler) invocation.getArguments()[4]).handle(index.get(ENGLISH));
+            when(welcome.getStringProperty(KeyValueContentType.KEY_VALUE_VALUE_FIELD_VAR)).thenReturn("Hello");
+            cache.remove(welcome);
+            return 1;
+        }).doAnswer(invocation -> {
+            ((ContentletPageHandler) invocation.getArguments()[4]).handle(index.get(ENGLISH));
+            return 1;
+        }).when(contentletAPI).scroll(anyString(), anyInt(), any(User.class), anyBoolean(), any(ContentletPageHandler.class));
+
+        assertEquals("Welcome", languageVariableAPI.get("welcome", ENGLISH, user, false));
+        assertEquals("Hello", languageVariableAPI.get("welcome", ENGLISH, user, false));
+        assertEquals("Hello", languageVariableAPI.get("welcome", ENGLISH, user, false));
+        verify(contentletAPI, times(2)).scroll(anyString(), anyInt(), any(User.class), anyBoolean(), any(ContentletPageHandler.class));
+    }
+
+}
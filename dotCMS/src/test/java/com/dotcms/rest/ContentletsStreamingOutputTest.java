@@ -0,0 +1,202 @@
+package com.dotcms.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotcms.repackage.javax.ws.rs.core.Response;
+import com.dotcms.repackage.javax.ws.rs.core.StreamingOutput;
+import com.dotcms.repackage.org.codehaus.jettison.json.JSONArray;
+import com.dotcms.repackage.org.codehaus.jettison.json.JSONObject;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+
+/**
+ * The streamed JSON has to be the same, byte for byte, as the one built before with
+ * {@link ContentResource#contentletToJSON} and {@link JSONObject#toString()}.
+ */
+public class ContentletsStreamingOutputTest extends UnitTestBase {
+
+    // what ContentletUtil, the fields cache and the widget parser return for each contentlet
+    private final Map<Contentlet, Map<String, Object>> printableMaps = new IdentityHashMap<>();
+    private final Map<Contentlet, Set<String>> jsonFields = new IdentityHashMap<>();
+    private final Map<Contentlet, String> parsedCodes = new IdentityHashMap<>();
+
+    private Contentlet contentlet(final Map<String, Object> printableMap) {
+        final Contentlet contentlet = mock(Contentlet.class);
+        printableMaps.put(contentlet, printableMap);
+        jsonFields.put(contentlet, Collections.<String>emptySet());
+        return contentlet;
+    }
+
+    private static Map<String, Object> map(final Object... keysAndValues) {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    /**
+     * The JSON as ContentResource built it before it was streamed.
+     */
+    private String built(final List<Contentlet> contentlets) throws Exception {
+        final JSONObject json = new JSONObject();
+        final JSONArray jsonCons = new JSONArray();
+        for (Contentlet contentlet : contentlets) {
+            jsonCons.put(ContentResource.contentletToJSON(contentlet, printableMaps.get(contentlet),
+                    jsonFields.get(contentlet), parsedCodes.get(contentlet)));
+        }
+        json.put("contentlets", jsonCons);
+        return json.toString();
+    }
+
+    private StreamingOutput streamed(final List<List<Contentlet>> pages) {
+        return new ContentletsStreamingOutput(handler -> {
+            for (List<Contentlet> page : pages) {
+                handler.handle(page);
+            }
+        }, contentlet ->
+                ContentletsStreamingOutput.toJSONFields(contentlet, printableMaps.get(contentlet),
+                        jsonFields.get(contentlet), parsedCodes.get(contentlet)));
+    }
+
+    private static String write(final StreamingOutput output) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.write(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void assertSameJSON(final List<Contentlet> contentlets) throws Exception {
+        assertEquals(built(contentlets), write(streamed(Collections.singletonList(contentlets))));
+    }
+
+    @Test
+    public void testNullsNumbersAndBooleans() throws Exception {
+        assertSameJSON(Arrays.asList(contentlet(map(
+                "title", "Hello",
+                "summary", null,
+                "sortOrder", 3,
+                "views", 10000000000L,
+                "price", 10.5d,
+                "ratio", 2.0d,
+                "weight", 0.25f,
+                "live", true,
+                "modDate", new Date(0),
+                "disabledWYSIWYG", Arrays.asList("body"),
+                "lowIndexPriority", false))));
+    }
+
+    @Test
+    public void testStringsAreEscapedTheSameWay() throws Exception {
+        assertSameJSON(Arrays.asList(contentlet(map(
+                "body", "<script>alert(\"x\")</script>",
+                "path", "/application/themes/",
+                "text", "tab\tnew line\nback\\slash \u0001   áéí 日本")),
+                contentlet(map("title", ""))));
+    }
+
+    @Test
+    public void testJSONFields() throws Exception {
+        final Contentlet contentlet = contentlet(map("title", "Key/Value", "metadata", "{\"a\":\"1\"}"));
+        jsonFields.put(contentlet, new HashSet<>(Arrays.asList("metadata")));
+        final Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("contentType", "text/html");
+        metadata.put("size", 2048);
+        metadata.put("title", "</title>");
+        when(contentlet.getKeyValueProperty("metadata")).thenReturn(metadata);
+
+        assertSameJSON(Arrays.asList(contentlet));
+    }
+
+    @Test
+    public void testWidgetWithParsedCode() throws Exception {
+        final Contentlet widget = contentlet(map("widgetTitle", "News", "widgetCode", "#foreach($n in $news)$n#end"));
+        parsedCodes.put(widget, "<ul>\n\t<li>\"first\"</li>\n</ul>");
+        final Contentlet unparsed = contentlet(map("widgetTitle", "Not rendered"));
+
+        assertSameJSON(Arrays.asList(widget, unparsed));
+    }
+
+    @Test
+    public void testEmptyResult() throws Exception {
+        assertEquals(built(Collections.<Contentlet>emptyList()), write(streamed(Collections.<List<Contentlet>>emptyList())));
+        assertEquals(built(Collections.<Contentlet>emptyList()),
+                write(streamed(Collections.singletonList(Collections.<Contentlet>emptyList()))));
+    }
+
+    @Test
+    public void testSeveralPages() throws Exception {
+        final List<Contentlet> contentlets = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            contentlets.add(contentlet(map("title", "Content " + i, "sortOrder", i)));
+        }
+        final List<List<Contentlet>> pages = Arrays.asList(contentlets.subList(0, 2), contentlets.subList(2, 4),
+                Collections.<Contentlet>emptyList(), contentlets.subList(4, 5));
+
+        assertEquals(built(contentlets), write(streamed(pages)));
+    }
+
+    @Test
+    public void testContentletThatFailsIsLeftOut() throws Exception {
+        final Contentlet first = contentlet(map("title", "First"));
+        final Contentlet broken = contentlet(map("title", "Broken"));
+        final Contentlet last = contentlet(map("title", "Last"));
+        final StreamingOutput output = new ContentletsStreamingOutput(
+                handler -> handler.handle(Arrays.asList(first, broken, last)), contentlet -> {
+                    if (contentlet == broken) {
+                        throw new IllegalStateException("broken");
+                    }
+                    return ContentletsStreamingOutput.toJSONFields(contentlet, printableMaps.get(contentlet),
+                            jsonFields.get(contentlet), parsedCodes.get(contentlet));
+                });
+
+        assertEquals(built(Arrays.asList(first, last)), write(output));
+    }
+
+    @Test
+    public void testScrollThatFailsEndsTheDocument() throws Exception {
+        final List<Contentlet> contentlets = Arrays.asList(contentlet(map("title", "First")),
+                contentlet(map("title", "Second")));
+        final StreamingOutput output = new ContentletsStreamingOutput(handler -> {
+            handler.handle(contentlets);
+            throw new DotDataException("The scroll expired");
+        }, contentlet -> ContentletsStreamingOutput.toJSONFields(contentlet, printableMaps.get(contentlet),
+                jsonFields.get(contentlet), parsedCodes.get(contentlet)));
+
+        // the contentlets written before the failure are kept in a valid document
+        assertEquals(built(contentlets), write(output));
+    }
+
+    @Test
+    public void testJsonpIsWrappedInTheCallback() throws Exception {
+        final List<Contentlet> contentlets = Arrays.asList(contentlet(map("title", "</script>", "sortOrder", 1)));
+        final Map<String, String> params = new HashMap<>();
+        params.put(RESTParams.TYPE.getValue(), "jsonp");
+        params.put(RESTParams.CALLBACK.getValue(), "showContent");
+
+        final Response before = new ResourceResponse(params).response(built(contentlets));
+        final Response streamed = new ResourceResponse(params).response(streamed(Collections.singletonList(contentlets)));
+
+        assertEquals(before.getEntity(), write((StreamingOutput) streamed.getEntity()));
+        assertEquals(before.getMediaType(), streamed.getMediaType());
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.dotcms.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotmarketing.portlets.contentlet.business.ContentletPageHandler;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+
+public class OffsetLimitPageHandlerTest extends UnitTestBase {
+
+    private final List<Contentlet> results = new ArrayList<>();
+    private final List<List<Contentlet>> handled = new ArrayList<>();
+
+    /**
+     * Scrolls the results in pages of the given size until the handler stops it.
+     * @return the number of pages read
+     */
+    private int scroll(final int pageSize, final ContentletPageHandler handler) throws Exception {
+        int read = 0;
+        for (int from = 0; from < results.size(); from += pageSize) {
+            read++;
+            if (!handler.handle(results.subList(from, Math.min(results.size(), from + pageSize)))) {
+                break;
+            }
+        }
+        return read;
+    }
+
+    private OffsetLimitPageHandler slice(final int offset, final int limit) {
+        return new OffsetLimitPageHandler(offset, limit, page -> {
+            handled.add(new ArrayList<>(page));
+            return true;
+        });
+    }
+
+    private void results(final int count) {
+        for (int i = 0; i < count; i++) {
+            results.add(mock(Contentlet.class));
+        }
+    }
+
+    private List<Contentlet> handledContentlets() {
+        final List<Contentlet> contentlets = new ArrayList<>();
+        handled.forEach(contentlets::addAll);
+        return contentlets;
+    }
+
+    private List<Integer> sizes() {
+        final List<Integer> sizes = new ArrayList<>();
+        handled.forEach(page -> sizes.add(page.size()));
+        return sizes;
+    }
+
+    @Test
+    public void testLimitStopsTheScroll() throws Exception {
+        results(1000);
+
+        assertEquals(3, scroll(100, slice(0, 250)));
+        assertEquals(Arrays.asList(100, 100, 50), sizes());
+        assertEquals(results.subList(0, 250), handledContentlets());
+    }
+
+    @Test
+    public void testLimitAtTheEndOfAPage() throws Exception {
+        results(1000);
+
+        assertEquals(2, scroll(100, slice(0, 200)));
+        assertEquals(Arrays.asList(100, 100), sizes());
+    }
+
+    @Test
+    public void testOffsetAcrossPages() throws Exception {
+        results(1000);
+
+        assertEquals(4, scroll(100, slice(150, 200)));
+        assertEquals(Arrays.asList(50, 100, 50), sizes());
+        assertEquals(results.subList(150, 350), handledContentlets());
+    }
+
+    @Test
+    public void testNegativeOffsetIsTheFirstResult() throws Exception {
+        results(30);
+
+        scroll(10, slice(-5, 15));
+        assertEquals(results.subList(0, 15), handledContentlets());
+    }
+
+    @Test
+    public void testResultsOverBeforeTheLimit() throws Exception {
+        results(120);
+
+        assertEquals(3, scroll(50, slice(30, 500)));
+        assertEquals(Arrays.asList(20, 50, 20), sizes());
+        assertEquals(results.subList(30, 120), handledContentlets());
+    }
+
+    @Test
+    public void testOffsetPastTheEnd() throws Exception {
+        results(120);
+
+        assertEquals(3, scroll(50, slice(500, 100)));
+        assertTrue(handled.isEmpty());
+    }
+
+    @Test
+    public void testHandlerStopsTheScroll() throws Exception {
+        results(1000);
+        final OffsetLimitPageHandler slice = new OffsetLimitPageHandler(0, 500, page -> {
+            handled.add(page);
+            return false;
+        });
+
+        assertFalse(slice.handle(results.subList(0, 100)));
+        assertEquals(Arrays.asList(100), sizes());
+    }
+
+}
@@ -0,0 +1,209 @@
+package com.dotcms.rest.api.v1.system.websocket;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotcms.api.system.event.Payload;
+import com.dotcms.api.system.event.PayloadVerifier;
+import com.dotcms.api.system.event.PayloadVerifierFactory;
+import com.dotcms.api.system.event.SystemEvent;
+import com.dotcms.api.system.event.SystemEventProcessor;
+import com.dotcms.api.system.event.SystemEventProcessorFactory;
+import com.dotcms.api.system.event.SystemEventType;
+import com.dotcms.api.system.event.Visibility;
+import com.dotcms.api.system.event.verifier.UserVerifier;
+import com.dotcms.util.marshal.MarshalUtils;
+import com.dotmarketing.business.UserAPI;
+import com.dotmarketing.util.Config;
+import com.liferay.portal.model.User;
+
+public class SystemEventsWebSocketEndPointTest extends UnitTestBase {
+
+    private final SystemEventProcessorFactory processorFactory = mock(SystemEventProcessorFactory.class);
+    private final PayloadVerifierFactory verifierFactory = mock(PayloadVerifierFactory.class);
+    private final MarshalUtils marshalUtils = mock(MarshalUtils.class);
+    private final Map<Session, RemoteEndpoint.Async> remotes = new HashMap<>();
+    private SystemEventsWebSocketEndPoint endPoint;
+
+    @BeforeClass
+    public static void noPingPong() {
+        Config.setProperty(SystemEventsWebSocketEndPoint.DOTCMS_WEBSOCKET_USEPINGPONG, false);
+    }
+
+    @Before
+    public void createEndPoint() {
+        when(marshalUtils.marshal(any())).thenAnswer(invocation -> "json of " + invocation.getArguments()[0]);
+        this.endPoint = new SystemEventsWebSocketEndPoint(mock(UserAPI.class), processorFactory, verifierFactory,
+                marshalUtils);
+    }
+
+    private static User user(final String userId) {
+        final User user = new User();
+        user.setUserId(userId);
+        return user;
+    }
+
+    /**
+     * Opens a session of the user, whose messages are written right away.
+     */
+    private Session open(final String sessionId, final User user) {
+        final Session session = mock(Session.class);
+        final RemoteEndpoint.Async remote = mock(RemoteEndpoint.Async.class);
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put(SystemEventsWebSocketEndPoint.USER, user);
+        when(session.getId()).thenReturn(sessionId);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getUserProperties()).thenReturn(properties);
+        when(session.getAsyncRemote()).thenReturn(remote);
+        doAnswer(invocation -> {
+            ((SendHandler) invocation.getArguments()[1]).onResult(new SendResult());
+            return null;
+        }).when(remote).sendText(anyString(), any(SendHandler.class));
+        remotes.put(session, remote);
+        this.endPoint.open(session);
+        return session;
+    }
+
+    private void verifySent(final Session session, final String text) {
+        verify(remotes.get(session)).sendText(eq(text), any(SendHandler.class));
+    }
+
+    private void verifyNothingSent(final Session session) {
+        verify(remotes.get(session), never()).sendText(anyString(), any(SendHandler.class));
+    }
+
+    @Test
+    public void testUserEventOnlyGoesToTheSessionsOfThatUser() {
+        final Session admin1 = open("1", user("admin"));
+        final Session admin2 = open("2", user("admin"));
+        final Session other = open("3", user("other"));
+        final SystemEvent event = new SystemEvent(SystemEventType.NOTIFICATION,
+                new Payload("data", Visibility.USER, "admin"));
+        final UserVerifier verifier = mock(UserVerifier.class);
+        when(verifier.verified(any(Payload.class), any(User.class))).thenReturn(true);
+        when(verifierFactory.getVerifier(event.getPayload())).thenReturn(verifier);
+
+        this.endPoint.sendSystemEvent(event);
+
+        verifySent(admin1, "json of " + event);
+        verifySent(admin2, "json of " + event);
+        verifyNothingSent(other);
+        // only the sessions of the user are looked at, and verified once for both of them
+        verify(verifier, times(1)).verified(any(Payload.class), any(User.class));
+    }
+
+    @Test
+    public void testUserEventForAUserWithoutSessions() {
+        final Session admin = open("1", user("admin"));
+        final SystemEvent event = new SystemEvent(SystemEventType.NOTIFICATION,
+                new Payload("data", Visibility.USER, "nobody"));
+        when(verifierFactory.getVerifier(event.getPayload())).thenReturn(new UserVerifier());
+
+        this.endPoint.sendSystemEvent(event);
+
+        verifyNothingSent(admin);
+        verify(marshalUtils, never()).marshal(any());
+    }
+
+    @Test
+    public void testEachProcessedEventIsMarshalledOnce() {
+        final User admin = user("admin");
+        final Session admin1 = open("1", admin);
+        final Session admin2 = open("2", admin);
+        final Session other1 = open("3", user("other"));
+        final Session other2 = open("4", user("another"));
+        final Session owner = open("5", user("owner"));
+        final SystemEvent event = new SystemEvent(SystemEventType.NOTIFICATION, new Payload("data"));
+        final SystemEvent ownerEvent = new SystemEvent(SystemEventType.NOTIFICATION, new Payload("owner data"));
+        // the same event for every user but the owner
+        final SystemEventProcessor processor = mock(SystemEventProcessor.class);
+        when(processor.process(any(SystemEvent.class), any(User.class))).thenAnswer(invocation ->
+                "owner".equals(((User) invocation.getArguments()[1]).getUserId()) ? ownerEvent : event);
+        when(processorFactory.createProcessor(SystemEventType.NOTIFICATION)).thenReturn(processor);
+
+        this.endPoint.sendSystemEvent(event);
+
+        verify(marshalUtils, times(1)).marshal(event);
+        verify(marshalUtils, times(1)).marshal(ownerEvent);
+        // processed once per user
+        verify(processor, times(4)).process(any(SystemEvent.class), any(User.class));
+        for (Session session : new Session[] {admin1, admin2, other1, other2}) {
+            verifySent(session, "json of " + event);
+        }
+        verifySent(owner, "json of " + ownerEvent);
+    }
+
+    @Test
+    public void testUsersTheVerifierFailsForAreLeftOut() {
+        final Session admin = open("1", user("admin"));
+        final Session broken = open("2", user("broken"));
+        final SystemEvent event = new SystemEvent(SystemEventType.NOTIFICATION,
+                new Payload("data", Visibility.ROLE, "role"));
+        final PayloadVerifier verifier = (payload, user) -> {
+            if ("broken".equals(user.getUserId())) {
+                throw new IllegalStateException("Unable to load the roles");
+            }
+            return true;
+        };
+        when(verifierFactory.getVerifier(event.getPayload())).thenReturn(verifier);
+
+        this.endPoint.sendSystemEvent(event);
+
+        verifySent(admin, "json of " + event);
+        verifyNothingSent(broken);
+    }
+
+    @Test
+    public void testClosedAndFailedSessionsAreRemoved() {
+        final User admin = user("admin");
+        final Session closed = open("1", admin);
+        final Session failed = open("2", admin);
+        final Session open = open("3", admin);
+        final Session gone = open("4", user("other"));
+        assertEquals(4, this.endPoint.getSessionsCount());
+
+        this.endPoint.closedConnection(closed);
+        this.endPoint.error(failed, new IllegalStateException("broken pipe"));
+        // closed by the client without telling
+        when(gone.isOpen()).thenReturn(false);
+        assertEquals(2, this.endPoint.getSessionsCount());
+
+        final SystemEvent event = new SystemEvent(SystemEventType.NOTIFICATION, new Payload("data"));
+        this.endPoint.sendSystemEvent(event);
+
+        verifySent(open, "json of " + event);
+        verifyNothingSent(closed);
+        verifyNothingSent(failed);
+        verifyNothingSent(gone);
+        assertEquals(1, this.endPoint.getSessionsCount());
+
+        // the user gets the events again after all of their sessions were closed
+        this.endPoint.closedConnection(open);
+        assertEquals(0, this.endPoint.getSessionsCount());
+        final Session reopened = open("5", admin);
+        this.endPoint.sendSystemEvent(event);
+        verifySent(reopened, "json of " + event);
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.dotcms.util;
+
+import com.dotcms.UnitTestBase;
+import com.dotcms.concurrent.DotConcurrentException;
+import com.dotcms.concurrent.DotConcurrentFactory;
+import com.dotcms.concurrent.DotSubmitter;
+import com.dotcms.system.AppContext;
+import com.dotcms.system.SimpleMapAppContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LongPollingServiceTest extends UnitTestBase {
+
+    private TimerWheel timerWheel;
+    private DotConcurrentFactory dotConcurrentFactory;
+
+    @Before
+    public void setUp() {
+
+        this.timerWheel = new TimerWheel("LongPollingTimerTest", 10, 64);
+
+        // runs the delegate in the calling thread
+        final DotSubmitter dotSubmitter = mock(DotSubmitter.class);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(dotSubmitter).execute(any(Runnable.class));
+
+        this.dotConcurrentFactory = mock(DotConcurrentFactory.class);
+        when(this.dotConcurrentFactory.getSubmitter(LongPollingService.LONG_POLLING_THREAD_POOL_SUBMITTER_NAME))
+                .thenReturn(dotSubmitter);
+    }
+
+    @After
+    public void tearDown() {
+        this.timerWheel.stop();
+    }
+
+    @Test
+    public void testExecuteAsync_TimesOut() throws InterruptedException {
+
+        final CountDownLatch answered = new CountDownLatch(1);
+        final LongPollingService service = new LongPollingService(100, context -> answered.countDown(),
+                this.dotConcurrentFactory, this.timerWheel);
+
+        final long start = System.currentTimeMillis();
+        service.executeAsync(new SimpleMapAppContext());
+
+        assertEquals(1, service.getPendingCount());
+        assertTrue(answered.await(5, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 100);
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    public void testExecuteAsync_WakeUpAnswersAllThePendingPolls() throws InterruptedException {
+
+        final int polls = 1000;
+        final AtomicInteger calls = new AtomicInteger();
+        final LongPollingService service = new LongPollingService(60000, context -> calls.incrementAndGet(),
+                this.dotConcurrentFactory, this.timerWheel);
+
+        for (int i = 0; i < polls; i++) {
+            service.executeAsync(new SimpleMapAppContext());
+        }
+        assertEquals(polls, service.getPendingCount());
+        assertEquals(0, calls.get());
+
+        // a new event arrives
+        assertEquals(polls, service.wakeUp());
+
+        assertEquals(polls, calls.get());
+        assertEquals(0, service.getPendingCount());
+        assertEquals(0, this.timerWheel.size());
+
+        // the cancelled timeouts never call the delegate again
+        assertEquals(0, service.wakeUp());
+        assertEquals(polls, calls.get());
+    }
+
+    @Test
+    public void testExecute_WakeUpAnswersTheBlockedPoll() throws InterruptedException {
+
+        final AppContext appContext = new SimpleMapAppContext();
+        final LongPollingService service = new LongPollingService(60000, context -> context.setAttribute("result", "done"),
+                this.dotConcurrentFactory, this.timerWheel);
+
+        final Thread poller = new Thread(() -> service.execute(appContext));
+        poller.start();
+
+        while (service.getPendingCount() == 0) {
+            Thread.sleep(10);
+        }
+        service.wakeUp();
+        poller.join(5000);
+
+        assertFalse(poller.isAlive());
+        assertEquals("done", appContext.getAttribute("result"));
+    }
+
+    @Test
+    public void testExecuteAsync_FullPoolKeepsThePollsReady() throws InterruptedException {
+
+        final AtomicBoolean full = new AtomicBoolean(true);
+        final DotSubmitter fullSubmitter = mock(DotSubmitter.class);
+        doAnswer(invocation -> {
+            if (full.get()) {
+                throw new DotConcurrentException("full");
+            }
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(fullSubmitter).execute(any(Runnable.class));
+        final DotConcurrentFactory fullFactory = mock(DotConcurrentFactory.class);
+        when(fullFactory.getSubmitter(LongPollingService.LONG_POLLING_THREAD_POOL_SUBMITTER_NAME))
+                .thenReturn(fullSubmitter);
+
+        final AtomicInteger calls = new AtomicInteger();
+        final LongPollingService service = new LongPollingService(60000, context -> calls.incrementAndGet(),
+                fullFactory, this.timerWheel);
+
+        // neither the timer wheel nor the thread waking the polls up runs the delegate
+        service.executeAsync(new SimpleMapAppContext());
+        service.executeAsync(new SimpleMapAppContext());
+        assertEquals(2, service.wakeUp());
+        assertEquals(0, calls.get());
+        assertEquals(0, service.getPendingCount());
+        assertEquals(2, service.getReadyCount());
+
+        // the polls are answered once the pool takes tasks again
+        full.set(false);
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (calls.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(2, calls.get());
+        assertEquals(0, service.getReadyCount());
+    }
+
+    @Test
+    public void testExecuteAsync_MorePollsThanThePoolCanTake() throws InterruptedException {
+
+        // 2 threads and 1 queued task, like the default 50 threads and 100 queued tasks with thousands of polls
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1));
+        final DotSubmitter smallSubmitter = mock(DotSubmitter.class);
+        doAnswer(invocation -> {
+            try {
+                executor.execute((Runnable) invocation.getArguments()[0]);
+            } catch (RejectedExecutionException e) {
+                throw new DotConcurrentException(e.getMessage(), e);
+            }
+            return null;
+        }).when(smallSubmitter).execute(any(Runnable.class));
+        final DotConcurrentFactory smallFactory = mock(DotConcurrentFactory.class);
+        when(smallFactory.getSubmitter(LongPollingService.LONG_POLLING_THREAD_POOL_SUBMITTER_NAME))
+                .thenReturn(smallSubmitter);
+
+        final int polls = 1000;
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final LongPollingService service = new LongPollingService(60000, context -> {
+            final int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            calls.incrementAndGet();
+            running.decrementAndGet();
+        }, smallFactory, this.timerWheel, 5);
+
+        try {
+            for (int i = 0; i < polls; i++) {
+                service.executeAsync(new SimpleMapAppContext());
+            }
+            // a new event arrives
+            assertEquals(polls, service.wakeUp());
+
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (calls.get() < polls && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // none is dropped, and no more delegates run at the same time than the pool has threads
+            assertEquals(polls, calls.get());
+            assertEquals(0, service.getReadyCount());
+            assertTrue(maxRunning.get() <= 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTimerWheel_CancelledTimeoutDoesNotFire() throws InterruptedException {
+
+        final AtomicInteger fired = new AtomicInteger();
+        final TimerWheel.Timeout cancelled = this.timerWheel.schedule(fired::incrementAndGet, 50);
+        final CountDownLatch latch = new CountDownLatch(1);
+        this.timerWheel.schedule(latch::countDown, 100);
+
+        assertTrue(cancelled.cancel());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, fired.get());
+        assertFalse(cancelled.cancel());
+    }
+}
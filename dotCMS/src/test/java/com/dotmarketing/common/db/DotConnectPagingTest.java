@@ -0,0 +1,71 @@
+package com.dotmarketing.common.db;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotmarketing.db.DbConnectionFactory.DataBaseType;
+
+public class DotConnectPagingTest extends UnitTestBase {
+
+    private static final String SQL = "select inode from contentlet order by mod_date";
+
+    @Test
+    public void testNoPagingKeepsTheQuery() {
+        for (DataBaseType dbType : DataBaseType.values()) {
+            assertEquals(SQL, DotConnect.pageSQL(dbType, SQL, 0, 0));
+            assertEquals(SQL, DotConnect.pageSQL(dbType, SQL, -1, -1));
+        }
+    }
+
+    @Test
+    public void testPostgresAndH2() {
+        for (DataBaseType dbType : new DataBaseType[] {DataBaseType.POSTGRES, DataBaseType.H2}) {
+            assertEquals(SQL + " limit 10 offset 20", DotConnect.pageSQL(dbType, SQL, 20, 10));
+            assertEquals(SQL + " limit 10", DotConnect.pageSQL(dbType, SQL, 0, 10));
+            assertEquals(SQL + " offset 20", DotConnect.pageSQL(dbType, SQL, 20, 0));
+        }
+    }
+
+    @Test
+    public void testMySQL() {
+        assertEquals(SQL + " limit 20, 10", DotConnect.pageSQL(DataBaseType.MySQL, SQL, 20, 10));
+        assertEquals(SQL + " limit 0, 10", DotConnect.pageSQL(DataBaseType.MySQL, SQL, 0, 10));
+        // there is no offset without a limit
+        assertEquals(SQL + " limit 20, 18446744073709551615", DotConnect.pageSQL(DataBaseType.MySQL, SQL, 20, 0));
+    }
+
+    @Test
+    public void testMSSQL() {
+        assertEquals(SQL + " offset 20 rows fetch next 10 rows only", DotConnect.pageSQL(DataBaseType.MSSQL, SQL, 20, 10));
+        assertEquals(SQL + " offset 0 rows fetch next 10 rows only", DotConnect.pageSQL(DataBaseType.MSSQL, SQL, 0, 10));
+        assertEquals(SQL + " offset 20 rows", DotConnect.pageSQL(DataBaseType.MSSQL, SQL, 20, 0));
+    }
+
+    @Test
+    public void testOracle() {
+        assertEquals("select * from (" + SQL + ") where rownum <= 10",
+                DotConnect.pageSQL(DataBaseType.ORACLE, SQL, 0, 10));
+        assertEquals("select * from (select dotcms_q.*, rownum dotcms_rn from (" + SQL + ") dotcms_q where rownum <= 30)"
+                + " where dotcms_rn > 20", DotConnect.pageSQL(DataBaseType.ORACLE, SQL, 20, 10));
+        assertEquals("select * from (select dotcms_q.*, rownum dotcms_rn from (" + SQL + ") dotcms_q) where dotcms_rn > 20",
+                DotConnect.pageSQL(DataBaseType.ORACLE, SQL, 20, 0));
+    }
+
+    @Test
+    public void testTopIsAddedAfterTheSelect() {
+        assertEquals("select top 30 inode from contentlet", DotConnect.topSQL("select inode from contentlet", 30));
+        assertEquals("SELECT top 30 inode from contentlet", DotConnect.topSQL("  SELECT inode from contentlet ", 30));
+        assertEquals("select distinct top 30 identifier from contentlet",
+                DotConnect.topSQL("select distinct identifier from contentlet", 30));
+        assertEquals("Select  Distinct\ntop 30 identifier from contentlet",
+                DotConnect.topSQL("Select  Distinct\nidentifier from contentlet", 30));
+        // only the outer select
+        assertEquals("select top 5 inode from contentlet where identifier in (select id from identifier)",
+                DotConnect.topSQL("select inode from contentlet where identifier in (select id from identifier)", 5));
+        // a column whose name starts like the keyword is not taken for it
+        assertEquals("select top 5 distinctive from t", DotConnect.topSQL("select distinctive from t", 5));
+    }
+
+}
@@ -0,0 +1,217 @@
+package com.dotmarketing.common.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+
+public class StatementCacheTest extends UnitTestBase {
+
+    private static final String SQL_A = "select * from contentlet where inode = ?";
+    private static final String SQL_B = "select * from identifier where id = ?";
+    private static final String SQL_C = "select * from folder where inode = ?";
+
+    private final Set<PreparedStatement> closed = ConcurrentHashMap.newKeySet();
+
+    private Connection conn;
+
+    private Connection connection() throws Exception {
+        Connection conn = mock(Connection.class);
+        when(conn.prepareStatement(anyString())).thenAnswer(invocation -> statement());
+        return conn;
+    }
+
+    private PreparedStatement statement() throws Exception {
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        doAnswer(invocation -> closed.add(statement)).when(statement).close();
+        return statement;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        conn = connection();
+    }
+
+    @Test
+    public void testStatementIsReusedOnTheSameConnection() throws Exception {
+        final StatementCache cache = new StatementCache(10, 10);
+
+        final PreparedStatement first = cache.prepare(conn, SQL_A, false);
+        cache.release(conn, SQL_A, first, false);
+        final PreparedStatement second = cache.prepare(conn, SQL_A, false);
+        cache.release(conn, SQL_A, second, false);
+
+        assertSame(first, second);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertTrue(closed.isEmpty());
+
+        // another connection gets its own statement
+        final PreparedStatement other = cache.prepare(connection(), SQL_A, false);
+        assertNotSame(first, other);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsEvictedAndClosed() throws Exception {
+        final StatementCache cache = new StatementCache(2, 10);
+
+        final PreparedStatement a = cache.prepare(conn, SQL_A, false);
+        cache.release(conn, SQL_A, a, false);
+        final PreparedStatement b = cache.prepare(conn, SQL_B, false);
+        cache.release(conn, SQL_B, b, false);
+        // a is used again, so b is the eldest
+        cache.release(conn, SQL_A, cache.prepare(conn, SQL_A, false), false);
+        final PreparedStatement c = cache.prepare(conn, SQL_C, false);
+        cache.release(conn, SQL_C, c, false);
+
+        assertEquals(1, cache.getEvictions());
+        assertTrue(closed.contains(b));
+        assertFalse(closed.contains(a));
+        assertFalse(closed.contains(c));
+    }
+
+    @Test
+    public void testStatementInUseIsClosedOnlyWhenReleased() throws Exception {
+        final StatementCache cache = new StatementCache(1, 10);
+
+        final PreparedStatement a = cache.prepare(conn, SQL_A, false);
+        // evicts a while it is being executed
+        final PreparedStatement b = cache.prepare(conn, SQL_B, false);
+        cache.release(conn, SQL_B, b, false);
+
+        assertEquals(1, cache.getEvictions());
+        assertFalse(closed.contains(a));
+
+        cache.release(conn, SQL_A, a, false);
+        assertTrue(closed.contains(a));
+        assertFalse(closed.contains(b));
+    }
+
+    @Test
+    public void testSameQueryInUseGetsAStatementOfItsOwn() throws Exception {
+        final StatementCache cache = new StatementCache(10, 10);
+
+        final PreparedStatement outer = cache.prepare(conn, SQL_A, false);
+        final PreparedStatement inner = cache.prepare(conn, SQL_A, false);
+        assertNotSame(outer, inner);
+
+        cache.release(conn, SQL_A, inner, false);
+        assertTrue(closed.contains(inner));
+
+        cache.release(conn, SQL_A, outer, false);
+        assertFalse(closed.contains(outer));
+        assertSame(outer, cache.prepare(conn, SQL_A, false));
+    }
+
+    @Test
+    public void testFailedStatementIsPreparedAgain() throws Exception {
+        final StatementCache cache = new StatementCache(10, 10);
+
+        final PreparedStatement failed = cache.prepare(conn, SQL_A, false);
+        cache.release(conn, SQL_A, failed, true);
+
+        assertTrue(closed.contains(failed));
+        assertEquals(1, cache.getInvalidations());
+        assertNotSame(failed, cache.prepare(conn, SQL_A, false));
+    }
+
+    @Test
+    public void testStatementsAreClosedWithTheConnection() throws Exception {
+        final StatementCache cache = new StatementCache(10, 10);
+
+        final PreparedStatement a = cache.prepare(conn, SQL_A, false);
+        cache.release(conn, SQL_A, a, false);
+        final PreparedStatement b = cache.prepare(conn, SQL_B, false);
+        cache.release(conn, SQL_B, b, false);
+
+        cache.closeStatements(conn);
+
+        assertTrue(closed.contains(a));
+        assertTrue(closed.contains(b));
+        assertEquals(0, cache.getConnectionCount());
+    }
+
+    @Test
+    public void testEvictedConnectionKeepsTheStatementInUse() throws Exception {
+        final StatementCache cache = new StatementCache(10, 1);
+        final Connection other = connection();
+
+        final PreparedStatement a = cache.prepare(conn, SQL_A, false);
+        // another thread borrows a connection and evicts the first one
+        cache.release(other, SQL_B, cache.prepare(other, SQL_B, false), false);
+
+        assertEquals(1, cache.getConnectionCount());
+        assertFalse(closed.contains(a));
+
+        cache.release(conn, SQL_A, a, false);
+        assertTrue(closed.contains(a));
+    }
+
+    @Test
+    public void testStatementsInUseAreNeverClosedByOtherThreads() throws Exception {
+        // small enough for statements and connections to be evicted all the time
+        final StatementCache cache = new StatementCache(2, 3);
+        final String[] queries = {SQL_A, SQL_B, SQL_C};
+        final int threads = 8;
+        final AtomicInteger closedInUse = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final Connection threadConnection = connection();
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2000; i++) {
+                        final String sql = queries[i % queries.length];
+                        final PreparedStatement statement = cache.prepare(threadConnection, sql, false);
+                        if (closed.contains(statement)) {
+                            closedInUse.incrementAndGet();
+                        }
+                        Thread.yield();
+                        if (closed.contains(statement)) {
+                            closedInUse.incrementAndGet();
+                        }
+                        cache.release(threadConnection, sql, statement, false);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, closedInUse.get());
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.getConnectionCount() <= 3);
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.dotmarketing.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotmarketing.db.DbConnectionFactory.DataBaseType;
+import com.dotmarketing.exception.DotDataException;
+
+public class WriteBehindBufferTest extends UnitTestBase {
+
+    private static final String INSERT = "insert into system_event (identifier, payload) values (?, ?)";
+    private static final String UPDATE = "update publishing_queue_audit set status = ? where bundle_id = ?";
+    private static final String DELETE = "delete from publishing_queue_audit where bundle_id = ?";
+
+    /**
+     * Every statement run on the connection, with the parameters of each row.
+     */
+    private final List<String> executed = new ArrayList<>();
+
+    private Connection conn;
+
+    @Before
+    public void setUp() throws Exception {
+        conn = mock(Connection.class);
+        when(conn.prepareStatement(anyString())).thenAnswer(invocation -> statement((String) invocation.getArguments()[0]));
+    }
+
+    private PreparedStatement statement(final String sql) throws Exception {
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        final List<Object> row = new ArrayList<>();
+        final List<List<Object>> batch = new ArrayList<>();
+        doAnswer(invocation -> {
+            final int index = (Integer) invocation.getArguments()[0];
+            while (row.size() < index) {
+                row.add(null);
+            }
+            row.set(index - 1, invocation.getArguments()[1]);
+            return null;
+        }).when(statement).setObject(anyInt(), anyObject());
+        when(statement.executeUpdate()).thenAnswer(invocation -> {
+            executed.add(sql + " " + row);
+            return 1;
+        });
+        doAnswer(invocation -> {
+            batch.add(new ArrayList<>(row));
+            row.clear();
+            return null;
+        }).when(statement).addBatch();
+        when(statement.executeBatch()).thenAnswer(invocation -> {
+            for (List<Object> params : batch) {
+                executed.add(sql + " " + params);
+            }
+            return new int[batch.size()];
+        });
+        return statement;
+    }
+
+    private WriteBehindBuffer buffer(final DataBaseType dbType) {
+        return new WriteBehindBuffer(conn, dbType, 1000, 200);
+    }
+
+    @Test
+    public void testNothingIsWrittenUntilFlushed() throws Exception {
+        final WriteBehindBuffer buffer = buffer(DataBaseType.POSTGRES);
+
+        buffer.append(UPDATE, null, new Object[] {1, "bundle-1"});
+        buffer.append(DELETE, null, new Object[] {"bundle-2"});
+
+        assertTrue(executed.isEmpty());
+        assertEquals(2, buffer.getPending());
+
+        buffer.flushPending();
+
+        assertEquals(0, buffer.getPending());
+        assertEquals(Arrays.asList(UPDATE + " [1, bundle-1]", DELETE + " [bundle-2]"), executed);
+
+        // a second flush has nothing left to write
+        buffer.flushPending();
+        assertEquals(2, executed.size());
+    }
+
+    @Test
+    public void testStatementsRunInTheOrderTheyWereFirstAdded() throws Exception {
+        final WriteBehindBuffer buffer = buffer(DataBaseType.ORACLE);
+
+        buffer.append(DELETE, null, new Object[] {"bundle-1"});
+        buffer.append(UPDATE, null, new Object[] {1, "bundle-2"});
+        buffer.append(DELETE, null, new Object[] {"bundle-3"});
+        buffer.flushPending();
+
+        // the rows of a statement run as one batch, in the order they were added
+        assertEquals(Arrays.asList(DELETE + " [bundle-1]", DELETE + " [bundle-3]", UPDATE + " [1, bundle-2]"), executed);
+    }
+
+    @Test
+    public void testKeyedWriteReplacesThePendingOne() throws Exception {
+        final WriteBehindBuffer buffer = buffer(DataBaseType.POSTGRES);
+
+        buffer.append(UPDATE, "bundle-1", new Object[] {1, "bundle-1"});
+        buffer.append(UPDATE, "bundle-2", new Object[] {1, "bundle-2"});
+        buffer.append(UPDATE, "bundle-1", new Object[] {2, "bundle-1"});
+
+        assertEquals(2, buffer.getPending());
+        buffer.flushPending();
+
+        assertEquals(Arrays.asList(UPDATE + " [2, bundle-1]", UPDATE + " [1, bundle-2]"), executed);
+    }
+
+    @Test
+    public void testSameKeyWithAnotherStatementFlushesFirst() throws Exception {
+        final WriteBehindBuffer buffer = buffer(DataBaseType.POSTGRES);
+
+        buffer.append(UPDATE, "bundle-1", new Object[] {1, "bundle-1"});
+        buffer.append(DELETE, "bundle-1", new Object[] {"bundle-1"});
+
+        // the update is written before the delete is buffered
+        assertEquals(Arrays.asList(UPDATE + " [1, bundle-1]"), executed);
+        assertEquals(1, buffer.getPending());
+
+        buffer.flushPending();
+        assertEquals(Arrays.asList(UPDATE + " [1, bundle-1]", DELETE + " [bundle-1]"), executed);
+    }
+
+    @Test
+    public void testInsertsBecomeMultiRowInserts() throws Exception {
+        final WriteBehindBuffer buffer = buffer(DataBaseType.POSTGRES);
+
+        buffer.append(INSERT, null, new Object[] {"a", "1"});
+        buffer.append(INSERT, null, new Object[] {"b", "2"});
+        buffer.append(INSERT, null, new Object[] {"c", "3"});
+        buffer.flushPending();
+
+        assertEquals(Arrays.asList("insert into system_event (identifier, payload) values (?, ?),(?, ?),(?, ?)"
+                + " [a, 1, b, 2, c, 3]"), executed);
+    }
+
+    @Test
+    public void testInsertsAreBatchedOnOracle() throws Exception {
+        final WriteBehindBuffer buffer = buffer(DataBaseType.ORACLE);
+
+        buffer.append(INSERT, null, new Object[] {"a", "1"});
+        buffer.append(INSERT, null, new Object[] {"b", "2"});
+        buffer.flushPending();
+
+        assertEquals(Arrays.asList(INSERT + " [a, 1]", INSERT + " [b, 2]"), executed);
+    }
+
+    @Test
+    public void testMultiRowInsertsAreSplitWithinTheMSSQLParameterLimit() throws Exception {
+        final WriteBehindBuffer buffer = new WriteBehindBuffer(conn, DataBaseType.MSSQL, 5000, 5000);
+
+        // 2000 parameters at most, 1000 rows of two
+        for (int i = 0; i < 2500; i++) {
+            buffer.append(INSERT, null, new Object[] {"id-" + i, i});
+        }
+        buffer.flushPending();
+
+        assertEquals(3, executed.size());
+        assertTrue(executed.get(0).contains("id-0, 0,"));
+        assertTrue(executed.get(0).contains("id-999, 999]"));
+        assertTrue(executed.get(1).contains("[id-1000, 1000,"));
+        assertTrue(executed.get(2).contains("id-2499, 2499]"));
+    }
+
+    @Test
+    public void testBufferIsFlushedWhenFull() throws Exception {
+        final WriteBehindBuffer buffer = new WriteBehindBuffer(conn, DataBaseType.ORACLE, 3, 200);
+
+        buffer.append(DELETE, null, new Object[] {"bundle-1"});
+        buffer.append(DELETE, null, new Object[] {"bundle-2"});
+        assertTrue(executed.isEmpty());
+
+        buffer.append(DELETE, null, new Object[] {"bundle-3"});
+        assertEquals(3, executed.size());
+        assertEquals(0, buffer.getPending());
+    }
+
+    @Test
+    public void testWritesOnAClosedConnectionFail() throws Exception {
+        final WriteBehindBuffer buffer = buffer(DataBaseType.POSTGRES);
+        buffer.append(DELETE, null, new Object[] {"bundle-1"});
+        when(conn.isClosed()).thenReturn(true);
+
+        try {
+            buffer.flushPending();
+            fail("The pending writes of a closed connection can not be written");
+        } catch (DotDataException e) {
+            assertTrue(executed.isEmpty());
+        }
+        // they are not written later on another transaction either
+        assertEquals(0, buffer.getPending());
+    }
+
+    @Test
+    public void testFlushOfAnotherConnectionDoesNothing() throws Exception {
+        // the current thread has no buffer, or one of another connection
+        WriteBehindBuffer.flush(conn);
+        WriteBehindBuffer.discard(conn);
+
+        assertTrue(executed.isEmpty());
+    }
+
+}
@@ -0,0 +1,211 @@
+package com.dotmarketing.filters.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+
+public class GZIPResponseWrapperTest extends UnitTestBase {
+
+    private final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+    private final Map<String, String> headers = new HashMap<>();
+
+    private HttpServletResponse response;
+
+    @Before
+    public void setUp() throws Exception {
+        response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(final int b) throws IOException {
+                sent.write(b);
+            }
+        });
+        doAnswer(invocation -> headers.put((String) invocation.getArguments()[0], (String) invocation.getArguments()[1]))
+                .when(response).setHeader(anyString(), anyString());
+        doAnswer(invocation -> headers.put((String) invocation.getArguments()[0], (String) invocation.getArguments()[1]))
+                .when(response).addHeader(anyString(), anyString());
+    }
+
+    private GZIPResponseWrapper wrapper(final String contentType) {
+        when(response.getContentType()).thenReturn(contentType);
+        return new GZIPResponseWrapper(response);
+    }
+
+    private static byte[] content(final int length) {
+        final byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        return content;
+    }
+
+    private byte[] gunzip() throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(sent.toByteArray()))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    @Test
+    public void testSmallResponseIsSentAsItIs() throws Exception {
+        final GZIPResponseWrapper wrapper = wrapper("text/html");
+        final byte[] content = content(GZIPUtil.getMinSize() - 1);
+
+        wrapper.getOutputStream().write(content);
+        wrapper.finishResponse();
+
+        assertArrayEquals(content, sent.toByteArray());
+        assertNull(headers.get("Content-Encoding"));
+        assertEquals(String.valueOf(content.length), headers.get("Content-Length"));
+    }
+
+    @Test
+    public void testLargeResponseIsCompressedWithoutItsLength() throws Exception {
+        final GZIPResponseWrapper wrapper = wrapper("text/css");
+        final byte[] content = content(GZIPUtil.getBufferSize() * 3);
+
+        // the length set by the servlet is the one of the uncompressed content
+        wrapper.setHeader("Content-Length", String.valueOf(content.length));
+        final ServletOutputStream out = wrapper.getOutputStream();
+        for (int i = 0; i < content.length; i += 100) {
+            out.write(content, i, Math.min(100, content.length - i));
+        }
+        wrapper.finishResponse();
+
+        assertEquals("gzip", headers.get("Content-Encoding"));
+        assertFalse(headers.containsKey("Content-Length"));
+        assertArrayEquals(content, gunzip());
+    }
+
+    @Test
+    public void testCompressedBytesAreSentBeforeTheEnd() throws Exception {
+        final GZIPResponseWrapper wrapper = wrapper("application/json");
+        final ServletOutputStream out = wrapper.getOutputStream();
+
+        out.write(content(GZIPUtil.getBufferSize() * 4));
+        out.flush();
+
+        // the response is streamed, not held until it is closed
+        assertTrue(sent.size() > 0);
+        wrapper.finishResponse();
+        assertEquals(GZIPUtil.getBufferSize() * 4, gunzip().length);
+    }
+
+    @Test
+    public void testCompressedContentTypeIsSentAsItIs() throws Exception {
+        final GZIPResponseWrapper wrapper = wrapper("image/png");
+        final byte[] content = content(GZIPUtil.getMinSize() * 4);
+
+        wrapper.setContentLength(content.length);
+        wrapper.getOutputStream().write(content);
+        wrapper.finishResponse();
+
+        assertArrayEquals(content, sent.toByteArray());
+        assertNull(headers.get("Content-Encoding"));
+        assertEquals(String.valueOf(content.length), headers.get("Content-Length"));
+    }
+
+    @Test
+    public void testEncodedResponseIsSentAsItIs() throws Exception {
+        final GZIPResponseWrapper wrapper = wrapper("text/css");
+        final byte[] content = content(GZIPUtil.getMinSize() * 4);
+
+        // a precompressed file sets its own encoding and length
+        wrapper.setHeader("Content-Encoding", "gzip");
+        wrapper.setHeader("Content-Length", String.valueOf(content.length));
+        wrapper.getOutputStream().write(content);
+        wrapper.finishResponse();
+
+        assertArrayEquals(content, sent.toByteArray());
+        assertEquals(String.valueOf(content.length), headers.get("Content-Length"));
+    }
+
+    @Test
+    public void testWriterIsCompressed() throws Exception {
+        final GZIPResponseWrapper wrapper = wrapper("text/html;charset=UTF-8");
+        final String text = new String(content(GZIPUtil.getMinSize() * 4), StandardCharsets.UTF_8) + " áéí";
+
+        final PrintWriter writer = wrapper.getWriter();
+        writer.print(text);
+        wrapper.finishResponse();
+
+        assertEquals("gzip", headers.get("Content-Encoding"));
+        assertEquals(text, new String(gunzip(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testResetDropsWhatWasNotSent() throws Exception {
+        final GZIPResponseWrapper wrapper = wrapper("text/html");
+        wrapper.getOutputStream().write(content(10));
+
+        wrapper.resetBuffer();
+        wrapper.getOutputStream().write("ok".getBytes(StandardCharsets.UTF_8));
+        wrapper.finishResponse();
+
+        assertEquals("ok", new String(sent.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWriterAndStreamCanNotBeMixed() throws Exception {
+        final GZIPResponseWrapper wrapper = wrapper("text/html");
+        wrapper.getOutputStream();
+
+        try {
+            wrapper.getWriter();
+            fail("The output stream was already taken");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTextFilesArePrecompressedWithTheirOwnETag() {
+        final String eTag = "dot:inode:1000:2048";
+
+        assertFalse(eTag.equals(GZIPUtil.getPrecompressedETag(eTag)));
+        assertTrue(GZIPUtil.isPrecompressible("text/css", GZIPUtil.getMinSize()));
+        assertTrue(GZIPUtil.isPrecompressible("image/svg+xml", GZIPUtil.getMinSize()));
+        assertFalse(GZIPUtil.isPrecompressible("image/png", GZIPUtil.getMinSize()));
+        assertFalse(GZIPUtil.isPrecompressible("text/css", GZIPUtil.getMinSize() - 1));
+    }
+
+}
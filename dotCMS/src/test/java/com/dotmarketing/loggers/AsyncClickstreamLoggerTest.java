@@ -0,0 +1,185 @@
+package com.dotmarketing.loggers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotmarketing.beans.Clickstream;
+
+public class AsyncClickstreamLoggerTest extends UnitTestBase {
+
+    // the batches handed to the writer, saved or not
+    private final List<List<Clickstream>> batches = Collections.synchronizedList(new ArrayList<List<Clickstream>>());
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /**
+     * A logger whose writer waits on {@link #release} before saving each batch, so the queue can
+     * be filled while the writer is busy.
+     */
+    private AsyncClickstreamLogger logger(final int queueSize, final int batchSize, final int sampleRate) {
+        return new AsyncClickstreamLogger(queueSize, batchSize, sampleRate, batch -> {
+            writing.countDown();
+            awaitRelease();
+            batches.add(new ArrayList<Clickstream>(batch));
+            return true;
+        });
+    }
+
+    private void awaitRelease() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                release.await();
+                break;
+            } catch (InterruptedException e) {
+                // the shutdown interrupts the writer
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<Clickstream> clickstreams(final int count) {
+        final List<Clickstream> clickstreams = new ArrayList<Clickstream>();
+        for (int i = 0; i < count; i++) {
+            final Clickstream clickstream = new Clickstream();
+            clickstream.setCookieId("cookie-" + i);
+            clickstreams.add(clickstream);
+        }
+        return clickstreams;
+    }
+
+    private List<Clickstream> written() {
+        final List<Clickstream> written = new ArrayList<Clickstream>();
+        synchronized (batches) {
+            for (List<Clickstream> batch : batches) {
+                written.addAll(batch);
+            }
+        }
+        return written;
+    }
+
+    @Test
+    public void testBusyQueueKeepsOneInSampleRate() throws Exception {
+        final AsyncClickstreamLogger logger = logger(8, 1, 2);
+        final List<Clickstream> clickstreams = clickstreams(12);
+
+        logger.log(clickstreams.get(0));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        // 6 of 8 is the sampling threshold
+        for (int i = 1; i < 7; i++) {
+            logger.log(clickstreams.get(i));
+        }
+        assertEquals(0, logger.getDroppedCount());
+        assertEquals(6, logger.getQueueSize());
+
+        // from then on only the even ones are kept, until the queue is full
+        for (int i = 7; i < 12; i++) {
+            logger.log(clickstreams.get(i));
+        }
+        assertEquals(8, logger.getQueueSize());
+        assertEquals(3, logger.getDroppedCount());
+
+        release.countDown();
+        logger.shutdown(5000);
+
+        final List<Clickstream> expected = new ArrayList<Clickstream>(clickstreams.subList(0, 8));
+        expected.add(clickstreams.get(9));
+        assertEquals(expected, written());
+        assertEquals(9, logger.getSavedCount());
+    }
+
+    @Test
+    public void testFullQueueDrops() throws Exception {
+        // sampling every clickstream turns it off
+        final AsyncClickstreamLogger logger = logger(2, 1, 1);
+        final List<Clickstream> clickstreams = clickstreams(5);
+
+        logger.log(clickstreams.get(0));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 5; i++) {
+            logger.log(clickstreams.get(i));
+        }
+        assertEquals(2, logger.getQueueSize());
+        assertEquals(2, logger.getDroppedCount());
+
+        release.countDown();
+        logger.shutdown(5000);
+
+        assertEquals(clickstreams.subList(0, 3), written());
+        assertEquals(3, logger.getSavedCount());
+    }
+
+    @Test
+    public void testShutdownSavesWhatIsQueued() throws Exception {
+        final AsyncClickstreamLogger logger = logger(100, 3, 10);
+        final List<Clickstream> clickstreams = clickstreams(10);
+
+        logger.log(clickstreams.get(0));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 10; i++) {
+            logger.log(clickstreams.get(i));
+        }
+
+        release.countDown();
+        logger.shutdown(5000);
+
+        assertEquals(clickstreams, written());
+        assertEquals(10, logger.getSavedCount());
+        assertEquals(0, logger.getQueueSize());
+        synchronized (batches) {
+            for (List<Clickstream> batch : batches) {
+                assertTrue(batch.size() <= 3);
+            }
+        }
+
+        // nothing is queued once the writer is stopped
+        logger.log(clickstreams(1).get(0));
+        assertEquals(1, logger.getDroppedCount());
+        assertEquals(0, logger.getQueueSize());
+    }
+
+    @Test
+    public void testFailedBatchIsSavedOneByOne() throws Exception {
+        final List<Clickstream> clickstreams = clickstreams(4);
+        final Clickstream bad = clickstreams.get(2);
+        final AsyncClickstreamLogger logger = new AsyncClickstreamLogger(10, 10, 10, batch -> {
+            writing.countDown();
+            awaitRelease();
+            if (batch.contains(bad)) {
+                return false;
+            }
+            batches.add(new ArrayList<Clickstream>(batch));
+            return true;
+        });
+
+        logger.log(clickstreams.get(0));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        // the other three are saved in the same batch
+        for (int i = 1; i < 4; i++) {
+            clickstreams.get(i).setClickstreamId(10);
+            logger.log(clickstreams.get(i));
+        }
+        release.countDown();
+        logger.shutdown(5000);
+
+        assertEquals(3, logger.getSavedCount());
+        assertEquals(Arrays.asList(clickstreams.get(0), clickstreams.get(1), clickstreams.get(3)), written());
+        // the ids given in the rolled back transaction are not kept
+        assertEquals(0, clickstreams.get(1).getClickstreamId());
+        assertEquals(0, bad.getClickstreamId());
+    }
+
+}
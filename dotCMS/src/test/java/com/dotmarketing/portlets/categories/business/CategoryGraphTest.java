@@ -0,0 +1,151 @@
+package com.dotmarketing.portlets.categories.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+
+public class CategoryGraphTest extends UnitTestBase {
+
+    /**
+     * Builds a graph whose categories are sorted in the order of the ids, as loaded from the
+     * database, from {@code parent, child} pairs.
+     */
+    private static CategoryGraph graph(final String[] ids, final String... relations) {
+        final Map<String, Integer> indexes = new HashMap<>();
+        final int[] rank = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            indexes.put(ids[i], i);
+            rank[i] = i;
+        }
+        final List<int[]> edges = new ArrayList<>();
+        for (int i = 0; i < relations.length; i += 2) {
+            edges.add(new int[] {indexes.get(relations[i]), indexes.get(relations[i + 1])});
+        }
+        return new CategoryGraph(ids, indexes, edges, rank);
+    }
+
+    /**
+     * root1 > (b, a > (a1, a2)) and root2 > c, the relations added out of order.
+     */
+    private static CategoryGraph tree() {
+        return graph(new String[] {"root1", "root2", "b", "a", "a1", "a2", "c"},
+                "a", "a2", "root1", "a", "root2", "c", "a", "a1", "root1", "b");
+    }
+
+    private static List<String> walk(final CategoryGraph graph, final String id, final int maxDepth,
+            final String skipBelow) {
+        final List<String> visited = new ArrayList<>();
+        graph.walkDescendants(id, maxDepth, (descendant, level) -> {
+            visited.add(descendant + "@" + level);
+            return !descendant.equals(skipBelow);
+        });
+        return visited;
+    }
+
+    @Test
+    public void testChildrenAndParentsAreSorted() {
+        final CategoryGraph graph = tree();
+
+        assertEquals(7, graph.size());
+        assertEquals(Arrays.asList("b", "a"), graph.getChildren("root1"));
+        assertEquals(Arrays.asList("a1", "a2"), graph.getChildren("a"));
+        assertEquals(Collections.singletonList("root1"), graph.getParents("a"));
+        assertTrue(graph.getChildren("c").isEmpty());
+    }
+
+    @Test
+    public void testTreeQueries() {
+        final CategoryGraph graph = tree();
+
+        assertTrue(graph.isTree());
+        assertEquals(4, graph.countDescendants("root1"));
+        assertEquals(2, graph.countDescendants("a"));
+        assertEquals(0, graph.countDescendants("a1"));
+
+        assertTrue(graph.isAncestor("root1", "a1"));
+        assertTrue(graph.isAncestor("a", "a2"));
+        assertFalse(graph.isAncestor("a1", "root1"));
+        assertFalse(graph.isAncestor("root2", "a1"));
+        assertFalse(graph.isAncestor("b", "a1"));
+        assertFalse(graph.isAncestor("a", "a"));
+    }
+
+    @Test
+    public void testAncestorsClosestFirst() {
+        final CategoryGraph graph = tree();
+
+        assertEquals(Arrays.asList("a", "root1"), graph.getAncestors("a1"));
+        assertEquals(Collections.singletonList("root2"), graph.getAncestors("c"));
+        assertTrue(graph.getAncestors("root1").isEmpty());
+    }
+
+    @Test
+    public void testDescendantsLevelByLevel() {
+        final CategoryGraph graph = tree();
+
+        assertEquals(Arrays.asList("b", "a", "a1", "a2"), graph.getDescendantsBreadthFirst("root1"));
+        assertEquals(Collections.singletonList("c"), graph.getDescendantsBreadthFirst("root2"));
+    }
+
+    @Test
+    public void testWalkIsDepthFirstAndLimited() {
+        final CategoryGraph graph = tree();
+
+        assertEquals(Arrays.asList("b@1", "a@1", "a1@2", "a2@2"), walk(graph, "root1", 10, null));
+        assertEquals(Arrays.asList("b@1", "a@1"), walk(graph, "root1", 1, null));
+        // nothing below a rejected category
+        assertEquals(Arrays.asList("b@1", "a@1"), walk(graph, "root1", 10, "a"));
+        assertTrue(walk(graph, "root1", 0, null).isEmpty());
+    }
+
+    @Test
+    public void testUnknownCategory() {
+        final CategoryGraph graph = tree();
+
+        assertFalse(graph.contains("missing"));
+        assertFalse(graph.contains(null));
+        assertTrue(graph.getChildren("missing").isEmpty());
+        assertTrue(graph.getAncestors("missing").isEmpty());
+        assertTrue(graph.getDescendantsBreadthFirst("missing").isEmpty());
+        assertEquals(0, graph.countDescendants("missing"));
+        assertFalse(graph.isAncestor("root1", "missing"));
+    }
+
+    @Test
+    public void testCategoryWithSeveralParents() {
+        final CategoryGraph graph = graph(new String[] {"p1", "p2", "shared", "leaf"},
+                "p2", "shared", "p1", "shared", "shared", "leaf");
+
+        assertFalse(graph.isTree());
+        assertEquals(Arrays.asList("p1", "p2"), graph.getParents("shared"));
+        assertEquals(2, graph.countDescendants("p1"));
+        assertTrue(graph.isAncestor("p2", "leaf"));
+        assertFalse(graph.isAncestor("p1", "p2"));
+        // the first parent is followed
+        assertEquals(Arrays.asList("shared", "p1"), graph.getAncestors("leaf"));
+        assertEquals(Arrays.asList("shared@1", "leaf@2"), walk(graph, "p2", 10, null));
+    }
+
+    @Test
+    public void testCyclesEnd() {
+        final CategoryGraph graph = graph(new String[] {"x", "y", "z"}, "x", "y", "y", "z", "z", "x");
+
+        assertFalse(graph.isTree());
+        assertEquals(Arrays.asList("y", "z"), graph.getDescendantsBreadthFirst("x"));
+        assertEquals(2, graph.countDescendants("x"));
+        assertTrue(graph.isAncestor("z", "x"));
+        assertEquals(Arrays.asList("y@1", "z@2"), walk(graph, "x", 10, null));
+    }
+
+}
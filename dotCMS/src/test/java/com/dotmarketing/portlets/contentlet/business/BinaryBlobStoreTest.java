@@ -0,0 +1,176 @@
+package com.dotmarketing.portlets.contentlet.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dotcms.UnitTestBase;
+import com.liferay.util.FileUtil;
+
+public class BinaryBlobStoreTest extends UnitTestBase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File blobsDir;
+    private BinaryBlobStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        // link counts are only reported by unix file systems
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("unix"));
+        blobsDir = folder.newFolder("blobs");
+        store = new BinaryBlobStore(blobsDir, true);
+    }
+
+    private File upload(final String content) throws IOException {
+        final File file = new File(folder.newFolder(), "upload.pdf");
+        write(file, content);
+        return file;
+    }
+
+    private File inodeFile(final String inode) {
+        return new File(folder.getRoot(), "assets/" + inode + "/fileAsset/report.pdf");
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static int links(final File file) throws IOException {
+        return (Integer) Files.getAttribute(file.toPath(), "unix:nlink");
+    }
+
+    private List<File> blobs() {
+        final List<File> blobs = new ArrayList<>();
+        final File[] prefixes = blobsDir.listFiles();
+        if (prefixes != null) {
+            for (File prefix : prefixes) {
+                for (File blob : prefix.listFiles()) {
+                    blobs.add(blob);
+                }
+            }
+        }
+        return blobs;
+    }
+
+    @Test
+    public void testSameContentIsStoredOnce() throws Exception {
+        store.store(upload("binary"), inodeFile("inode-1"));
+        store.store(upload("binary"), inodeFile("inode-2"));
+
+        assertEquals(1, blobs().size());
+        assertEquals(3, links(blobs().get(0)));
+        assertEquals("binary", read(inodeFile("inode-2")));
+    }
+
+    @Test
+    public void testStoreReturnsTheHashTheBlobIsNamedBy() throws Exception {
+        final String hash = store.store(upload("binary"), inodeFile("inode-1"));
+
+        assertEquals(hash, blobs().get(0).getName());
+        assertEquals(hash, BinaryBlobStore.hash(upload("binary")));
+        assertEquals(hash, store.store(upload("binary"), inodeFile("inode-2")));
+    }
+
+    @Test
+    public void testBlobsAreReadOnly() throws Exception {
+        store.store(upload("binary"), inodeFile("inode-1"));
+
+        // checked on the permissions, root can write anything
+        final File blob = blobs().get(0);
+        assertFalse(Files.getPosixFilePermissions(blob.toPath()).contains(PosixFilePermission.OWNER_WRITE));
+        assertFalse(Files.getPosixFilePermissions(inodeFile("inode-1").toPath()).contains(PosixFilePermission.OWNER_WRITE));
+    }
+
+    @Test
+    public void testChangedBlobIsNotLinkedAgain() throws Exception {
+        store.store(upload("binary"), inodeFile("inode-1"));
+        // a writer that did not unlink the file changes the blob, keeping its size
+        final File blob = blobs().get(0);
+        blob.setWritable(true);
+        write(inodeFile("inode-1"), "BINARY");
+
+        store.store(upload("binary"), inodeFile("inode-2"));
+
+        assertEquals("binary", read(inodeFile("inode-2")));
+        assertEquals("BINARY", read(inodeFile("inode-1")));
+        assertEquals(1, blobs().size());
+        assertEquals(1, links(inodeFile("inode-1")));
+    }
+
+    @Test
+    public void testStoringOverALinkLeavesTheOtherContentAlone() throws Exception {
+        store.store(upload("binary"), inodeFile("inode-1"));
+        store.store(upload("binary"), inodeFile("inode-2"));
+
+        store.store(upload("new binary"), inodeFile("inode-2"));
+
+        assertEquals("binary", read(inodeFile("inode-1")));
+        assertEquals("new binary", read(inodeFile("inode-2")));
+        assertEquals(2, blobs().size());
+    }
+
+    @Test
+    public void testCopyOverALinkLeavesTheOtherContentAlone() throws Exception {
+        store.store(upload("binary"), inodeFile("inode-1"));
+        store.store(upload("binary"), inodeFile("inode-2"));
+
+        FileUtil.copyFile(upload("edited"), inodeFile("inode-2"), false);
+
+        assertEquals("binary", read(inodeFile("inode-1")));
+        assertEquals("edited", read(inodeFile("inode-2")));
+        assertEquals("binary", read(blobs().get(0)));
+    }
+
+    @Test
+    public void testUnreferencedBlobsAreDeleted() throws Exception {
+        store.store(upload("kept"), inodeFile("inode-1"));
+        store.store(upload("released"), inodeFile("inode-2"));
+        assertTrue(inodeFile("inode-2").delete());
+
+        // blobs stored after the date are left alone
+        assertEquals(0, store.deleteUnreferenced(new Date(0)));
+        assertEquals(2, blobs().size());
+
+        assertEquals(1, store.deleteUnreferenced(new Date(System.currentTimeMillis() + 60000)));
+        assertEquals(1, blobs().size());
+        assertEquals("kept", read(blobs().get(0)));
+    }
+
+    @Test
+    public void testWithoutLinkCountsBinariesAreCopied() throws Exception {
+        final BinaryBlobStore copies = new BinaryBlobStore(blobsDir, false);
+
+        copies.store(upload("binary"), inodeFile("inode-1"));
+        copies.store(upload("binary"), inodeFile("inode-2"));
+
+        assertNull(copies.store(upload("binary"), inodeFile("inode-3")));
+        assertTrue(blobs().isEmpty());
+        assertEquals("binary", read(inodeFile("inode-1")));
+        assertEquals("binary", read(inodeFile("inode-2")));
+        assertEquals(0, copies.deleteUnreferenced(new Date(System.currentTimeMillis() + 60000)));
+    }
+
+}
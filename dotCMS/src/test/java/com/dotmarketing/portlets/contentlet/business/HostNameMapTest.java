@@ -0,0 +1,148 @@
+package com.dotmarketing.portlets.contentlet.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotmarketing.beans.Host;
+import com.dotmarketing.business.DotCacheAdministrator;
+
+public class HostNameMapTest extends UnitTestBase {
+
+    private HostAPI hostAPI;
+
+    @Before
+    public void setUp() {
+        hostAPI = mock(HostAPI.class);
+    }
+
+    private Host host(String identifier, String hostname, boolean isDefault, String... aliases) {
+        Host host = mock(Host.class);
+        when(host.getIdentifier()).thenReturn(identifier);
+        when(host.getHostname()).thenReturn(hostname);
+        when(host.isDefault()).thenReturn(isDefault);
+        when(hostAPI.parseHostAliases(host)).thenReturn(Arrays.asList(aliases));
+        return host;
+    }
+
+    @Test
+    public void testResolvesNamesAndAliases() {
+        List<Host> hosts = Arrays.asList(
+                host("default", "demo.dotcms.com", true, "localhost"),
+                host("shop", "shop.dotcms.com", false, "store.dotcms.com", "Tienda.dotcms.com"));
+        HostNameMap map = new HostNameMap(hosts, hostAPI);
+
+        assertEquals("default", map.resolve("demo.dotcms.com"));
+        assertEquals("default", map.resolve("localhost"));
+        assertEquals("shop", map.resolve("shop.dotcms.com"));
+        assertEquals("shop", map.resolve("store.dotcms.com"));
+        // names and aliases are not case sensitive
+        assertEquals("shop", map.resolve("SHOP.dotcms.com"));
+        assertEquals("shop", map.resolve("tienda.dotcms.com"));
+
+        assertNull(map.resolve("unknown.dotcms.com"));
+        assertNull(map.resolve(null));
+        assertEquals(5, map.size());
+    }
+
+    @Test
+    public void testHostNamesWinOverAliases() {
+        List<Host> hosts = Arrays.asList(
+                host("default", "demo.dotcms.com", true, "shop.dotcms.com"),
+                host("shop", "shop.dotcms.com", false));
+        HostNameMap map = new HostNameMap(hosts, hostAPI);
+
+        assertEquals("shop", map.resolve("shop.dotcms.com"));
+    }
+
+    @Test
+    public void testDefaultHostWinsASharedAlias() {
+        List<Host> hosts = Arrays.asList(
+                host("blog", "blog.dotcms.com", false, "www.dotcms.com"),
+                host("default", "demo.dotcms.com", true, "www.dotcms.com"),
+                host("shop", "shop.dotcms.com", false, "www.dotcms.com"));
+        HostNameMap map = new HostNameMap(hosts, hostAPI);
+
+        assertEquals("default", map.resolve("www.dotcms.com"));
+    }
+
+    @Test
+    public void testWildcardAliases() {
+        List<Host> hosts = Arrays.asList(
+                host("default", "demo.dotcms.com", true, "*.dotcms.com"),
+                host("eu", "eu.example.com", false, "*.eu.dotcms.com"));
+        HostNameMap map = new HostNameMap(hosts, hostAPI);
+
+        assertEquals("default", map.resolve("anything.dotcms.com"));
+        assertEquals("default", map.resolve("a.b.dotcms.com"));
+        // the most specific wildcard wins
+        assertEquals("eu", map.resolve("shop.eu.dotcms.com"));
+        assertEquals("eu", map.resolve("a.shop.eu.dotcms.com"));
+        // exact names are checked before the wildcards
+        assertEquals("default", map.resolve("demo.dotcms.com"));
+        // a wildcard does not match the bare domain
+        assertNull(map.resolve("dotcms.com"));
+        assertNull(map.resolve("dotcms.org"));
+    }
+
+    @Test
+    public void testMapIsDroppedWhenTheAliasesAreCleared() {
+        HostCacheImpl hostCache = new HostCacheImpl(inMemoryCacheAdministrator());
+        HostNameMap map = new HostNameMap(Collections.singletonList(host("default", "demo.dotcms.com", true)), hostAPI);
+
+        hostCache.setHostNameMap(map);
+        assertNotNull(hostCache.getHostNameMap());
+
+        // what any host save, publish or delete does
+        hostCache.clearAliasCache();
+        assertNull(hostCache.getHostNameMap());
+
+        hostCache.setHostNameMap(map);
+        hostCache.remove(host("shop", "shop.dotcms.com", false));
+        assertNull(hostCache.getHostNameMap());
+    }
+
+    /**
+     * A cache administrator that keeps the entries in a map, by group.
+     */
+    private static DotCacheAdministrator inMemoryCacheAdministrator() {
+        final Map<String, Map<String, Object>> groups = new HashMap<>();
+        DotCacheAdministrator cache = mock(DotCacheAdministrator.class);
+        try {
+            doAnswer(invocation -> {
+                Object[] args = invocation.getArguments();
+                groups.computeIfAbsent((String) args[2], group -> new HashMap<>()).put((String) args[0], args[1]);
+                return null;
+            }).when(cache).put(anyString(), any(), anyString());
+            doAnswer(invocation -> {
+                Object[] args = invocation.getArguments();
+                return groups.getOrDefault((String) args[1], Collections.emptyMap()).get(args[0]);
+            }).when(cache).get(anyString(), anyString());
+            doAnswer(invocation -> {
+                Object[] args = invocation.getArguments();
+                groups.getOrDefault((String) args[1], new HashMap<>()).remove(args[0]);
+                return null;
+            }).when(cache).remove(anyString(), anyString());
+            doAnswer(invocation -> groups.remove(invocation.getArguments()[0])).when(cache).flushGroup(anyString());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return cache;
+    }
+
+}
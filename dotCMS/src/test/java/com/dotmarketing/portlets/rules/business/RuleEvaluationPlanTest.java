@@ -0,0 +1,126 @@
+package com.dotmarketing.portlets.rules.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotcms.repackage.com.google.common.cache.Cache;
+import com.dotcms.repackage.com.google.common.cache.CacheBuilder;
+import com.dotmarketing.portlets.rules.exception.RuleEngineException;
+import com.dotmarketing.portlets.rules.model.Condition;
+import com.dotmarketing.portlets.rules.model.ConditionGroup;
+import com.dotmarketing.portlets.rules.model.Rule;
+import com.dotmarketing.portlets.rules.model.RuleAction;
+
+public class RuleEvaluationPlanTest extends UnitTestBase {
+
+    private Cache<String, RuleEvaluationPlan.CompiledRule> compiledRules;
+
+    @Before
+    public void setUp() {
+        compiledRules = CacheBuilder.newBuilder().maximumSize(100).build();
+    }
+
+    private static Rule rule(String id, long modDate) {
+        Rule rule = mock(Rule.class);
+        when(rule.getId()).thenReturn(id);
+        when(rule.getModDate()).thenReturn(new Date(modDate));
+        when(rule.getGroups()).thenReturn(Collections.<ConditionGroup>emptyList());
+        when(rule.getRuleActions()).thenReturn(Collections.<RuleAction>emptyList());
+        return rule;
+    }
+
+    private static Set<Rule> rules(Rule... rules) {
+        Set<Rule> set = new LinkedHashSet<>();
+        Collections.addAll(set, rules);
+        return set;
+    }
+
+    @Test
+    public void testCopiesOfTheSameVersionAreCompiledOnce() {
+        Rule rule = rule("rule-1", 1000);
+        // what a serializing cache provider hands back on the next request
+        Rule copy = rule("rule-1", 1000);
+
+        RuleEvaluationPlan first = RuleEvaluationPlan.compile(rules(rule), compiledRules);
+        RuleEvaluationPlan second = RuleEvaluationPlan.compile(rules(copy), compiledRules);
+
+        verify(rule, times(1)).checkValid();
+        verify(copy, never()).checkValid();
+        assertSame(first.getRules().get(0), second.getRules().get(0));
+        assertEquals(1, compiledRules.size());
+    }
+
+    @Test
+    public void testNewVersionIsCompiledAgain() {
+        Rule rule = rule("rule-1", 1000);
+        Rule saved = rule("rule-1", 2000);
+
+        RuleEvaluationPlan.compile(rules(rule), compiledRules);
+        RuleEvaluationPlan plan = RuleEvaluationPlan.compile(rules(saved), compiledRules);
+
+        verify(saved, times(1)).checkValid();
+        assertSame(saved, plan.getRules().get(0).getRule());
+    }
+
+    @Test
+    public void testVersionKeyChangesWithTheConditions() {
+        Condition condition = mock(Condition.class);
+        when(condition.getId()).thenReturn("condition-1");
+        when(condition.getModDate()).thenReturn(new Date(1000));
+        ConditionGroup group = mock(ConditionGroup.class);
+        when(group.getId()).thenReturn("group-1");
+        when(group.getConditions()).thenReturn(Collections.singletonList(condition));
+
+        Rule rule = rule("rule-1", 1000);
+        when(rule.getGroups()).thenReturn(Collections.singletonList(group));
+        String before = RuleEvaluationPlan.versionKey(rule);
+
+        // a condition is saved, the rule keeps its mod date
+        when(condition.getModDate()).thenReturn(new Date(2000));
+
+        assertNotEquals(before, RuleEvaluationPlan.versionKey(rule));
+    }
+
+    @Test
+    public void testInvalidRulesAreLeftOutAndNotValidatedAgain() {
+        Rule valid = rule("rule-1", 1000);
+        Rule invalid = rule("rule-2", 1000);
+        doThrow(new RuleEngineException("invalid rule")).when(invalid).checkValid();
+
+        RuleEvaluationPlan.compile(rules(valid, invalid), compiledRules);
+        RuleEvaluationPlan plan = RuleEvaluationPlan.compile(rules(valid, invalid), compiledRules);
+
+        assertEquals(1, plan.getRules().size());
+        assertSame(valid, plan.getRules().get(0).getRule());
+        verify(invalid, times(1)).checkValid();
+    }
+
+    @Test
+    public void testOldVersionsAreEvicted() {
+        Cache<String, RuleEvaluationPlan.CompiledRule> bounded = CacheBuilder.newBuilder().maximumSize(2).build();
+
+        for (int version = 0; version < 10; version++) {
+            RuleEvaluationPlan.compile(rules(rule("rule-1", version)), bounded);
+        }
+
+        assertTrue(bounded.size() <= 2);
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.dotmarketing.startup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotmarketing.exception.DotRuntimeException;
+
+public class StartupStepsTest extends UnitTestBase {
+
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger closed = new AtomicInteger();
+
+    private StartupSteps steps(final int threads) {
+        return new StartupSteps("test", threads, closed::incrementAndGet);
+    }
+
+    private StartupSteps.Step step(final String name) {
+        return () -> ran.add(name);
+    }
+
+    @Test
+    public void testStepsRunAfterTheirDependencies() throws Exception {
+        final StartupSteps steps = steps(4);
+        final CountDownLatch slowStarted = new CountDownLatch(1);
+        final CountDownLatch fastDone = new CountDownLatch(1);
+
+        steps.add("slow", () -> {
+            slowStarted.countDown();
+            // only ends once the independent step ran at the same time
+            assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+            ran.add("slow");
+        });
+        steps.add("fast", () -> {
+            assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+            ran.add("fast");
+            fastDone.countDown();
+        });
+        steps.add("afterSlow", step("afterSlow"), "slow");
+        steps.add("afterBoth", step("afterBoth"), "afterSlow", "fast");
+        steps.await();
+
+        assertEquals(Arrays.asList("fast", "slow", "afterSlow", "afterBoth"), ran);
+        // the session of the pool thread is closed after every step
+        assertEquals(4, closed.get());
+    }
+
+    @Test
+    public void testFailureIsThrownByAwaitAndStopsTheStepsDependingOnIt() throws Exception {
+        final StartupSteps steps = steps(4);
+
+        steps.add("broken", () -> {
+            throw new IllegalStateException("boom");
+        });
+        steps.add("dependent", step("dependent"), "broken");
+        steps.add("independent", step("independent"));
+
+        try {
+            steps.await();
+            fail("The failure of the step should be thrown");
+        } catch (DotRuntimeException e) {
+            assertTrue(e.getMessage().contains("broken"));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals("boom", e.getCause().getMessage());
+        }
+        assertEquals(Collections.singletonList("independent"), ran);
+    }
+
+    @Test
+    public void testOneThreadRunsTheStepsInOrderInTheCallingThread() throws Exception {
+        final StartupSteps steps = steps(1);
+        final Thread caller = Thread.currentThread();
+
+        steps.add("first", () -> {
+            assertTrue(caller == Thread.currentThread());
+            ran.add("first");
+        });
+        // each step is done by the time it is added
+        assertEquals(Collections.singletonList("first"), ran);
+        steps.add("second", step("second"));
+        steps.add("third", step("third"), "first");
+        steps.await();
+
+        assertEquals(Arrays.asList("first", "second", "third"), ran);
+        assertEquals(0, closed.get());
+    }
+
+    @Test
+    public void testOneThreadStopsAtTheFirstFailure() throws Exception {
+        final StartupSteps steps = steps(1);
+
+        steps.add("first", step("first"));
+        steps.add("broken", () -> {
+            throw new Exception("boom");
+        });
+        steps.add("third", step("third"));
+
+        try {
+            steps.await();
+            fail("The failure of the step should be thrown");
+        } catch (DotRuntimeException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        assertEquals(Collections.singletonList("first"), ran);
+    }
+
+    @Test
+    public void testDependenciesHaveToBeAddedFirst() throws Exception {
+        final StartupSteps steps = steps(1);
+
+        try {
+            steps.add("vanityUrls", step("vanityUrls"), "index");
+            fail("A step can only depend on the steps added before it");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("index"));
+        }
+        steps.await();
+        assertFalse(ran.contains("vanityUrls"));
+    }
+
+}
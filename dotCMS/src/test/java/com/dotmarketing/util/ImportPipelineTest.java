@@ -0,0 +1,126 @@
+package com.dotmarketing.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotmarketing.exception.DotDataException;
+
+public class ImportPipelineTest extends UnitTestBase {
+
+    private final List<Integer> imported = Collections.synchronizedList(new ArrayList<Integer>());
+
+    private static ImportPipeline.Line line(final int lineNumber, final String partitionKey) {
+        return new ImportPipeline.Line(lineNumber, new String[] {"value " + lineNumber}, "value " + lineNumber, 1,
+                false, partitionKey, null);
+    }
+
+    /**
+     * @return the worker threads of the import still running
+     */
+    private static int runningWorkers(final long importId) {
+        int running = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith("ContentImport-" + importId + "-")) {
+                running++;
+            }
+        }
+        return running;
+    }
+
+    @Test
+    public void testWorkerFailureIsThrownToTheReaderAndStopsTheWorkers() throws Exception {
+        final IllegalStateException error = new IllegalStateException("boom");
+        final ImportPipeline pipeline = new ImportPipeline(1L, 2, false, line -> {
+            if (line.getLineNumber() == 1) {
+                throw error;
+            }
+            imported.add(line.getLineNumber());
+        }, new ImportProgress("dotcms.org.1"));
+
+        try {
+            pipeline.start();
+            final long timeout = System.currentTimeMillis() + 5000;
+            int lineNumber = 0;
+            while (System.currentTimeMillis() < timeout) {
+                pipeline.submit(line(++lineNumber, null));
+                Thread.sleep(1);
+            }
+            fail("The failure of the worker should be thrown to the thread reading the file");
+        } catch (DotDataException e) {
+            assertTrue(e.getCause() == error);
+        } finally {
+            pipeline.close();
+        }
+
+        assertEquals(0, runningWorkers(1L));
+        // the line that failed was never imported
+        assertTrue(!imported.contains(1));
+    }
+
+    @Test
+    public void testReaderFailureStopsTheWorkersAndDropsTheQueuedLines() throws Exception {
+        final CountDownLatch importing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ImportPipeline pipeline = new ImportPipeline(2L, 2, false, line -> {
+            if (line.getLineNumber() == 1) {
+                importing.countDown();
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            }
+            imported.add(line.getLineNumber());
+        }, new ImportProgress("dotcms.org.1"));
+
+        final Thread closer = new Thread(pipeline::close);
+        try {
+            pipeline.start();
+            // all the lines have the same key, so they wait behind the first one
+            for (int lineNumber = 1; lineNumber <= 5; lineNumber++) {
+                pipeline.submit(line(lineNumber, "same key"));
+            }
+            assertTrue(importing.await(5, TimeUnit.SECONDS));
+            throw new IOException("Unable to read the next line");
+        } catch (IOException e) {
+            // what ImportUtil does when reading the file fails
+            closer.start();
+        }
+
+        // the first line is let go once the import is stopped
+        while (closer.getState() == Thread.State.NEW || closer.getState() == Thread.State.RUNNABLE) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        closer.join(5000);
+
+        assertEquals(0, runningWorkers(2L));
+        assertEquals(Collections.singletonList(1), imported);
+    }
+
+    @Test
+    public void testCloseAfterFinishDoesNothing() throws Exception {
+        final ImportPipeline pipeline = new ImportPipeline(3L, 2, false, line -> imported.add(line.getLineNumber()),
+                new ImportProgress("dotcms.org.1"));
+
+        try {
+            pipeline.start();
+            pipeline.submit(line(1, "key"));
+            pipeline.submit(line(2, "key"));
+            pipeline.finish();
+        } finally {
+            pipeline.close();
+        }
+
+        assertEquals(0, runningWorkers(3L));
+        assertEquals(2, imported.size());
+    }
+
+}
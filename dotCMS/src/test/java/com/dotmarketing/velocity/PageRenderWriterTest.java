@@ -0,0 +1,56 @@
+package com.dotmarketing.velocity;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+
+public class PageRenderWriterTest extends UnitTestBase {
+
+    @Test
+    public void testTrimsLikeStringTrim() throws Exception {
+        final String[] chunks = {"  \n\t", "   ", "<html>", "  ", " <body> hello  ", "\n\n", "</body></html>", "\n  ", " \n"};
+        final StringBuilder page = new StringBuilder();
+
+        final StringWriter response = new StringWriter();
+        final PageRenderWriter writer = new PageRenderWriter(response, true);
+        for (String chunk : chunks) {
+            page.append(chunk);
+            writer.write(chunk);
+        }
+
+        final String expected = page.toString().trim();
+        assertEquals(expected, writer.getContent());
+        writer.close();
+        assertEquals(expected, response.toString());
+    }
+
+    @Test
+    public void testRetainsContentAcrossSegments() throws Exception {
+        final StringBuilder page = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            page.append("<div>").append(i).append("</div>\n");
+        }
+
+        final PageRenderWriter writer = new PageRenderWriter(null, true);
+        writer.write(page.toString().toCharArray());
+        writer.write('x');
+        writer.write("  ");
+
+        final String expected = page.toString() + "x";
+        assertEquals(expected, writer.getContent());
+        assertEquals(expected.length(), writer.getLength());
+        writer.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testContentNotRetained() throws Exception {
+        final PageRenderWriter writer = new PageRenderWriter(new StringWriter(), false);
+        writer.write("page");
+        writer.getContent();
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.dotmarketing.velocity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.velocity.runtime.parser.node.SimpleNode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dotcms.UnitTestBase;
+import com.dotmarketing.business.cache.provider.CacheProviderStats;
+import com.dotmarketing.business.cache.provider.CacheStats;
+import com.dotmarketing.velocity.ParsedTemplateStore.ParsedTemplate;
+
+public class ParsedTemplateStoreTest extends UnitTestBase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger parses = new AtomicInteger();
+
+    private ParsedTemplateStore newStore(final boolean persist, final File directory) {
+        return new ParsedTemplateStore(100, persist, directory, (source, templateName) -> {
+            parses.incrementAndGet();
+            return new SimpleNode(0);
+        }, Runnable::run);
+    }
+
+    @Test
+    public void testSameSourceIsParsedOnce() throws Exception {
+        final ParsedTemplateStore store = newStore(false, folder.getRoot());
+
+        final ParsedTemplate first = store.parse(new StringReader("<h1>$title</h1>"), "live/1.container");
+        first.setInitialized();
+        final ParsedTemplate second = store.parse(new StringReader("<h1>$title</h1>"), "live/1.container");
+
+        assertSame(first, second);
+        assertTrue(second.isInitialized());
+        assertEquals(1, parses.get());
+        assertEquals(1, store.getParseCount());
+        assertEquals(1, store.getHitCount());
+    }
+
+    @Test
+    public void testChangedSourceIsParsedAgain() throws Exception {
+        final ParsedTemplateStore store = newStore(false, folder.getRoot());
+
+        final ParsedTemplate first = store.parse(new StringReader("<h1>$title</h1>"), "live/1.container");
+        final ParsedTemplate second = store.parse(new StringReader("<h2>$title</h2>"), "live/1.container");
+        // same source, another template
+        final ParsedTemplate third = store.parse(new StringReader("<h1>$title</h1>"), "live/2.container");
+
+        assertNotSame(first.getData(), second.getData());
+        assertNotSame(first.getData(), third.getData());
+        assertEquals(3, parses.get());
+        assertEquals(0, store.getHitCount());
+    }
+
+    @Test
+    public void testSourcesWithMacrosAreAlwaysParsed() throws Exception {
+        final ParsedTemplateStore store = newStore(false, folder.getRoot());
+
+        final String source = "#macro(title $t)<h1>$t</h1>#end #title('hello')";
+        store.parse(new StringReader(source), "live/1.content");
+        store.parse(new StringReader(source), "live/1.content");
+
+        assertEquals(2, parses.get());
+        assertEquals(0, store.getSize());
+    }
+
+    @Test
+    public void testPersistedSourcesAreParsedOnStartup() throws Exception {
+        final File directory = folder.newFolder("parsed");
+        newStore(true, directory).parse(new StringReader("<h1>$title</h1>"), "live/1.container");
+        assertEquals(1, directory.listFiles().length);
+
+        // a restart, the source is parsed while warming up and not on the first request
+        parses.set(0);
+        final ParsedTemplateStore restarted = newStore(true, directory);
+        assertEquals(1, parses.get());
+        assertEquals(1, restarted.getWarmedUpCount());
+
+        final ParsedTemplate parsed = restarted.parse(new StringReader("<h1>$title</h1>"), "live/1.container");
+        assertFalse(parsed.isInitialized());
+        assertEquals(1, parses.get());
+        assertEquals(1, restarted.getHitCount());
+
+        // a stored source that no longer matches is parsed again
+        restarted.parse(new StringReader("<h1>$name</h1>"), "live/1.container");
+        assertEquals(2, parses.get());
+    }
+
+    @Test
+    public void testNothingIsWrittenUnlessPersistIsOn() throws Exception {
+        final File directory = folder.newFolder("parsed");
+        newStore(false, directory).parse(new StringReader("<h1>$title</h1>"), "live/1.container");
+
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void testStats() throws Exception {
+        final ParsedTemplateStore store = newStore(false, folder.getRoot());
+        store.parse(new StringReader("<h1>$title</h1>"), "live/1.container");
+        store.parse(new StringReader("<h1>$title</h1>"), "live/1.container");
+
+        final CacheProviderStats providerStats = store.getStats();
+        assertEquals(1, providerStats.getStats().size());
+
+        final CacheStats stats = providerStats.getStats().get(0);
+        assertEquals("1", stats.getStatValue(CacheStats.REGION_SIZE));
+        assertEquals("1", stats.getStatValue(CacheStats.REGION_LOAD));
+        assertEquals("1", stats.getStatValue(CacheStats.REGION_HITS));
+    }
+
+}
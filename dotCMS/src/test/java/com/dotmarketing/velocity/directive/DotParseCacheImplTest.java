@@ -0,0 +1,120 @@
+package com.dotmarketing.velocity.directive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotmarketing.business.DotCacheAdministrator;
+
+public class DotParseCacheImplTest extends UnitTestBase {
+
+  private static final String HOST = "host-1";
+  private static final String USER = "dotcms.org.1";
+
+  private final DotParseResource resource = new DotParseResource("identifier-1", "inode-1", "/application/", "/tmp/file.vtl");
+
+  private DotCacheAdministrator cacheAdministrator;
+  private DotParseCache cache;
+
+  /**
+   * A cache administrator that keeps the entries of every group in a map.
+   */
+  static DotCacheAdministrator inMemoryCacheAdministrator() throws Exception {
+    final Map<String, Object> entries = new ConcurrentHashMap<>();
+    final DotCacheAdministrator cacheAdministrator = mock(DotCacheAdministrator.class);
+    when(cacheAdministrator.get(anyString(), anyString())).thenAnswer(invocation ->
+        entries.get(invocation.getArguments()[1] + ":" + invocation.getArguments()[0]));
+    doAnswer(invocation -> {
+      entries.put(invocation.getArguments()[2] + ":" + invocation.getArguments()[0], invocation.getArguments()[1]);
+      return null;
+    }).when(cacheAdministrator).put(anyString(), any(), anyString());
+    doAnswer(invocation -> {
+      entries.remove(invocation.getArguments()[1] + ":" + invocation.getArguments()[0]);
+      return null;
+    }).when(cacheAdministrator).remove(anyString(), anyString());
+    doAnswer(invocation -> {
+      entries.keySet().removeIf(key -> key.startsWith(invocation.getArguments()[0] + ":"));
+      return null;
+    }).when(cacheAdministrator).flushGroup(anyString());
+    return cacheAdministrator;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    cacheAdministrator = inMemoryCacheAdministrator();
+    cache = new DotParseCacheImpl(cacheAdministrator);
+  }
+
+  @Test
+  public void testResolvedResourceIsKeptUntilAFolderOfTheHostChanges() {
+    cache.add(HOST, "/application/file.vtl", 1, true, resource);
+    cache.add("host-2", "/application/file.vtl", 1, true, resource);
+    assertEquals(resource, cache.get(HOST, "/Application/File.vtl", 1, true));
+    assertNull(cache.get(HOST, "/application/file.vtl", 1, false));
+    assertNull(cache.get(HOST, "/application/file.vtl", 2, true));
+
+    // a folder of the host is renamed
+    cache.removeHost(HOST);
+
+    assertNull(cache.get(HOST, "/application/file.vtl", 1, true));
+    assertEquals(resource, cache.get("host-2", "/application/file.vtl", 1, true));
+    cache.add(HOST, "/application/file.vtl", 1, true, resource);
+    assertEquals(resource, cache.get(HOST, "/application/file.vtl", 1, true));
+  }
+
+  @Test
+  public void testPermissionChangeOnlyDropsTheChecksOnThatPermissionable() {
+    final String stamp = cache.getPermissionStamp("identifier-1", USER);
+    final String otherStamp = cache.getPermissionStamp("identifier-2", USER);
+    cache.addReadPermission("inode-1", USER, true, stamp, true);
+    cache.addReadPermission("inode-2", USER, true, otherStamp, false);
+
+    cache.removePermissions("identifier-1");
+
+    assertNotEquals(stamp, cache.getPermissionStamp("identifier-1", USER));
+    assertNull(cache.getReadPermission("inode-1", USER, true, cache.getPermissionStamp("identifier-1", USER)));
+    assertEquals(otherStamp, cache.getPermissionStamp("identifier-2", USER));
+    assertEquals(Boolean.FALSE, cache.getReadPermission("inode-2", USER, true, otherStamp));
+    // nothing is flushed
+    verify(cacheAdministrator, never()).flushGroup(anyString());
+  }
+
+  @Test
+  public void testRoleChangeOnlyDropsTheChecksOfThatUser() {
+    final String stamp = cache.getPermissionStamp("identifier-1", USER);
+    final String otherStamp = cache.getPermissionStamp("identifier-1", "anonymous");
+    cache.addReadPermission("inode-1", USER, true, stamp, true);
+    cache.addReadPermission("inode-1", "anonymous", true, otherStamp, true);
+
+    cache.removeUserRoles(USER);
+
+    assertNull(cache.getReadPermission("inode-1", USER, true, cache.getPermissionStamp("identifier-1", USER)));
+    assertEquals(Boolean.TRUE, cache.getReadPermission("inode-1", "anonymous", true,
+        cache.getPermissionStamp("identifier-1", "anonymous")));
+  }
+
+  @Test
+  public void testCheckAddedWithAStampTakenBeforeAChangeIsIgnored() {
+    // the permission is being checked when the permissions change
+    final String stamp = cache.getPermissionStamp("identifier-1", USER);
+    cache.removePermissions("identifier-1");
+    cache.addReadPermission("inode-1", USER, true, stamp, true);
+
+    assertNull(cache.getReadPermission("inode-1", USER, true, cache.getPermissionStamp("identifier-1", USER)));
+  }
+
+}
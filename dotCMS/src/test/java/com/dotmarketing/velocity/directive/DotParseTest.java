@@ -0,0 +1,131 @@
+package com.dotmarketing.velocity.directive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dotcms.UnitTestBase;
+import com.dotmarketing.business.PermissionAPI;
+import com.dotmarketing.business.UserAPI;
+import com.dotmarketing.exception.DotSecurityException;
+import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.liferay.portal.model.User;
+
+public class DotParseTest extends UnitTestBase {
+
+  private static final String INODE = "inode-1";
+
+  private final DotParseResource resource = new DotParseResource("identifier-1", INODE, "/application/", "/tmp/file.vtl");
+
+  private DotParseCache cache;
+  private ContentletAPI contentletAPI;
+  private PermissionAPI permissionAPI;
+  private User systemUser;
+  private User user;
+  private Contentlet contentlet;
+  private DotParse dotParse;
+
+  @Before
+  public void setUp() throws Exception {
+    cache = new DotParseCacheImpl(DotParseCacheImplTest.inMemoryCacheAdministrator());
+    contentletAPI = mock(ContentletAPI.class);
+    permissionAPI = mock(PermissionAPI.class);
+    final UserAPI userAPI = mock(UserAPI.class);
+
+    systemUser = mock(User.class);
+    when(userAPI.getSystemUser()).thenReturn(systemUser);
+    user = mock(User.class);
+    when(user.getUserId()).thenReturn("dotcms.org.1");
+
+    contentlet = new Contentlet();
+    when(contentletAPI.find(INODE, systemUser, false)).thenReturn(contentlet);
+
+    dotParse = new DotParse(cache, contentletAPI, permissionAPI, userAPI);
+  }
+
+  @Test
+  public void testPermissionIsCheckedOncePerUserAndVersion() throws Exception {
+    when(permissionAPI.doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, true)).thenReturn(true);
+
+    dotParse.checkReadPermission(resource, user, true);
+    dotParse.checkReadPermission(resource, user, true);
+    dotParse.checkReadPermission(resource, user, true);
+
+    verify(contentletAPI, times(1)).find(INODE, systemUser, false);
+    verify(permissionAPI, times(1)).doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, true);
+    assertEquals(Boolean.TRUE, cache.getReadPermission(INODE, "dotcms.org.1", true,
+        cache.getPermissionStamp("identifier-1", "dotcms.org.1")));
+  }
+
+  @Test
+  public void testDeniedPermissionIsCachedToo() throws Exception {
+    when(permissionAPI.doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, null, true)).thenReturn(false);
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        dotParse.checkReadPermission(resource, null, true);
+        fail("anonymous users can't read the resource");
+      } catch (DotSecurityException e) {
+        // expected
+      }
+    }
+
+    verify(permissionAPI, times(1)).doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, null, true);
+  }
+
+  @Test
+  public void testPermissionIsCheckedAgainAfterPermissionsChange() throws Exception {
+    when(permissionAPI.doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, false)).thenReturn(true);
+    dotParse.checkReadPermission(resource, user, false);
+
+    // the permissions of the file are changed
+    cache.removePermissions("identifier-1");
+    when(permissionAPI.doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, false)).thenReturn(false);
+
+    try {
+      dotParse.checkReadPermission(resource, user, false);
+      fail("the user can no longer read the resource");
+    } catch (DotSecurityException e) {
+      // expected
+    }
+    verify(permissionAPI, times(2)).doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, false);
+  }
+
+  @Test
+  public void testLiveAndWorkingAreCheckedSeparately() throws Exception {
+    when(permissionAPI.doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, true)).thenReturn(true);
+    when(permissionAPI.doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, false)).thenReturn(true);
+
+    dotParse.checkReadPermission(resource, user, true);
+    dotParse.checkReadPermission(resource, user, false);
+
+    verify(permissionAPI, times(1)).doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, true);
+    verify(permissionAPI, times(1)).doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, false);
+  }
+
+  @Test
+  public void testPermissionIsCheckedAgainAfterTheRolesOfTheUserChange() throws Exception {
+    when(permissionAPI.doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, true)).thenReturn(false);
+    try {
+      dotParse.checkReadPermission(resource, user, true);
+      fail("the user can't read the resource yet");
+    } catch (DotSecurityException e) {
+      // expected
+    }
+
+    // the user is given a role that can read the file
+    cache.removeUserRoles("dotcms.org.1");
+    when(permissionAPI.doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, true)).thenReturn(true);
+
+    dotParse.checkReadPermission(resource, user, true);
+    verify(permissionAPI, times(2)).doesUserHavePermission(contentlet, PermissionAPI.PERMISSION_READ, user, true);
+  }
+
+}